@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.grpc.server;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import dagger.grpc.server.ProxyServerCallHandler.ServiceFactory;
+import dagger.internal.ResettableComponent;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A {@link ServiceFactory} that reuses call-scoped components across calls instead of creating a
+ * new one for each call.
+ *
+ * <p>Generated proxy modules use a pool when {@link GrpcService#callScopePoolSize()} is positive.
+ * Each pooled component must be {@linkplain ResettableComponent resettable}, which Dagger generates
+ * when the component's scope is listed in the {@code -Adagger.resettableScopes} compiler option.
+ *
+ * <p>A component is released when its call's listener gets {@link Listener#onComplete()}: its
+ * scoped instances are forgotten and it is returned to the pool for a later call. Objects from a
+ * call-scoped component must therefore not be used after the call has completed, for example by
+ * work the call started asynchronously. A component whose call is {@linkplain Listener#onCancel()
+ * cancelled} is dropped instead, since the call's handler may keep using it until it notices the
+ * cancellation.
+ *
+ * @param <C> the type of the call-scoped component
+ */
+public final class CallScopedComponentPool<C> implements ServiceFactory {
+
+  /** Creates the pool's call-scoped components and gets call handlers from them. */
+  public interface ComponentFactory<C> {
+    /** Returns a new call-scoped component that binds the headers from {@code metadataModule}. */
+    C create(GrpcCallMetadataModule metadataModule);
+
+    /** Returns {@code component}'s handler for the method named {@code fullMethodName}. */
+    ServerCallHandler<?, ?> getCallHandler(C component, String fullMethodName);
+  }
+
+  private final ComponentFactory<C> componentFactory;
+  private final BlockingQueue<PooledComponent<C>> idleComponents;
+
+  /**
+   * Creates a pool that keeps at most {@code maxIdleComponents} released components. Components
+   * released when the pool is full are dropped.
+   */
+  public CallScopedComponentPool(int maxIdleComponents, ComponentFactory<C> componentFactory) {
+    checkArgument(
+        maxIdleComponents > 0, "maxIdleComponents must be positive: %s", maxIdleComponents);
+    this.componentFactory = checkNotNull(componentFactory);
+    this.idleComponents = new ArrayBlockingQueue<>(maxIdleComponents);
+  }
+
+  @Override
+  public ServerCallHandler<?, ?> getCallHandler(Metadata headers, String fullMethodName) {
+    PooledComponent<C> pooled = idleComponents.poll();
+    if (pooled == null) {
+      pooled = new PooledComponent<>(componentFactory, headers);
+    } else {
+      pooled.metadataModule.setHeaders(headers);
+    }
+    return releasing(componentFactory.getCallHandler(pooled.component, fullMethodName), pooled);
+  }
+
+  private <RequestT, ResponseT> ServerCallHandler<RequestT, ResponseT> releasing(
+      final ServerCallHandler<RequestT, ResponseT> callHandler, final PooledComponent<C> pooled) {
+    return new ServerCallHandler<RequestT, ResponseT>() {
+      @Override
+      public Listener<RequestT> startCall(ServerCall<RequestT, ResponseT> call, Metadata headers) {
+        return new SimpleForwardingServerCallListener<RequestT>(
+            callHandler.startCall(call, headers)) {
+          @Override
+          public void onComplete() {
+            try {
+              super.onComplete();
+            } finally {
+              release(pooled);
+            }
+          }
+
+        };
+      }
+    };
+  }
+
+  private void release(PooledComponent<C> pooled) {
+    ((ResettableComponent) pooled.component).resetScope();
+    idleComponents.offer(pooled);
+  }
+
+  /** A call-scoped component and the module that supplies its current call's headers. */
+  private static final class PooledComponent<C> {
+    final GrpcCallMetadataModule metadataModule;
+    final C component;
+
+    PooledComponent(ComponentFactory<C> componentFactory, Metadata headers) {
+      this.metadataModule = new GrpcCallMetadataModule(headers);
+      this.component = componentFactory.create(metadataModule);
+      checkState(
+          component instanceof ResettableComponent,
+          "%s cannot be pooled because it is not resettable. Compile it with "
+              + "-Adagger.resettableScopes=%s, or set callScopePoolSize to 0.",
+          component.getClass().getName(),
+          CallScoped.class.getCanonicalName());
+    }
+  }
+}
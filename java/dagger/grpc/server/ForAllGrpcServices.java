@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.grpc.server;
+
+import java.lang.annotation.Documented;
+import javax.inject.Qualifier;
+
+/**
+ * Qualifies the set of {@code io.grpc.ServerInterceptor}s that the proxy modules generated by
+ * {@link GrpcService} apply to every service. They intercept each call before the service's own
+ * {@link ForGrpcService @ForGrpcService} interceptors do.
+ *
+ * <p>Contribute to the set in the {@link javax.inject.Singleton @Singleton} server component, with
+ * {@link dagger.multibindings.IntoSet @IntoSet}.
+ */
+@Documented
+@Qualifier
+public @interface ForAllGrpcServices {}
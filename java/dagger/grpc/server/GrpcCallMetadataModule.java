@@ -27,12 +27,19 @@ import io.grpc.Metadata;
  */
 @Module
 public final class GrpcCallMetadataModule {
-  private final Metadata metadata;
+  private volatile Metadata metadata;
 
   public GrpcCallMetadataModule(Metadata metadata) {
     this.metadata = checkNotNull(metadata);
   }
 
+  /**
+   * Replaces the headers provided to a reused component; see {@link CallScopedComponentPool}.
+   */
+  void setHeaders(Metadata metadata) {
+    this.metadata = checkNotNull(metadata);
+  }
+
   @Provides
   Metadata provideHeaders() {
     return metadata;
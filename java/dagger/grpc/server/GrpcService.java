@@ -51,4 +51,16 @@ import java.lang.annotation.Target;
 public @interface GrpcService {
   /** The class that gRPC generates from the proto service definition. */
   Class<?> grpcClass();
+
+  /**
+   * The number of released {@link CallScoped @CallScoped} components the generated proxy keeps
+   * for later calls. The default, {@code 0}, creates a new component for every call.
+   *
+   * <p>A positive value makes {@code FooGrpcProxyModule} reuse components through a {@code
+   * dagger.grpc.server.CallScopedComponentPool}. The subcomponent must then be compiled with
+   * {@code -Adagger.resettableScopes=dagger.grpc.server.CallScoped}, so that each component's
+   * call-scoped instances can be forgotten when its call completes. Call-scoped objects must not
+   * be used after their call completes. Components of cancelled calls are not reused.
+   */
+  int callScopePoolSize() default 0;
 }
@@ -16,6 +16,8 @@
 
 package dagger.grpc.server;
 
+import com.google.common.base.Optional;
+import dagger.BindsOptionalOf;
 import dagger.Module;
 import dagger.Provides;
 import io.grpc.Server;
@@ -28,8 +30,19 @@ import javax.inject.Singleton;
 /**
  * Installing this module into a {@link Singleton @Singleton} component means the component can
  * provide a {@linkplain NettyServerBuilder Netty}-based {@link Server}.
+ *
+ * <p>To configure the server's event loops, executor or flow control, also bind {@link
+ * NettyServerOptions} in the component. For example, a service that never blocks can run on the
+ * event loop threads:
+ *
+ * <pre><code>
+ * {@literal @Provides}
+ * static NettyServerOptions nettyServerOptions() {
+ *   return NettyServerOptions.builder().directExecutor().build();
+ * }
+ * </code></pre>
  */
-@Module(includes = ServerModule.class)
+@Module(includes = {ServerModule.class, NettyServerModule.OptionsModule.class})
 public final class NettyServerModule {
 
   private final SocketAddress socketAddress;
@@ -53,7 +66,14 @@ public final class NettyServerModule {
   }
 
   @Provides
-  ServerBuilder<?> serverBuilder() {
-    return NettyServerBuilder.forAddress(socketAddress);
+  ServerBuilder<?> serverBuilder(Optional<NettyServerOptions> options) {
+    NettyServerBuilder serverBuilder = NettyServerBuilder.forAddress(socketAddress);
+    return options.isPresent() ? options.get().configure(serverBuilder) : serverBuilder;
+  }
+
+  @Module
+  abstract static class OptionsModule {
+    @BindsOptionalOf
+    abstract NettyServerOptions nettyServerOptions();
   }
 }
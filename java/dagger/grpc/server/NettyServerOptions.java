@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.grpc.server;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import dagger.internal.VirtualThreads;
+import io.grpc.netty.NettyServerBuilder;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Options for the server that {@link NettyServerModule} provides: its event loops, the executor
+ * that runs calls, and flow control. Bind an instance in the server component to use them.
+ *
+ * <p>Event loop groups set here are not shut down with the server. Whoever creates them shuts them
+ * down once the server has terminated.
+ */
+public final class NettyServerOptions {
+  private static final String EPOLL_PACKAGE = "io.netty.channel.epoll.";
+
+  private final EventLoopGroup bossEventLoopGroup;
+  private final EventLoopGroup workerEventLoopGroup;
+  private final Class<? extends ServerChannel> channelType;
+  private final Executor executor;
+  private final boolean directExecutor;
+  private final int flowControlWindow;
+
+  private NettyServerOptions(Builder builder) {
+    this.bossEventLoopGroup = builder.bossEventLoopGroup;
+    this.workerEventLoopGroup = builder.workerEventLoopGroup;
+    this.channelType = builder.channelType;
+    this.executor = builder.executor;
+    this.directExecutor = builder.directExecutor;
+    this.flowControlWindow = builder.flowControlWindow;
+  }
+
+  /** Returns a builder whose options are all gRPC's defaults. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns {@code true} if Netty's native epoll transport is on the classpath and can be used on
+   * this machine.
+   */
+  public static boolean isEpollAvailable() {
+    try {
+      return (Boolean) Class.forName(EPOLL_PACKAGE + "Epoll").getMethod("isAvailable").invoke(null);
+    } catch (ClassNotFoundException e) {
+      return false;
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns a new epoll event loop group of {@code threads} daemon threads, or Netty's default
+   * number of threads if {@code threads} is zero, for {@link Builder#epoll}. The caller must shut
+   * it down once the server that uses it has terminated.
+   *
+   * @throws IllegalStateException if epoll {@linkplain #isEpollAvailable() is not available}
+   */
+  public static EventLoopGroup newEpollEventLoopGroup(int threads) {
+    checkArgument(threads >= 0, "threads must not be negative: %s", threads);
+    // The epoll transport is optional, so it is loaded reflectively.
+    try {
+      return (EventLoopGroup)
+          Class.forName(EPOLL_PACKAGE + "EpollEventLoopGroup")
+              .getConstructor(int.class, ThreadFactory.class)
+              .newInstance(threads, new DefaultThreadFactory("dagger-grpc-epoll", true));
+    } catch (InvocationTargetException e) {
+      throw new IllegalStateException(e.getCause());
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Applies these options to {@code builder}, and returns it. */
+  public NettyServerBuilder configure(NettyServerBuilder builder) {
+    if (bossEventLoopGroup != null) {
+      builder.bossEventLoopGroup(bossEventLoopGroup);
+    }
+    if (workerEventLoopGroup != null) {
+      builder.workerEventLoopGroup(workerEventLoopGroup);
+    }
+    if (channelType != null) {
+      builder.channelType(channelType);
+    }
+    if (directExecutor) {
+      builder.directExecutor();
+    } else if (executor != null) {
+      builder.executor(executor);
+    }
+    if (flowControlWindow > 0) {
+      builder.flowControlWindow(flowControlWindow);
+    }
+    return builder;
+  }
+
+  /** A builder for {@link NettyServerOptions}. */
+  public static final class Builder {
+    private EventLoopGroup bossEventLoopGroup;
+    private EventLoopGroup workerEventLoopGroup;
+    private Class<? extends ServerChannel> channelType;
+    private Executor executor;
+    private boolean directExecutor;
+    private int flowControlWindow;
+
+    private Builder() {}
+
+    /** Sets the event loop group that accepts connections. */
+    public Builder bossEventLoopGroup(EventLoopGroup bossEventLoopGroup) {
+      this.bossEventLoopGroup = checkNotNull(bossEventLoopGroup);
+      return this;
+    }
+
+    /** Sets the event loop group that reads and writes connections. */
+    public Builder workerEventLoopGroup(EventLoopGroup workerEventLoopGroup) {
+      this.workerEventLoopGroup = checkNotNull(workerEventLoopGroup);
+      return this;
+    }
+
+    /** Sets the type of the server channel, which must match the event loop groups. */
+    public Builder channelType(Class<? extends ServerChannel> channelType) {
+      this.channelType = checkNotNull(channelType);
+      return this;
+    }
+
+    /**
+     * Uses Netty's native epoll transport, with the given event loop groups from {@link
+     * #newEpollEventLoopGroup}. The groups are not shut down with the server.
+     */
+    public Builder epoll(EventLoopGroup bossEventLoopGroup, EventLoopGroup workerEventLoopGroup) {
+      return bossEventLoopGroup(bossEventLoopGroup)
+          .workerEventLoopGroup(workerEventLoopGroup)
+          .channelType(epollServerChannelType());
+    }
+
+    /**
+     * Sets the executor that runs calls to the services. Otherwise, gRPC runs them on a shared
+     * cached thread pool.
+     */
+    public Builder executor(Executor executor) {
+      this.executor = checkNotNull(executor);
+      this.directExecutor = false;
+      return this;
+    }
+
+    /**
+     * Runs calls to the services on a new virtual thread for each task on JDK 21 or later, or on a
+     * shared pool of daemon threads on older JDKs. This suits services that block.
+     */
+    public Builder virtualThreadExecutor() {
+      return executor(VirtualThreadExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * Runs calls to the services on the event loop threads that read them. This avoids a thread
+     * hand-off for every message, but only suits services that never block.
+     */
+    public Builder directExecutor() {
+      this.executor = null;
+      this.directExecutor = true;
+      return this;
+    }
+
+    /** Sets the HTTP/2 flow control window of each stream, in bytes. */
+    public Builder flowControlWindow(int flowControlWindow) {
+      checkArgument(
+          flowControlWindow > 0, "flowControlWindow must be positive: %s", flowControlWindow);
+      this.flowControlWindow = flowControlWindow;
+      return this;
+    }
+
+    /** Returns the options. */
+    public NettyServerOptions build() {
+      return new NettyServerOptions(this);
+    }
+  }
+
+  /** Holds the executor for {@link Builder#virtualThreadExecutor()}, which is never shut down. */
+  private static final class VirtualThreadExecutorHolder {
+    static final ExecutorService EXECUTOR = newVirtualThreadExecutor();
+  }
+
+  private static ExecutorService newVirtualThreadExecutor() {
+    ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+    return executor != null
+        ? executor
+        : Executors.newCachedThreadPool(new DefaultThreadFactory("dagger-grpc-executor", true));
+  }
+
+  private static Class<? extends ServerChannel> epollServerChannelType() {
+    try {
+      return Class.forName(EPOLL_PACKAGE + "EpollServerSocketChannel")
+          .asSubclass(ServerChannel.class);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
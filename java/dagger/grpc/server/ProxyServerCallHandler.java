@@ -16,20 +16,31 @@
 
 package dagger.grpc.server;
 
+import io.grpc.Attributes;
+import io.grpc.BindableService;
 import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
 import io.grpc.MethodDescriptor.Marshaller;
 import io.grpc.ServerCall;
 import io.grpc.ServerCall.Listener;
 import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
 import io.grpc.ServerMethodDefinition;
 import io.grpc.ServerServiceDefinition;
 import io.grpc.Status;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * A {@link ServerCallHandler} that handles calls for a particular method by delegating to a handler
- * in a {@link ServerServiceDefinition} returned by a factory.
+ * for that method in a service returned by a factory.
+ *
+ * <p>The proxy method's marshallers pass the transport's {@link InputStream}s through unchanged, so
+ * the delegate method's marshallers see the streams that gRPC created. Those streams implement
+ * {@link io.grpc.KnownLength} and, for responses from protobuf marshallers, {@link
+ * io.grpc.Drainable}, which lets gRPC size and write each message without another copy.
  *
  * @param <RequestT> the type of the request payloads
  * @param <ResponseT> the type of the response payloads
@@ -37,10 +48,23 @@ import java.io.InputStream;
 public final class ProxyServerCallHandler<RequestT, ResponseT>
     implements ServerCallHandler<InputStream, InputStream> {
 
+  /** A factory for the call-scoped services that {@link ProxyServerCallHandler}s delegate to. */
+  public interface ServiceFactory {
+    /**
+     * Returns the handler for the method named {@code fullMethodName} in a service created for a
+     * call with {@code headers}. Implementations should create only what that call needs, usually
+     * by calling {@link ProxyServerCallHandler#callHandler(BindableService, String, List)}.
+     */
+    ServerCallHandler<?, ?> getCallHandler(Metadata headers, String fullMethodName);
+  }
+
   /**
    * A factory for the {@link ServerServiceDefinition} that a {@link ProxyServerCallHandler}
    * delegates to.
+   *
+   * @deprecated Use {@link ServiceFactory}, which doesn't need a service definition for each call
    */
+  @Deprecated
   public interface ServiceDefinitionFactory {
     /**
      * Returns a service definition that contains a {@link ServerCallHandler} for the
@@ -50,57 +74,136 @@ public final class ProxyServerCallHandler<RequestT, ResponseT>
   }
 
   private final MethodDescriptor<RequestT, ResponseT> delegateMethodDescriptor;
-  private final ServiceDefinitionFactory delegateServiceDefinitionFactory;
+  private final String fullMethodName;
+  private final ServiceFactory delegateServiceFactory;
 
   /**
    * Returns a proxy method definition for {@code methodDescriptor}.
    *
-   * @param delegateServiceDefinitionFactory factory for the delegate service definition
+   * @param delegateServiceFactory factory for the handlers of the delegate service
    */
   public static <RequestT, ResponseT> ServerMethodDefinition<InputStream, InputStream> proxyMethod(
       MethodDescriptor<RequestT, ResponseT> delegateMethodDescriptor,
-      ServiceDefinitionFactory delegateServiceDefinitionFactory) {
+      ServiceFactory delegateServiceFactory) {
     return ServerMethodDefinition.create(
         MethodDescriptor.create(
             delegateMethodDescriptor.getType(),
             delegateMethodDescriptor.getFullMethodName(),
-            IDENTITY_MARSHALLER,
-            IDENTITY_MARSHALLER),
-        new ProxyServerCallHandler<>(delegateMethodDescriptor, delegateServiceDefinitionFactory));
+            PASSTHROUGH_MARSHALLER,
+            PASSTHROUGH_MARSHALLER),
+        new ProxyServerCallHandler<>(delegateMethodDescriptor, delegateServiceFactory));
+  }
+
+  /**
+   * Returns a proxy method definition for {@code methodDescriptor}.
+   *
+   * @param delegateServiceDefinitionFactory factory for the delegate service definition
+   * @deprecated Use {@link #proxyMethod(MethodDescriptor, ServiceFactory)}
+   */
+  @Deprecated
+  public static <RequestT, ResponseT> ServerMethodDefinition<InputStream, InputStream> proxyMethod(
+      MethodDescriptor<RequestT, ResponseT> delegateMethodDescriptor,
+      final ServiceDefinitionFactory delegateServiceDefinitionFactory) {
+    return proxyMethod(
+        delegateMethodDescriptor,
+        new ServiceFactory() {
+          @Override
+          public ServerCallHandler<?, ?> getCallHandler(Metadata headers, String fullMethodName) {
+            return methodDefinition(
+                    delegateServiceDefinitionFactory.getServiceDefinition(headers), fullMethodName)
+                .getServerCallHandler();
+          }
+        });
+  }
+
+  /**
+   * Returns the handler for the method named {@code fullMethodName} in {@code service}, intercepted
+   * by {@code interceptors} in the same order as {@link ServerInterceptors#intercept(
+   * ServerServiceDefinition, List)}. Unlike intercepting the whole service, only the handler for
+   * that method is wrapped.
+   */
+  public static ServerCallHandler<?, ?> callHandler(
+      BindableService service,
+      String fullMethodName,
+      List<? extends ServerInterceptor> interceptors) {
+    return callHandler(
+        service, fullMethodName, interceptors, Collections.<ServerInterceptor>emptySet());
+  }
+
+  /**
+   * Returns the handler for the method named {@code fullMethodName} in {@code service}, intercepted
+   * by {@code interceptors} and then by {@code outerInterceptors}, each in the same order as {@link
+   * ServerInterceptors#intercept(ServerServiceDefinition, List)}. The outer interceptors, such as
+   * the {@link ForAllGrpcServices @ForAllGrpcServices} ones, see each call first.
+   */
+  public static ServerCallHandler<?, ?> callHandler(
+      BindableService service,
+      String fullMethodName,
+      List<? extends ServerInterceptor> interceptors,
+      Iterable<? extends ServerInterceptor> outerInterceptors) {
+    ServerCallHandler<?, ?> callHandler =
+        methodDefinition(service.bindService(), fullMethodName).getServerCallHandler();
+    for (ServerInterceptor interceptor : interceptors) {
+      callHandler = intercept(callHandler, interceptor);
+    }
+    for (ServerInterceptor interceptor : outerInterceptors) {
+      callHandler = intercept(callHandler, interceptor);
+    }
+    return callHandler;
+  }
+
+  private static ServerMethodDefinition<?, ?> methodDefinition(
+      ServerServiceDefinition serviceDefinition, String fullMethodName) {
+    ServerMethodDefinition<?, ?> methodDefinition = serviceDefinition.getMethod(fullMethodName);
+    if (methodDefinition == null) {
+      throw new IllegalStateException("Could not find " + fullMethodName);
+    }
+    return methodDefinition;
+  }
+
+  private static <ReqT, RespT> ServerCallHandler<ReqT, RespT> intercept(
+      final ServerCallHandler<ReqT, RespT> next, final ServerInterceptor interceptor) {
+    return new ServerCallHandler<ReqT, RespT>() {
+      @Override
+      public Listener<ReqT> startCall(ServerCall<ReqT, RespT> call, Metadata headers) {
+        return interceptor.interceptCall(call, headers, next);
+      }
+    };
   }
 
   ProxyServerCallHandler(
       MethodDescriptor<RequestT, ResponseT> delegateMethodDescriptor,
-      ServiceDefinitionFactory delegateServiceDefinitionFactory) {
+      ServiceFactory delegateServiceFactory) {
     this.delegateMethodDescriptor = delegateMethodDescriptor;
-    this.delegateServiceDefinitionFactory = delegateServiceDefinitionFactory;
+    this.fullMethodName = delegateMethodDescriptor.getFullMethodName();
+    this.delegateServiceFactory = delegateServiceFactory;
   }
 
   @Override
   public Listener<InputStream> startCall(
       ServerCall<InputStream, InputStream> call,
       Metadata headers) {
-    ServerMethodDefinition<RequestT, ResponseT> delegateMethod = getMethodDefinition(headers);
+    long startNanos = System.nanoTime();
+    ServerCallHandler<RequestT, ResponseT> callHandler = getCallHandler(headers);
     Listener<RequestT> delegateListener =
-        delegateMethod
-            .getServerCallHandler()
-            .startCall(new ServerCallAdapter(call, delegateMethod.getMethodDescriptor()), headers);
+        callHandler.startCall(
+            new ServerCallAdapter(call, delegateMethodDescriptor, startNanos, System.nanoTime()),
+            headers);
     return new ServerCallListenerAdapter(delegateListener);
   }
 
-  @SuppressWarnings("unchecked") // Method definition is the correct type.
-  private ServerMethodDefinition<RequestT, ResponseT> getMethodDefinition(Metadata headers) {
-    String fullMethodName = delegateMethodDescriptor.getFullMethodName();
-    for (ServerMethodDefinition<?, ?> methodDefinition :
-        delegateServiceDefinitionFactory.getServiceDefinition(headers).getMethods()) {
-      if (methodDefinition.getMethodDescriptor().getFullMethodName().equals(fullMethodName)) {
-        return (ServerMethodDefinition<RequestT, ResponseT>) methodDefinition;
-      }
-    }
-    throw new IllegalStateException("Could not find " + fullMethodName);
+  @SuppressWarnings("unchecked") // The handler is for the delegate method, so it has its types.
+  private ServerCallHandler<RequestT, ResponseT> getCallHandler(Metadata headers) {
+    return (ServerCallHandler<RequestT, ResponseT>)
+        delegateServiceFactory.getCallHandler(headers, fullMethodName);
   }
 
-  private static final Marshaller<InputStream> IDENTITY_MARSHALLER =
+  /**
+   * A marshaller that returns its argument. It must never wrap or buffer the stream: the delegate's
+   * marshallers check for gRPC's own stream types, such as {@link io.grpc.KnownLength}, {@link
+   * io.grpc.Drainable} and protobuf's lazily serialized streams, to avoid copying each message.
+   */
+  private static final Marshaller<InputStream> PASSTHROUGH_MARSHALLER =
       new Marshaller<InputStream>() {
         @Override
         public InputStream stream(InputStream value) {
@@ -141,6 +244,11 @@ public final class ProxyServerCallHandler<RequestT, ResponseT>
     public void onComplete() {
       delegate.onComplete();
     }
+
+    @Override
+    public void onReady() {
+      delegate.onReady();
+    }
   }
 
   /**
@@ -151,11 +259,28 @@ public final class ProxyServerCallHandler<RequestT, ResponseT>
 
     private final ServerCall<InputStream, InputStream> delegate;
     private final MethodDescriptor<RequestT, ResponseT> method;
+    private final long startNanos;
+    private final long callHandlerNanos;
 
     ServerCallAdapter(ServerCall<InputStream, InputStream> delegate,
-        MethodDescriptor<RequestT, ResponseT> method) {
+        MethodDescriptor<RequestT, ResponseT> method, long startNanos, long callHandlerNanos) {
       this.delegate = delegate;
       this.method = method;
+      this.startNanos = startNanos;
+      this.callHandlerNanos = callHandlerNanos;
+    }
+
+    /** Returns the {@link System#nanoTime()} at which the proxy started this call. */
+    long startNanos() {
+      return startNanos;
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} at which the proxy had the delegate's handler for this
+     * call.
+     */
+    long callHandlerNanos() {
+      return callHandlerNanos;
     }
 
     @Override
@@ -187,5 +312,25 @@ public final class ProxyServerCallHandler<RequestT, ResponseT>
     public boolean isCancelled() {
       return delegate.isCancelled();
     }
+
+    @Override
+    public boolean isReady() {
+      return delegate.isReady();
+    }
+
+    @Override
+    public void setMessageCompression(boolean enabled) {
+      delegate.setMessageCompression(enabled);
+    }
+
+    @Override
+    public void setCompression(String compressor) {
+      delegate.setCompression(compressor);
+    }
+
+    @Override
+    public Attributes getAttributes() {
+      return delegate.getAttributes();
+    }
   }
 }
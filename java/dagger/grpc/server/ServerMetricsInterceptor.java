@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.grpc.server;
+
+import dagger.grpc.server.ServerMetrics.MethodMetrics;
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * A {@link ServerInterceptor} that records each call in {@link ServerMetrics}.
+ *
+ * <p>Install {@link ServerMetricsModule} to apply it to every service. It then intercepts calls
+ * before each service's own interceptors, so the latencies it records include them. For services
+ * proxied by {@link ProxyServerCallHandler}, it also records the time spent creating each call's
+ * component.
+ */
+@Singleton
+public final class ServerMetricsInterceptor implements ServerInterceptor {
+  private final ServerMetrics metrics;
+
+  @Inject
+  ServerMetricsInterceptor(ServerMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public <RequestT, ResponseT> Listener<RequestT> interceptCall(
+      ServerCall<RequestT, ResponseT> call,
+      Metadata headers,
+      ServerCallHandler<RequestT, ResponseT> next) {
+    MethodMetrics methodMetrics =
+        metrics.metricsFor(call.getMethodDescriptor().getFullMethodName());
+    long startNanos;
+    if (call instanceof ProxyServerCallHandler.ServerCallAdapter) {
+      ProxyServerCallHandler<?, ?>.ServerCallAdapter proxiedCall =
+          (ProxyServerCallHandler<?, ?>.ServerCallAdapter) call;
+      startNanos = proxiedCall.startNanos();
+      methodMetrics.recordDaggerOverhead(proxiedCall.callHandlerNanos() - startNanos);
+    } else {
+      startNanos = System.nanoTime();
+    }
+    methodMetrics.callStarted();
+    MeteredCall<RequestT, ResponseT> meteredCall =
+        new MeteredCall<>(call, methodMetrics, startNanos);
+    Listener<RequestT> listener;
+    try {
+      listener = next.startCall(meteredCall, headers);
+    } catch (RuntimeException | Error e) {
+      meteredCall.finish(Status.Code.UNKNOWN);
+      throw e;
+    }
+    return new MeteredListener<>(listener, meteredCall);
+  }
+
+  /** A call that records its status and latency when it is closed. */
+  private static final class MeteredCall<RequestT, ResponseT>
+      extends SimpleForwardingServerCall<RequestT, ResponseT> {
+    @SuppressWarnings("rawtypes") // The updater's type can't have type arguments.
+    private static final AtomicIntegerFieldUpdater<MeteredCall> FINISHED =
+        AtomicIntegerFieldUpdater.newUpdater(MeteredCall.class, "finished");
+
+    private final MethodMetrics methodMetrics;
+    private final long startNanos;
+    private volatile int finished;
+
+    MeteredCall(
+        ServerCall<RequestT, ResponseT> delegate, MethodMetrics methodMetrics, long startNanos) {
+      super(delegate);
+      this.methodMetrics = methodMetrics;
+      this.startNanos = startNanos;
+    }
+
+    @Override
+    public void close(Status status, Metadata trailers) {
+      finish(status.getCode());
+      super.close(status, trailers);
+    }
+
+    /** Records the call as finished with {@code code}, unless it has already finished. */
+    void finish(Status.Code code) {
+      if (FINISHED.compareAndSet(this, 0, 1)) {
+        methodMetrics.callFinished(code, System.nanoTime() - startNanos);
+      }
+    }
+  }
+
+  /** A listener that records its call as cancelled if it is cancelled before it is closed. */
+  private static final class MeteredListener<RequestT>
+      extends SimpleForwardingServerCallListener<RequestT> {
+    private final MeteredCall<RequestT, ?> meteredCall;
+
+    MeteredListener(Listener<RequestT> delegate, MeteredCall<RequestT, ?> meteredCall) {
+      super(delegate);
+      this.meteredCall = meteredCall;
+    }
+
+    @Override
+    public void onCancel() {
+      meteredCall.finish(Status.Code.CANCELLED);
+      super.onCancel();
+    }
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.grpc.server;
+
+import dagger.Binds;
+import dagger.Module;
+import dagger.multibindings.IntoSet;
+import io.grpc.ServerInterceptor;
+
+/**
+ * Records every call to the server's {@link GrpcService}s in {@link ServerMetrics}, by contributing
+ * {@link ServerMetricsInterceptor} to the {@link ForAllGrpcServices @ForAllGrpcServices}
+ * interceptors.
+ *
+ * <p>Install this module in the {@link javax.inject.Singleton @Singleton} server component.
+ */
+@Module
+public abstract class ServerMetricsModule {
+  private ServerMetricsModule() {}
+
+  @Binds
+  @IntoSet
+  @ForAllGrpcServices
+  abstract ServerInterceptor serverMetricsInterceptor(ServerMetricsInterceptor interceptor);
+}
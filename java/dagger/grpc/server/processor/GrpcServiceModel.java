@@ -46,6 +46,7 @@ import javax.tools.Diagnostic.Kind;
 class GrpcServiceModel {
 
   private static final String GRPC_SERVICE_PARAMETER_NAME = "grpcClass";
+  private static final String CALL_SCOPE_POOL_SIZE_PARAMETER_NAME = "callScopePoolSize";
 
   private final Types types;
   private final Elements elements;
@@ -88,6 +89,15 @@ class GrpcServiceModel {
   }
 
   public boolean validate() {
+    if (callScopePoolSize() < 0) {
+      messager.printMessage(
+          Kind.ERROR,
+          "callScopePoolSize must not be negative",
+          serviceImplementation,
+          grpcServiceAnnotation(),
+          getAnnotationValue(grpcServiceAnnotation(), CALL_SCOPE_POOL_SIZE_PARAMETER_NAME));
+      return false;
+    }
     AnnotationValue argument =
         getAnnotationValue(grpcServiceAnnotation(), GRPC_SERVICE_PARAMETER_NAME);
     return argument.accept(
@@ -111,6 +121,13 @@ class GrpcServiceModel {
     return GET_TYPE_ELEMENT_FROM_VALUE.visit(argument, argument);
   }
 
+  /** Returns the value of {@link GrpcService#callScopePoolSize()}. */
+  protected final int callScopePoolSize() {
+    return (Integer)
+        getAnnotationValue(grpcServiceAnnotation(), CALL_SCOPE_POOL_SIZE_PARAMETER_NAME)
+            .getValue();
+  }
+
   /**
    * Returns the annotation spec for the {@code @Generated} annotation to add to any
    * type generated by this processor.
@@ -139,6 +156,14 @@ class GrpcServiceModel {
     return UPPER_CAMEL.to(LOWER_CAMEL, simpleServiceName()) + "ServiceDefinition";
   }
 
+  protected final String subcomponentServiceImplementationMethodName() {
+    return UPPER_CAMEL.to(LOWER_CAMEL, simpleServiceName()) + "ServiceImplementation";
+  }
+
+  protected final String subcomponentServiceInterceptorsMethodName() {
+    return UPPER_CAMEL.to(LOWER_CAMEL, simpleServiceName()) + "ServiceInterceptors";
+  }
+
   private String simpleServiceName() {
     return grpcClass().getSimpleName().toString().replaceFirst("Grpc$", "");
   }
@@ -18,19 +18,14 @@ package dagger.grpc.server.processor;
 
 import static com.squareup.javapoet.MethodSpec.methodBuilder;
 import static com.squareup.javapoet.TypeSpec.classBuilder;
-import static com.squareup.javapoet.WildcardTypeName.subtypeOf;
 import static javax.lang.model.element.Modifier.FINAL;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
 
-import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
-import com.squareup.javapoet.ParameterizedTypeName;
-import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import dagger.grpc.server.GrpcService;
-import java.util.List;
 
 /**
  * An object that generates the non-proxying service definition module for a {@link
@@ -38,9 +33,6 @@ import java.util.List;
  */
 final class GrpcServiceModuleGenerator extends SourceGenerator {
 
-  private static final TypeName LIST_OF_INTERCEPTORS = ParameterizedTypeName.get(
-      ClassName.get(List.class), subtypeOf(IoGrpc.SERVER_INTERCEPTOR));
-  
   private final GrpcServiceModel grpcServiceModel;
 
   GrpcServiceModuleGenerator(GrpcServiceModel grpcServiceModel) {
@@ -63,6 +55,7 @@ final class GrpcServiceModuleGenerator extends SourceGenerator {
         .addAnnotation(Dagger.module())
         .addModifiers(PUBLIC, FINAL)
         .addMethod(provideServiceDefinition())
+        .addMethod(provideServiceImplementation())
         .build();
   }
 
@@ -78,7 +71,7 @@ final class GrpcServiceModuleGenerator extends SourceGenerator {
         .returns(IoGrpc.SERVER_SERVICE_DEFINITION)
         .addParameter(grpcServiceModel.serviceImplementationClassName, "implementation")
         .addParameter(
-            ParameterSpec.builder(LIST_OF_INTERCEPTORS, "interceptors")
+            ParameterSpec.builder(IoGrpc.LIST_OF_SERVER_INTERCEPTORS, "interceptors")
                 .addAnnotation(grpcServiceModel.forGrpcService())
                 .build())
         .addStatement(
@@ -87,4 +80,19 @@ final class GrpcServiceModuleGenerator extends SourceGenerator {
             "return $T.intercept(serviceDefinition, interceptors)", IoGrpc.SERVER_INTERCEPTORS)
         .build();
   }
+
+  /**
+   * Returns the {@link dagger.Provides @Provides} method for the service implementation as an
+   * {@link io.grpc.BindableService}, which the proxy uses to get the handler for one method.
+   */
+  private MethodSpec provideServiceImplementation() {
+    return methodBuilder("serviceImplementation")
+        .addAnnotation(Dagger.provides())
+        .addAnnotation(grpcServiceModel.forGrpcService())
+        .addModifiers(STATIC)
+        .returns(IoGrpc.BINDABLE_SERVICE)
+        .addParameter(grpcServiceModel.serviceImplementationClassName, "implementation")
+        .addStatement("return implementation")
+        .build();
+  }
 }
@@ -18,22 +18,29 @@ package dagger.grpc.server.processor;
 
 import static com.google.auto.common.MoreElements.hasModifiers;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.squareup.javapoet.MethodSpec.constructorBuilder;
 import static com.squareup.javapoet.MethodSpec.methodBuilder;
 import static com.squareup.javapoet.TypeSpec.anonymousClassBuilder;
 import static com.squareup.javapoet.TypeSpec.classBuilder;
+import static com.squareup.javapoet.WildcardTypeName.subtypeOf;
+import static javax.lang.model.element.Modifier.ABSTRACT;
 import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
 import static javax.lang.model.util.ElementFilter.fieldsIn;
 import static javax.lang.model.util.ElementFilter.methodsIn;
 
 import com.google.common.collect.ImmutableList;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import dagger.grpc.server.ForAllGrpcServices;
 import dagger.grpc.server.GrpcService;
 import java.util.List;
 import java.util.function.Function;
@@ -48,6 +55,10 @@ import javax.lang.model.type.TypeMirror;
  */
 final class ProxyModuleGenerator extends SourceGenerator {
 
+  private static final TypeName SERVER_CALL_HANDLER =
+      ParameterizedTypeName.get(
+          IoGrpc.SERVER_CALL_HANDLER, subtypeOf(Object.class), subtypeOf(Object.class));
+
   private final GrpcServiceModel grpcServiceModel;
 
   ProxyModuleGenerator(GrpcServiceModel grpcServiceModel) {
@@ -59,18 +70,37 @@ final class ProxyModuleGenerator extends SourceGenerator {
   protected TypeSpec createType() {
     TypeSpec.Builder proxyModule =
         classBuilder(grpcServiceModel.proxyModuleName)
-            .addModifiers(PUBLIC, FINAL)
+            .addModifiers(PUBLIC, ABSTRACT)
             .addJavadoc(
                 "Install this module in the {@link $T @Singleton} server component.\n",
                 JavaxInject.singleton().type);
     grpcServiceModel.generatedAnnotation().ifPresent(proxyModule::addAnnotation);
     return proxyModule
         .addAnnotation(Dagger.module())
+        .addMethod(constructorBuilder().addModifiers(PRIVATE).build())
+        .addMethod(declareAllServicesInterceptors())
         .addMethod(provideServiceDefinitionContribution())
-        .addMethod(provideServiceDefinitionFactory())
+        .addMethod(provideServiceFactory())
         .build();
   }
 
+  /**
+   * Returns the {@link dagger.multibindings.Multibinds @Multibinds} method that declares the
+   * {@link ForAllGrpcServices @ForAllGrpcServices} interceptors, so that they may be empty.
+   */
+  private MethodSpec declareAllServicesInterceptors() {
+    return methodBuilder("allServicesInterceptors")
+        .addAnnotation(Dagger.multibinds())
+        .addAnnotation(forAllGrpcServices())
+        .addModifiers(ABSTRACT)
+        .returns(IoGrpc.SET_OF_SERVER_INTERCEPTORS)
+        .build();
+  }
+
+  private static AnnotationSpec forAllGrpcServices() {
+    return AnnotationSpec.builder(ForAllGrpcServices.class).build();
+  }
+
   /**
    * Returns the {@link dagger.Provides @Provides} method for the proxying {@link
    * io.grpc.ServerServiceDefinition}.
@@ -84,8 +114,7 @@ final class ProxyModuleGenerator extends SourceGenerator {
             .addModifiers(STATIC)
             .returns(IoGrpc.SERVER_SERVICE_DEFINITION)
             .addParameter(
-                ParameterSpec.builder(
-                        Dagger.GrpcServer.SERVICE_DEFINITION_FACTORY, "serviceDefinitionFactory")
+                ParameterSpec.builder(Dagger.GrpcServer.SERVICE_FACTORY, "serviceFactory")
                     .addAnnotation(grpcServiceModel.forGrpcService())
                     .build())
             .addCode(
@@ -94,7 +123,7 @@ final class ProxyModuleGenerator extends SourceGenerator {
                 grpcServiceModel.grpcClass());
     for (CodeBlock methodDescriptor : methodDescriptors()) {
       method.addCode(
-          ".addMethod($T.proxyMethod($L, serviceDefinitionFactory))",
+          ".addMethod($T.proxyMethod($L, serviceFactory))",
           Dagger.GrpcServer.PROXY_SERVER_CALL_HANDLER,
           methodDescriptor);
     }
@@ -144,37 +173,99 @@ final class ProxyModuleGenerator extends SourceGenerator {
 
   /**
    * Returns the {@link dagger.Provides @Provides} method for the {@link
-   * dagger.grpc.server.ProxyServerCallHandler.ServiceDefinitionFactory} used by the proxy.
+   * dagger.grpc.server.ProxyServerCallHandler.ServiceFactory} used by the proxy.
    */
-  private MethodSpec provideServiceDefinitionFactory() {
-    return methodBuilder("serviceDefinitionFactory")
+  private MethodSpec provideServiceFactory() {
+    return methodBuilder("serviceFactory")
         .addAnnotation(Dagger.provides())
         .addAnnotation(grpcServiceModel.forGrpcService())
         .addModifiers(STATIC)
-        .returns(Dagger.GrpcServer.SERVICE_DEFINITION_FACTORY)
+        .returns(Dagger.GrpcServer.SERVICE_FACTORY)
         .addParameter(grpcServiceModel.serviceDefinitionTypeFactoryName, "factory", FINAL)
-        .addStatement("return $L", anonymousServiceDefinitionFactory())
+        .addParameter(
+            ParameterSpec.builder(IoGrpc.SET_OF_SERVER_INTERCEPTORS, "allServicesInterceptors")
+                .addAnnotation(forAllGrpcServices())
+                .addModifiers(FINAL)
+                .build())
+        .addStatement(
+            "return $L",
+            grpcServiceModel.callScopePoolSize() > 0
+                ? pooledServiceFactory()
+                : anonymousServiceFactory())
         .build();
   }
 
   /**
    * Returns the anonymous inner class that implements the {@link
-   * dagger.grpc.server.ProxyServerCallHandler.ServiceDefinitionFactory} used by the proxy.
+   * dagger.grpc.server.ProxyServerCallHandler.ServiceFactory} used by the proxy. For each call, it
+   * creates the call-scoped component and asks it only for the service implementation and its
+   * interceptors, and then intercepts only the handler for the called method.
    */
-  private TypeSpec anonymousServiceDefinitionFactory() {
+  private TypeSpec anonymousServiceFactory() {
     return anonymousClassBuilder("")
-        .addSuperinterface(Dagger.GrpcServer.SERVICE_DEFINITION_FACTORY)
+        .addSuperinterface(Dagger.GrpcServer.SERVICE_FACTORY)
         .addMethod(
-            methodBuilder("getServiceDefinition")
+            methodBuilder("getCallHandler")
                 .addAnnotation(Override.class)
                 .addModifiers(PUBLIC)
-                .returns(IoGrpc.SERVER_SERVICE_DEFINITION)
+                .returns(SERVER_CALL_HANDLER)
                 .addParameter(IoGrpc.METADATA, "headers")
+                .addParameter(String.class, "fullMethodName")
                 .addStatement(
-                    "return factory.grpcService(new $T(headers)).$N()",
-                    Dagger.GrpcServer.GRPC_CALL_METADATA_MODULE,
-                    grpcServiceModel.subcomponentServiceDefinitionMethodName())
+                    "$T component = factory.grpcService(new $T(headers))",
+                    grpcServiceModel.serviceDefinitionTypeName,
+                    Dagger.GrpcServer.GRPC_CALL_METADATA_MODULE)
+                .addCode(returnCallHandler())
                 .build())
         .build();
   }
+
+  /**
+   * Returns the {@link dagger.grpc.server.CallScopedComponentPool} used by the proxy when {@link
+   * GrpcService#callScopePoolSize()} is positive. It creates call-scoped components the same way as
+   * {@link #anonymousServiceFactory()}, but reuses each one after its call has completed.
+   */
+  private CodeBlock pooledServiceFactory() {
+    ClassName component = grpcServiceModel.serviceDefinitionTypeName;
+    TypeSpec componentFactory =
+        anonymousClassBuilder("")
+            .addSuperinterface(
+                ParameterizedTypeName.get(Dagger.GrpcServer.COMPONENT_FACTORY, component))
+            .addMethod(
+                methodBuilder("create")
+                    .addAnnotation(Override.class)
+                    .addModifiers(PUBLIC)
+                    .returns(component)
+                    .addParameter(Dagger.GrpcServer.GRPC_CALL_METADATA_MODULE, "metadataModule")
+                    .addStatement("return factory.grpcService(metadataModule)")
+                    .build())
+            .addMethod(
+                methodBuilder("getCallHandler")
+                    .addAnnotation(Override.class)
+                    .addModifiers(PUBLIC)
+                    .returns(SERVER_CALL_HANDLER)
+                    .addParameter(component, "component")
+                    .addParameter(String.class, "fullMethodName")
+                    .addCode(returnCallHandler())
+                    .build())
+            .build();
+    return CodeBlock.of(
+        "new $T<$T>($L, $L)",
+        Dagger.GrpcServer.CALL_SCOPED_COMPONENT_POOL,
+        component,
+        grpcServiceModel.callScopePoolSize(),
+        componentFactory);
+  }
+
+  /** Returns the statement that gets the called method's handler from {@code component}. */
+  private CodeBlock returnCallHandler() {
+    return CodeBlock.builder()
+        .addStatement(
+            "return $T.callHandler("
+                + "component.$N(), fullMethodName, component.$N(), allServicesInterceptors)",
+            Dagger.GrpcServer.PROXY_SERVER_CALL_HANDLER,
+            grpcServiceModel.subcomponentServiceImplementationMethodName(),
+            grpcServiceModel.subcomponentServiceInterceptorsMethodName())
+        .build();
+  }
 }
@@ -62,6 +62,18 @@ final class ServiceDefinitionTypeGenerator extends SourceGenerator {
             .returns(IoGrpc.SERVER_SERVICE_DEFINITION)
             .addAnnotation(grpcServiceModel.forGrpcService())
             .build());
+    type.addMethod(
+        methodBuilder(grpcServiceModel.subcomponentServiceImplementationMethodName())
+            .addModifiers(PUBLIC, ABSTRACT)
+            .returns(IoGrpc.BINDABLE_SERVICE)
+            .addAnnotation(grpcServiceModel.forGrpcService())
+            .build());
+    type.addMethod(
+        methodBuilder(grpcServiceModel.subcomponentServiceInterceptorsMethodName())
+            .addModifiers(PUBLIC, ABSTRACT)
+            .returns(IoGrpc.LIST_OF_SERVER_INTERCEPTORS)
+            .addAnnotation(grpcServiceModel.forGrpcService())
+            .build());
     return type.build();
   }
 }
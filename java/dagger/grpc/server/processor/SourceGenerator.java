@@ -16,10 +16,16 @@
 
 package dagger.grpc.server.processor;
 
+import static com.squareup.javapoet.WildcardTypeName.subtypeOf;
+
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import java.util.List;
+import java.util.Set;
 
 /**
  * An object that generates one top-level type.
@@ -53,6 +59,10 @@ abstract class SourceGenerator {
       return AnnotationSpec.builder(ClassName.get("dagger.multibindings", "IntoSet")).build();
     }
 
+    static AnnotationSpec multibinds() {
+      return AnnotationSpec.builder(ClassName.get("dagger.multibindings", "Multibinds")).build();
+    }
+
     static AnnotationSpec provides() {
       return AnnotationSpec.builder(ClassName.get("dagger", "Provides")).build();
     }
@@ -76,8 +86,14 @@ abstract class SourceGenerator {
       static final ClassName GRPC_CALL_METADATA_MODULE =
           ClassName.get("dagger.grpc.server", "GrpcCallMetadataModule");
 
-      static final ClassName SERVICE_DEFINITION_FACTORY =
-          PROXY_SERVER_CALL_HANDLER.nestedClass("ServiceDefinitionFactory");
+      static final ClassName SERVICE_FACTORY =
+          PROXY_SERVER_CALL_HANDLER.nestedClass("ServiceFactory");
+
+      static final ClassName CALL_SCOPED_COMPONENT_POOL =
+          ClassName.get("dagger.grpc.server", "CallScopedComponentPool");
+
+      static final ClassName COMPONENT_FACTORY =
+          CALL_SCOPED_COMPONENT_POOL.nestedClass("ComponentFactory");
     }
   }
 
@@ -94,6 +110,11 @@ abstract class SourceGenerator {
         ClassName.get("io.grpc", "ServerInterceptors");
     static final ClassName SERVER_SERVICE_DEFINITION =
         ClassName.get("io.grpc", "ServerServiceDefinition");
+    static final ClassName SERVER_CALL_HANDLER = ClassName.get("io.grpc", "ServerCallHandler");
+    static final TypeName LIST_OF_SERVER_INTERCEPTORS =
+        ParameterizedTypeName.get(ClassName.get(List.class), subtypeOf(SERVER_INTERCEPTOR));
+    static final TypeName SET_OF_SERVER_INTERCEPTORS =
+        ParameterizedTypeName.get(ClassName.get(Set.class), SERVER_INTERCEPTOR);
   }
 
   /** Class names and annotation specs for types in the {@link javax.inject} package. */
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable {@link Map} backed by a single array of alternating keys and values, used for small
+ * multibound maps. Iteration order is insertion order, and lookups are linear scans; for fewer than
+ * {@link DaggerCollections#COMPACT_SIZE_LIMIT} entries this is faster than hashing and avoids the
+ * per-entry node allocations of a {@link java.util.LinkedHashMap}.
+ *
+ * <p>Entries are only created the first time the map is iterated, and are then reused by later
+ * iterations.
+ */
+final class ArrayMap<K, V> extends AbstractMap<K, V> {
+  private final Object[] keysAndValues;
+  private final int size;
+  // Created lazily. Racing threads may each create the entries, but they are equal and immutable.
+  private volatile Entry<K, V>[] entries;
+
+  /**
+   * Returns a map of the first {@code size} key-value pairs of {@code keysAndValues}, stored as
+   * {@code [k0, v0, k1, v1, ...]}. Keys must be distinct and non-null; values may be null. The array
+   * is not copied and must not be modified afterwards.
+   */
+  static <K, V> ArrayMap<K, V> create(Object[] keysAndValues, int size) {
+    return new ArrayMap<K, V>(keysAndValues, size);
+  }
+
+  /**
+   * Returns the index in {@code keysAndValues} of the first {@code size} pairs at which {@code key}
+   * is stored, or {@code -1} if it is absent.
+   */
+  static int indexOfKey(Object[] keysAndValues, int size, Object key) {
+    for (int i = 0, end = size * 2; i < end; i += 2) {
+      if (key.equals(keysAndValues[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private ArrayMap(Object[] keysAndValues, int size) {
+    this.keysAndValues = keysAndValues;
+    this.size = size;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key != null && indexOfKey(keysAndValues, size, key) >= 0;
+  }
+
+  @SuppressWarnings("unchecked") // only values of type V are stored
+  @Override
+  public V get(Object key) {
+    if (key == null) {
+      return null;
+    }
+    int index = indexOfKey(keysAndValues, size, key);
+    return index < 0 ? null : (V) keysAndValues[index + 1];
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new AbstractSet<Entry<K, V>>() {
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public Iterator<Entry<K, V>> iterator() {
+        return new Iterator<Entry<K, V>>() {
+          private final Entry<K, V>[] entries = entries();
+          private int index;
+
+          @Override
+          public boolean hasNext() {
+            return index < size;
+          }
+
+          @Override
+          public Entry<K, V> next() {
+            if (index >= size) {
+              throw new NoSuchElementException();
+            }
+            return entries[index++];
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"}) // generic array creation; only K and V are stored
+  private Entry<K, V>[] entries() {
+    Entry<K, V>[] result = entries;
+    if (result == null) {
+      result = new Entry[size];
+      for (int i = 0; i < size; i++) {
+        result[i] =
+            new SimpleImmutableEntry<K, V>((K) keysAndValues[i * 2], (V) keysAndValues[i * 2 + 1]);
+      }
+      entries = result;
+    }
+    return result;
+  }
+}
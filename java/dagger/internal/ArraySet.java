@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable {@link java.util.Set} backed by an array, used for small multibound sets. Iteration
+ * order is insertion order, and lookups are linear scans; for fewer than {@link
+ * DaggerCollections#COMPACT_SIZE_LIMIT} elements this is faster than hashing and avoids the
+ * per-element node allocations of a {@link java.util.HashSet}.
+ */
+final class ArraySet<E> extends AbstractSet<E> {
+  private final Object[] elements;
+  private final int size;
+
+  /**
+   * Returns a set of the first {@code size} entries of {@code elements}, which must be distinct and
+   * non-null. The array is not copied and must not be modified afterwards.
+   */
+  static <E> ArraySet<E> create(Object[] elements, int size) {
+    return new ArraySet<E>(elements, size);
+  }
+
+  /**
+   * Stores {@code element} at {@code elements[size]} unless it is equal to one of the first {@code
+   * size} entries of {@code elements}, and returns the resulting number of distinct entries.
+   */
+  static int addIfAbsent(Object[] elements, int size, Object element) {
+    for (int i = 0; i < size; i++) {
+      if (element.equals(elements[i])) {
+        return size;
+      }
+    }
+    elements[size] = element;
+    return size + 1;
+  }
+
+  private ArraySet(Object[] elements, int size) {
+    this.elements = elements;
+    this.size = size;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (o == null) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (o.equals(elements[i])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return new Iterator<E>() {
+      private int index;
+
+      @Override
+      public boolean hasNext() {
+        return index < size;
+      }
+
+      @SuppressWarnings("unchecked") // only elements of type E are stored
+      @Override
+      public E next() {
+        if (index >= size) {
+          throw new NoSuchElementException();
+        }
+        return (E) elements[index++];
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+}
@@ -33,6 +33,12 @@ public final class DaggerCollections {
    */
   private static final int MAX_POWER_OF_TWO = 1 << (Integer.SIZE - 2);
 
+  /**
+   * Sets and maps with fewer elements than this are returned as {@link ArraySet} and {@link
+   * ArrayMap}, whose linear scans beat hashing at these sizes.
+   */
+  static final int COMPACT_SIZE_LIMIT = 16;
+
   private DaggerCollections() {}
 
   /**
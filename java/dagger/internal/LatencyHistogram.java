@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A histogram of latencies that can be recorded from many threads without locking.
+ *
+ * <p>A histogram starts with a single set of counts, which takes about 5KB. If threads repeatedly
+ * contend to update it, it doubles the number of sets, up to four sets or twice the number of
+ * processors if that is fewer, and spreads threads across them. So a histogram that many threads
+ * record to doesn't become a point of contention, and no histogram takes more than about 21KB.
+ *
+ * <p>Latencies are counted in logarithmic buckets, each no wider than 1/16 of its lowest value, so
+ * the latencies reported by a {@link Snapshot} are at most about 6% higher than the recorded ones.
+ * Latencies of 2<sup>44</sup> nanoseconds (about 4.9 hours) or more are all counted in the last
+ * bucket.
+ *
+ * <p>This is the implementation behind the producers monitoring histograms and the gRPC server
+ * metrics.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_EXPONENT = 44;
+  private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS;
+  private static final int MAX_STRIPES = 4;
+  private static final int STRIPE_LIMIT =
+      Math.min(
+          MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) * 2);
+  /** The number of contended updates after which the number of stripes is doubled. */
+  private static final int CONTENDED_UPDATES_PER_GROWTH = 64;
+
+  private static final AtomicReferenceFieldUpdater<LatencyHistogram, AtomicLongArray[]> STRIPES =
+      AtomicReferenceFieldUpdater.newUpdater(
+          LatencyHistogram.class, AtomicLongArray[].class, "stripes");
+  private static final AtomicIntegerFieldUpdater<LatencyHistogram> CONTENDED_UPDATES =
+      AtomicIntegerFieldUpdater.newUpdater(LatencyHistogram.class, "contendedUpdates");
+
+  /** The sets of counts, whose number is a power of two. */
+  private volatile AtomicLongArray[] stripes = {new AtomicLongArray(BUCKETS)};
+
+  /** The number of contended updates since the number of stripes last changed. */
+  private volatile int contendedUpdates;
+
+  /** Records a latency, in nanoseconds. Negative latencies are recorded as zero. */
+  public void record(long nanos) {
+    int bucket = bucketFor(nanos);
+    int hash = threadHash();
+    AtomicLongArray[] current = stripes;
+    AtomicLongArray stripe = current[hash & (current.length - 1)];
+    long count = stripe.get(bucket);
+    if (!stripe.compareAndSet(bucket, count, count + 1)) {
+      // Another thread updated the same count. If that keeps happening, add stripes if we can, so
+      // that threads are less likely to contend again. Then count this latency wherever this
+      // thread now belongs.
+      if (current.length < STRIPE_LIMIT
+          && CONTENDED_UPDATES.incrementAndGet(this) >= CONTENDED_UPDATES_PER_GROWTH) {
+        addStripes(current);
+      }
+      current = stripes;
+      current[hash & (current.length - 1)].incrementAndGet(bucket);
+    }
+  }
+
+  private void addStripes(AtomicLongArray[] current) {
+    AtomicLongArray[] expanded = new AtomicLongArray[current.length * 2];
+    System.arraycopy(current, 0, expanded, 0, current.length);
+    for (int i = current.length; i < expanded.length; i++) {
+      expanded[i] = new AtomicLongArray(BUCKETS);
+    }
+    // If another thread has already added stripes, use those instead.
+    if (STRIPES.compareAndSet(this, current, expanded)) {
+      contendedUpdates = 0;
+    }
+  }
+
+  /** Returns the number of sets of counts. */
+  int stripeCount() {
+    return stripes.length;
+  }
+
+  private static int threadHash() {
+    return (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32);
+  }
+
+  /**
+   * Returns the latencies recorded so far. Latencies that are recorded while this runs may or may
+   * not be included.
+   */
+  public Snapshot snapshot() {
+    long[] snapshot = new long[BUCKETS];
+    long count = 0;
+    for (AtomicLongArray stripe : stripes) {
+      for (int i = 0; i < BUCKETS; i++) {
+        long stripeCount = stripe.get(i);
+        snapshot[i] += stripeCount;
+        count += stripeCount;
+      }
+    }
+    return new Snapshot(snapshot, count);
+  }
+
+  static int bucketFor(long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return nanos < 0 ? 0 : (int) nanos;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    if (exponent >= MAX_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    int shift = exponent - SUB_BUCKET_BITS;
+    return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  /** Returns the highest latency that is counted in the given bucket. */
+  static long highestValueIn(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+    long subBucket = SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1));
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /** The latencies recorded in a {@link LatencyHistogram} at some point in time. */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+
+    Snapshot(long[] counts, long count) {
+      this.counts = counts;
+      this.count = count;
+    }
+
+    /** Returns the number of latencies that were recorded. */
+    public long count() {
+      return count;
+    }
+
+    /**
+     * Returns the latency, in nanoseconds, that the given percentage of the recorded latencies are
+     * at or below, or {@code 0} if none were recorded.
+     */
+    public long valueAtPercentile(double percentile) {
+      if (!(percentile >= 0 && percentile <= 100)) {
+        throw new IllegalArgumentException("percentile must be in [0, 100]: " + percentile);
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return highestValueIn(i);
+        }
+      }
+      return 0;
+    }
+
+    /** Returns the highest recorded latency, in nanoseconds, or {@code 0} if none were recorded. */
+    public long max() {
+      return valueAtPercentile(100);
+    }
+
+    @Override
+    public String toString() {
+      return "count="
+          + count
+          + ", p50="
+          + valueAtPercentile(50)
+          + "ns, p99="
+          + valueAtPercentile(99)
+          + "ns, p99.9="
+          + valueAtPercentile(99.9)
+          + "ns, max="
+          + max()
+          + "ns";
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.inject.Provider;
+
+/**
+ * An immutable {@code Map<K, Provider<V>>} whose entries are identified by an index and whose
+ * providers are only created the first time their entry is requested. Generated code subclasses
+ * this to implement lookups for map multibindings, e.g. by switching on constant keys.
+ *
+ * <p>Iteration order is the order of the indices. Each provider is created at most once per map
+ * instance, although concurrent first requests for the same entry may each create one and discard
+ * all but the first.
+ *
+ * @param <K> the key type of the map
+ * @param <V> the type provided by each of the map's values
+ */
+public abstract class LazyProviderMap<K, V> extends AbstractMap<K, Provider<V>> {
+  private final AtomicReferenceArray<Provider<V>> providers;
+
+  /** Creates a map with {@code size} entries, indexed from {@code 0} to {@code size - 1}. */
+  protected LazyProviderMap(int size) {
+    this.providers = new AtomicReferenceArray<Provider<V>>(size);
+  }
+
+  /** Returns the index of the entry for {@code key}, or {@code -1} if there is none. */
+  protected abstract int indexOf(Object key);
+
+  /** Returns the key of the entry at {@code index}. */
+  protected abstract K keyAt(int index);
+
+  /** Returns a new provider for the value of the entry at {@code index}. */
+  protected abstract Provider<V> createProvider(int index);
+
+  private Provider<V> providerAt(int index) {
+    Provider<V> provider = providers.get(index);
+    if (provider == null) {
+      provider = createProvider(index);
+      if (!providers.compareAndSet(index, null, provider)) {
+        provider = providers.get(index);
+      }
+    }
+    return provider;
+  }
+
+  @Override
+  public final int size() {
+    return providers.length();
+  }
+
+  @Override
+  public final boolean containsKey(Object key) {
+    return indexOf(key) >= 0;
+  }
+
+  @Override
+  public final Provider<V> get(Object key) {
+    int index = indexOf(key);
+    return index < 0 ? null : providerAt(index);
+  }
+
+  @Override
+  public final Set<Entry<K, Provider<V>>> entrySet() {
+    return new AbstractSet<Entry<K, Provider<V>>>() {
+      @Override
+      public int size() {
+        return providers.length();
+      }
+
+      @Override
+      public Iterator<Entry<K, Provider<V>>> iterator() {
+        return new Iterator<Entry<K, Provider<V>>>() {
+          private int index;
+
+          @Override
+          public boolean hasNext() {
+            return index < providers.length();
+          }
+
+          @Override
+          public Entry<K, Provider<V>> next() {
+            if (index >= providers.length()) {
+              throw new NoSuchElementException();
+            }
+            return new LazyEntry(index++);
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+  }
+
+  /** An entry whose provider is not created until {@link #getValue()} is called. */
+  private final class LazyEntry implements Entry<K, Provider<V>> {
+    private final int index;
+
+    LazyEntry(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public K getKey() {
+      return keyAt(index);
+    }
+
+    @Override
+    public Provider<V> getValue() {
+      return providerAt(index);
+    }
+
+    @Override
+    public Provider<V> setValue(Provider<V> value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Map.Entry)) {
+        return false;
+      }
+      Entry<?, ?> that = (Entry<?, ?>) obj;
+      return getKey().equals(that.getKey()) && getValue().equals(that.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return getKey().hashCode() ^ getValue().hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+import dagger.Lazy;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import javax.inject.Provider;
+
+/**
+ * A {@link Lazy} and {@link Provider} implementation that memoizes the value returned from a
+ * delegate, like {@link DoubleCheck}, but without holding a monitor on the provider itself.
+ *
+ * <p>The first thread to resolve the value claims it with a compare-and-set and calls the delegate
+ * without taking any lock, then publishes the result with a second compare-and-set. The delegate is
+ * still invoked exactly once (barring reentrant calls, see below), so threads that arrive while the
+ * value is being created have to wait for it: they spin briefly and then block on a lock that
+ * belongs to that single resolution attempt. Once the value is published, {@link #get} is a single
+ * volatile read.
+ *
+ * <p>Reentrant calls from within the delegate behave exactly as they do for {@link DoubleCheck}: the
+ * delegate is invoked again, and an {@link IllegalStateException} is thrown if the reentrant and the
+ * outer invocations return different instances.
+ *
+ * <p>Generated components use this class instead of {@link DoubleCheck} for scoped bindings when
+ * {@code -Adagger.lockFreeScopedProviders=enabled} is set.
+ */
+public final class LockFreeDoubleCheck<T> implements Provider<T>, Lazy<T> {
+  /** The number of times a waiting thread polls the value before blocking. */
+  private static final int SPIN_LIMIT = 64;
+
+  @SuppressWarnings("rawtypes") // field updaters cannot be created for a parameterized type
+  private static final AtomicReferenceFieldUpdater<LockFreeDoubleCheck, Object> INSTANCE_UPDATER =
+      AtomicReferenceFieldUpdater.newUpdater(LockFreeDoubleCheck.class, Object.class, "instance");
+
+  private static final Resolution UNINITIALIZED = new Resolution(null);
+
+  private volatile Provider<T> provider;
+  private volatile Object instance = UNINITIALIZED;
+
+  private LockFreeDoubleCheck(Provider<T> provider) {
+    assert provider != null;
+    this.provider = provider;
+  }
+
+  @SuppressWarnings("unchecked") // cast only happens when result comes from the provider
+  @Override
+  public T get() {
+    Object result = instance;
+    if (result instanceof Resolution) {
+      result = resolve();
+    }
+    return (T) result;
+  }
+
+  private Object resolve() {
+    Thread currentThread = Thread.currentThread();
+    while (true) {
+      Object current = instance;
+      if (!(current instanceof Resolution)) {
+        return current;
+      }
+      Resolution resolution = (Resolution) current;
+      if (resolution == UNINITIALIZED) {
+        Resolution claim = new Resolution(currentThread);
+        if (INSTANCE_UPDATER.compareAndSet(this, UNINITIALIZED, claim)) {
+          return create(claim);
+        }
+        // Another thread claimed the resolution first. Loop to wait for it.
+      } else if (resolution.owner == currentThread) {
+        // A reentrant call from within the provider. Like the reentrant monitor in DoubleCheck, let
+        // it call the provider again.
+        return create(resolution);
+      } else {
+        resolution.await(this);
+      }
+    }
+  }
+
+  /** Calls the provider and publishes its result on behalf of {@code claim}. */
+  private Object create(Resolution claim) {
+    claim.depth++;
+    boolean published = false;
+    try {
+      Object result = provider.get();
+      published = true;
+      if (INSTANCE_UPDATER.compareAndSet(this, claim, result)) {
+        /* Null out the reference to the provider. We are never going to need it again, so we
+         * can make it eligible for GC. */
+        provider = null;
+        return result;
+      }
+      // A reentrant call already published a value.
+      return reentrantCheck(instance, result);
+    } finally {
+      if (--claim.depth == 0) {
+        if (!published) {
+          // The provider threw, so let the next caller try again, as DoubleCheck does.
+          INSTANCE_UPDATER.compareAndSet(this, claim, UNINITIALIZED);
+        }
+        claim.release();
+      }
+    }
+  }
+
+  /**
+   * Checks to see if creating the new instance has resulted in a recursive call. If it has, and the
+   * new instance is the same as the current instance, return the instance. However, if the new
+   * instance differs from the current instance, an {@link IllegalStateException} is thrown.
+   */
+  private static Object reentrantCheck(Object currentInstance, Object newInstance) {
+    if (currentInstance != newInstance) {
+      throw new IllegalStateException("Scoped provider was invoked recursively returning "
+          + "different results: " + currentInstance + " & " + newInstance + ". This is likely "
+          + "due to a circular dependency.");
+    }
+    return newInstance;
+  }
+
+  /**
+   * A single attempt to resolve the value, owned by the thread that claimed it. Threads that find a
+   * resolution in progress wait on it until the owner either publishes the value or fails.
+   */
+  private static final class Resolution {
+    final Thread owner;
+    /** The number of nested calls to the provider. Only accessed by {@link #owner}. */
+    int depth;
+    private boolean released;
+
+    Resolution(Thread owner) {
+      this.owner = owner;
+    }
+
+    /** Waits until this resolution is no longer the current state of {@code doubleCheck}. */
+    void await(LockFreeDoubleCheck<?> doubleCheck) {
+      for (int i = 0; i < SPIN_LIMIT; i++) {
+        if (doubleCheck.instance != this) {
+          return;
+        }
+        Thread.yield();
+      }
+      boolean interrupted = false;
+      synchronized (this) {
+        while (!released) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    synchronized void release() {
+      released = true;
+      notifyAll();
+    }
+  }
+
+  /** Returns a {@link Provider} that caches the value from the given delegate provider. */
+  // This method is declared this way instead of "<T> Provider<T> provider(Provider<T> delegate)"
+  // to work around an Eclipse type inference bug: https://github.com/google/dagger/issues/949.
+  public static <P extends Provider<T>, T> Provider<T> provider(P delegate) {
+    checkNotNull(delegate);
+    if (delegate instanceof LockFreeDoubleCheck || delegate instanceof DoubleCheck) {
+      /* This should be a rare case, but if we have a scoped @Binds that delegates to a scoped
+       * binding, we shouldn't cache the value again. */
+      return delegate;
+    }
+    return new LockFreeDoubleCheck<T>(delegate);
+  }
+
+  /** Returns a {@link Lazy} that caches the value from the given provider. */
+  // This method is declared this way instead of "<T> Lazy<T> lazy(Provider<T> delegate)"
+  // to work around an Eclipse type inference bug: https://github.com/google/dagger/issues/949.
+  public static <P extends Provider<T>, T> Lazy<T> lazy(P provider) {
+    if (provider instanceof Lazy) {
+      @SuppressWarnings("unchecked")
+      final Lazy<T> lazy = (Lazy<T>) provider;
+      // Avoids memoizing a value that is already memoized.
+      return lazy;
+    }
+    return new LockFreeDoubleCheck<T>(checkNotNull(provider));
+  }
+}
@@ -16,7 +16,9 @@
 
 package dagger.internal;
 
+import static dagger.internal.DaggerCollections.COMPACT_SIZE_LIMIT;
 import static dagger.internal.DaggerCollections.newLinkedHashMapWithExpectedSize;
+import static dagger.internal.Preconditions.checkNotNull;
 
 import java.util.Collections;
 import java.util.Map;
@@ -26,10 +28,18 @@ import java.util.Map;
  * must be created in one fluent statement for inlined request fulfillments.
  */
 public final class MapBuilder<K, V> {
-  private final Map<K, V> contributions;
+  // Small maps are accumulated as alternating keys and values and built into an ArrayMap. Once
+  // more entries are added than were expected, they are moved to contributions instead.
+  private Object[] keysAndValues;
+  private int size;
+  private Map<K, V> contributions;
 
   private MapBuilder(int size) {
-    contributions = newLinkedHashMapWithExpectedSize(size);
+    if (size < COMPACT_SIZE_LIMIT) {
+      keysAndValues = new Object[size * 2];
+    } else {
+      contributions = newLinkedHashMapWithExpectedSize(size);
+    }
   }
 
   /**
@@ -40,19 +50,52 @@ public final class MapBuilder<K, V> {
   }
 
   public MapBuilder<K, V> put(K key, V value) {
-    contributions.put(key, value);
+    checkNotNull(key, "key");
+    if (contributions != null) {
+      contributions.put(key, value);
+      return this;
+    }
+    int index = ArrayMap.indexOfKey(keysAndValues, size, key);
+    if (index >= 0) {
+      keysAndValues[index + 1] = value;
+    } else if (size * 2 < keysAndValues.length) {
+      keysAndValues[size * 2] = key;
+      keysAndValues[size * 2 + 1] = value;
+      size++;
+    } else {
+      moveToContributions().put(key, value);
+    }
     return this;
   }
 
   public MapBuilder<K, V> putAll(Map<K, V> map) {
-    contributions.putAll(map);
+    if (contributions != null) {
+      contributions.putAll(map);
+      return this;
+    }
+    for (Map.Entry<K, V> entry : map.entrySet()) {
+      put(entry.getKey(), entry.getValue());
+    }
     return this;
   }
 
   public Map<K, V> build() {
-    if (contributions.isEmpty()) {
+    if (contributions != null) {
+      return Collections.unmodifiableMap(contributions);
+    }
+    if (size == 0) {
       return Collections.emptyMap();
     }
-    return Collections.unmodifiableMap(contributions);
+    return ArrayMap.create(keysAndValues, size);
+  }
+
+  @SuppressWarnings("unchecked") // only keys of type K and values of type V are stored
+  private Map<K, V> moveToContributions() {
+    contributions = newLinkedHashMapWithExpectedSize(size + 1);
+    for (int i = 0; i < size * 2; i += 2) {
+      contributions.put((K) keysAndValues[i], (V) keysAndValues[i + 1]);
+    }
+    keysAndValues = null;
+    return contributions;
   }
 }
@@ -16,6 +16,7 @@
 
 package dagger.internal;
 
+import static dagger.internal.DaggerCollections.COMPACT_SIZE_LIMIT;
 import static dagger.internal.DaggerCollections.newLinkedHashMapWithExpectedSize;
 import static java.util.Collections.unmodifiableMap;
 
@@ -53,7 +54,18 @@ public final class MapFactory<K, V> extends AbstractMapFactory<K, V, V> {
    */
   @Override
   public Map<K, V> get() {
-    Map<K, V> result = newLinkedHashMapWithExpectedSize(contributingMap().size());
+    int size = contributingMap().size();
+    if (size < COMPACT_SIZE_LIMIT) {
+      Object[] keysAndValues = new Object[size * 2];
+      int i = 0;
+      for (Entry<K, Provider<V>> entry : contributingMap().entrySet()) {
+        keysAndValues[i++] = entry.getKey();
+        keysAndValues[i++] = entry.getValue().get();
+      }
+      return ArrayMap.create(keysAndValues, size);
+    }
+
+    Map<K, V> result = newLinkedHashMapWithExpectedSize(size);
     for (Entry<K, Provider<V>> entry : contributingMap().entrySet()) {
       result.put(entry.getKey(), entry.getValue().get());
     }
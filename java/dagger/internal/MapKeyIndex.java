@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static dagger.internal.DaggerCollections.COMPACT_SIZE_LIMIT;
+
+/**
+ * An immutable index from the keys of a map multibinding to their positions, used by generated
+ * {@link LazyProviderMap} subclasses whose keys cannot be switched on.
+ *
+ * <p>Small indices scan their keys; larger ones also keep an open-addressed table of positions, so
+ * that a lookup costs one {@link Object#hashCode()} and, usually, one {@link Object#equals}.
+ *
+ * @param <K> the key type of the map
+ */
+public final class MapKeyIndex<K> {
+  private final Object[] keys;
+  // Holds each key's position plus one at the slot for its hash, or 0 for empty slots. This is
+  // null if there are fewer than COMPACT_SIZE_LIMIT keys.
+  private final int[] table;
+
+  /**
+   * Returns an index of {@code keys}, which must be distinct, non-null instances of {@code K}.
+   *
+   * <p>This takes an {@code Object} array rather than varargs of {@code K} so that generated code
+   * can pass more keys than a method invocation allows arguments.
+   */
+  public static <K> MapKeyIndex<K> of(Object[] keys) {
+    return new MapKeyIndex<K>(keys);
+  }
+
+  private MapKeyIndex(Object[] keys) {
+    this.keys = keys;
+    if (keys.length < COMPACT_SIZE_LIMIT) {
+      this.table = null;
+      return;
+    }
+    // At most half full, so probe sequences stay short.
+    int[] table = new int[Integer.highestOneBit(keys.length * 2 - 1) << 1];
+    int mask = table.length - 1;
+    for (int i = 0; i < keys.length; i++) {
+      int slot = spread(keys[i].hashCode()) & mask;
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = i + 1;
+    }
+    this.table = table;
+  }
+
+  /** Returns the number of keys. */
+  public int size() {
+    return keys.length;
+  }
+
+  /** Returns the position of {@code key}, or {@code -1} if it is not one of the keys. */
+  public int indexOf(Object key) {
+    if (key == null) {
+      return -1;
+    }
+    if (table == null) {
+      for (int i = 0; i < keys.length; i++) {
+        if (key.equals(keys[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    int mask = table.length - 1;
+    for (int slot = spread(key.hashCode()) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+      int index = table[slot] - 1;
+      if (key.equals(keys[index])) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  /** Returns the key at position {@code index}. */
+  @SuppressWarnings("unchecked") // only keys of type K are stored
+  public K keyAt(int index) {
+    return (K) keys[index];
+  }
+
+  private static int spread(int hashCode) {
+    return hashCode ^ (hashCode >>> 16);
+  }
+}
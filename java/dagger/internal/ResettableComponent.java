@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+/**
+ * Implemented by generated components that memoize their scoped bindings in a {@link
+ * ResettableScope}, which they do when one of their scopes is listed in {@code
+ * -Adagger.resettableScopes}.
+ */
+public interface ResettableComponent {
+  /**
+   * Forgets every instance of this component's scoped bindings, so the component can be reused as
+   * if it were new. Instances of bindings from its ancestor components are kept.
+   *
+   * <p>Only call this once nothing uses the component or the scoped instances it has provided.
+   */
+  void resetScope();
+}
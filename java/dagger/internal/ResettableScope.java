@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static dagger.internal.Preconditions.checkNotNull;
+
+import javax.inject.Provider;
+
+/**
+ * Memoizes the scoped bindings of one component instance, like {@link DoubleCheck}, until the
+ * component's scope is {@linkplain #reset() reset}. After a reset, each provider creates a new
+ * instance the next time it is called, so the component can be reused instead of recreated.
+ *
+ * <p>Generated components use this class for their scoped bindings when one of the component's
+ * scopes is listed in {@code -Adagger.resettableScopes}. Such components implement {@link
+ * ResettableComponent}.
+ */
+public final class ResettableScope {
+  /** Identifies the instances memoized since the last reset. Replaced by each reset. */
+  private volatile Object generation = new Object();
+
+  /**
+   * Forgets every instance memoized by this scope's providers. The component must not be in use:
+   * a caller that still holds one of the old instances keeps it, but new requests get new ones.
+   */
+  public void reset() {
+    generation = new Object();
+  }
+
+  /**
+   * Returns a {@link Provider} that caches the value from the given delegate provider until this
+   * scope is reset.
+   */
+  // This method is declared this way instead of "<T> Provider<T> provider(Provider<T> delegate)"
+  // to work around an Eclipse type inference bug: https://github.com/google/dagger/issues/949.
+  public <P extends Provider<T>, T> Provider<T> provider(P delegate) {
+    checkNotNull(delegate);
+    if (delegate instanceof ScopedProvider && ((ScopedProvider<?>) delegate).scope == this) {
+      /* This should be a rare case, but if we have a scoped @Binds that delegates to a scoped
+       * binding, we shouldn't cache the value again. */
+      return delegate;
+    }
+    return new ScopedProvider<T>(this, delegate);
+  }
+
+  /**
+   * A provider that memoizes one instance per generation of its scope.
+   *
+   * <p>A reader checks that {@link #instanceGeneration} is the scope's current generation before
+   * and after it reads {@link #instance}. The writer clears {@link #instanceGeneration} before it
+   * replaces the instance, so a reader never pairs an instance with another generation, and
+   * reading a memoized instance allocates nothing.
+   */
+  private static final class ScopedProvider<T> implements Provider<T> {
+    private final ResettableScope scope;
+    private final Provider<T> delegate;
+    private volatile Object instanceGeneration;
+    private volatile Object instance;
+
+    ScopedProvider(ResettableScope scope, Provider<T> delegate) {
+      this.scope = scope;
+      this.delegate = delegate;
+    }
+
+    @SuppressWarnings("unchecked") // cast only happens when result comes from the provider
+    @Override
+    public T get() {
+      Object generation = scope.generation;
+      if (instanceGeneration == generation) {
+        Object result = instance;
+        if (instanceGeneration == generation) {
+          return (T) result;
+        }
+      }
+      synchronized (this) {
+        if (instanceGeneration == generation) {
+          return (T) instance;
+        }
+        Object result = delegate.get();
+        if (instanceGeneration == generation) {
+          // A reentrant call already memoized an instance for this generation.
+          return (T) reentrantCheck(instance, result);
+        }
+        instanceGeneration = null;
+        instance = result;
+        instanceGeneration = generation;
+        return (T) result;
+      }
+    }
+
+    /**
+     * Checks that a recursive call returned the same instance as the outer call, as {@link
+     * DoubleCheck} does.
+     */
+    private static Object reentrantCheck(Object currentInstance, Object newInstance) {
+      if (currentInstance != newInstance) {
+        throw new IllegalStateException("Scoped provider was invoked recursively returning "
+            + "different results: " + currentInstance + " & " + newInstance + ". This is likely "
+            + "due to a circular dependency.");
+      }
+      return newInstance;
+    }
+  }
+}
@@ -16,6 +16,7 @@
 
 package dagger.internal;
 
+import static dagger.internal.DaggerCollections.COMPACT_SIZE_LIMIT;
 import static dagger.internal.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
@@ -41,7 +42,7 @@ public final class SetBuilder<T> {
   /**
    * {@code estimatedSize} is the number of bindings which contribute to the set. They may each
    * provide {@code [0..n)} instances to the set. Because the final size is unknown, {@code
-   * contributions} are collected in a list and only hashed in {@link #build()}.
+   * contributions} are collected in a list and only deduplicated in {@link #build()}.
    */
   public static <T> SetBuilder<T> newSetBuilder(int estimatedSize) {
     return new SetBuilder<T>(estimatedSize);
@@ -65,6 +66,13 @@ public final class SetBuilder<T> {
       return Collections.emptySet();
     } else if (contributions.size() == 1) {
       return Collections.singleton(contributions.get(0));
+    } else if (contributions.size() < COMPACT_SIZE_LIMIT) {
+      Object[] elements = new Object[contributions.size()];
+      int size = 0;
+      for (int i = 0, c = contributions.size(); i < c; i++) {
+        size = ArraySet.addIfAbsent(elements, size, contributions.get(i));
+      }
+      return ArraySet.create(elements, size);
     } else {
       return Collections.unmodifiableSet(new HashSet<>(contributions));
     }
@@ -16,6 +16,7 @@
 
 package dagger.internal;
 
+import static dagger.internal.DaggerCollections.COMPACT_SIZE_LIMIT;
 import static dagger.internal.DaggerCollections.hasDuplicates;
 import static dagger.internal.DaggerCollections.newHashSetWithExpectedSize;
 import static dagger.internal.DaggerCollections.presizedList;
@@ -24,6 +25,7 @@ import static java.util.Collections.emptySet;
 import static java.util.Collections.unmodifiableSet;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -42,6 +44,32 @@ public final class SetFactory<T> implements Factory<Set<T>> {
     return (Factory) EMPTY_FACTORY;
   }
 
+  /**
+   * Returns a factory of a set whose elements are given by {@code individualProviders}. Used
+   * instead of a {@link Builder} for sets without {@code Provider<Collection<T>>} contributions.
+   */
+  @SafeVarargs
+  public static <T> Factory<Set<T>> ofProviders(Provider<? extends T>... individualProviders) {
+    // Copy the providers so that the generic varargs array is never stored or passed on.
+    Provider<?>[] providers = new Provider<?>[individualProviders.length];
+    for (int i = 0; i < providers.length; i++) {
+      providers[i] = individualProviders[i];
+    }
+    assert !hasDuplicates(Arrays.asList(providers))
+        : "Codegen error?  Duplicates in the provider list";
+    return new IndividualProvidersSetFactory<T>(providers);
+  }
+
+  /**
+   * Returns a factory of a set whose elements are those of the collection given by {@code
+   * collectionProvider}. Used instead of a {@link Builder} for sets whose only contribution is a
+   * single {@code Provider<Collection<T>>}.
+   */
+  public static <T> Factory<Set<T>> ofCollectionProvider(
+      Provider<? extends Collection<? extends T>> collectionProvider) {
+    return new CollectionProviderSetFactory<T>(collectionProvider);
+  }
+
   /**
    * Constructs a new {@link Builder} for a {@link SetFactory} with {@code individualProviderSize}
    * individual {@code Provider<T>} and {@code collectionProviderSize} {@code
@@ -121,6 +149,10 @@ public final class SetFactory<T> implements Factory<Set<T>> {
       providedCollections.add(providedCollection);
     }
 
+    if (size < COMPACT_SIZE_LIMIT) {
+      return compactSet(providedCollections, size);
+    }
+
     Set<T> providedValues = newHashSetWithExpectedSize(size);
     for (int i = 0, c = individualProviders.size(); i < c; i++) {
       providedValues.add(checkNotNull(individualProviders.get(i).get()));
@@ -133,4 +165,91 @@ public final class SetFactory<T> implements Factory<Set<T>> {
 
     return unmodifiableSet(providedValues);
   }
+
+  /**
+   * Returns an {@link ArraySet} of the individual and collected elements, which number at most
+   * {@code maxSize} before removing duplicates.
+   */
+  private Set<T> compactSet(List<Collection<T>> providedCollections, int maxSize) {
+    if (maxSize == 0) {
+      return emptySet();
+    }
+    Object[] elements = new Object[maxSize];
+    int size = 0;
+    for (int i = 0, c = individualProviders.size(); i < c; i++) {
+      size = ArraySet.addIfAbsent(elements, size, checkNotNull(individualProviders.get(i).get()));
+    }
+    for (int i = 0, c = providedCollections.size(); i < c; i++) {
+      for (T element : providedCollections.get(i)) {
+        size = ArraySet.addIfAbsent(elements, size, checkNotNull(element));
+      }
+    }
+    return ArraySet.create(elements, size);
+  }
+
+  /**
+   * A set factory whose contributions are all individual elements. Each of {@code
+   * individualProviders} provides a {@code T}.
+   */
+  private static final class IndividualProvidersSetFactory<T> implements Factory<Set<T>> {
+    private final Provider<?>[] individualProviders;
+
+    IndividualProvidersSetFactory(Provider<?>[] individualProviders) {
+      this.individualProviders = individualProviders;
+    }
+
+    @SuppressWarnings("unchecked") // each provider provides a T
+    @Override
+    public Set<T> get() {
+      int size = individualProviders.length;
+      if (size == 0) {
+        return emptySet();
+      } else if (size < COMPACT_SIZE_LIMIT) {
+        Object[] elements = new Object[size];
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+          distinct =
+              ArraySet.addIfAbsent(elements, distinct, checkNotNull(individualProviders[i].get()));
+        }
+        return ArraySet.create(elements, distinct);
+      }
+
+      Set<T> providedValues = newHashSetWithExpectedSize(size);
+      for (int i = 0; i < size; i++) {
+        providedValues.add((T) checkNotNull(individualProviders[i].get()));
+      }
+      return unmodifiableSet(providedValues);
+    }
+  }
+
+  /** A set factory whose only contribution is a single collection. */
+  private static final class CollectionProviderSetFactory<T> implements Factory<Set<T>> {
+    private final Provider<? extends Collection<? extends T>> collectionProvider;
+
+    CollectionProviderSetFactory(Provider<? extends Collection<? extends T>> collectionProvider) {
+      this.collectionProvider = collectionProvider;
+    }
+
+    @Override
+    public Set<T> get() {
+      Collection<? extends T> providedCollection = collectionProvider.get();
+      int size = providedCollection.size();
+      if (size == 0) {
+        return emptySet();
+      } else if (size < COMPACT_SIZE_LIMIT) {
+        Object[] elements = new Object[size];
+        int distinct = 0;
+        for (T element : providedCollection) {
+          distinct = ArraySet.addIfAbsent(elements, distinct, checkNotNull(element));
+        }
+        return ArraySet.create(elements, distinct);
+      }
+
+      Set<T> providedValues = newHashSetWithExpectedSize(size);
+      for (T element : providedCollection) {
+        providedValues.add(checkNotNull(element));
+      }
+      return unmodifiableSet(providedValues);
+    }
+  }
 }
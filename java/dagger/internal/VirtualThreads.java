@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates executors that run tasks on virtual threads, which need JDK 21 or later. The Dagger
+ * runtime libraries target older JDKs, so virtual threads are used reflectively.
+ */
+public final class VirtualThreads {
+  /**
+   * Returns {@code Executors.newVirtualThreadPerTaskExecutor()}, or {@code null} if virtual threads
+   * are not available.
+   */
+  public static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return null;
+    } catch (InvocationTargetException e) {
+      // On JDK 19 and 20, virtual threads are a preview feature, and the method throws
+      // UnsupportedOperationException unless previews are enabled.
+      if (e.getCause() instanceof UnsupportedOperationException) {
+        return null;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private VirtualThreads() {}
+}
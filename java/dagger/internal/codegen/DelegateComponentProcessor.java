@@ -26,6 +26,7 @@ import com.google.errorprone.annotations.CheckReturnValue;
 import dagger.BindsInstance;
 import dagger.Component;
 import dagger.internal.codegen.base.ClearableCache;
+import dagger.internal.codegen.base.ProcessorProfiler;
 import dagger.internal.codegen.base.SourceFileGenerationException;
 import dagger.internal.codegen.base.SourceFileGenerator;
 import dagger.internal.codegen.binding.InjectBindingRegistry;
@@ -35,6 +36,7 @@ import dagger.internal.codegen.bindinggraphvalidation.BindingGraphValidationModu
 import dagger.internal.codegen.componentgenerator.ComponentGeneratorModule;
 import dagger.internal.codegen.processingstep.ProcessingStepsModule;
 import dagger.internal.codegen.validation.BindingMethodValidatorsModule;
+import dagger.internal.codegen.validation.ClasspathValidationCache;
 import dagger.internal.codegen.validation.External;
 import dagger.internal.codegen.validation.ExternalBindingGraphPlugins;
 import dagger.internal.codegen.validation.InjectBindingRegistryModule;
@@ -58,6 +60,8 @@ final class DelegateComponentProcessor {
   @Inject ValidationBindingGraphPlugins validationBindingGraphPlugins;
   @Inject ExternalBindingGraphPlugins externalBindingGraphPlugins;
   @Inject Set<ClearableCache> clearableCaches;
+  @Inject ClasspathValidationCache classpathValidationCache;
+  @Inject ProcessorProfiler processorProfiler;
 
   public void initialize(
       XProcessingEnv env,
@@ -106,6 +110,8 @@ final class DelegateComponentProcessor {
     } else {
       validationBindingGraphPlugins.endPlugins();
       externalBindingGraphPlugins.endPlugins();
+      classpathValidationCache.persist();
+      processorProfiler.write();
     }
     clearableCaches.forEach(ClearableCache::clearCache);
   }
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.base;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import androidx.room.compiler.processing.XMessager;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.tools.Diagnostic;
+
+/**
+ * Records the wall time, CPU time and allocated bytes of each phase of processing when {@link
+ * CompilerOptions#profile()} is set.
+ *
+ * <p>Once processing is over, the phases are written to that path as Chrome trace-event JSON, which
+ * can be opened in {@code chrome://tracing} or Perfetto, and a summary table is written next to it
+ * with a {@code .summary.txt} suffix. The summary's per-component totals only add up the phases
+ * recorded with {@link #profileComponent}, each of which covers all of the work for a component.
+ */
+@Singleton
+public final class ProcessorProfiler {
+  /** The number of components listed in the summary. */
+  private static final int SUMMARY_COMPONENTS = 20;
+
+  private final Optional<Path> profilePath;
+  private final XMessager messager;
+  private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+  private final long startNanos = System.nanoTime();
+  // Phases can be recorded from several threads, e.g. when plugins visit graphs in parallel.
+  private final List<Event> events = new ArrayList<>();
+
+  @Inject
+  ProcessorProfiler(CompilerOptions compilerOptions, XMessager messager) {
+    this.profilePath = compilerOptions.profile().map(Paths::get);
+    this.messager = messager;
+  }
+
+  /**
+   * Runs {@code phase}, which is all of the work for {@code component}, recording it if profiling
+   * is enabled. The phases recorded with {@link #profile} while it runs are part of it.
+   */
+  public void profileComponent(String phase, String component, Runnable work) {
+    record(phase, component, /* componentTotal= */ true, asSupplier(work));
+  }
+
+  /**
+   * Runs {@code phase} for {@code component}, or for an element that isn't part of a component,
+   * recording it if profiling is enabled.
+   */
+  public void profile(String phase, String component, Runnable work) {
+    record(phase, component, /* componentTotal= */ false, asSupplier(work));
+  }
+
+  /** Returns the result of {@code phase} for {@code component}, recording it if enabled. */
+  public <T> T profile(String phase, String component, Supplier<T> work) {
+    return record(phase, component, /* componentTotal= */ false, work);
+  }
+
+  private static Supplier<Void> asSupplier(Runnable work) {
+    return () -> {
+      work.run();
+      return null;
+    };
+  }
+
+  private <T> T record(String phase, String component, boolean componentTotal, Supplier<T> work) {
+    if (!profilePath.isPresent()) {
+      return work.get();
+    }
+    long threadId = Thread.currentThread().getId();
+    long wallStart = System.nanoTime();
+    long cpuStart = cpuNanos();
+    long allocatedStart = allocatedBytes(threadId);
+    try {
+      return work.get();
+    } finally {
+      Event event =
+          new Event(
+              phase,
+              component,
+              threadId,
+              componentTotal,
+              wallStart - startNanos,
+              System.nanoTime() - wallStart,
+              cpuNanos() - cpuStart,
+              allocatedBytes(threadId) - allocatedStart);
+      synchronized (events) {
+        events.add(event);
+      }
+    }
+  }
+
+  private long cpuNanos() {
+    return threadMXBean.isCurrentThreadCpuTimeSupported()
+        ? threadMXBean.getCurrentThreadCpuTime()
+        : 0;
+  }
+
+  private long allocatedBytes(long threadId) {
+    // Allocation counters are a HotSpot extension of ThreadMXBean.
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean hotspotBean = (com.sun.management.ThreadMXBean) threadMXBean;
+      if (hotspotBean.isThreadAllocatedMemorySupported()
+          && hotspotBean.isThreadAllocatedMemoryEnabled()) {
+        return hotspotBean.getThreadAllocatedBytes(threadId);
+      }
+    }
+    return 0;
+  }
+
+  /** Writes the trace and summary. Called once processing is over. */
+  public void write() {
+    if (!profilePath.isPresent()) {
+      return;
+    }
+    List<Event> snapshot;
+    synchronized (events) {
+      snapshot = new ArrayList<>(events);
+    }
+    Path tracePath = profilePath.get();
+    Path summaryPath = tracePath.resolveSibling(tracePath.getFileName() + ".summary.txt");
+    try {
+      if (tracePath.getParent() != null) {
+        Files.createDirectories(tracePath.getParent());
+      }
+      try (Writer writer = Files.newBufferedWriter(tracePath, UTF_8)) {
+        writeTrace(snapshot, writer);
+      }
+      try (Writer writer = Files.newBufferedWriter(summaryPath, UTF_8)) {
+        writer.write(summary(snapshot));
+      }
+    } catch (IOException e) {
+      messager.printMessage(
+          Diagnostic.Kind.WARNING,
+          String.format("Could not write the Dagger profile to %s: %s", tracePath, e));
+    }
+  }
+
+  private static void writeTrace(List<Event> events, Writer writer) throws IOException {
+    writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+    for (int i = 0; i < events.size(); i++) {
+      Event event = events.get(i);
+      writer.write(i == 0 ? "\n" : ",\n");
+      // Trace timestamps and durations are in microseconds.
+      writer.write(
+          String.format(
+              Locale.ROOT,
+              "{\"name\":%s,\"cat\":\"dagger\",\"ph\":\"X\",\"pid\":1,\"tid\":%d,\"ts\":%.3f,"
+                  + "\"dur\":%.3f,\"args\":{\"component\":%s,\"cpuMs\":%.3f,"
+                  + "\"allocatedBytes\":%d}}",
+              jsonString(event.phase),
+              event.threadId,
+              event.startNanos / 1e3,
+              event.wallNanos / 1e3,
+              jsonString(event.component),
+              event.cpuNanos / 1e6,
+              event.allocatedBytes));
+    }
+    writer.write("\n]}\n");
+  }
+
+  private static String jsonString(String value) {
+    StringBuilder json = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        json.append('\\').append(c);
+      } else if (c < 0x20) {
+        json.append(String.format("\\u%04x", (int) c));
+      } else {
+        json.append(c);
+      }
+    }
+    return json.append('"').toString();
+  }
+
+  /**
+   * Returns a table of the total time and allocations of each phase, followed by the components
+   * that took the longest. Times for a phase include the time of any phases nested inside it, and
+   * times for a component are the totals of its {@link #profileComponent} phases.
+   */
+  private static String summary(List<Event> events) {
+    Map<String, Totals> phases = new LinkedHashMap<>();
+    Map<String, Totals> components = new LinkedHashMap<>();
+    for (Event event : events) {
+      phases.computeIfAbsent(event.phase, unused -> new Totals()).add(event);
+      if (event.componentTotal) {
+        components.computeIfAbsent(event.component, unused -> new Totals()).add(event);
+      }
+    }
+    StringBuilder summary = new StringBuilder();
+    appendTable(summary, "Phase", phases, phases.size());
+    summary.append('\n');
+    appendTable(summary, "Component", components, SUMMARY_COMPONENTS);
+    return summary.toString();
+  }
+
+  private static void appendTable(
+      StringBuilder summary, String title, Map<String, Totals> rows, int limit) {
+    summary.append(
+        String.format(
+            "%-60s %8s %12s %12s %14s%n", title, "count", "wall ms", "cpu ms", "allocated MB"));
+    rows.entrySet().stream()
+        .sorted(
+            Comparator.comparingLong((Map.Entry<String, Totals> row) -> row.getValue().wallNanos)
+                .reversed())
+        .limit(limit)
+        .forEach(
+            row ->
+                summary.append(
+                    String.format(
+                        Locale.ROOT,
+                        "%-60s %8d %12.1f %12.1f %14.1f%n",
+                        row.getKey(),
+                        row.getValue().count,
+                        row.getValue().wallNanos / 1e6,
+                        row.getValue().cpuNanos / 1e6,
+                        row.getValue().allocatedBytes / (1024.0 * 1024.0))));
+  }
+
+  private static final class Event {
+    final String phase;
+    final String component;
+    final long threadId;
+    // Whether this event covers all of the work for its component.
+    final boolean componentTotal;
+    final long startNanos;
+    final long wallNanos;
+    final long cpuNanos;
+    final long allocatedBytes;
+
+    Event(
+        String phase,
+        String component,
+        long threadId,
+        boolean componentTotal,
+        long startNanos,
+        long wallNanos,
+        long cpuNanos,
+        long allocatedBytes) {
+      this.phase = phase;
+      this.component = component;
+      this.threadId = threadId;
+      this.componentTotal = componentTotal;
+      this.startNanos = startNanos;
+      this.wallNanos = wallNanos;
+      this.cpuNanos = cpuNanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+  }
+
+  private static final class Totals {
+    int count;
+    long wallNanos;
+    long cpuNanos;
+    long allocatedBytes;
+
+    void add(Event event) {
+      count++;
+      wallNanos += event.wallNanos;
+      cpuNanos += event.cpuNanos;
+      allocatedBytes += event.allocatedBytes;
+    }
+  }
+}
@@ -81,6 +81,27 @@ public abstract class SetType {
     return isSet(key.type().xprocessing());
   }
 
+  /**
+   * {@code true} if {@code key.type()} is a {@link dagger.producers.ContributionStream} type, which
+   * is satisfied by the set multibinding of its element type.
+   */
+  public static boolean isContributionStream(Key key) {
+    XType type = key.type().xprocessing();
+    return isTypeOf(type, TypeNames.CONTRIBUTION_STREAM) && !XTypes.isRawParameterizedType(type);
+  }
+
+  /**
+   * Returns the element type of a set multibinding key: {@code E} for both {@code Set<E>} and
+   * {@code ContributionStream<E>}.
+   *
+   * @throws IllegalArgumentException if {@code key.type()} is neither
+   */
+  public static XType multiboundElementType(Key key) {
+    return isContributionStream(key)
+        ? unwrapType(key.type().xprocessing())
+        : from(key).elementType();
+  }
+
   /**
    * Returns a {@link SetType} for {@code type}.
    *
@@ -267,7 +267,7 @@ public final class BindingFactory {
   }
 
   private static BindingKind bindingKindForMultibindingKey(Key key) {
-    if (SetType.isSet(key)) {
+    if (SetType.isSet(key) || SetType.isContributionStream(key)) {
       return BindingKind.MULTIBOUND_SET;
     } else if (MapType.isMap(key)) {
       return BindingKind.MULTIBOUND_MAP;
@@ -286,6 +286,8 @@ public final class BindingFactory {
       }
     } else if (SetType.isSet(key) && SetType.from(key).elementsAreTypeOf(TypeNames.PRODUCED)) {
       return true;
+    } else if (SetType.isContributionStream(key)) {
+      return true;
     }
     return Iterables.any(
         multibindingContributions, binding -> binding.bindingType().equals(BindingType.PRODUCTION));
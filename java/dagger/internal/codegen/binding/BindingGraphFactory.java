@@ -49,6 +49,7 @@ import dagger.internal.codegen.base.DaggerSuperficialValidation;
 import dagger.internal.codegen.base.Keys;
 import dagger.internal.codegen.base.MapType;
 import dagger.internal.codegen.base.OptionalType;
+import dagger.internal.codegen.base.ProcessorProfiler;
 import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.xprocessing.XTypeElements;
@@ -81,6 +82,7 @@ public final class BindingGraphFactory implements ClearableCache {
   private final BindingGraphConverter bindingGraphConverter;
   private final Map<Key, ImmutableSet<Key>> keysMatchingRequestCache = new HashMap<>();
   private final CompilerOptions compilerOptions;
+  private final ProcessorProfiler profiler;
 
   @Inject
   BindingGraphFactory(
@@ -90,7 +92,8 @@ public final class BindingGraphFactory implements ClearableCache {
       BindingFactory bindingFactory,
       ModuleDescriptor.Factory moduleDescriptorFactory,
       BindingGraphConverter bindingGraphConverter,
-      CompilerOptions compilerOptions) {
+      CompilerOptions compilerOptions,
+      ProcessorProfiler profiler) {
     this.processingEnv = processingEnv;
     this.injectBindingRegistry = injectBindingRegistry;
     this.keyFactory = keyFactory;
@@ -98,6 +101,7 @@ public final class BindingGraphFactory implements ClearableCache {
     this.moduleDescriptorFactory = moduleDescriptorFactory;
     this.bindingGraphConverter = bindingGraphConverter;
     this.compilerOptions = compilerOptions;
+    this.profiler = profiler;
   }
 
   /**
@@ -108,9 +112,18 @@ public final class BindingGraphFactory implements ClearableCache {
    */
   public BindingGraph create(
       ComponentDescriptor componentDescriptor, boolean createFullBindingGraph) {
-    return bindingGraphConverter.convert(
-        createLegacyBindingGraph(Optional.empty(), componentDescriptor, createFullBindingGraph),
-        createFullBindingGraph);
+    String component = componentDescriptor.typeElement().getQualifiedName();
+    LegacyBindingGraph legacyBindingGraph =
+        profiler.profile(
+            createFullBindingGraph ? "fullBindingGraphResolution" : "bindingGraphResolution",
+            component,
+            () ->
+                createLegacyBindingGraph(
+                    Optional.empty(), componentDescriptor, createFullBindingGraph));
+    return profiler.profile(
+        "bindingGraphConversion",
+        component,
+        () -> bindingGraphConverter.convert(legacyBindingGraph, createFullBindingGraph));
   }
 
   private LegacyBindingGraph createLegacyBindingGraph(
@@ -510,6 +523,7 @@ public final class BindingGraphFactory implements ClearableCache {
       ImmutableSet.Builder<Key> keys = ImmutableSet.builder();
       keys.add(requestKey);
       keyFactory.unwrapSetKey(requestKey, TypeNames.PRODUCED).ifPresent(keys::add);
+      keyFactory.unwrapContributionStreamKey(requestKey).ifPresent(keys::add);
       keyFactory
           .rewrapMapKey(requestKey, TypeNames.PRODUCER, TypeNames.PROVIDER)
           .ifPresent(keys::add);
@@ -407,6 +407,16 @@ public final class KeyFactory {
     return Optional.empty();
   }
 
+  /**
+   * If {@code key}'s type is {@code ContributionStream<Bar>}, returns a key with type {@code
+   * Set<Bar>} with the same qualifier. Otherwise returns {@link Optional#empty()}.
+   */
+  Optional<Key> unwrapContributionStreamKey(Key key) {
+    return SetType.isContributionStream(key)
+        ? Optional.of(key.withType(DaggerType.from(setOf(unwrapType(key.type().xprocessing())))))
+        : Optional.empty();
+  }
+
   /**
    * If {@code key}'s type is {@code Optional<T>} for some {@code T}, returns a key with the same
    * qualifier whose type is {@linkplain RequestKinds#extractKeyType(RequestKind, XType)}
@@ -75,7 +75,7 @@ public final class MapKeys {
    * @throws IllegalArgumentException if {@code mapKey}'s type is not annotated with {@link
    *     MapKey @MapKey} at all.
    */
-  private static Optional<XAnnotationValue> unwrapValue(XAnnotation mapKey) {
+  public static Optional<XAnnotationValue> unwrapValue(XAnnotation mapKey) {
     XTypeElement mapKeyType = mapKey.getType().getTypeElement();
     XAnnotation mapKeyAnnotation = mapKeyType.getAnnotation(TypeNames.MAP_KEY);
     checkArgument(mapKeyAnnotation != null, "%s is not annotated with @MapKey", mapKeyType);
@@ -22,6 +22,7 @@ import static com.google.common.base.CaseFormat.UPPER_CAMEL;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
+import static dagger.internal.codegen.javapoet.TypeNames.CONTRIBUTION_STREAM_PRODUCER;
 import static dagger.internal.codegen.javapoet.TypeNames.DOUBLE_CHECK;
 import static dagger.internal.codegen.javapoet.TypeNames.MAP_FACTORY;
 import static dagger.internal.codegen.javapoet.TypeNames.MAP_OF_PRODUCED_PRODUCER;
@@ -223,12 +224,16 @@ public class SourceFiles {
    *   <li>{@link dagger.producers.internal.SetProducer} for production bindings for {@code Set<T>}.
    *   <li>{@link dagger.producers.internal.SetOfProducedProducer} for production bindings for
    *       {@code Set<Produced<T>>}.
+   *   <li>{@link dagger.producers.internal.ContributionStreamProducer} for production bindings for
+   *       {@code ContributionStream<T>}.
    * </ul>
    */
   public static ClassName setFactoryClassName(ContributionBinding binding) {
     checkArgument(binding.kind().equals(MULTIBOUND_SET));
     if (binding.bindingType().equals(BindingType.PROVISION)) {
       return SET_FACTORY;
+    } else if (SetType.isContributionStream(binding.key())) {
+      return CONTRIBUTION_STREAM_PRODUCER;
     } else {
       SetType setType = SetType.from(binding.key());
       return setType.elementsAreTypeOf(TypeNames.PRODUCED)
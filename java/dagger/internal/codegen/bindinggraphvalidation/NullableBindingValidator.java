@@ -24,10 +24,10 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import dagger.internal.codegen.compileroption.CompilerOptions;
+import dagger.internal.codegen.validation.ThreadSafeBindingGraphPlugin;
 import dagger.spi.model.Binding;
 import dagger.spi.model.BindingGraph;
 import dagger.spi.model.BindingGraph.DependencyEdge;
-import dagger.spi.model.BindingGraphPlugin;
 import dagger.spi.model.DiagnosticReporter;
 import javax.inject.Inject;
 
@@ -35,7 +35,9 @@ import javax.inject.Inject;
  * Reports errors or warnings (depending on the {@code -Adagger.nullableValidation} value) for each
  * non-nullable dependency request that is satisfied by a nullable binding.
  */
-final class NullableBindingValidator implements BindingGraphPlugin {
+final class NullableBindingValidator implements ThreadSafeBindingGraphPlugin {
+  private static final String NULLABLE_TO_NON_NULLABLE =
+      "%s is not nullable, but is being provided by %s";
 
   private final CompilerOptions compilerOptions;
 
@@ -51,9 +53,9 @@ final class NullableBindingValidator implements BindingGraphPlugin {
         diagnosticReporter.reportDependency(
             compilerOptions.nullableValidationKind(),
             dependencyEdge,
-            nullableToNonNullable(
-                binding.key().toString(),
-                binding.toString())); // binding.toString() will include the @Nullable
+            NULLABLE_TO_NON_NULLABLE,
+            binding.key(),
+            binding); // binding.toString() will include the @Nullable
       }
     }
   }
@@ -79,6 +81,6 @@ final class NullableBindingValidator implements BindingGraphPlugin {
 
   @VisibleForTesting
   static String nullableToNonNullable(String key, String binding) {
-    return String.format("%s is not nullable, but is being provided by %s", key, binding);
+    return String.format(NULLABLE_TO_NON_NULLABLE, key, binding);
   }
 }
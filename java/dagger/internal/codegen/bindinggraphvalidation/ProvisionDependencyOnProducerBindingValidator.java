@@ -22,11 +22,11 @@ import static dagger.internal.codegen.base.RequestKinds.canBeSatisfiedByProducti
 import static dagger.internal.codegen.extension.DaggerStreams.instancesOf;
 import static javax.tools.Diagnostic.Kind.ERROR;
 
+import dagger.internal.codegen.validation.ThreadSafeBindingGraphPlugin;
 import dagger.spi.model.Binding;
 import dagger.spi.model.BindingGraph;
 import dagger.spi.model.BindingGraph.DependencyEdge;
 import dagger.spi.model.BindingGraph.Node;
-import dagger.spi.model.BindingGraphPlugin;
 import dagger.spi.model.DiagnosticReporter;
 import java.util.stream.Stream;
 import javax.inject.Inject;
@@ -36,7 +36,7 @@ import javax.inject.Inject;
  * binding.
  */
 // TODO(b/29509141): Clarify the error.
-final class ProvisionDependencyOnProducerBindingValidator implements BindingGraphPlugin {
+final class ProvisionDependencyOnProducerBindingValidator implements ThreadSafeBindingGraphPlugin {
 
   @Inject
   ProvisionDependencyOnProducerBindingValidator() {}
@@ -50,13 +50,21 @@ final class ProvisionDependencyOnProducerBindingValidator implements BindingGrap
   public void visitGraph(BindingGraph bindingGraph, DiagnosticReporter diagnosticReporter) {
     provisionDependenciesOnProductionBindings(bindingGraph)
         .forEach(
-            provisionDependent ->
+            provisionDependent -> {
+              if (provisionDependent.isEntryPoint()) {
                 diagnosticReporter.reportDependency(
                     ERROR,
                     provisionDependent,
-                    provisionDependent.isEntryPoint()
-                        ? entryPointErrorMessage(provisionDependent)
-                        : dependencyErrorMessage(provisionDependent, bindingGraph)));
+                    "%s is a provision entry-point, which cannot depend on a production.",
+                    provisionDependent.dependencyRequest().key());
+              } else {
+                diagnosticReporter.reportDependency(
+                    ERROR,
+                    provisionDependent,
+                    "%s is a provision, which cannot depend on a production.",
+                    bindingRequestingDependency(provisionDependent, bindingGraph).key());
+              }
+            });
   }
 
   private Stream<DependencyEdge> provisionDependenciesOnProductionBindings(
@@ -99,17 +107,4 @@ final class ProvisionDependencyOnProducerBindingValidator implements BindingGrap
         source);
     return (Binding) source;
   }
-
-  private String entryPointErrorMessage(DependencyEdge entryPoint) {
-    return String.format(
-        "%s is a provision entry-point, which cannot depend on a production.",
-        entryPoint.dependencyRequest().key());
-  }
-
-  private String dependencyErrorMessage(
-      DependencyEdge dependencyOnProduction, BindingGraph bindingGraph) {
-    return String.format(
-        "%s is a provision, which cannot depend on a production.",
-        bindingRequestingDependency(dependencyOnProduction, bindingGraph).key());
-  }
 }
@@ -17,6 +17,8 @@
 package dagger.internal.codegen.compileroption;
 
 import androidx.room.compiler.processing.XTypeElement;
+import com.google.common.collect.ImmutableSet;
+import java.util.Optional;
 import javax.tools.Diagnostic;
 
 /** A collection of options that dictate how the compiler will run. */
@@ -45,6 +47,47 @@ public abstract class CompilerOptions {
 
   public abstract boolean formatGeneratedSource();
 
+  /**
+   * Returns {@code true} if scoped bindings should be memoized with {@code LockFreeDoubleCheck}
+   * rather than {@code DoubleCheck}.
+   *
+   * <p>{@code LockFreeDoubleCheck} claims and publishes the first resolution with compare-and-set
+   * instead of holding the provider's monitor, which reduces contention when many threads request
+   * the same unresolved scoped binding at once.
+   */
+  public abstract boolean lockFreeScopedProviders();
+
+  /**
+   * Returns {@code true} if multibound {@code Set<T>} and {@code Map<K, V>} bindings whose
+   * contributions are all scoped or constant should be built once and memoized by the component,
+   * rather than rebuilt for every request.
+   */
+  public abstract boolean memoizeConstantMultibindings();
+
+  /**
+   * Returns {@code true} if direct requests for a multibound {@code Map<K, Provider<V>>} whose keys
+   * are all compile-time constants should return a generated map that switches on the key and
+   * creates each provider on first use.
+   */
+  public abstract boolean generatedMapLookups();
+
+  /**
+   * Returns {@code true} if, in fast-init mode, direct requests for a multibound {@code Map<K,
+   * Provider<V>>} should return a map that creates the {@code SwitchingProvider} for each entry
+   * only when that entry is first requested.
+   */
+  public abstract boolean lazyMapProviders();
+
+  /**
+   * Returns {@code true} if the thread-safe Dagger validation plugins should visit each graph on
+   * other threads while the remaining validation plugins visit it on the processing thread. Each
+   * plugin's diagnostics are buffered and reported in plugin order once all plugins finish, so the
+   * output is the same as when they run sequentially.
+   *
+   * <p>External plugins always run sequentially on the processing thread.
+   */
+  public abstract boolean parallelBindingGraphValidation();
+
   public abstract boolean writeProducerNameInToken();
 
   public abstract Diagnostic.Kind nullableValidationKind();
@@ -139,6 +182,34 @@ public abstract class CompilerOptions {
    */
   public abstract boolean generatedClassExtendsComponent();
 
+  /**
+   * Returns the canonical names of the scope annotations whose components can reset their scoped
+   * bindings, so that one component instance can be reused instead of creating a new one.
+   *
+   * <p>A (non-production) component annotated with one of these scopes memoizes every binding it
+   * owns with {@code ResettableScope} rather than {@code DoubleCheck} or {@code SingleCheck}, and
+   * implements {@code ResettableComponent}.
+   */
+  public ImmutableSet<String> resettableScopes() {
+    return ImmutableSet.of();
+  }
+
+  /**
+   * Returns the directory in which to persist validation results for types read from class files,
+   * so that later compilations can skip validating them again.
+   */
+  public Optional<String> validationCacheDirectory() {
+    return Optional.empty();
+  }
+
+  /**
+   * Returns the path to which the processor should write a trace of the time and allocations of
+   * each processing phase.
+   */
+  public Optional<String> profile() {
+    return Optional.empty();
+  }
+
   /** Returns the number of bindings allowed per shard. */
   public int keysPerComponentShard(XTypeElement component) {
     return 3500;
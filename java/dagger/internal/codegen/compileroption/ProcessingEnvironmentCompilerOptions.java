@@ -30,8 +30,13 @@ import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompil
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.FLOATING_BINDS_METHODS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.FORMAT_GENERATED_SOURCE;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.GENERATED_CLASS_EXTENDS_COMPONENT;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.GENERATED_MAP_LOOKUPS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.IGNORE_PRIVATE_AND_STATIC_INJECTION_FOR_COMPONENT;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.INCLUDE_STACKTRACE_WITH_DEFERRED_ERROR_MESSAGES;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.LAZY_MAP_PROVIDERS;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.LOCK_FREE_SCOPED_PROVIDERS;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.MEMOIZE_CONSTANT_MULTIBINDINGS;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.PARALLEL_BINDING_GRAPH_VALIDATION;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.PLUGINS_VISIT_FULL_BINDING_GRAPHS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.STRICT_MULTIBINDING_VALIDATION;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.STRICT_SUPERFICIAL_VALIDATION;
@@ -58,6 +63,7 @@ import androidx.room.compiler.processing.XMessager;
 import androidx.room.compiler.processing.XProcessingEnv;
 import androidx.room.compiler.processing.XTypeElement;
 import com.google.common.base.Ascii;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -76,6 +82,9 @@ import javax.tools.Diagnostic;
 public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions {
   // EnumOption<T> doesn't support integer inputs so just doing this as a 1-off for now.
   private static final String KEYS_PER_COMPONENT_SHARD = "dagger.keysPerComponentShard";
+  private static final String VALIDATION_CACHE_DIRECTORY = "dagger.validationCacheDirectory";
+  private static final String PROFILE = "dagger.profile";
+  private static final String RESETTABLE_SCOPES = "dagger.resettableScopes";
 
   private final XProcessingEnv processingEnv;
   private final XMessager messager;
@@ -142,6 +151,31 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
     return isEnabled(FORMAT_GENERATED_SOURCE);
   }
 
+  @Override
+  public boolean lockFreeScopedProviders() {
+    return isEnabled(LOCK_FREE_SCOPED_PROVIDERS);
+  }
+
+  @Override
+  public boolean memoizeConstantMultibindings() {
+    return isEnabled(MEMOIZE_CONSTANT_MULTIBINDINGS);
+  }
+
+  @Override
+  public boolean generatedMapLookups() {
+    return isEnabled(GENERATED_MAP_LOOKUPS);
+  }
+
+  @Override
+  public boolean lazyMapProviders() {
+    return isEnabled(LAZY_MAP_PROVIDERS);
+  }
+
+  @Override
+  public boolean parallelBindingGraphValidation() {
+    return isEnabled(PARALLEL_BINDING_GRAPH_VALIDATION);
+  }
+
   @Override
   public boolean writeProducerNameInToken() {
     return isEnabled(WRITE_PRODUCER_NAME_IN_TOKEN);
@@ -238,6 +272,24 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
     return super.keysPerComponentShard(component);
   }
 
+  @Override
+  public Optional<String> validationCacheDirectory() {
+    return Optional.ofNullable(options.get(VALIDATION_CACHE_DIRECTORY));
+  }
+
+  @Override
+  public Optional<String> profile() {
+    return Optional.ofNullable(options.get(PROFILE));
+  }
+
+  @Override
+  public ImmutableSet<String> resettableScopes() {
+    return options.containsKey(RESETTABLE_SCOPES)
+        ? ImmutableSet.copyOf(
+            Splitter.on(',').trimResults().omitEmptyStrings().split(options.get(RESETTABLE_SCOPES)))
+        : ImmutableSet.of();
+  }
+
   private boolean isEnabled(KeyOnlyOption keyOnlyOption) {
     return options.containsKey(keyOnlyOption.toString());
   }
@@ -353,7 +405,17 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
 
     GENERATED_CLASS_EXTENDS_COMPONENT,
 
-    VALIDATE_TRANSITIVE_COMPONENT_DEPENDENCIES(ENABLED)
+    VALIDATE_TRANSITIVE_COMPONENT_DEPENDENCIES(ENABLED),
+
+    LOCK_FREE_SCOPED_PROVIDERS,
+
+    MEMOIZE_CONSTANT_MULTIBINDINGS,
+
+    GENERATED_MAP_LOOKUPS,
+
+    LAZY_MAP_PROVIDERS,
+
+    PARALLEL_BINDING_GRAPH_VALIDATION,
     ;
 
     final FeatureStatus defaultValue;
@@ -456,6 +518,9 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
             .flatMap(CommandLineOption::allNames)
             .collect(toImmutableSet()))
         .add(KEYS_PER_COMPONENT_SHARD)
+        .add(VALIDATION_CACHE_DIRECTORY)
+        .add(PROFILE)
+        .add(RESETTABLE_SCOPES)
         .build();
   }
 
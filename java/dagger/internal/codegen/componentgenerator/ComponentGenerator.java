@@ -22,6 +22,7 @@ import androidx.room.compiler.processing.XProcessingEnv;
 import com.google.common.collect.ImmutableList;
 import com.squareup.javapoet.TypeSpec;
 import dagger.Component;
+import dagger.internal.codegen.base.ProcessorProfiler;
 import dagger.internal.codegen.base.SourceFileGenerator;
 import dagger.internal.codegen.binding.BindingGraph;
 import dagger.internal.codegen.writing.ComponentImplementation;
@@ -31,14 +32,17 @@ import javax.inject.Inject;
 /** Generates the implementation of the abstract types annotated with {@link Component}. */
 final class ComponentGenerator extends SourceFileGenerator<BindingGraph> {
   private final TopLevelImplementationComponent.Factory topLevelImplementationComponentFactory;
+  private final ProcessorProfiler profiler;
 
   @Inject
   ComponentGenerator(
       XFiler filer,
       XProcessingEnv processingEnv,
-      TopLevelImplementationComponent.Factory topLevelImplementationComponentFactory) {
+      TopLevelImplementationComponent.Factory topLevelImplementationComponentFactory,
+      ProcessorProfiler profiler) {
     super(filer, processingEnv);
     this.topLevelImplementationComponentFactory = topLevelImplementationComponentFactory;
+    this.profiler = profiler;
   }
 
   @Override
@@ -48,6 +52,13 @@ final class ComponentGenerator extends SourceFileGenerator<BindingGraph> {
 
   @Override
   public ImmutableList<TypeSpec.Builder> topLevelTypes(BindingGraph bindingGraph) {
+    return profiler.profile(
+        "componentImplementation",
+        bindingGraph.componentTypeElement().getQualifiedName(),
+        () -> topLevelTypesInternal(bindingGraph));
+  }
+
+  private ImmutableList<TypeSpec.Builder> topLevelTypesInternal(BindingGraph bindingGraph) {
     ComponentImplementation componentImplementation =
         topLevelImplementationComponentFactory
             .create(bindingGraph)
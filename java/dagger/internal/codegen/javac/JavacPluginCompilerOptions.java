@@ -51,6 +51,31 @@ final class JavacPluginCompilerOptions extends CompilerOptions {
     return false;
   }
 
+  @Override
+  public boolean lockFreeScopedProviders() {
+    return false;
+  }
+
+  @Override
+  public boolean memoizeConstantMultibindings() {
+    return false;
+  }
+
+  @Override
+  public boolean generatedMapLookups() {
+    return false;
+  }
+
+  @Override
+  public boolean lazyMapProviders() {
+    return false;
+  }
+
+  @Override
+  public boolean parallelBindingGraphValidation() {
+    return false;
+  }
+
   @Override
   public boolean writeProducerNameInToken() {
     return true;
@@ -61,7 +61,12 @@ public final class TypeNames {
       ClassName.get("dagger.internal", "InjectedFieldSignature");
   public static final ClassName INSTANCE_FACTORY =
       ClassName.get("dagger.internal", "InstanceFactory");
+  public static final ClassName LAZY_PROVIDER_MAP =
+      ClassName.get("dagger.internal", "LazyProviderMap");
+  public static final ClassName LOCK_FREE_DOUBLE_CHECK =
+      ClassName.get("dagger.internal", "LockFreeDoubleCheck");
   public static final ClassName MAP_FACTORY = ClassName.get("dagger.internal", "MapFactory");
+  public static final ClassName MAP_KEY_INDEX = ClassName.get("dagger.internal", "MapKeyIndex");
   public static final ClassName MAP_PROVIDER_FACTORY =
       ClassName.get("dagger.internal", "MapProviderFactory");
   public static final ClassName MEMBERS_INJECTOR = ClassName.get("dagger", "MembersInjector");
@@ -70,6 +75,10 @@ public final class TypeNames {
   public static final ClassName PROVIDER = ClassName.get("javax.inject", "Provider");
   public static final ClassName PROVIDER_OF_LAZY =
       ClassName.get("dagger.internal", "ProviderOfLazy");
+  public static final ClassName RESETTABLE_COMPONENT =
+      ClassName.get("dagger.internal", "ResettableComponent");
+  public static final ClassName RESETTABLE_SCOPE =
+      ClassName.get("dagger.internal", "ResettableScope");
   public static final ClassName SCOPE_METADATA = ClassName.get("dagger.internal", "ScopeMetadata");
   public static final ClassName QUALIFIER_METADATA =
       ClassName.get("dagger.internal", "QualifierMetadata");
@@ -84,10 +93,17 @@ public final class TypeNames {
       ClassName.get("dagger.producers.internal", "CancellationListener");
   public static final ClassName CANCELLATION_POLICY =
       ClassName.get("dagger.producers", "CancellationPolicy");
+  public static final ClassName CONTRIBUTION_STREAM =
+      ClassName.get("dagger.producers", "ContributionStream");
+  public static final ClassName CONTRIBUTION_STREAM_PRODUCER =
+      ClassName.get("dagger.producers.internal", "ContributionStreamProducer");
   public static final ClassName DELEGATE_PRODUCER =
       ClassName.get("dagger.producers.internal", "DelegateProducer");
   public static final ClassName DEPENDENCY_METHOD_PRODUCER =
       ClassName.get("dagger.producers.internal", "DependencyMethodProducer");
+  public static final ClassName HEDGED = ClassName.get("dagger.producers", "Hedged");
+  public static final ClassName HEDGE_POLICY =
+      ClassName.get("dagger.producers.internal", "HedgePolicy");
   public static final ClassName MAP_OF_PRODUCED_PRODUCER =
       ClassName.get("dagger.producers.internal", "MapOfProducedProducer");
   public static final ClassName MAP_OF_PRODUCER_PRODUCER =
@@ -96,6 +112,7 @@ public final class TypeNames {
       ClassName.get("dagger.producers.internal", "MapProducer");
   public static final ClassName MONITORS =
       ClassName.get("dagger.producers.monitoring.internal", "Monitors");
+  public static final ClassName NON_BLOCKING = ClassName.get("dagger.producers", "NonBlocking");
   public static final ClassName PRODUCED = ClassName.get("dagger.producers", "Produced");
   public static final ClassName PRODUCER = ClassName.get("dagger.producers", "Producer");
   public static final ClassName PRODUCERS = ClassName.get("dagger.producers.internal", "Producers");
@@ -119,6 +136,8 @@ public final class TypeNames {
       PRODUCTION_SUBCOMPONENT.nestedClass("Builder");
   public static final ClassName PRODUCTION_SUBCOMPONENT_FACTORY =
       PRODUCTION_SUBCOMPONENT.nestedClass("Factory");
+  public static final ClassName PRODUCER_TIMEOUT =
+      ClassName.get("dagger.producers", "ProducerTimeout");
   public static final ClassName PRODUCER_TOKEN =
       ClassName.get("dagger.producers.monitoring", "ProducerToken");
   public static final ClassName PRODUCTION_COMPONENT_MONITOR =
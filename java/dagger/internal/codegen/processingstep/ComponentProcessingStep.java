@@ -29,6 +29,7 @@ import com.google.auto.common.BasicAnnotationProcessor.ProcessingStep;
 import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.squareup.javapoet.ClassName;
+import dagger.internal.codegen.base.ProcessorProfiler;
 import dagger.internal.codegen.base.SourceFileGenerator;
 import dagger.internal.codegen.binding.BindingGraph;
 import dagger.internal.codegen.binding.BindingGraphFactory;
@@ -55,6 +56,7 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
   private final BindingGraphFactory bindingGraphFactory;
   private final SourceFileGenerator<BindingGraph> componentGenerator;
   private final BindingGraphValidator bindingGraphValidator;
+  private final ProcessorProfiler profiler;
 
   @Inject
   ComponentProcessingStep(
@@ -65,7 +67,8 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
       ComponentDescriptorFactory componentDescriptorFactory,
       BindingGraphFactory bindingGraphFactory,
       SourceFileGenerator<BindingGraph> componentGenerator,
-      BindingGraphValidator bindingGraphValidator) {
+      BindingGraphValidator bindingGraphValidator,
+      ProcessorProfiler profiler) {
     this.messager = messager;
     this.componentValidator = componentValidator;
     this.creatorValidator = creatorValidator;
@@ -74,6 +77,7 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
     this.bindingGraphFactory = bindingGraphFactory;
     this.componentGenerator = componentGenerator;
     this.bindingGraphValidator = bindingGraphValidator;
+    this.profiler = profiler;
   }
 
   @Override
@@ -84,10 +88,12 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
   @Override
   protected void process(XTypeElement element, ImmutableSet<ClassName> annotations) {
     if (!disjoint(annotations, rootComponentAnnotations())) {
-      processRootComponent(element);
+      profiler.profileComponent(
+          "processRootComponent", element.getQualifiedName(), () -> processRootComponent(element));
     }
     if (!disjoint(annotations, subcomponentAnnotations())) {
-      processSubcomponent(element);
+      profiler.profileComponent(
+          "processSubcomponent", element.getQualifiedName(), () -> processSubcomponent(element));
     }
     if (!disjoint(annotations, allCreatorAnnotations())) {
       processCreator(element);
@@ -99,7 +105,10 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
       return;
     }
     ComponentDescriptor componentDescriptor =
-        componentDescriptorFactory.rootComponentDescriptor(component);
+        profiler.profile(
+            "componentDescriptor",
+            component.getQualifiedName(),
+            () -> componentDescriptorFactory.rootComponentDescriptor(component));
     if (!isValid(componentDescriptor)) {
       return;
     }
@@ -117,13 +126,19 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
       return;
     }
     ComponentDescriptor subcomponentDescriptor =
-        componentDescriptorFactory.subcomponentDescriptor(subcomponent);
+        profiler.profile(
+            "componentDescriptor",
+            subcomponent.getQualifiedName(),
+            () -> componentDescriptorFactory.subcomponentDescriptor(subcomponent));
     // TODO(dpb): ComponentDescriptorValidator for subcomponents, as we do for root components.
     validateFullBindingGraph(subcomponentDescriptor);
   }
 
   private void generateComponent(BindingGraph bindingGraph) {
-    componentGenerator.generate(bindingGraph, messager);
+    profiler.profile(
+        "componentGeneration",
+        bindingGraph.componentTypeElement().getQualifiedName(),
+        () -> componentGenerator.generate(bindingGraph, messager));
   }
 
   private void processCreator(XTypeElement creator) {
@@ -131,7 +146,11 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
   }
 
   private boolean isComponentValid(XTypeElement component) {
-    ValidationReport report = componentValidator.validate(component);
+    ValidationReport report =
+        profiler.profile(
+            "componentValidation",
+            component.getQualifiedName(),
+            () -> componentValidator.validate(component));
     report.printMessagesTo(messager);
     return report.isClean();
   }
@@ -148,7 +167,10 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
 
   private boolean isValid(ComponentDescriptor componentDescriptor) {
     ValidationReport componentDescriptorReport =
-        componentDescriptorValidator.validate(componentDescriptor);
+        profiler.profile(
+            "componentDescriptorValidation",
+            componentDescriptor.typeElement().getQualifiedName(),
+            () -> componentDescriptorValidator.validate(componentDescriptor));
     componentDescriptorReport.printMessagesTo(messager);
     return componentDescriptorReport.isClean();
   }
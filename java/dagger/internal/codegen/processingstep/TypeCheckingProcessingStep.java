@@ -33,6 +33,7 @@ import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Maps;
 import com.squareup.javapoet.ClassName;
 import dagger.internal.codegen.base.DaggerSuperficialValidation.ValidationException;
+import dagger.internal.codegen.base.ProcessorProfiler;
 import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.xprocessing.XElements;
 import java.util.ArrayList;
@@ -51,6 +52,7 @@ abstract class TypeCheckingProcessingStep<E extends XElement> implements XProces
   @Inject XMessager messager;
   @Inject CompilerOptions compilerOptions;
   @Inject SuperficialValidator superficialValidator;
+  @Inject ProcessorProfiler profiler;
 
   @Override
   public final ImmutableSet<String> annotations() {
@@ -77,7 +79,10 @@ abstract class TypeCheckingProcessingStep<E extends XElement> implements XProces
                 //  type, we should try to remove this and handle any additional validation into the
                 //  steps that need it.
                 if (requiresPreValidation()) {
-                  superficialValidator.throwIfNearestEnclosingTypeNotValid(element);
+                  profiler.profile(
+                      "superficialValidation",
+                      XElements.toStableString(element),
+                      () -> superficialValidator.throwIfNearestEnclosingTypeNotValid(element));
                 }
                 process((E) element, annotations);
               } catch (TypeNotPresentException e) {
@@ -38,11 +38,15 @@ import javax.inject.Singleton;
 @Singleton
 public final class AnyBindingMethodValidator implements ClearableCache {
   private final ImmutableMap<ClassName, BindingMethodValidator> validators;
+  private final ClasspathValidationCache classpathValidationCache;
   private final Map<XMethodElement, ValidationReport> reports = new HashMap<>();
 
   @Inject
-  AnyBindingMethodValidator(ImmutableMap<ClassName, BindingMethodValidator> validators) {
+  AnyBindingMethodValidator(
+      ImmutableMap<ClassName, BindingMethodValidator> validators,
+      ClasspathValidationCache classpathValidationCache) {
     this.validators = validators;
+    this.classpathValidationCache = classpathValidationCache;
   }
 
   @Override
@@ -77,7 +81,11 @@ public final class AnyBindingMethodValidator implements ClearableCache {
    *     #methodAnnotations() binding method annotation}
    */
   public ValidationReport validate(XMethodElement method) {
-    return reentrantComputeIfAbsent(reports, method, this::validateUncached);
+    return reentrantComputeIfAbsent(
+        reports,
+        method,
+        unused ->
+            classpathValidationCache.validate("bindingMethod", method, this::validateUncached));
   }
 
   /**
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.validation;
+
+import static javax.tools.Diagnostic.Kind.ERROR;
+
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+import dagger.internal.codegen.base.ProcessorProfiler;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import dagger.internal.codegen.validation.DiagnosticReporterFactory.DiagnosticReporterImpl;
+import dagger.spi.model.BindingGraph;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.inject.Inject;
+
+/**
+ * Visits a binding graph with a collection of plugins, either one after another or, with {@link
+ * CompilerOptions#parallelBindingGraphValidation()}, visiting the thread-safe ones concurrently.
+ */
+final class BindingGraphPluginVisitor {
+  private final DiagnosticReporterFactory diagnosticReporterFactory;
+  private final CompilerOptions compilerOptions;
+  private final ProcessorProfiler profiler;
+
+  @Inject
+  BindingGraphPluginVisitor(
+      DiagnosticReporterFactory diagnosticReporterFactory,
+      CompilerOptions compilerOptions,
+      ProcessorProfiler profiler) {
+    this.diagnosticReporterFactory = diagnosticReporterFactory;
+    this.compilerOptions = compilerOptions;
+    this.profiler = profiler;
+  }
+
+  /**
+   * Calls {@code visitor} with each plugin and a reporter for that plugin, one after another on
+   * the processing thread. Returns {@code false} if any of the plugins reported an error.
+   */
+  <P> boolean visit(
+      BindingGraph graph,
+      ImmutableCollection<P> plugins,
+      Function<P, String> pluginName,
+      boolean reportErrorsAsWarnings,
+      BiConsumer<P, DiagnosticReporterImpl> visitor) {
+    return visit(graph, plugins, pluginName, plugin -> false, reportErrorsAsWarnings, visitor);
+  }
+
+  /**
+   * Calls {@code visitor} with each plugin and a reporter for that plugin. With {@link
+   * CompilerOptions#parallelBindingGraphValidation()}, the plugins for which {@code isThreadSafe}
+   * returns {@code true} are visited in the common {@link ForkJoinPool} while the others are
+   * visited on the processing thread. Returns {@code false} if any of the plugins reported an
+   * error.
+   */
+  <P> boolean visit(
+      BindingGraph graph,
+      ImmutableCollection<P> plugins,
+      Function<P, String> pluginName,
+      Predicate<P> isThreadSafe,
+      boolean reportErrorsAsWarnings,
+      BiConsumer<P, DiagnosticReporterImpl> visitor) {
+    String component = graph.rootComponentNode().componentPath().toString();
+    BiConsumer<P, DiagnosticReporterImpl> profiledVisitor =
+        (plugin, reporter) ->
+            profiler.profile(
+                "plugin " + pluginName.apply(plugin),
+                component,
+                () -> visitor.accept(plugin, reporter));
+    if (compilerOptions.parallelBindingGraphValidation()
+        && plugins.size() > 1
+        && plugins.stream().anyMatch(isThreadSafe)) {
+      return visitConcurrently(
+          graph, plugins, pluginName, isThreadSafe, reportErrorsAsWarnings, profiledVisitor);
+    }
+    boolean isClean = true;
+    for (P plugin : plugins) {
+      DiagnosticReporterImpl reporter =
+          reportErrorsAsWarnings
+              ? diagnosticReporterFactory.reporterWithErrorAsWarnings(
+                  graph, pluginName.apply(plugin))
+              : diagnosticReporterFactory.reporter(graph, pluginName.apply(plugin));
+      profiledVisitor.accept(plugin, reporter);
+      if (reporter.reportedDiagnosticKinds().contains(ERROR)) {
+        isClean = false;
+      }
+    }
+    return isClean;
+  }
+
+  private <P> boolean visitConcurrently(
+      BindingGraph graph,
+      ImmutableCollection<P> plugins,
+      Function<P, String> pluginName,
+      Predicate<P> isThreadSafe,
+      boolean reportErrorsAsWarnings,
+      BiConsumer<P, DiagnosticReporterImpl> visitor) {
+    // Every plugin gets its own buffered reporter, and the buffers are formatted and printed on
+    // this thread in plugin order, so the diagnostics are the same as when the plugins run
+    // sequentially. The thread-safe plugins are submitted first so that they run while this thread
+    // visits the others.
+    ImmutableList.Builder<DiagnosticReporterImpl> reporters = ImmutableList.builder();
+    ImmutableList.Builder<ForkJoinTask<?>> tasks = ImmutableList.builder();
+    ImmutableList.Builder<Runnable> sequentialVisits = ImmutableList.builder();
+    for (P plugin : plugins) {
+      DiagnosticReporterImpl reporter =
+          diagnosticReporterFactory.bufferedReporter(
+              graph, pluginName.apply(plugin), reportErrorsAsWarnings);
+      reporters.add(reporter);
+      if (isThreadSafe.test(plugin)) {
+        tasks.add(ForkJoinPool.commonPool().submit(() -> visitor.accept(plugin, reporter)));
+      } else {
+        sequentialVisits.add(() -> visitor.accept(plugin, reporter));
+      }
+    }
+    try {
+      sequentialVisits.build().forEach(Runnable::run);
+    } finally {
+      tasks.build().forEach(ForkJoinTask::join);
+    }
+    boolean isClean = true;
+    for (DiagnosticReporterImpl reporter : reporters.build()) {
+      reporter.flush();
+      if (reporter.reportedDiagnosticKinds().contains(ERROR)) {
+        isClean = false;
+      }
+    }
+    return isClean;
+  }
+}
@@ -17,6 +17,7 @@
 package dagger.internal.codegen.validation;
 
 import androidx.room.compiler.processing.XTypeElement;
+import dagger.internal.codegen.base.ProcessorProfiler;
 import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.compileroption.ValidationType;
 import dagger.spi.model.BindingGraph;
@@ -29,15 +30,18 @@ public final class BindingGraphValidator {
   private final ValidationBindingGraphPlugins validationPlugins;
   private final ExternalBindingGraphPlugins externalPlugins;
   private final CompilerOptions compilerOptions;
+  private final ProcessorProfiler profiler;
 
   @Inject
   BindingGraphValidator(
       ValidationBindingGraphPlugins validationPlugins,
       ExternalBindingGraphPlugins externalPlugins,
-      CompilerOptions compilerOptions) {
+      CompilerOptions compilerOptions,
+      ProcessorProfiler profiler) {
     this.validationPlugins = validationPlugins;
     this.externalPlugins = externalPlugins;
     this.compilerOptions = compilerOptions;
+    this.profiler = profiler;
   }
 
   /** Returns {@code true} if validation or analysis is required on the full binding graph. */
@@ -61,7 +65,10 @@ public final class BindingGraphValidator {
       return true;
     }
 
-    return validationPlugins.visit(graph);
+    return profiler.profile(
+        "validationPlugins",
+        graph.rootComponentNode().componentPath().toString(),
+        () -> validationPlugins.visit(graph));
   }
 
   /** Returns {@code true} if external plugins report no errors. */
@@ -75,6 +82,9 @@ public final class BindingGraphValidator {
       return true;
     }
 
-    return externalPlugins.visit(graph);
+    return profiler.profile(
+        "externalPlugins",
+        graph.rootComponentNode().componentPath().toString(),
+        () -> externalPlugins.visit(graph));
   }
 }
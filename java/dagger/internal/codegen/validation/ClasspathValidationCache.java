@@ -0,0 +1,448 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.validation;
+
+import static androidx.room.compiler.processing.compat.XConverters.toJavac;
+import static dagger.internal.codegen.xprocessing.XElements.closestEnclosingTypeElement;
+import static dagger.internal.codegen.xprocessing.XElements.isTypeElement;
+import static dagger.internal.codegen.xprocessing.XElements.toStableString;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import androidx.room.compiler.processing.XElement;
+import androidx.room.compiler.processing.XProcessingEnv;
+import androidx.room.compiler.processing.XTypeElement;
+import com.google.auto.common.MoreTypes;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import com.sun.source.util.Trees;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import dagger.internal.codegen.compileroption.ProcessingOptions;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ErrorType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.IntersectionType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.SimpleTypeVisitor8;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Persists clean validation results for elements of types that are read from class files, so that
+ * later compilations with the same {@link CompilerOptions#validationCacheDirectory()} can skip
+ * validating them again.
+ *
+ * <p>Validating an element also reads its enclosing type's supertypes and the types that their
+ * members and annotations refer to, such as qualifiers, scopes and parameter types. Each result is
+ * keyed by the element and a SHA-256 hash of the class files of all of those types, so a change to
+ * any of them validates the element again. An element is not cached if any of those types is
+ * missing or is being compiled from source. Types in {@code java.*} packages that aren't on the
+ * class path are part of the JDK, whose version is recorded in the file instead.
+ *
+ * <p>Only reports without any items are stored; elements with errors or warnings are always
+ * validated so that their diagnostics are reported. This is only enabled with javac's own
+ * processing environment, since KSP does not expose class files and environments wrapped by build
+ * tools do not expose source trees.
+ *
+ * <p>Compilations that share the directory merge their results into the file. It keeps at most
+ * {@value #MAX_RESULTS} results, dropping the ones written longest ago.
+ */
+@Singleton
+public final class ClasspathValidationCache {
+  /** The version of the file format. Change this if the validation that is cached changes. */
+  private static final String FORMAT = "2";
+
+  private static final String FILE_NAME = "dagger-validation-cache.tsv";
+
+  /** The most results that the file keeps. */
+  static final int MAX_RESULTS = 20_000;
+
+  private final XProcessingEnv processingEnv;
+  private final Optional<Trees> trees;
+  private final Optional<Path> cacheFile;
+  private final String header;
+  // The hash of the class file declaring each type, or empty if the type isn't from a class file.
+  private final Map<String, Optional<String>> classFileHashes = new HashMap<>();
+  // The hash of the class files that validating each type's members depends on, or empty if any
+  // of them isn't from a class file.
+  private final Map<String, Optional<String>> dependencyHashes = new HashMap<>();
+  // The dependency hash for each clean result, keyed by validator and element.
+  private Map<String, String> cleanResults;
+  // The results found clean by this compilation, in the order they were found.
+  private final Map<String, String> newResults = new LinkedHashMap<>();
+
+  @Inject
+  ClasspathValidationCache(
+      XProcessingEnv processingEnv,
+      CompilerOptions compilerOptions,
+      @ProcessingOptions Map<String, String> processingOptions) {
+    this.processingEnv = processingEnv;
+    Optional<String> cacheDirectory =
+        processingEnv.getBackend() == XProcessingEnv.Backend.JAVAC
+            ? compilerOptions.validationCacheDirectory()
+            : Optional.empty();
+    this.trees =
+        cacheDirectory.isPresent() ? javacTrees(toJavac(processingEnv)) : Optional.empty();
+    this.cacheFile =
+        trees.isPresent()
+            ? cacheDirectory.map(path -> Paths.get(path, FILE_NAME))
+            : Optional.empty();
+    // Results depend on the processor, its options and the JDK, so a change to any of them
+    // discards the file.
+    this.header =
+        String.join(
+            "\t",
+            "dagger",
+            FORMAT,
+            String.valueOf(
+                ClasspathValidationCache.class.getProtectionDomain().getCodeSource()),
+            new TreeMap<>(processingOptions).toString(),
+            System.getProperty("java.version"));
+  }
+
+  /**
+   * Returns the {@link Trees} for {@code processingEnv}, or empty if it isn't javac's own
+   * environment, such as one that a build tool wraps for incremental processing.
+   */
+  private static Optional<Trees> javacTrees(ProcessingEnvironment processingEnv) {
+    try {
+      return Optional.of(Trees.instance(processingEnv));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Returns the report for {@code element}, calling {@code validator} unless a previous compilation
+   * found it clean with the same {@code validatorName} and the same class files.
+   */
+  <E extends XElement> ValidationReport validate(
+      String validatorName, E element, Function<E, ValidationReport> validator) {
+    Optional<String> dependencyHash =
+        cacheFile.isPresent()
+            ? dependencyHash(closestEnclosingTypeElement(element))
+            : Optional.empty();
+    if (!dependencyHash.isPresent()) {
+      return validator.apply(element);
+    }
+    String key = validatorName + "\t" + elementKey(element);
+    if (dependencyHash.get().equals(cleanResults().get(key))) {
+      return ValidationReport.about(element).build();
+    }
+    ValidationReport report = validator.apply(element);
+    if (report.isClean() && report.allItems().isEmpty()) {
+      cleanResults().put(key, dependencyHash.get());
+      newResults.put(key, dependencyHash.get());
+    }
+    return report;
+  }
+
+  private static String elementKey(XElement element) {
+    return isTypeElement(element)
+        ? toStableString(element)
+        : toStableString(closestEnclosingTypeElement(element)) + "#" + toStableString(element);
+  }
+
+  /**
+   * Returns a hash of the class files of {@code typeElement}, its supertypes and the types that
+   * their members and annotations refer to, or empty if any of them is missing or isn't read from a
+   * class file.
+   */
+  private Optional<String> dependencyHash(XTypeElement typeElement) {
+    return dependencyHashes.computeIfAbsent(
+        typeElement.getQualifiedName(), unused -> dependencyHashUncached(toJavac(typeElement)));
+  }
+
+  private Optional<String> dependencyHashUncached(TypeElement typeElement) {
+    DependencyCollector collector = new DependencyCollector();
+    if (!collector.addTypeAndSupertypes(typeElement)) {
+      return Optional.empty();
+    }
+    MessageDigest digest = sha256();
+    for (Map.Entry<String, TypeElement> dependency : collector.dependencies.entrySet()) {
+      Optional<String> classFileHash = classFileHash(dependency.getValue());
+      if (!classFileHash.isPresent()) {
+        return Optional.empty();
+      }
+      digest.update((dependency.getKey() + "=" + classFileHash.get() + "\n").getBytes(UTF_8));
+    }
+    return Optional.of(BaseEncoding.base16().encode(digest.digest()));
+  }
+
+  private Optional<String> classFileHash(TypeElement typeElement) {
+    return classFileHashes.computeIfAbsent(
+        typeElement.getQualifiedName().toString(), unused -> classFileHashUncached(typeElement));
+  }
+
+  private Optional<String> classFileHashUncached(TypeElement typeElement) {
+    ProcessingEnvironment javacEnv = toJavac(processingEnv);
+    // Types with a source tree are being compiled, even if an old class file is on the classpath.
+    if (trees.get().getPath(typeElement) != null) {
+      return Optional.empty();
+    }
+    String packageName =
+        javacEnv.getElementUtils().getPackageOf(typeElement).getQualifiedName().toString();
+    String binaryName = javacEnv.getElementUtils().getBinaryName(typeElement).toString();
+    String relativeName =
+        (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+            + ".class";
+    try {
+      FileObject classFile =
+          javacEnv.getFiler().getResource(StandardLocation.CLASS_PATH, packageName, relativeName);
+      try (InputStream inputStream = classFile.openInputStream()) {
+        return Optional.of(
+            BaseEncoding.base16().encode(sha256().digest(ByteStreams.toByteArray(inputStream))));
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      // JDK types aren't on the class path. The JDK version is part of the header instead.
+      return packageName.startsWith("java.") ? Optional.of("jdk") : Optional.empty();
+    }
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Collects the types whose declarations validating the members of a type may read: the type, its
+   * supertypes, and the types that their members and annotations refer to.
+   */
+  private static final class DependencyCollector
+      extends SimpleTypeVisitor8<Boolean, Set<Element>> {
+    // The collected types, sorted by name so that the hash doesn't depend on the order they're
+    // found in.
+    final Map<String, TypeElement> dependencies = new TreeMap<>();
+    // The types whose members and annotations have been collected.
+    private final Set<TypeElement> typesWithMembers = new HashSet<>();
+
+    DependencyCollector() {
+      super(true);
+    }
+
+    /**
+     * Adds {@code typeElement}, its supertypes and everything their members and annotations refer
+     * to. Returns {@code false} if any of them is missing.
+     */
+    boolean addTypeAndSupertypes(TypeElement typeElement) {
+      if (!typesWithMembers.add(typeElement)) {
+        return true;
+      }
+      String name = typeElement.getQualifiedName().toString();
+      dependencies.put(name, typeElement);
+      // JDK types are covered by the JDK version in the header.
+      if (name.startsWith("java.")) {
+        return true;
+      }
+      // Visiting the type's own type visits the bounds of its type parameters.
+      if (!typeElement.asType().accept(this, new HashSet<>())) {
+        return false;
+      }
+      List<TypeMirror> supertypes = new ArrayList<>(typeElement.getInterfaces());
+      supertypes.add(typeElement.getSuperclass());
+      for (TypeMirror supertype : supertypes) {
+        if (!supertype.accept(this, new HashSet<>())) {
+          return false;
+        }
+        if (supertype.getKind() == TypeKind.DECLARED
+            && !addTypeAndSupertypes(MoreTypes.asTypeElement(supertype))) {
+          return false;
+        }
+      }
+      if (!addAnnotationTypes(typeElement)) {
+        return false;
+      }
+      for (Element member : typeElement.getEnclosedElements()) {
+        // Nested types are validated separately.
+        if (member.getKind().isClass() || member.getKind().isInterface()) {
+          continue;
+        }
+        if (!addAnnotationTypes(member) || !member.asType().accept(this, new HashSet<>())) {
+          return false;
+        }
+        if (member instanceof ExecutableElement) {
+          for (VariableElement parameter : ((ExecutableElement) member).getParameters()) {
+            if (!addAnnotationTypes(parameter)) {
+              return false;
+            }
+          }
+        }
+      }
+      return true;
+    }
+
+    private boolean addAnnotationTypes(Element element) {
+      for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+        if (!annotation.getAnnotationType().accept(this, new HashSet<>())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public Boolean visitDeclared(DeclaredType type, Set<Element> visited) {
+      // javac reports a missing class as a DeclaredType of kind ERROR.
+      if (type.getKind() == TypeKind.ERROR) {
+        return false;
+      }
+      TypeElement typeElement = MoreTypes.asTypeElement(type);
+      dependencies.put(typeElement.getQualifiedName().toString(), typeElement);
+      return type.getEnclosingType().accept(this, visited)
+          && visitAll(type.getTypeArguments(), visited);
+    }
+
+    @Override
+    public Boolean visitError(ErrorType type, Set<Element> visited) {
+      return false;
+    }
+
+    @Override
+    public Boolean visitArray(ArrayType type, Set<Element> visited) {
+      return type.getComponentType().accept(this, visited);
+    }
+
+    @Override
+    public Boolean visitWildcard(WildcardType type, Set<Element> visited) {
+      return (type.getExtendsBound() == null || type.getExtendsBound().accept(this, visited))
+          && (type.getSuperBound() == null || type.getSuperBound().accept(this, visited));
+    }
+
+    @Override
+    public Boolean visitTypeVariable(TypeVariable type, Set<Element> visited) {
+      return !visited.add(type.asElement()) || type.getUpperBound().accept(this, visited);
+    }
+
+    @Override
+    public Boolean visitIntersection(IntersectionType type, Set<Element> visited) {
+      return visitAll(type.getBounds(), visited);
+    }
+
+    @Override
+    public Boolean visitExecutable(ExecutableType type, Set<Element> visited) {
+      return visitAll(type.getTypeVariables(), visited)
+          && visitAll(type.getParameterTypes(), visited)
+          && type.getReturnType().accept(this, visited)
+          && visitAll(type.getThrownTypes(), visited);
+    }
+
+    private boolean visitAll(List<? extends TypeMirror> types, Set<Element> visited) {
+      for (TypeMirror type : types) {
+        if (!type.accept(this, visited)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private Map<String, String> cleanResults() {
+    if (cleanResults == null) {
+      cleanResults = read();
+    }
+    return cleanResults;
+  }
+
+  private Map<String, String> read() {
+    Map<String, String> results = new LinkedHashMap<>();
+    if (!Files.exists(cacheFile.get())) {
+      return results;
+    }
+    try {
+      List<String> lines = Files.readAllLines(cacheFile.get(), UTF_8);
+      if (lines.isEmpty() || !lines.get(0).equals(header)) {
+        return results;
+      }
+      for (String line : lines.subList(1, lines.size())) {
+        int separator = line.lastIndexOf('\t');
+        if (separator > 0) {
+          results.put(line.substring(0, separator), line.substring(separator + 1));
+        }
+      }
+    } catch (IOException e) {
+      // An unreadable cache is the same as an empty one.
+      results.clear();
+    }
+    return results;
+  }
+
+  /**
+   * Writes any new results to the cache directory, merged with the results that the file has now.
+   * Called once processing is over.
+   */
+  public void persist() {
+    if (newResults.isEmpty()) {
+      return;
+    }
+    // Other compilations may have written the file since it was read, so read it again. New results
+    // move to the end, so that the results written longest ago are dropped first.
+    Map<String, String> results = read();
+    for (Map.Entry<String, String> result : newResults.entrySet()) {
+      results.remove(result.getKey());
+      results.put(result.getKey(), result.getValue());
+    }
+    List<String> lines = new ArrayList<>();
+    lines.add(header);
+    results.entrySet().stream()
+        .skip(Math.max(0, results.size() - MAX_RESULTS))
+        .forEach(result -> lines.add(result.getKey() + "\t" + result.getValue()));
+    try {
+      Path directory = cacheFile.get().getParent();
+      Files.createDirectories(directory);
+      // Write to a temporary file first, since other compilations may share the directory.
+      Path temporaryFile = Files.createTempFile(directory, FILE_NAME, ".tmp");
+      Files.write(temporaryFile, lines, UTF_8);
+      Files.move(temporaryFile, cacheFile.get(), REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (IOException e) {
+      // The cache is only an optimization, so failing to write it shouldn't fail the compilation.
+    }
+    newResults.clear();
+  }
+}
@@ -16,6 +16,7 @@
 
 package dagger.internal.codegen.validation;
 
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Lists.asList;
 import static dagger.internal.codegen.base.ElementFormatter.elementToString;
 import static dagger.internal.codegen.xprocessing.XElements.transitivelyEncloses;
@@ -32,6 +33,8 @@ import dagger.spi.model.BindingGraph.ComponentNode;
 import dagger.spi.model.BindingGraph.DependencyEdge;
 import dagger.spi.model.BindingGraph.MaybeBinding;
 import dagger.spi.model.DiagnosticReporter;
+import java.util.ArrayList;
+import java.util.List;
 import javax.inject.Inject;
 import javax.tools.Diagnostic;
 import org.checkerframework.checker.nullness.compatqual.NullableDecl;
@@ -52,12 +55,29 @@ final class DiagnosticReporterFactory {
 
   /** Creates a reporter for a binding graph and a plugin. */
   DiagnosticReporterImpl reporter(BindingGraph graph, String pluginName) {
-    return new DiagnosticReporterImpl(graph, pluginName, /* reportErrorsAsWarnings= */ false);
+    return new DiagnosticReporterImpl(
+        graph, pluginName, /* reportErrorsAsWarnings= */ false, /* buffered= */ false);
   }
 
   /** Creates a reporter for a binding graph and a plugin that treats errors as warnings. */
   DiagnosticReporterImpl reporterWithErrorAsWarnings(BindingGraph graph, String pluginName) {
-    return new DiagnosticReporterImpl(graph, pluginName, /* reportErrorsAsWarnings= */ true);
+    return new DiagnosticReporterImpl(
+        graph, pluginName, /* reportErrorsAsWarnings= */ true, /* buffered= */ false);
+  }
+
+  /**
+   * Creates a reporter for a binding graph and a plugin that holds its diagnostics until {@link
+   * DiagnosticReporterImpl#flush()} is called. The reporter may be used by a thread other than the
+   * processing thread, but only by one thread at a time.
+   *
+   * <p>Formatting a diagnostic reads the binding graph's types and elements, so a buffered reporter
+   * holds the arguments it was called with and formats them in {@code flush()}, which must be
+   * called on the processing thread.
+   */
+  DiagnosticReporterImpl bufferedReporter(
+      BindingGraph graph, String pluginName, boolean reportErrorsAsWarnings) {
+    return new DiagnosticReporterImpl(
+        graph, pluginName, reportErrorsAsWarnings, /* buffered= */ true);
   }
 
   /**
@@ -71,23 +91,56 @@ final class DiagnosticReporterFactory {
     private final ImmutableSet.Builder<Diagnostic.Kind> reportedDiagnosticKinds =
         ImmutableSet.builder();
     private final DiagnosticMessageGenerator diagnosticMessageGenerator;
+    // The reports to format and print on flush(), or null if diagnostics are printed as they are
+    // reported.
+    @NullableDecl private final List<Runnable> bufferedReports;
 
-    DiagnosticReporterImpl(BindingGraph graph, String plugin, boolean reportErrorsAsWarnings) {
+    DiagnosticReporterImpl(
+        BindingGraph graph, String plugin, boolean reportErrorsAsWarnings, boolean buffered) {
       this.plugin = plugin;
       this.reportErrorsAsWarnings = reportErrorsAsWarnings;
+      this.bufferedReports = buffered ? new ArrayList<>() : null;
       this.rootComponent =
           graph.rootComponentNode().componentPath().currentComponent().xprocessing();
       this.diagnosticMessageGenerator = diagnosticMessageGeneratorFactory.create(graph);
     }
 
-    /** Returns which {@linkplain Diagnostic.Kind kinds} of diagnostics were reported. */
+    /**
+     * Returns which {@linkplain Diagnostic.Kind kinds} of diagnostics were reported. For a
+     * {@linkplain #bufferedReporter buffered} reporter, this only includes diagnostics that have
+     * been {@linkplain #flush() flushed}.
+     */
     ImmutableSet<Diagnostic.Kind> reportedDiagnosticKinds() {
       return reportedDiagnosticKinds.build();
     }
 
+    /**
+     * Formats and prints the diagnostics held by a {@linkplain #bufferedReporter buffered}
+     * reporter. Must be called on the processing thread.
+     */
+    void flush() {
+      checkState(bufferedReports != null, "%s is not buffered", plugin);
+      bufferedReports.forEach(Runnable::run);
+      bufferedReports.clear();
+    }
+
+    /** Runs {@code report} now, or on {@link #flush()} if this reporter is buffered. */
+    private void report(Runnable report) {
+      if (bufferedReports != null) {
+        bufferedReports.add(report);
+      } else {
+        report.run();
+      }
+    }
+
     @Override
     public void reportComponent(
         Diagnostic.Kind diagnosticKind, ComponentNode componentNode, String messageFormat) {
+      report(() -> reportComponentNow(diagnosticKind, componentNode, messageFormat));
+    }
+
+    private void reportComponentNow(
+        Diagnostic.Kind diagnosticKind, ComponentNode componentNode, String messageFormat) {
       StringBuilder message = new StringBuilder(messageFormat);
       diagnosticMessageGenerator.appendComponentPathUnlessAtRoot(message, componentNode);
       // TODO(dpb): Report at the component node component.
@@ -102,14 +155,21 @@ final class DiagnosticReporterFactory {
         String messageFormat,
         Object firstArg,
         Object... moreArgs) {
-      reportComponent(
-          diagnosticKind, componentNode, formatMessage(messageFormat, firstArg, moreArgs));
+      report(
+          () ->
+              reportComponentNow(
+                  diagnosticKind, componentNode, formatMessage(messageFormat, firstArg, moreArgs)));
     }
 
     // TODO(ronshapiro): should this also include the binding element?
     @Override
     public void reportBinding(
         Diagnostic.Kind diagnosticKind, MaybeBinding binding, String message) {
+      report(() -> reportBindingNow(diagnosticKind, binding, message));
+    }
+
+    private void reportBindingNow(
+        Diagnostic.Kind diagnosticKind, MaybeBinding binding, String message) {
       printMessage(
           diagnosticKind, message + diagnosticMessageGenerator.getMessage(binding), rootComponent);
     }
@@ -121,12 +181,20 @@ final class DiagnosticReporterFactory {
         String messageFormat,
         Object firstArg,
         Object... moreArgs) {
-      reportBinding(diagnosticKind, binding, formatMessage(messageFormat, firstArg, moreArgs));
+      report(
+          () ->
+              reportBindingNow(
+                  diagnosticKind, binding, formatMessage(messageFormat, firstArg, moreArgs)));
     }
 
     @Override
     public void reportDependency(
         Diagnostic.Kind diagnosticKind, DependencyEdge dependencyEdge, String message) {
+      report(() -> reportDependencyNow(diagnosticKind, dependencyEdge, message));
+    }
+
+    private void reportDependencyNow(
+        Diagnostic.Kind diagnosticKind, DependencyEdge dependencyEdge, String message) {
       printMessage(
           diagnosticKind,
           message + diagnosticMessageGenerator.getMessage(dependencyEdge),
@@ -140,8 +208,12 @@ final class DiagnosticReporterFactory {
         String messageFormat,
         Object firstArg,
         Object... moreArgs) {
-      reportDependency(
-          diagnosticKind, dependencyEdge, formatMessage(messageFormat, firstArg, moreArgs));
+      report(
+          () ->
+              reportDependencyNow(
+                  diagnosticKind,
+                  dependencyEdge,
+                  formatMessage(messageFormat, firstArg, moreArgs)));
     }
 
     @Override
@@ -149,7 +221,10 @@ final class DiagnosticReporterFactory {
         Diagnostic.Kind diagnosticKind,
         ChildFactoryMethodEdge childFactoryMethodEdge,
         String message) {
-      printMessage(diagnosticKind, message, childFactoryMethodEdge.factoryMethod().xprocessing());
+      report(
+          () ->
+              printMessage(
+                  diagnosticKind, message, childFactoryMethodEdge.factoryMethod().xprocessing()));
     }
 
     @Override
@@ -159,8 +234,12 @@ final class DiagnosticReporterFactory {
         String messageFormat,
         Object firstArg,
         Object... moreArgs) {
-      reportSubcomponentFactoryMethod(
-          diagnosticKind, childFactoryMethodEdge, formatMessage(messageFormat, firstArg, moreArgs));
+      report(
+          () ->
+              printMessage(
+                  diagnosticKind,
+                  formatMessage(messageFormat, firstArg, moreArgs),
+                  childFactoryMethodEdge.factoryMethod().xprocessing()));
     }
 
     private String formatMessage(String messageFormat, Object firstArg, Object[] moreArgs) {
@@ -18,7 +18,6 @@ package dagger.internal.codegen.validation;
 
 import static androidx.room.compiler.processing.compat.XConverters.toJavac;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
-import static javax.tools.Diagnostic.Kind.ERROR;
 
 import androidx.room.compiler.processing.XFiler;
 import androidx.room.compiler.processing.XProcessingEnv;
@@ -26,7 +25,6 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import dagger.internal.codegen.compileroption.ProcessingOptions;
-import dagger.internal.codegen.validation.DiagnosticReporterFactory.DiagnosticReporterImpl;
 import dagger.spi.DiagnosticReporter;
 import dagger.spi.model.BindingGraph;
 import dagger.spi.model.BindingGraphPlugin;
@@ -40,7 +38,7 @@ import javax.inject.Inject;
 public final class ExternalBindingGraphPlugins {
   private final ImmutableSet<dagger.spi.BindingGraphPlugin> legacyPlugins;
   private final ImmutableSet<BindingGraphPlugin> plugins;
-  private final DiagnosticReporterFactory diagnosticReporterFactory;
+  private final BindingGraphPluginVisitor bindingGraphPluginVisitor;
   private final XFiler filer;
   private final XProcessingEnv processingEnv;
   private final Map<String, String> processingOptions;
@@ -49,13 +47,13 @@ public final class ExternalBindingGraphPlugins {
   ExternalBindingGraphPlugins(
       @External ImmutableSet<dagger.spi.BindingGraphPlugin> legacyPlugins,
       @External ImmutableSet<BindingGraphPlugin> plugins,
-      DiagnosticReporterFactory diagnosticReporterFactory,
+      BindingGraphPluginVisitor bindingGraphPluginVisitor,
       XFiler filer,
       XProcessingEnv processingEnv,
       @ProcessingOptions Map<String, String> processingOptions) {
     this.legacyPlugins = legacyPlugins;
     this.plugins = plugins;
-    this.diagnosticReporterFactory = diagnosticReporterFactory;
+    this.bindingGraphPluginVisitor = bindingGraphPluginVisitor;
     this.filer = filer;
     this.processingEnv = processingEnv;
     this.processingOptions = processingOptions;
@@ -95,7 +93,11 @@ public final class ExternalBindingGraphPlugins {
     }
   }
 
-  /** Returns {@code false} if any of the plugins reported an error. */
+  /**
+   * Returns {@code false} if any of the plugins reported an error. External plugins may use the
+   * {@code Filer}, {@code Elements} and {@code Types}, so they are always visited sequentially on
+   * the processing thread.
+   */
   boolean visit(BindingGraph graph) {
     return visitLegacyPlugins(graph) && visitPlugins(graph);
   }
@@ -107,30 +109,24 @@ public final class ExternalBindingGraphPlugins {
     }
 
     dagger.model.BindingGraph legacyGraph = ExternalBindingGraphConverter.fromSpiModel(graph);
-    boolean isClean = true;
-    for (dagger.spi.BindingGraphPlugin legacyPlugin : legacyPlugins) {
-      DiagnosticReporterImpl reporter =
-          diagnosticReporterFactory.reporter(graph, legacyPlugin.pluginName());
-      DiagnosticReporter legacyReporter = ExternalBindingGraphConverter.fromSpiModel(reporter);
-      legacyPlugin.visitGraph(legacyGraph, legacyReporter);
-      if (reporter.reportedDiagnosticKinds().contains(ERROR)) {
-        isClean = false;
-      }
-    }
-    return isClean;
+    return bindingGraphPluginVisitor.visit(
+        graph,
+        legacyPlugins,
+        dagger.spi.BindingGraphPlugin::pluginName,
+        /* reportErrorsAsWarnings= */ false,
+        (legacyPlugin, reporter) -> {
+          DiagnosticReporter legacyReporter = ExternalBindingGraphConverter.fromSpiModel(reporter);
+          legacyPlugin.visitGraph(legacyGraph, legacyReporter);
+        });
   }
 
   private boolean visitPlugins(BindingGraph graph) {
-    boolean isClean = true;
-    for (BindingGraphPlugin plugin : plugins) {
-      DiagnosticReporterImpl reporter =
-          diagnosticReporterFactory.reporter(graph, plugin.pluginName());
-      plugin.visitGraph(graph, reporter);
-      if (reporter.reportedDiagnosticKinds().contains(ERROR)) {
-        isClean = false;
-      }
-    }
-    return isClean;
+    return bindingGraphPluginVisitor.visit(
+        graph,
+        plugins,
+        BindingGraphPlugin::pluginName,
+        /* reportErrorsAsWarnings= */ false,
+        (plugin, reporter) -> plugin.visitGraph(graph, reporter));
   }
 
   public void endPlugins() {
@@ -70,6 +70,7 @@ public final class InjectValidator implements ClearableCache {
   private final Optional<Diagnostic.Kind> privateAndStaticInjectionDiagnosticKind;
   private final InjectionAnnotations injectionAnnotations;
   private final DaggerSuperficialValidation superficialValidation;
+  private final ClasspathValidationCache classpathValidationCache;
   private final Map<XTypeElement, ValidationReport> provisionReports = new HashMap<>();
   private final Map<XTypeElement, ValidationReport> membersInjectionReports = new HashMap<>();
   private final MethodSignatureFormatter methodSignatureFormatter;
@@ -81,6 +82,7 @@ public final class InjectValidator implements ClearableCache {
       CompilerOptions compilerOptions,
       InjectionAnnotations injectionAnnotations,
       DaggerSuperficialValidation superficialValidation,
+      ClasspathValidationCache classpathValidationCache,
       MethodSignatureFormatter methodSignatureFormatter) {
     this(
         processingEnv,
@@ -89,6 +91,7 @@ public final class InjectValidator implements ClearableCache {
         Optional.empty(),
         injectionAnnotations,
         superficialValidation,
+        classpathValidationCache,
         methodSignatureFormatter);
   }
 
@@ -99,6 +102,7 @@ public final class InjectValidator implements ClearableCache {
       Optional<Kind> privateAndStaticInjectionDiagnosticKind,
       InjectionAnnotations injectionAnnotations,
       DaggerSuperficialValidation superficialValidation,
+      ClasspathValidationCache classpathValidationCache,
       MethodSignatureFormatter methodSignatureFormatter) {
     this.processingEnv = processingEnv;
     this.compilerOptions = compilerOptions;
@@ -106,6 +110,7 @@ public final class InjectValidator implements ClearableCache {
     this.privateAndStaticInjectionDiagnosticKind = privateAndStaticInjectionDiagnosticKind;
     this.injectionAnnotations = injectionAnnotations;
     this.superficialValidation = superficialValidation;
+    this.classpathValidationCache = classpathValidationCache;
     this.methodSignatureFormatter = methodSignatureFormatter;
   }
 
@@ -130,11 +135,24 @@ public final class InjectValidator implements ClearableCache {
             Optional.of(Diagnostic.Kind.ERROR),
             injectionAnnotations,
             superficialValidation,
+            classpathValidationCache,
             methodSignatureFormatter);
   }
 
   public ValidationReport validate(XTypeElement typeElement) {
-    return reentrantComputeIfAbsent(provisionReports, typeElement, this::validateUncached);
+    return reentrantComputeIfAbsent(
+        provisionReports,
+        typeElement,
+        unused ->
+            classpathValidationCache.validate(
+                cacheName("inject"), typeElement, this::validateUncached));
+  }
+
+  /** Returns the name under which results are cached, which differs for each kind of validator. */
+  private String cacheName(String name) {
+    return privateAndStaticInjectionDiagnosticKind.isPresent()
+        ? name + "WhenGeneratingCode"
+        : name;
   }
 
   private ValidationReport validateUncached(XTypeElement typeElement) {
@@ -359,7 +377,13 @@ public final class InjectValidator implements ClearableCache {
 
   private ValidationReport validateForMembersInjectionInternal(XTypeElement typeElement) {
     return reentrantComputeIfAbsent(
-        membersInjectionReports, typeElement, this::validateForMembersInjectionInternalUncached);
+        membersInjectionReports,
+        typeElement,
+        unused ->
+            classpathValidationCache.validate(
+                cacheName("membersInjection"),
+                typeElement,
+                this::validateForMembersInjectionInternalUncached));
   }
 
   private ValidationReport validateForMembersInjectionInternalUncached(XTypeElement typeElement) {
@@ -82,6 +82,26 @@ final class ProducesMethodValidator extends BindingMethodValidator {
     @Override
     protected void checkAdditionalMethodProperties() {
       checkNullable();
+      checkTimeout();
+      checkHedged();
+    }
+
+    /** Adds an error if a {@code @Hedged} percentile is not between 0 and 100. */
+    private void checkHedged() {
+      if (method.hasAnnotation(TypeNames.HEDGED)) {
+        double percentile = method.getAnnotation(TypeNames.HEDGED).getAsDouble("percentile");
+        if (!(percentile > 0 && percentile < 100)) {
+          report.addError("@Hedged percentiles must be greater than 0 and less than 100");
+        }
+      }
+    }
+
+    /** Adds an error if a {@code @ProducerTimeout} budget is not positive. */
+    private void checkTimeout() {
+      if (method.hasAnnotation(TypeNames.PRODUCER_TIMEOUT)
+          && method.getAnnotation(TypeNames.PRODUCER_TIMEOUT).getAsLong("value") <= 0) {
+        report.addError("@ProducerTimeout values must be positive");
+      }
     }
 
     /**
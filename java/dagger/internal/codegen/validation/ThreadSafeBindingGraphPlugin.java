@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.validation;
+
+import dagger.spi.model.BindingGraphPlugin;
+
+/**
+ * A Dagger validation {@link BindingGraphPlugin} that may visit a binding graph on a thread other
+ * than the processing thread when {@link
+ * dagger.internal.codegen.compileroption.CompilerOptions#parallelBindingGraphValidation()} is
+ * enabled.
+ *
+ * <p>javac's {@code Elements} and {@code Types}, and XProcessing, complete symbols lazily and are
+ * not thread-safe. Comparing or formatting a {@link dagger.spi.model.Key} or a type calls into
+ * them. Implementations may only walk the graph's nodes and edges, look them up by identity, and
+ * read the values they already hold, such as their kinds and nullability. Keys, bindings and
+ * other values that need formatting must be passed as arguments to the {@link
+ * dagger.spi.model.DiagnosticReporter}, which formats them on the processing thread.
+ */
+public interface ThreadSafeBindingGraphPlugin extends BindingGraphPlugin {}
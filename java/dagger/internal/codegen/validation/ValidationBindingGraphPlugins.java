@@ -17,7 +17,6 @@
 package dagger.internal.codegen.validation;
 
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
-import static javax.tools.Diagnostic.Kind.ERROR;
 
 import androidx.room.compiler.processing.XProcessingEnv;
 import com.google.common.collect.ImmutableMap;
@@ -26,7 +25,6 @@ import com.google.common.collect.Maps;
 import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.compileroption.ProcessingOptions;
 import dagger.internal.codegen.compileroption.ValidationType;
-import dagger.internal.codegen.validation.DiagnosticReporterFactory.DiagnosticReporterImpl;
 import dagger.spi.model.BindingGraph;
 import dagger.spi.model.BindingGraphPlugin;
 import dagger.spi.model.DaggerProcessingEnv;
@@ -37,7 +35,7 @@ import javax.inject.Inject;
 /** Initializes {@link BindingGraphPlugin}s. */
 public final class ValidationBindingGraphPlugins {
   private final ImmutableSet<BindingGraphPlugin> plugins;
-  private final DiagnosticReporterFactory diagnosticReporterFactory;
+  private final BindingGraphPluginVisitor bindingGraphPluginVisitor;
   private final XProcessingEnv processingEnv;
   private final CompilerOptions compilerOptions;
   private final Map<String, String> processingOptions;
@@ -45,12 +43,12 @@ public final class ValidationBindingGraphPlugins {
   @Inject
   ValidationBindingGraphPlugins(
       @Validation ImmutableSet<BindingGraphPlugin> plugins,
-      DiagnosticReporterFactory diagnosticReporterFactory,
+      BindingGraphPluginVisitor bindingGraphPluginVisitor,
       XProcessingEnv processingEnv,
       CompilerOptions compilerOptions,
       @ProcessingOptions Map<String, String> processingOptions) {
     this.plugins = plugins;
-    this.diagnosticReporterFactory = diagnosticReporterFactory;
+    this.bindingGraphPluginVisitor = bindingGraphPluginVisitor;
     this.processingEnv = processingEnv;
     this.compilerOptions = compilerOptions;
     this.processingOptions = processingOptions;
@@ -84,18 +82,13 @@ public final class ValidationBindingGraphPlugins {
         graph.isFullBindingGraph()
             && compilerOptions.fullBindingGraphValidationType().equals(ValidationType.WARNING);
 
-    boolean isClean = true;
-    for (BindingGraphPlugin plugin : plugins) {
-      DiagnosticReporterImpl reporter =
-          errorsAsWarnings
-              ? diagnosticReporterFactory.reporterWithErrorAsWarnings(graph, plugin.pluginName())
-              : diagnosticReporterFactory.reporter(graph, plugin.pluginName());
-      plugin.visitGraph(graph, reporter);
-      if (reporter.reportedDiagnosticKinds().contains(ERROR)) {
-        isClean = false;
-      }
-    }
-    return isClean;
+    return bindingGraphPluginVisitor.visit(
+        graph,
+        plugins,
+        BindingGraphPlugin::pluginName,
+        plugin -> plugin instanceof ThreadSafeBindingGraphPlugin,
+        errorsAsWarnings,
+        (plugin, reporter) -> plugin.visitGraph(graph, reporter));
   }
 
   public void endPlugins() {
@@ -16,23 +16,127 @@
 
 package dagger.internal.codegen.writing;
 
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static dagger.internal.codegen.javapoet.TypeNames.DOUBLE_CHECK;
+import static dagger.internal.codegen.javapoet.TypeNames.LOCK_FREE_DOUBLE_CHECK;
 import static dagger.internal.codegen.javapoet.TypeNames.SINGLE_CHECK;
 
+import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
+import dagger.internal.codegen.base.MapType;
 import dagger.internal.codegen.binding.Binding;
+import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.BindingType;
+import dagger.internal.codegen.binding.ContributionBinding;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
 
 /** Holds common methods for BindingRepresentations. */
 final class BindingRepresentations {
   static FrameworkInstanceCreationExpression scope(
-      Binding binding, FrameworkInstanceCreationExpression unscoped) {
+      Binding binding,
+      FrameworkInstanceCreationExpression unscoped,
+      ComponentImplementation componentImplementation,
+      CompilerOptions compilerOptions) {
+    if (componentImplementation.isResettable()) {
+      return resettable(unscoped, componentImplementation);
+    }
     return () ->
         CodeBlock.of(
             "$T.provider($L)",
-            binding.scope().get().isReusable() ? SINGLE_CHECK : DOUBLE_CHECK,
+            scopedProviderType(binding, compilerOptions),
             unscoped.creationExpression());
   }
 
+  /**
+   * Returns a creation expression that memoizes the framework instance created by {@code
+   * unmemoized} in the {@code ResettableScope} of a {@linkplain
+   * ComponentImplementation#isResettable() resettable} component, so that resetting the component
+   * forgets the instance.
+   */
+  static FrameworkInstanceCreationExpression resettable(
+      FrameworkInstanceCreationExpression unmemoized,
+      ComponentImplementation componentImplementation) {
+    return () ->
+        CodeBlock.of(
+            "$L.provider($L)",
+            componentImplementation.resettableScopeReference(),
+            unmemoized.creationExpression());
+  }
+
+  /** Returns the class used to memoize the framework instance of a scoped {@code binding}. */
+  static ClassName scopedProviderType(Binding binding, CompilerOptions compilerOptions) {
+    if (binding.scope().get().isReusable()) {
+      return SINGLE_CHECK;
+    }
+    return compilerOptions.lockFreeScopedProviders() ? LOCK_FREE_DOUBLE_CHECK : DOUBLE_CHECK;
+  }
+
+  /**
+   * Returns a creation expression that memoizes the multibound collection created by {@code
+   * unmemoized}. See {@link #isMemoizedMultibinding}.
+   */
+  static FrameworkInstanceCreationExpression memoize(
+      FrameworkInstanceCreationExpression unmemoized,
+      ComponentImplementation componentImplementation) {
+    if (componentImplementation.isResettable()) {
+      // The contributions may be reset with the component, so the collection must be too.
+      return resettable(unmemoized, componentImplementation);
+    }
+    // The collection may be built more than once if it is first requested concurrently, but every
+    // copy contains the same instances, so SingleCheck is sufficient.
+    return () -> CodeBlock.of("$T.provider($L)", SINGLE_CHECK, unmemoized.creationExpression());
+  }
+
+  /**
+   * Returns {@code true} if {@code binding} is a multibound {@code Set<T>} or {@code Map<K, V>}
+   * that can be built once and memoized, because each of its contributions always provides the
+   * same instance: it is either scoped, or an instance owned by the component such as a
+   * {@code @BindsInstance} parameter.
+   *
+   * <p>This is only enabled with {@code -Adagger.memoizeConstantMultibindings=enabled}.
+   */
+  static boolean isMemoizedMultibinding(
+      ContributionBinding binding, BindingGraph graph, CompilerOptions compilerOptions) {
+    if (!compilerOptions.memoizeConstantMultibindings()
+        || !binding.bindingType().equals(BindingType.PROVISION)
+        || binding.dependencies().isEmpty()) {
+      return false;
+    }
+    switch (binding.kind()) {
+      case MULTIBOUND_SET:
+        break;
+      case MULTIBOUND_MAP:
+        if (MapType.from(binding.key()).valuesAreFrameworkType()) {
+          // A Map<K, Provider<V>> only holds the contributions' providers, so it never changes.
+          return false;
+        }
+        break;
+      default:
+        return false;
+    }
+    return binding.dependencies().stream()
+        .map(dependency -> graph.contributionBinding(dependency.key()))
+        .allMatch(contribution -> alwaysProvidesSameInstance(contribution, graph));
+  }
+
+  private static boolean alwaysProvidesSameInstance(
+      ContributionBinding binding, BindingGraph graph) {
+    if (binding.scope().isPresent()) {
+      return true;
+    }
+    switch (binding.kind()) {
+      case BOUND_INSTANCE:
+      case COMPONENT:
+      case COMPONENT_DEPENDENCY:
+        return true;
+      case DELEGATE:
+        return alwaysProvidesSameInstance(
+            graph.contributionBinding(getOnlyElement(binding.dependencies()).key()), graph);
+      default:
+        return false;
+    }
+  }
+
   private BindingRepresentations() {}
 }
@@ -244,6 +244,8 @@ public final class ComponentImplementation {
 
   private static final String CANCELLATION_LISTENER_METHOD_NAME = "onProducerFutureCancelled";
 
+  private static final String RESET_SCOPE_METHOD_NAME = "resetScope";
+
   /**
    * How many statements per {@code initialize()} or {@code onProducerFutureCancelled()} method
    * before they get partitioned.
@@ -265,6 +267,7 @@ public final class ComponentImplementation {
   private final ComponentNames componentNames;
   private final CompilerOptions compilerOptions;
   private final ImmutableMap<ComponentImplementation, FieldSpec> componentFieldsByImplementation;
+  private final Optional<FieldSpec> resettableScopeField;
   private final XMessager messager;
   private final CompilerMode compilerMode;
   private final XProcessingEnv processingEnv;
@@ -307,6 +310,7 @@ public final class ComponentImplementation {
     // Create and claim the fields for this and all ancestor components stored as fields.
     this.componentFieldsByImplementation =
         createComponentFieldsByImplementation(this, compilerOptions);
+    this.resettableScopeField = createResettableScopeField(componentShard, graph, compilerOptions);
     this.messager = messager;
     XTypeElement typeElement = rootComponentImplementation().componentDescriptor().typeElement();
     this.compilerMode =
@@ -391,6 +395,45 @@ public final class ComponentImplementation {
                   return field.build();
                 }));
   }
+
+  private static Optional<FieldSpec> createResettableScopeField(
+      ShardImplementation componentShard, BindingGraph graph, CompilerOptions compilerOptions) {
+    ComponentDescriptor componentDescriptor = graph.componentDescriptor();
+    if (componentDescriptor.isProduction()
+        || componentDescriptor.scopes().stream()
+            .noneMatch(
+                scope ->
+                    compilerOptions
+                        .resettableScopes()
+                        .contains(scope.className().canonicalName()))) {
+      return Optional.empty();
+    }
+    componentShard.claimMethodName(RESET_SCOPE_METHOD_NAME);
+    return Optional.of(
+        FieldSpec.builder(
+                TypeNames.RESETTABLE_SCOPE,
+                componentShard.getUniqueFieldName("resettableScope"),
+                PRIVATE,
+                FINAL)
+            .initializer("new $T()", TypeNames.RESETTABLE_SCOPE)
+            .build());
+  }
+
+  /**
+   * Returns {@code true} if one of this component's scopes is listed in {@link
+   * CompilerOptions#resettableScopes()}, in which case every binding this component memoizes is
+   * memoized by its {@code ResettableScope}.
+   */
+  public boolean isResettable() {
+    return resettableScopeField.isPresent();
+  }
+
+  /** Returns a reference to this component's {@code ResettableScope} from any of its shards. */
+  public CodeBlock resettableScopeReference() {
+    checkState(isResettable(), "%s is not resettable", name());
+    return CodeBlock.of("$L.$N", componentFieldReference(), resettableScopeField.get());
+  }
+
   /** Returns the shard representing the {@link ComponentImplementation} itself. */
   public ShardImplementation getComponentShard() {
     return componentShard;
@@ -725,6 +768,12 @@ public final class ComponentImplementation {
         }
       }
 
+      if (isComponentShard() && isResettable()) {
+        TypeSpecs.addSupertype(
+            builder, processingEnv.requireTypeElement(TypeNames.RESETTABLE_COMPONENT));
+        addResettableComponentImplementation();
+      }
+
       modifiers().forEach(builder::addModifiers);
       fieldSpecsMap.asMap().values().forEach(builder::addFields);
       methodSpecsMap.asMap().values().forEach(builder::addMethods);
@@ -987,6 +1036,17 @@ public final class ComponentImplementation {
       addMethod(MethodSpecKind.CONSTRUCTOR, constructor.build());
     }
 
+    private void addResettableComponentImplementation() {
+      addField(FieldSpecKind.COMPONENT_REQUIREMENT_FIELD, resettableScopeField.get());
+      addMethod(
+          COMPONENT_METHOD,
+          methodBuilder(RESET_SCOPE_METHOD_NAME)
+              .addModifiers(PUBLIC)
+              .addAnnotation(Override.class)
+              .addStatement("$N.reset()", resettableScopeField.get())
+              .build());
+    }
+
     private void addCancellationListenerImplementation() {
       MethodSpec.Builder methodBuilder =
           methodBuilder(CANCELLATION_LISTENER_METHOD_NAME)
@@ -0,0 +1,407 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.writing;
+
+import static com.google.common.base.CaseFormat.LOWER_CAMEL;
+import static com.google.common.base.CaseFormat.UPPER_CAMEL;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.squareup.javapoet.MethodSpec.methodBuilder;
+import static com.squareup.javapoet.TypeSpec.classBuilder;
+import static dagger.internal.codegen.base.MapKeyAccessibility.isMapKeyAccessibleFrom;
+import static dagger.internal.codegen.binding.BindingRequest.bindingRequest;
+import static dagger.internal.codegen.binding.MapKeys.getMapKeyExpression;
+import static dagger.internal.codegen.binding.MapKeys.unwrapValue;
+import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.UNCHECKED;
+import static dagger.internal.codegen.javapoet.AnnotationSpecs.suppressWarnings;
+import static dagger.internal.codegen.javapoet.CodeBlocks.toParametersCodeBlock;
+import static dagger.internal.codegen.javapoet.TypeNames.providerOf;
+import static dagger.internal.codegen.xprocessing.XElements.getSimpleName;
+import static dagger.internal.codegen.xprocessing.XElements.isEnum;
+import static dagger.internal.codegen.xprocessing.XTypes.isDeclared;
+import static dagger.internal.codegen.xprocessing.XTypes.isTypeOf;
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PROTECTED;
+import static javax.lang.model.element.Modifier.STATIC;
+
+import androidx.room.compiler.processing.XAnnotation;
+import androidx.room.compiler.processing.XAnnotationValue;
+import androidx.room.compiler.processing.XProcessingEnv;
+import androidx.room.compiler.processing.XType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import dagger.assisted.Assisted;
+import dagger.assisted.AssistedFactory;
+import dagger.assisted.AssistedInject;
+import dagger.internal.codegen.base.MapType;
+import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.BindingType;
+import dagger.internal.codegen.binding.ContributionBinding;
+import dagger.internal.codegen.binding.KeyVariableNamer;
+import dagger.internal.codegen.binding.ProvisionBinding;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import dagger.internal.codegen.javapoet.TypeNames;
+import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
+import dagger.spi.model.BindingKind;
+import dagger.spi.model.DependencyRequest;
+import dagger.spi.model.RequestKind;
+import java.util.Optional;
+import javax.inject.Provider;
+
+/**
+ * Generates a {@link dagger.internal.LazyProviderMap} subclass for a multibound {@code Map<K,
+ * Provider<V>>}, which only creates the provider for an entry the first time that entry is
+ * requested.
+ *
+ * <p>With {@link CompilerOptions#generatedMapLookups()}, maps whose keys are all compile-time
+ * constants find an entry by switching on the requested key. With {@link
+ * CompilerOptions#lazyMapProviders()} in fast-init mode, other maps find an entry through a static
+ * {@link dagger.internal.MapKeyIndex}, and each unscoped entry's {@code SwitchingProvider} is
+ * created on demand rather than held in a component field.
+ */
+final class LazyProviderMapLookup {
+  /** How the generated class finds the entry for a key. */
+  private enum KeyKind {
+    /** {@code String} keys, switched on directly. */
+    STRING,
+    /** {@code Integer}, {@code Character}, {@code Short} and {@code Byte} keys, switched on. */
+    INTEGRAL,
+    /** Enum keys, switched on directly. */
+    ENUM,
+    /** {@code Class} keys, switched on by name and then compared by identity. */
+    CLASS,
+    /** Any keys, looked up in a {@link dagger.internal.MapKeyIndex}. */
+    INDEXED,
+  }
+
+  private static final ClassName STRING_TYPE = ClassName.get(String.class);
+  private static final ClassName CLASS_TYPE = ClassName.get(Class.class);
+  private static final ImmutableSet<ClassName> INTEGRAL_KEY_TYPES =
+      ImmutableSet.of(
+          ClassName.get(Integer.class),
+          ClassName.get(Character.class),
+          ClassName.get(Short.class),
+          ClassName.get(Byte.class));
+
+  private final ProvisionBinding binding;
+  private final ImmutableList<DependencyRequest> dependencies;
+  private final ImmutableMap<DependencyRequest, ContributionBinding> contributions;
+  private final BindingGraph graph;
+  private final ComponentImplementation componentImplementation;
+  private final ShardImplementation shardImplementation;
+  private final ComponentRequestRepresentations componentRequestRepresentations;
+  private final Provider<UnscopedDirectInstanceRequestRepresentationFactory>
+      unscopedDirectInstanceRequestRepresentationFactory;
+  private final XProcessingEnv processingEnv;
+  private final boolean lazySwitchingProviders;
+  private final Optional<KeyKind> keyKind;
+  private ClassName lookupClassName;
+
+  @AssistedInject
+  LazyProviderMapLookup(
+      @Assisted ProvisionBinding binding,
+      BindingGraph graph,
+      ComponentImplementation componentImplementation,
+      ComponentRequestRepresentations componentRequestRepresentations,
+      Provider<UnscopedDirectInstanceRequestRepresentationFactory>
+          unscopedDirectInstanceRequestRepresentationFactory,
+      XProcessingEnv processingEnv,
+      CompilerOptions compilerOptions) {
+    this.binding = checkNotNull(binding);
+    this.dependencies = binding.dependencies().asList();
+    this.contributions =
+        Maps.toMap(binding.dependencies(), dep -> graph.contributionBinding(dep.key()));
+    this.graph = graph;
+    this.componentImplementation = componentImplementation;
+    this.shardImplementation = componentImplementation.shardImplementation(binding);
+    this.componentRequestRepresentations = componentRequestRepresentations;
+    this.unscopedDirectInstanceRequestRepresentationFactory =
+        unscopedDirectInstanceRequestRepresentationFactory;
+    this.processingEnv = processingEnv;
+    this.lazySwitchingProviders =
+        compilerOptions.lazyMapProviders() && componentImplementation.compilerMode().isFastInit();
+    this.keyKind = keyKind(compilerOptions);
+  }
+
+  /** Returns {@code true} if direct requests for the map should use the generated class. */
+  boolean isEnabled() {
+    return keyKind.isPresent();
+  }
+
+  private Optional<KeyKind> keyKind(CompilerOptions compilerOptions) {
+    MapType mapType = MapType.from(binding.key());
+    if (!(compilerOptions.generatedMapLookups() || lazySwitchingProviders)
+        || componentImplementation.compilerMode().isExperimentalMergedMode()
+        || dependencies.isEmpty()
+        || !mapType.valuesAreTypeOf(TypeNames.PROVIDER)
+        || !shardImplementation.isTypeAccessible(binding.key().type().xprocessing())
+        || dependencies.stream()
+            .anyMatch(dependency -> !dependency.kind().equals(RequestKind.PROVIDER))) {
+      return Optional.empty();
+    }
+    if (compilerOptions.generatedMapLookups()) {
+      Optional<KeyKind> switchKeyKind = switchKeyKind(mapType.keyType());
+      if (switchKeyKind.isPresent()
+          && contributions.values().stream()
+              .allMatch(contribution -> canSwitchOn(contribution, switchKeyKind.get()))) {
+        return switchKeyKind;
+      }
+    }
+    return lazySwitchingProviders ? Optional.of(KeyKind.INDEXED) : Optional.empty();
+  }
+
+  private static Optional<KeyKind> switchKeyKind(XType keyType) {
+    if (isTypeOf(keyType, STRING_TYPE)) {
+      return Optional.of(KeyKind.STRING);
+    } else if (INTEGRAL_KEY_TYPES.stream().anyMatch(className -> isTypeOf(keyType, className))) {
+      return Optional.of(KeyKind.INTEGRAL);
+    } else if (isDeclared(keyType) && isEnum(keyType.getTypeElement())) {
+      return Optional.of(KeyKind.ENUM);
+    } else if (isTypeOf(keyType, CLASS_TYPE)) {
+      return Optional.of(KeyKind.CLASS);
+    }
+    return Optional.empty();
+  }
+
+  /** Returns {@code true} if the map key of {@code contribution} can be used as a case label. */
+  private boolean canSwitchOn(ContributionBinding contribution, KeyKind keyKind) {
+    XAnnotation mapKey = contribution.mapKey().get().xprocessing();
+    return !mapKey.getQualifiedName().contentEquals("dagger.android.AndroidInjectionKey")
+        && unwrapValue(mapKey).isPresent()
+        && isMapKeyAccessibleFrom(mapKey, shardImplementation.name().packageName())
+        && (!keyKind.equals(KeyKind.CLASS) || isDeclared(unwrapValue(mapKey).get().asType()));
+  }
+
+  /**
+   * Returns an expression that creates a new instance of the lookup class. The class is added to
+   * the shard the first time this is called.
+   */
+  CodeBlock newInstance() {
+    checkState(isEnabled(), "No lookup class for %s", binding);
+    if (lookupClassName == null) {
+      lookupClassName =
+          shardImplementation
+              .name()
+              .nestedClass(
+                  shardImplementation.getUniqueClassName(
+                      LOWER_CAMEL.to(UPPER_CAMEL, KeyVariableNamer.name(binding.key()))
+                          + "Lookup"));
+      // Create the type eagerly, as SwitchingProviders does, so that the dependency expressions
+      // are requested while the component is still being built.
+      TypeSpec lookupClass = lookupClass();
+      shardImplementation.addTypeSupplier(() -> lookupClass);
+    }
+    return CodeBlock.of(
+        "new $T($L)",
+        lookupClassName,
+        shardImplementation.componentFieldsByImplementation().keySet().stream()
+            .map(ComponentImplementation::componentFieldReference)
+            .collect(toParametersCodeBlock()));
+  }
+
+  private TypeSpec lookupClass() {
+    MapType mapType = MapType.from(binding.key());
+    TypeName keyType = mapType.keyType().getTypeName();
+    TypeName valueType = mapType.unwrappedValueType(TypeNames.PROVIDER).getTypeName();
+    TypeSpec.Builder builder =
+        classBuilder(lookupClassName)
+            .addModifiers(PRIVATE, STATIC, FINAL)
+            .superclass(
+                ParameterizedTypeName.get(TypeNames.LAZY_PROVIDER_MAP, keyType, valueType));
+
+    MethodSpec.Builder constructor = MethodSpec.constructorBuilder();
+    constructor.addStatement("super($L)", dependencies.size());
+    shardImplementation
+        .componentFieldsByImplementation()
+        .values()
+        .forEach(
+            field -> {
+              builder.addField(field);
+              constructor.addParameter(field.type, field.name);
+              constructor.addStatement("this.$1N = $1N", field);
+            });
+
+    if (keyKind.get().equals(KeyKind.INDEXED)) {
+      FieldSpec keys =
+          FieldSpec.builder(
+                  ParameterizedTypeName.get(TypeNames.MAP_KEY_INDEX, keyType),
+                  "KEYS",
+                  PRIVATE,
+                  STATIC,
+                  FINAL)
+              .initializer(
+                  "$T.<$T>of(new $T[] {$L})",
+                  TypeNames.MAP_KEY_INDEX,
+                  keyType,
+                  Object.class,
+                  dependencies.stream()
+                      .map(dependency -> keyExpression(contributions.get(dependency)))
+                      .collect(toParametersCodeBlock()))
+              .build();
+      builder
+          .addField(keys)
+          .addMethod(
+              indexOfMethod().addStatement("return $N.indexOf(key)", keys).build())
+          .addMethod(keyAtMethod(keyType).addStatement("return $N.keyAt(index)", keys).build());
+    } else {
+      builder
+          .addMethod(indexOfMethod().addCode(switchOnKey()).build())
+          .addMethod(keyAtMethod(keyType).addCode(switchOnIndex()).build());
+    }
+
+    return builder
+        .addMethod(constructor.build())
+        .addMethod(createProviderMethod(valueType))
+        .build();
+  }
+
+  private static MethodSpec.Builder indexOfMethod() {
+    return methodBuilder("indexOf")
+        .addAnnotation(Override.class)
+        .addModifiers(PROTECTED)
+        .returns(TypeName.INT)
+        .addParameter(Object.class, "key");
+  }
+
+  private static MethodSpec.Builder keyAtMethod(TypeName keyType) {
+    return methodBuilder("keyAt")
+        .addAnnotation(Override.class)
+        .addModifiers(PROTECTED)
+        .returns(keyType)
+        .addParameter(TypeName.INT, "index");
+  }
+
+  /** Returns the body of {@code indexOf(Object key)}, which switches on the key. */
+  private CodeBlock switchOnKey() {
+    TypeName switchType =
+        keyKind.get().equals(KeyKind.CLASS)
+            ? STRING_TYPE
+            : MapType.from(binding.key()).keyType().getTypeName();
+    CodeBlock.Builder code =
+        CodeBlock.builder()
+            .beginControlFlow(
+                "if (!(key instanceof $T))",
+                keyKind.get().equals(KeyKind.CLASS) ? CLASS_TYPE : switchType)
+            .addStatement("return -1")
+            .endControlFlow()
+            .beginControlFlow(
+                "switch ($L)",
+                keyKind.get().equals(KeyKind.CLASS)
+                    ? CodeBlock.of("(($T<?>) key).getName()", CLASS_TYPE)
+                    : CodeBlock.of("($T) key", switchType));
+    for (int i = 0; i < dependencies.size(); i++) {
+      ContributionBinding contribution = contributions.get(dependencies.get(i));
+      XAnnotationValue keyValue = unwrapValue(contribution.mapKey().get().xprocessing()).get();
+      switch (keyKind.get()) {
+        case STRING:
+        case INTEGRAL:
+          code.add("case $L: ", keyExpression(contribution)).addStatement("return $L", i);
+          break;
+        case ENUM:
+          code.add("case $L: ", getSimpleName(keyValue.asEnum())).addStatement("return $L", i);
+          break;
+        case CLASS:
+          code.add(
+                  "case $S: ", keyValue.asType().getTypeElement().getClassName().reflectionName())
+              .addStatement("return key == $L ? $L : -1", keyExpression(contribution), i);
+          break;
+        default:
+          throw new AssertionError(keyKind.get());
+      }
+    }
+    return code.addStatement("default: return -1").endControlFlow().build();
+  }
+
+  /** Returns the body of {@code keyAt(int index)}, which switches on the index. */
+  private CodeBlock switchOnIndex() {
+    CodeBlock.Builder code = CodeBlock.builder().beginControlFlow("switch (index)");
+    for (int i = 0; i < dependencies.size(); i++) {
+      code.addStatement(
+          "case $L: return $L", i, keyExpression(contributions.get(dependencies.get(i))));
+    }
+    return code.addStatement("default: throw new $T(index)", AssertionError.class)
+        .endControlFlow()
+        .build();
+  }
+
+  private MethodSpec createProviderMethod(TypeName valueType) {
+    CodeBlock.Builder code = CodeBlock.builder().beginControlFlow("switch (index)");
+    for (int i = 0; i < dependencies.size(); i++) {
+      code.addStatement("case $L: return $L", i, providerExpression(dependencies.get(i)));
+    }
+    code.addStatement("default: throw new $T(index)", AssertionError.class).endControlFlow();
+
+    return methodBuilder("createProvider")
+        .addAnnotation(Override.class)
+        .addAnnotation(suppressWarnings(UNCHECKED))
+        .addModifiers(PROTECTED)
+        .returns(providerOf(valueType))
+        .addParameter(TypeName.INT, "index")
+        .addCode(code.build())
+        .build();
+  }
+
+  private CodeBlock providerExpression(DependencyRequest dependency) {
+    ContributionBinding contribution = contributions.get(dependency);
+    if (usesLazySwitchingProvider(contribution)) {
+      return shardImplementation
+          .getSwitchingProviders()
+          .newFrameworkInstanceCreationExpression(
+              contribution,
+              unscopedDirectInstanceRequestRepresentationFactory.get().create(contribution),
+              /* isWrapped= */ false)
+          .creationExpression();
+    }
+    return componentRequestRepresentations
+        .getDependencyExpression(bindingRequest(dependency), lookupClassName)
+        .codeBlock();
+  }
+
+  /**
+   * Returns {@code true} if the provider for {@code contribution} can be a new {@code
+   * SwitchingProvider} of this shard. Scoped contributions must still share their component field.
+   */
+  private boolean usesLazySwitchingProvider(ContributionBinding contribution) {
+    return lazySwitchingProviders
+        && contribution.bindingType().equals(BindingType.PROVISION)
+        && !contribution.scope().isPresent()
+        && !contribution.kind().equals(BindingKind.ASSISTED_FACTORY)
+        && FrameworkInstanceKind.from(contribution, componentImplementation.compilerMode())
+            .equals(FrameworkInstanceKind.SWITCHING_PROVIDER)
+        && graph.localContributionBinding(contribution.key()).isPresent()
+        && componentImplementation.shardImplementation(contribution).equals(shardImplementation);
+  }
+
+  private CodeBlock keyExpression(ContributionBinding contribution) {
+    return getMapKeyExpression(contribution, lookupClassName, processingEnv);
+  }
+
+  @AssistedFactory
+  static interface Factory {
+    LazyProviderMapLookup create(ProvisionBinding binding);
+  }
+}
@@ -55,6 +55,7 @@ final class MapRequestRepresentation extends RequestRepresentation {
   private final ImmutableMap<DependencyRequest, ContributionBinding> dependencies;
   private final ComponentRequestRepresentations componentRequestRepresentations;
   private final boolean isExperimentalMergedMode;
+  private final LazyProviderMapLookup lazyProviderMapLookup;
 
   @AssistedInject
   MapRequestRepresentation(
@@ -62,7 +63,8 @@ final class MapRequestRepresentation extends RequestRepresentation {
       XProcessingEnv processingEnv,
       BindingGraph graph,
       ComponentImplementation componentImplementation,
-      ComponentRequestRepresentations componentRequestRepresentations) {
+      ComponentRequestRepresentations componentRequestRepresentations,
+      LazyProviderMapLookup.Factory lazyProviderMapLookupFactory) {
     this.binding = binding;
     this.processingEnv = processingEnv;
     BindingKind bindingKind = this.binding.kind();
@@ -72,10 +74,15 @@ final class MapRequestRepresentation extends RequestRepresentation {
         Maps.toMap(binding.dependencies(), dep -> graph.contributionBinding(dep.key()));
     this.isExperimentalMergedMode =
         componentImplementation.compilerMode().isExperimentalMergedMode();
+    this.lazyProviderMapLookup = lazyProviderMapLookupFactory.create(binding);
   }
 
   @Override
   Expression getDependencyExpression(ClassName requestingClass) {
+    if (lazyProviderMapLookup.isEnabled()) {
+      return Expression.create(
+          binding.key().type().xprocessing(), lazyProviderMapLookup.newInstance());
+    }
     // TODO(ronshapiro): We should also make an ImmutableMap version of MapFactory
     boolean isImmutableMapAvailable = isImmutableMapAvailable();
     // TODO(ronshapiro, gak): Use Maps.immutableEnumMap() if it's available?
@@ -48,6 +48,7 @@ import static javax.lang.model.element.Modifier.PROTECTED;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
 
+import androidx.room.compiler.processing.XAnnotation;
 import androidx.room.compiler.processing.XElement;
 import androidx.room.compiler.processing.XFiler;
 import androidx.room.compiler.processing.XProcessingEnv;
@@ -84,6 +85,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 
 /** Generates {@link Producer} implementations from {@link ProductionBinding} instances. */
@@ -165,11 +167,34 @@ public final class ProducerFactoryGenerator extends SourceFileGenerator<Producti
     }
     ImmutableMap<DependencyRequest, FieldSpec> fields = fieldsBuilder.build();
 
+    XElement bindingElement = binding.bindingElement().get();
+    boolean nonBlocking = bindingElement.hasAnnotation(TypeNames.NON_BLOCKING);
+    Optional<Long> timeoutNanos = producerTimeoutNanos(bindingElement);
+    CodeBlock hedgePolicy = CodeBlock.of("null");
+    if (bindingElement.hasAnnotation(TypeNames.HEDGED)) {
+      FieldSpec hedgePolicyField =
+          FieldSpec.builder(
+                  TypeNames.HEDGE_POLICY,
+                  uniqueFieldNames.getUniqueName("HEDGE_POLICY"),
+                  PRIVATE,
+                  STATIC,
+                  FINAL)
+              .initializer(
+                  "$T.atPercentile($L)",
+                  TypeNames.HEDGE_POLICY,
+                  bindingElement.getAnnotation(TypeNames.HEDGED).getAsDouble("percentile"))
+              .build();
+      factoryBuilder.addField(hedgePolicyField);
+      hedgePolicy = CodeBlock.of("$N", hedgePolicyField);
+    }
     constructorBuilder.addStatement(
-        "super($N, $L, $N)",
+        "super($N, $L, $N, $L, $LL, $L)",
         verifyNotNull(monitorParameterName),
         producerTokenConstruction(generatedTypeName, binding),
-        verifyNotNull(executorParameterName));
+        verifyNotNull(executorParameterName),
+        nonBlocking,
+        timeoutNanos.orElse(0L),
+        hedgePolicy);
 
     if (binding.requiresModuleInstance()) {
       assignField(constructorBuilder, moduleField.get(), null);
@@ -299,6 +324,16 @@ public final class ProducerFactoryGenerator extends SourceFileGenerator<Producti
     return CodeBlock.of("$T.create($L)", PRODUCER_TOKEN, producerTokenArgs);
   }
 
+  /** Returns the {@code @ProducerTimeout} budget of a {@code @Produces} method, in nanoseconds. */
+  private static Optional<Long> producerTimeoutNanos(XElement producesMethod) {
+    if (!producesMethod.hasAnnotation(TypeNames.PRODUCER_TIMEOUT)) {
+      return Optional.empty();
+    }
+    XAnnotation timeout = producesMethod.getAnnotation(TypeNames.PRODUCER_TIMEOUT);
+    TimeUnit unit = TimeUnit.valueOf(getSimpleName(timeout.getAsEnum("unit")));
+    return Optional.of(unit.toNanos(timeout.getAsLong("value")));
+  }
+
   /** Returns a name of the variable representing this dependency's future. */
   private static String dependencyFutureName(DependencyRequest dependency) {
     return getSimpleName(dependency.requestElement().get().xprocessing()) + "Future";
@@ -27,6 +27,7 @@ import dagger.assisted.AssistedInject;
 import dagger.internal.codegen.binding.BindingRequest;
 import dagger.internal.codegen.binding.FrameworkType;
 import dagger.internal.codegen.binding.ProductionBinding;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -51,7 +52,8 @@ final class ProductionBindingRepresentation implements BindingRepresentation {
       ProducerNodeInstanceRequestRepresentation.Factory
           producerNodeInstanceRequestRepresentationFactory,
       UnscopedFrameworkInstanceCreationExpressionFactory
-          unscopedFrameworkInstanceCreationExpressionFactory) {
+          unscopedFrameworkInstanceCreationExpressionFactory,
+      CompilerOptions compilerOptions) {
     this.binding = binding;
     this.derivedFromFrameworkInstanceRequestRepresentationFactory =
         derivedFromFrameworkInstanceRequestRepresentationFactory;
@@ -64,7 +66,10 @@ final class ProductionBindingRepresentation implements BindingRepresentation {
                 binding,
                 binding.scope().isPresent()
                     ? scope(
-                        binding, unscopedFrameworkInstanceCreationExpressionFactory.create(binding))
+                        binding,
+                        unscopedFrameworkInstanceCreationExpressionFactory.create(binding),
+                        componentImplementation,
+                        compilerOptions)
                     : unscopedFrameworkInstanceCreationExpressionFactory.create(binding));
     this.frameworkInstanceRequestRepresentation =
         producerNodeInstanceRequestRepresentationFactory.create(binding, frameworkInstanceSupplier);
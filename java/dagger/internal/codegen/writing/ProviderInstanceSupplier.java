@@ -16,12 +16,16 @@
 
 package dagger.internal.codegen.writing;
 
+import static dagger.internal.codegen.writing.BindingRepresentations.isMemoizedMultibinding;
+import static dagger.internal.codegen.writing.BindingRepresentations.memoize;
 import static dagger.internal.codegen.writing.BindingRepresentations.scope;
 
 import dagger.assisted.Assisted;
 import dagger.assisted.AssistedFactory;
 import dagger.assisted.AssistedInject;
+import dagger.internal.codegen.binding.BindingGraph;
 import dagger.internal.codegen.binding.ProvisionBinding;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
 
 /** An object that initializes a framework-type component field for a binding. */
@@ -31,9 +35,11 @@ final class ProviderInstanceSupplier implements FrameworkInstanceSupplier {
   @AssistedInject
   ProviderInstanceSupplier(
       @Assisted ProvisionBinding binding,
+      BindingGraph graph,
       ComponentImplementation componentImplementation,
       UnscopedFrameworkInstanceCreationExpressionFactory
-          unscopedFrameworkInstanceCreationExpressionFactory) {
+          unscopedFrameworkInstanceCreationExpressionFactory,
+      CompilerOptions compilerOptions) {
     FrameworkInstanceCreationExpression frameworkInstanceCreationExpression =
         unscopedFrameworkInstanceCreationExpressionFactory.create(binding);
     this.frameworkInstanceSupplier =
@@ -41,8 +47,14 @@ final class ProviderInstanceSupplier implements FrameworkInstanceSupplier {
             componentImplementation,
             binding,
             binding.scope().isPresent()
-                ? scope(binding, frameworkInstanceCreationExpression)
-                : frameworkInstanceCreationExpression);
+                ? scope(
+                    binding,
+                    frameworkInstanceCreationExpression,
+                    componentImplementation,
+                    compilerOptions)
+                : isMemoizedMultibinding(binding, graph, compilerOptions)
+                    ? memoize(frameworkInstanceCreationExpression, componentImplementation)
+                    : frameworkInstanceCreationExpression);
   }
 
   @Override
@@ -16,6 +16,7 @@
 
 package dagger.internal.codegen.writing;
 
+import static dagger.internal.codegen.writing.BindingRepresentations.isMemoizedMultibinding;
 import static dagger.internal.codegen.writing.DelegateRequestRepresentation.isBindsScopeStrongerThanDependencyScope;
 import static dagger.spi.model.BindingKind.DELEGATE;
 
@@ -36,6 +37,7 @@ import dagger.spi.model.RequestKind;
 final class ProvisionBindingRepresentation implements BindingRepresentation {
   private final BindingGraph graph;
   private final CompilerMode compilerMode;
+  private final CompilerOptions compilerOptions;
   private final ProvisionBinding binding;
   private final DirectInstanceBindingRepresentation directInstanceBindingRepresentation;
   private final FrameworkInstanceBindingRepresentation frameworkInstanceBindingRepresentation;
@@ -54,6 +56,7 @@ final class ProvisionBindingRepresentation implements BindingRepresentation {
     this.binding = binding;
     this.graph = graph;
     this.compilerMode = componentImplementation.compilerMode();
+    this.compilerOptions = compilerOptions;
     this.directInstanceBindingRepresentation =
         directInstanceBindingRepresentationFactory.create(binding);
     FrameworkInstanceSupplier frameworkInstanceSupplier = null;
@@ -112,6 +115,10 @@ final class ProvisionBindingRepresentation implements BindingRepresentation {
       case ASSISTED_INJECTION:
         throw new IllegalStateException(
             "Assisted injection binding shouldn't be requested with an instance request.");
+      case MULTIBOUND_SET:
+      case MULTIBOUND_MAP:
+        // A memoized multibinding is cached by its framework instance.
+        return !isMemoizedMultibinding(binding, graph, compilerOptions);
       default:
         // We don't need to use Provider#get() if there's no caching, so use a direct instance.
         // TODO(bcorso): This can be optimized in cases where we know a Provider field already
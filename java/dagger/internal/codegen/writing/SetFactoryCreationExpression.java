@@ -17,8 +17,11 @@
 package dagger.internal.codegen.writing;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static dagger.internal.codegen.binding.SourceFiles.setFactoryClassName;
+import static dagger.internal.codegen.javapoet.CodeBlocks.makeParametersCodeBlock;
 
+import com.google.common.collect.ImmutableList;
 import com.squareup.javapoet.CodeBlock;
 import dagger.assisted.Assisted;
 import dagger.assisted.AssistedFactory;
@@ -51,16 +54,20 @@ final class SetFactoryCreationExpression extends MultibindingFactoryCreationExpr
   public CodeBlock creationExpression() {
     CodeBlock.Builder builder = CodeBlock.builder().add("$T.", setFactoryClassName(binding));
     if (!useRawType()) {
-      SetType setType = SetType.from(binding.key());
-      builder.add(
-          "<$T>",
-          setType.elementsAreTypeOf(TypeNames.PRODUCED)
-              ? setType.unwrappedElementType(TypeNames.PRODUCED).getTypeName()
-              : setType.elementType().getTypeName());
+      if (SetType.isContributionStream(binding.key())) {
+        builder.add("<$T>", SetType.multiboundElementType(binding.key()).getTypeName());
+      } else {
+        SetType setType = SetType.from(binding.key());
+        builder.add(
+            "<$T>",
+            setType.elementsAreTypeOf(TypeNames.PRODUCED)
+                ? setType.unwrappedElementType(TypeNames.PRODUCED).getTypeName()
+                : setType.elementType().getTypeName());
+      }
     }
 
-    int individualProviders = 0;
-    int setProviders = 0;
+    ImmutableList.Builder<CodeBlock> individualProviders = ImmutableList.builder();
+    ImmutableList.Builder<CodeBlock> setProviders = ImmutableList.builder();
     CodeBlock.Builder builderMethodCalls = CodeBlock.builder();
     String methodNameSuffix =
         binding.bindingType().equals(BindingType.PROVISION) ? "Provider" : "Producer";
@@ -68,14 +75,15 @@ final class SetFactoryCreationExpression extends MultibindingFactoryCreationExpr
     for (DependencyRequest dependency : binding.dependencies()) {
       ContributionType contributionType =
           graph.contributionBinding(dependency.key()).contributionType();
+      CodeBlock dependencyExpression = multibindingDependencyExpression(dependency);
       String methodNamePrefix;
       switch (contributionType) {
         case SET:
-          individualProviders++;
+          individualProviders.add(dependencyExpression);
           methodNamePrefix = "add";
           break;
         case SET_VALUES:
-          setProviders++;
+          setProviders.add(dependencyExpression);
           methodNamePrefix = "addCollection";
           break;
         default:
@@ -83,12 +91,28 @@ final class SetFactoryCreationExpression extends MultibindingFactoryCreationExpr
       }
 
       builderMethodCalls.add(
-          ".$N$N($L)",
-          methodNamePrefix,
-          methodNameSuffix,
-          multibindingDependencyExpression(dependency));
+          ".$N$N($L)", methodNamePrefix, methodNameSuffix, dependencyExpression);
     }
-    builder.add("builder($L, $L)", individualProviders, setProviders);
+
+    // SetFactory has specialized factories for sets with only individual contributions and for
+    // sets with a single collection contribution, which skip the general factory's intermediate
+    // list of collections.
+    ImmutableList<CodeBlock> individualProviderExpressions = individualProviders.build();
+    ImmutableList<CodeBlock> setProviderExpressions = setProviders.build();
+    if (binding.bindingType().equals(BindingType.PROVISION)) {
+      if (setProviderExpressions.isEmpty()) {
+        return builder
+            .add("ofProviders($L)", makeParametersCodeBlock(individualProviderExpressions))
+            .build();
+      } else if (individualProviderExpressions.isEmpty() && setProviderExpressions.size() == 1) {
+        return builder
+            .add("ofCollectionProvider($L)", getOnlyElement(setProviderExpressions))
+            .build();
+      }
+    }
+
+    builder.add(
+        "builder($L, $L)", individualProviderExpressions.size(), setProviderExpressions.size());
     builder.add(builderMethodCalls.build());
 
     return builder.add(".build()").build();
@@ -57,13 +57,14 @@ final class StaticMemberSelects {
 
   /**
    * A static member select for an empty set factory. Calls {@link
-   * dagger.internal.SetFactory#empty()}, {@link dagger.producers.internal.SetProducer#empty()}, or
-   * {@link dagger.producers.internal.SetOfProducedProducer#empty()}, depending on the set bindings.
+   * dagger.internal.SetFactory#empty()}, {@link dagger.producers.internal.SetProducer#empty()},
+   * {@link dagger.producers.internal.SetOfProducedProducer#empty()}, or {@link
+   * dagger.producers.internal.ContributionStreamProducer#empty()}, depending on the set bindings.
    */
   static MemberSelect emptySetFactory(ContributionBinding binding) {
     return new ParameterizedStaticMethod(
         setFactoryClassName(binding),
-        ImmutableList.of(SetType.from(binding.key()).elementType()),
+        ImmutableList.of(SetType.multiboundElementType(binding.key())),
         CodeBlock.of("empty()"),
         FACTORY);
   }
@@ -16,8 +16,10 @@
 
 package dagger.internal.codegen.writing;
 
-import static dagger.internal.codegen.javapoet.TypeNames.DOUBLE_CHECK;
 import static dagger.internal.codegen.javapoet.TypeNames.SINGLE_CHECK;
+import static dagger.internal.codegen.writing.BindingRepresentations.isMemoizedMultibinding;
+import static dagger.internal.codegen.writing.BindingRepresentations.resettable;
+import static dagger.internal.codegen.writing.BindingRepresentations.scopedProviderType;
 
 import com.squareup.javapoet.CodeBlock;
 import dagger.assisted.Assisted;
@@ -26,6 +28,7 @@ import dagger.assisted.AssistedInject;
 import dagger.internal.codegen.binding.Binding;
 import dagger.internal.codegen.binding.BindingGraph;
 import dagger.internal.codegen.binding.ProvisionBinding;
+import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
 import dagger.spi.model.BindingKind;
@@ -36,6 +39,9 @@ import dagger.spi.model.BindingKind;
  */
 final class SwitchingProviderInstanceSupplier implements FrameworkInstanceSupplier {
   private final FrameworkInstanceSupplier frameworkInstanceSupplier;
+  private final ComponentImplementation componentImplementation;
+  private final CompilerOptions compilerOptions;
+  private final boolean isMemoizedMultibinding;
 
   @AssistedInject
   SwitchingProviderInstanceSupplier(
@@ -43,7 +49,11 @@ final class SwitchingProviderInstanceSupplier implements FrameworkInstanceSuppli
       BindingGraph graph,
       ComponentImplementation componentImplementation,
       UnscopedDirectInstanceRequestRepresentationFactory
-          unscopedDirectInstanceRequestRepresentationFactory) {
+          unscopedDirectInstanceRequestRepresentationFactory,
+      CompilerOptions compilerOptions) {
+    this.componentImplementation = componentImplementation;
+    this.compilerOptions = compilerOptions;
+    this.isMemoizedMultibinding = isMemoizedMultibinding(binding, graph, compilerOptions);
     ShardImplementation shardImplementation = componentImplementation.shardImplementation(binding);
     FrameworkInstanceCreationExpression frameworkInstanceCreationExpression =
         componentImplementation.compilerMode().isExperimentalMergedMode()
@@ -51,7 +61,9 @@ final class SwitchingProviderInstanceSupplier implements FrameworkInstanceSuppli
                 .newFrameworkInstanceCreationExpression(
                     binding, unscopedDirectInstanceRequestRepresentationFactory.create(binding))
             : shardImplementation.getSwitchingProviders().newFrameworkInstanceCreationExpression(
-                binding, unscopedDirectInstanceRequestRepresentationFactory.create(binding));
+                binding,
+                unscopedDirectInstanceRequestRepresentationFactory.create(binding),
+                isCached(binding));
     this.frameworkInstanceSupplier =
         new FrameworkFieldInitializer(
             componentImplementation, binding, scope(binding, frameworkInstanceCreationExpression));
@@ -62,18 +74,29 @@ final class SwitchingProviderInstanceSupplier implements FrameworkInstanceSuppli
     return frameworkInstanceSupplier.memberSelect();
   }
 
-  private FrameworkInstanceCreationExpression scope(
-      Binding binding, FrameworkInstanceCreationExpression unscoped) {
+  /** Returns {@code true} if the switching provider is wrapped in a caching provider. */
+  private boolean isCached(Binding binding) {
     // Caching assisted factory provider, so that there won't be new factory created for each
     // provider.get() call.
-    if (!binding.scope().isPresent() && !binding.kind().equals(BindingKind.ASSISTED_FACTORY)) {
+    return binding.scope().isPresent()
+        || binding.kind().equals(BindingKind.ASSISTED_FACTORY)
+        || isMemoizedMultibinding;
+  }
+
+  private FrameworkInstanceCreationExpression scope(
+      Binding binding, FrameworkInstanceCreationExpression unscoped) {
+    if (!isCached(binding)) {
       return unscoped;
     }
+    if (componentImplementation.isResettable()
+        && (binding.scope().isPresent() || isMemoizedMultibinding)) {
+      return resettable(unscoped, componentImplementation);
+    }
     return () ->
         CodeBlock.of(
             "$T.provider($L)",
             binding.scope().isPresent()
-                ? (binding.scope().get().isReusable() ? SINGLE_CHECK : DOUBLE_CHECK)
+                ? scopedProviderType(binding, compilerOptions)
                 : SINGLE_CHECK,
             unscoped.creationExpression());
   }
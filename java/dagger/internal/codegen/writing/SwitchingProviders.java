@@ -42,7 +42,6 @@ import dagger.internal.codegen.binding.ContributionBinding;
 import dagger.internal.codegen.javapoet.CodeBlocks;
 import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
-import dagger.spi.model.BindingKind;
 import dagger.spi.model.Key;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -82,15 +81,22 @@ final class SwitchingProviders {
     this.shardImplementation = checkNotNull(shardImplementation);
   }
 
-  /** Returns the framework instance creation expression for an inner switching provider class. */
+  /**
+   * Returns the framework instance creation expression for an inner switching provider class.
+   *
+   * @param isWrapped whether the switching provider will be wrapped in a caching provider, e.g.
+   *     {@code DoubleCheck.provider(...)}
+   */
   FrameworkInstanceCreationExpression newFrameworkInstanceCreationExpression(
-      ContributionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
+      ContributionBinding binding,
+      RequestRepresentation unscopedInstanceRequestRepresentation,
+      boolean isWrapped) {
     return new FrameworkInstanceCreationExpression() {
       @Override
       public CodeBlock creationExpression() {
         return switchingProviderBuilders
             .computeIfAbsent(binding.key(), key -> getSwitchingProviderBuilder())
-            .getNewInstanceCodeBlock(binding, unscopedInstanceRequestRepresentation);
+            .getNewInstanceCodeBlock(binding, unscopedInstanceRequestRepresentation, isWrapped);
       }
     };
   }
@@ -119,7 +125,9 @@ final class SwitchingProviders {
     }
 
     private CodeBlock getNewInstanceCodeBlock(
-        ContributionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
+        ContributionBinding binding,
+        RequestRepresentation unscopedInstanceRequestRepresentation,
+        boolean isWrapped) {
       Key key = binding.key();
       if (!switchIds.containsKey(key)) {
         int switchId = switchIds.size();
@@ -130,10 +138,10 @@ final class SwitchingProviders {
       return CodeBlock.of(
           "new $T<$L>($L, $L)",
           switchingProviderType,
-          // Add the type parameter explicitly when the binding is scoped because Java can't resolve
-          // the type when wrapped. For example, the following will error:
+          // Add the type parameter explicitly when the binding is wrapped because Java can't resolve
+          // the type. For example, the following will error:
           //   fooProvider = DoubleCheck.provider(new SwitchingProvider<>(1));
-          (binding.scope().isPresent() || binding.kind().equals(BindingKind.ASSISTED_FACTORY))
+          isWrapped
               ? CodeBlock.of(
                   "$T", shardImplementation.accessibleType(binding.contributedType()).getTypeName())
               : "",
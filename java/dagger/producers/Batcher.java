@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.internal.Beta;
+import dagger.producers.internal.ProducerTasks;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Coalesces requests for values by key, made by producer methods in the same production
+ * component, into one call to {@link #loadAll(Set)}.
+ *
+ * <p>Subclasses implement {@link #loadAll(Set)}, which returns the values for a batch of keys, and
+ * are bound in {@link ProductionScope} so that every producer in a component shares one instance.
+ * Producer methods then call {@link #load(Object)} for the key they need:
+ *
+ * <pre><code>
+ *   {@literal @ProductionScope}
+ *   final class UserBatcher extends {@literal Batcher<UserId, User>} {
+ *     private final UserService userService;
+ *
+ *     {@literal @Inject}
+ *     UserBatcher({@literal @Production} Executor executor, UserService userService) {
+ *       super(executor);
+ *       this.userService = userService;
+ *     }
+ *
+ *     {@literal @Override}
+ *     protected {@literal ListenableFuture<Map<UserId, User>>} loadAll(
+ *         {@literal Set<UserId>} ids) {
+ *       return userService.getUsers(ids);
+ *     }
+ *   }
+ *
+ *   {@literal @Produces}
+ *   static {@literal ListenableFuture<User>} author(Post post, UserBatcher users) {
+ *     return users.load(post.authorId());
+ *   }
+ * </code></pre>
+ *
+ * <p>A batch is dispatched on the executor once the producer method that requested its first key
+ * has returned, along with any producer methods that ran on the same thread within it. The batch
+ * contains every key that was requested before the executor runs it. With a direct executor, this
+ * includes every producer method that became ready along with the first one; with a thread pool, it
+ * includes those that reached {@link #load(Object)} before the batch ran. Keys that are requested
+ * while a batch is loading are part of the next batch.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+@Beta
+public abstract class Batcher<K, V> {
+  private final Executor executor;
+  private final Object lock = new Object();
+  private Map<K, SettableFuture<V>> pending; // guarded by lock
+
+  /** @param executor the executor on which batches are dispatched */
+  protected Batcher(Executor executor) {
+    this.executor = checkNotNull(executor);
+    // Batches are dispatched after the current producer tasks, so those tasks must be counted.
+    ProducerTasks.trackTasks();
+  }
+
+  /**
+   * Returns the values for the given keys. The returned map must contain a value for every key.
+   *
+   * <p>This is called on the executor passed to the constructor.
+   */
+  protected abstract ListenableFuture<Map<K, V>> loadAll(Set<K> keys) throws Exception;
+
+  /**
+   * Requests the value for the given key, which will be loaded with other keys requested around
+   * the same time. Requesting the same key more than once in a batch loads it once.
+   */
+  public final ListenableFuture<V> load(K key) {
+    checkNotNull(key);
+    SettableFuture<V> future;
+    boolean newBatch = false;
+    synchronized (lock) {
+      if (pending == null) {
+        pending = new LinkedHashMap<>();
+        newBatch = true;
+      }
+      future = pending.get(key);
+      if (future == null) {
+        future = SettableFuture.create();
+        pending.put(key, future);
+      }
+    }
+    if (newBatch) {
+      ProducerTasks.runAfterCurrentTasks(
+          new Runnable() {
+            @Override
+            public void run() {
+              scheduleDispatch();
+            }
+          });
+    }
+    // Each caller gets its own view, so cancelling one doesn't cancel the others for the same key.
+    return Futures.nonCancellationPropagating(future);
+  }
+
+  private void scheduleDispatch() {
+    try {
+      executor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              dispatch();
+            }
+          });
+    } catch (RuntimeException e) {
+      fail(takeBatch(), e);
+    }
+  }
+
+  private Map<K, SettableFuture<V>> takeBatch() {
+    synchronized (lock) {
+      Map<K, SettableFuture<V>> batch = pending;
+      pending = null;
+      return batch;
+    }
+  }
+
+  private void dispatch() {
+    final Map<K, SettableFuture<V>> batch = takeBatch();
+    ListenableFuture<Map<K, V>> values;
+    try {
+      values =
+          checkNotNull(
+              loadAll(Collections.unmodifiableSet(batch.keySet())),
+              "%s.loadAll() returned null",
+              getClass().getName());
+    } catch (Throwable t) {
+      // Fail the batch even for an Error, so that none of its futures is left pending forever.
+      fail(batch, t);
+      if (t instanceof Error) {
+        throw (Error) t;
+      }
+      return;
+    }
+    Futures.addCallback(
+        values,
+        new FutureCallback<Map<K, V>>() {
+          @Override
+          public void onSuccess(Map<K, V> result) {
+            for (Map.Entry<K, SettableFuture<V>> entry : batch.entrySet()) {
+              V value = result == null ? null : result.get(entry.getKey());
+              if (value == null) {
+                entry
+                    .getValue()
+                    .setException(
+                        new IllegalStateException(
+                            String.format(
+                                "%s.loadAll() returned no value for %s",
+                                Batcher.this.getClass().getName(), entry.getKey())));
+              } else {
+                entry.getValue().set(value);
+              }
+            }
+          }
+
+          @Override
+          public void onFailure(Throwable t) {
+            fail(batch, t);
+          }
+        },
+        directExecutor());
+  }
+
+  private static <V> void fail(Map<?, SettableFuture<V>> batch, Throwable t) {
+    for (SettableFuture<V> future : batch.values()) {
+      future.setException(t);
+    }
+  }
+}
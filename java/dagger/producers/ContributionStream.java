@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import dagger.internal.Beta;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * The contributions to a {@link java.util.Set} multibinding, each delivered as soon as it has been
+ * produced instead of once all of them have been.
+ *
+ * <p>For any set multibinding {@code Set<T>} in a production component, you can also inject or
+ * request {@code ContributionStream<T>}. The stream is available as soon as every contribution has
+ * been requested, so a consumer can start working on the first elements while slower contributions
+ * are still being produced:
+ *
+ * <pre><code>
+ *   {@literal @}Produces {@literal ListenableFuture<Void>} renderResults(
+ *       {@literal ContributionStream<SearchResult>} results, final Page page) {
+ *     return results.forEach(
+ *         new {@literal ContributionStream.Listener<SearchResult>}() {
+ *           {@literal @}Override
+ *           public void onElement(SearchResult result) {
+ *             page.append(result);
+ *           }
+ *         },
+ *         directExecutor());
+ *   }
+ * </code></pre>
+ *
+ * <p>Contributions are delivered in the order in which they complete. A {@code @ElementsIntoSet}
+ * contribution is delivered as a whole, in iteration order. Unlike {@code Set<T>}, the elements are
+ * not deduplicated.
+ *
+ * @param <T> the type of the elements
+ */
+@Beta
+public final class ContributionStream<T> {
+  /** Receives the elements of a {@link ContributionStream}. */
+  public interface Listener<T> {
+    /**
+     * Called once for each element of the stream. Calls are never concurrent, even if the executor
+     * passed to {@link ContributionStream#forEach} runs tasks in parallel.
+     */
+    void onElement(T element);
+  }
+
+  private static final Callable<Void> NULL_CALLABLE =
+      new Callable<Void>() {
+        @Override
+        public Void call() {
+          return null;
+        }
+      };
+
+  private static final ContributionStream<Object> EMPTY =
+      new ContributionStream<Object>(
+          ImmutableList.<ListenableFuture<? extends Collection<? extends Object>>>of());
+
+  /** Returns a stream with no contributions. */
+  @SuppressWarnings("unchecked") // safe covariant cast
+  public static <T> ContributionStream<T> empty() {
+    return (ContributionStream<T>) EMPTY;
+  }
+
+  /**
+   * Returns a stream of the elements of {@code contributions}. Each future is one contribution, and
+   * its elements are delivered together once it completes.
+   */
+  public static <T> ContributionStream<T> of(
+      Iterable<? extends ListenableFuture<? extends Collection<? extends T>>> contributions) {
+    return new ContributionStream<T>(ImmutableList.copyOf(contributions));
+  }
+
+  private final ImmutableList<ListenableFuture<? extends Collection<? extends T>>> contributions;
+
+  private ContributionStream(
+      ImmutableList<ListenableFuture<? extends Collection<? extends T>>> contributions) {
+    this.contributions = contributions;
+  }
+
+  /**
+   * Delivers each element of this stream to {@code listener} on {@code executor}, as soon as the
+   * contribution that contains it has been produced.
+   *
+   * <p>Returns a future that succeeds once every contribution has been delivered. It fails if any
+   * contribution fails, if any contribution or element is null, or if {@code listener} throws;
+   * contributions that succeed are still delivered. Canceling the returned future stops delivering
+   * elements, but does not cancel the producers of the contributions, which may be shared with
+   * other consumers.
+   */
+  public ListenableFuture<Void> forEach(final Listener<? super T> listener, Executor executor) {
+    checkNotNull(listener);
+    Executor sequentialExecutor = MoreExecutors.newSequentialExecutor(checkNotNull(executor));
+    List<ListenableFuture<Void>> deliveries =
+        new ArrayList<ListenableFuture<Void>>(contributions.size());
+    for (ListenableFuture<? extends Collection<? extends T>> contribution : contributions) {
+      deliveries.add(
+          Futures.transform(
+              Futures.nonCancellationPropagating(contribution),
+              new Function<Collection<? extends T>, Void>() {
+                @Override
+                public Void apply(Collection<? extends T> elements) {
+                  for (T element : checkContribution(elements)) {
+                    listener.onElement(element);
+                  }
+                  return null;
+                }
+              },
+              sequentialExecutor));
+    }
+    return Futures.whenAllSucceed(deliveries).call(NULL_CALLABLE, directExecutor());
+  }
+
+  /**
+   * Returns a future {@link Set} of all of the elements of this stream, which is what injecting
+   * {@code Set<T>} would provide. The future fails if any contribution fails, or if any
+   * contribution or element is null. Like {@link #forEach}, canceling the returned future does not
+   * cancel the producers of the contributions.
+   */
+  public ListenableFuture<Set<T>> toSet() {
+    List<ListenableFuture<? extends Collection<? extends T>>> uncancellableContributions =
+        new ArrayList<ListenableFuture<? extends Collection<? extends T>>>(contributions.size());
+    for (ListenableFuture<? extends Collection<? extends T>> contribution : contributions) {
+      uncancellableContributions.add(Futures.nonCancellationPropagating(contribution));
+    }
+    return Futures.transform(
+        Futures.allAsList(uncancellableContributions),
+        new Function<List<Collection<? extends T>>, Set<T>>() {
+          @Override
+          public Set<T> apply(List<Collection<? extends T>> collections) {
+            ImmutableSet.Builder<T> builder = ImmutableSet.builder();
+            for (Collection<? extends T> elements : collections) {
+              builder.addAll(checkContribution(elements));
+            }
+            return builder.build();
+          }
+        },
+        directExecutor());
+  }
+
+  /** Returns the number of contributions to this stream. */
+  public int contributionCount() {
+    return contributions.size();
+  }
+
+  @Override
+  public String toString() {
+    return "ContributionStream[" + contributions.size() + " contributions]";
+  }
+
+  private static <T> Collection<? extends T> checkContribution(Collection<? extends T> elements) {
+    checkNotNull(elements, "Cannot contribute a null collection into a producer set binding");
+    for (T element : elements) {
+      checkNotNull(element, "Cannot contribute a null element into a producer set binding");
+    }
+    return elements;
+  }
+}
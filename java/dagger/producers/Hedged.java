@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link Produces} method as idempotent, and allows a second, hedged invocation of it when
+ * the first one is slow. If the future that the method returns hasn't completed within the {@link
+ * #percentile()} of the method's observed latency, the method is invoked again with the same
+ * inputs, on the component's {@link Production @Production Executor}. The producer completes with
+ * whichever invocation succeeds first, and the other one's future is cancelled.
+ *
+ * <p>This trades extra load for lower tail latency, so it is only appropriate for methods that can
+ * safely run twice, such as reads from a replicated backend. Latencies are collected across all
+ * components, per method. No hedges are started until enough of them have been observed, and at
+ * most one hedge is started per invocation. If the first invocation fails while the hedge is
+ * running, the producer waits for the hedge; it only fails if both fail.
+ *
+ * <p>Producer monitors observe hedges through {@link
+ * dagger.producers.monitoring.ProducerMonitor#hedgeStarting()} and {@link
+ * dagger.producers.monitoring.ProducerMonitor#hedgeWon()}. A {@link ProducerTimeout} budget applies
+ * to both invocations together.
+ *
+ * <p>This annotation has no effect on methods that are not annotated with {@link Produces}.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+@Beta
+public @interface Hedged {
+  /**
+   * The percentile of the method's observed latency after which a hedge is started. Must be greater
+   * than 0 and less than 100.
+   */
+  double percentile() default 95;
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Annotates a {@link Produces} method that is cheap and never blocks, so that it may run on the
+ * thread that makes its last input available rather than being scheduled on the {@link Production}
+ * executor.
+ *
+ * <p>When the method's inputs complete, the method runs directly on the completing thread, or on
+ * the requesting thread if its inputs were already complete when it was requested. A producer
+ * monitor observes this as a call to {@link
+ * dagger.producers.monitoring.ProducerMonitor#runningInline()} before the method starts. To bound
+ * stack depth, chains of non-blocking methods fall back to the executor once they nest too deeply.
+ *
+ * <p>This annotation has no effect on methods that are not annotated with {@link Produces}.
+ *
+ * <p>Methods that perform I/O, wait on locks or do significant computation should not be annotated
+ * with this, since they would delay whichever thread completed their inputs, which may be another
+ * producer's executor thread or a thread that calls a component method.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+@Beta
+public @interface NonBlocking {}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives a {@link Produces} method a latency budget. If the future that the method returns hasn't
+ * completed within the budget, the producer fails with a {@link ProducerTimeoutException} and the
+ * method's future is cancelled.
+ *
+ * <p>The budget starts when the method starts running, so time spent waiting for the method's
+ * inputs doesn't count against it. Dependents see the timeout like any other failure: as a failed
+ * {@link Produced} if they depend on {@code Produced<T>}, and otherwise by failing themselves.
+ * Producer monitors and timing recorders observe the timeout as a failure.
+ *
+ * <p>If the component's {@link Production @Production Executor} is a {@link ProductionDeadline},
+ * the method's budget is also limited to the time remaining before that deadline.
+ *
+ * <p>This annotation has no effect on methods that are not annotated with {@link Produces}.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+@Beta
+public @interface ProducerTimeout {
+  /** The budget, in {@link #unit()}s. Must be positive. */
+  long value();
+
+  /** The unit of {@link #value()}. */
+  TimeUnit unit() default TimeUnit.MILLISECONDS;
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import dagger.internal.Beta;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The exception that a producer fails with when it exceeds its {@link ProducerTimeout} budget, or
+ * the {@link ProductionDeadline} of its component.
+ */
+@Beta
+public final class ProducerTimeoutException extends TimeoutException {
+  private final boolean deadlineExceeded;
+
+  /**
+   * @param message the detail message
+   * @param deadlineExceeded whether the producer's component deadline, rather than its own budget,
+   *     ran out
+   */
+  public ProducerTimeoutException(String message, boolean deadlineExceeded) {
+    super(message);
+    this.deadlineExceeded = deadlineExceeded;
+  }
+
+  /**
+   * Returns {@code true} if the producer's component deadline ran out, or {@code false} if its own
+   * {@link ProducerTimeout} budget did.
+   */
+  public boolean deadlineExceeded() {
+    return deadlineExceeded;
+  }
+
+  private static final long serialVersionUID = 1L;
+}
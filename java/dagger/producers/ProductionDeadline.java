@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import dagger.internal.Beta;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Production @Production Executor} that also gives a production component a deadline.
+ *
+ * <p>Once the deadline has passed, producer methods in the component fail with a {@link
+ * ProducerTimeoutException} instead of running. Methods that are already running have their budget
+ * limited to the time remaining before the deadline, like a {@link ProducerTimeout}. Since every
+ * entry point depends only on producers in the component, entry points fail shortly after the
+ * deadline passes instead of waiting for slow producers.
+ *
+ * <p>The production executor is scoped to each component, so a deadline can be given per request:
+ *
+ * <pre><code>
+ *   {@literal @Provides @Production}
+ *   static Executor executor(RequestContext context, ExecutorService pool) {
+ *     return ProductionDeadline.after(context.remainingMillis(), MILLISECONDS, pool);
+ *   }
+ * </code></pre>
+ *
+ * <p>Note that this binding is first requested when the component schedules its first producer
+ * method, which is when {@link #after} starts counting.
+ */
+@Beta
+public final class ProductionDeadline implements Executor {
+  private final Executor executor;
+  private final long deadlineNanos;
+
+  private ProductionDeadline(Executor executor, long deadlineNanos) {
+    this.executor = checkNotNull(executor);
+    this.deadlineNanos = deadlineNanos;
+  }
+
+  /**
+   * Returns an executor that runs tasks on {@code executor}, with a deadline {@code timeout} from
+   * now.
+   */
+  public static ProductionDeadline after(long timeout, TimeUnit unit, Executor executor) {
+    return new ProductionDeadline(executor, System.nanoTime() + unit.toNanos(timeout));
+  }
+
+  /**
+   * Returns the time remaining before the deadline, in nanoseconds. This is zero or negative once
+   * the deadline has passed.
+   */
+  public long remainingNanos() {
+    return deadlineNanos - System.nanoTime();
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    executor.execute(task);
+  }
+
+  @Override
+  public String toString() {
+    return "ProductionDeadline[" + executor + "]";
+  }
+}
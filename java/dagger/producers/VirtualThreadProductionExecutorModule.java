@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import dagger.Binds;
+import dagger.Module;
+import dagger.internal.Beta;
+import dagger.producers.internal.VirtualThreadExecutor;
+import java.util.concurrent.Executor;
+
+/**
+ * Binds the {@link Production @Production Executor} to one that runs each producer method on its
+ * own virtual thread when running on JDK 21 or later. This suits components whose producer methods
+ * do blocking I/O, where a fixed-size thread pool would otherwise need to be sized for the largest
+ * number of concurrently blocked methods.
+ *
+ * <p>On older JDKs, producer methods run on a shared, unbounded pool of daemon threads instead, so
+ * components that install this module behave the same apart from the cost of each thread.
+ *
+ * <p>For example: <pre><code>
+ *   {@literal @ProductionComponent(}
+ *       modules = {VirtualThreadProductionExecutorModule.class, MyProducerModule.class})
+ *   interface MyComponent {
+ *     {@literal ListenableFuture<SomeType>} someType();
+ *   }
+ * </code></pre>
+ */
+@Beta
+@Module
+public abstract class VirtualThreadProductionExecutorModule {
+  @Binds
+  @Production
+  abstract Executor productionExecutor(VirtualThreadExecutor executor);
+
+  private VirtualThreadProductionExecutorModule() {}
+}
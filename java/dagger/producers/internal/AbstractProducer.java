@@ -16,17 +16,19 @@
 
 package dagger.producers.internal;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 
 import com.google.common.util.concurrent.AbstractFuture;
 import com.google.common.util.concurrent.ListenableFuture;
 import dagger.producers.Producer;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 
 /** An abstract {@link Producer} implementation that memoizes the result of its compute method. */
 public abstract class AbstractProducer<T> implements CancellableProducer<T> {
-  private final AtomicBoolean requested = new AtomicBoolean();
-  private final NonExternallyCancellableFuture<T> future = new NonExternallyCancellableFuture<T>();
+  private final ProducerFuture<T> future = new ProducerFuture<T>();
 
   protected AbstractProducer() {}
 
@@ -35,21 +37,27 @@ public abstract class AbstractProducer<T> implements CancellableProducer<T> {
 
   @Override
   public final ListenableFuture<T> get() {
-    if (requested.compareAndSet(false, true)) {
-      future.setFuture(compute());
+    if (future.markRequested()) {
+      ProducerTasks.enter();
+      try {
+        future.completeWith(compute());
+      } finally {
+        ProducerTasks.exit();
+      }
     }
     return future;
   }
 
   @Override
   public final void cancel(boolean mayInterruptIfRunning) {
-    requested.set(true); // Avoid potentially starting the task later only to cancel it immediately.
+    // Avoid potentially starting the task later only to cancel it immediately.
+    future.markRequested();
     future.doCancel(mayInterruptIfRunning);
   }
 
   @Override
   public Producer<T> newDependencyView() {
-    return new NonCancellationPropagatingView();
+    return new DependencyView<T>(this);
   }
 
   @Override
@@ -59,6 +67,43 @@ public abstract class AbstractProducer<T> implements CancellableProducer<T> {
     return result;
   }
 
+  /**
+   * A view of a producer that returns a future that can be cancelled without cancelling the
+   * producer itself.
+   *
+   * <p>Unlike {@link NonCancellationPropagatingView}, the view's future is only created when it is
+   * first requested, and only if the producer's future is still pending at that point. Since the
+   * producer's own future can't be cancelled externally, and cancelling a done future has no
+   * effect, callers can't tell the difference, and views that are never requested or that are
+   * requested once their producer is done cost no more than this object.
+   */
+  private static final class DependencyView<T> implements Producer<T> {
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DependencyView, ListenableFuture>
+        VIEW_FUTURE =
+            AtomicReferenceFieldUpdater.newUpdater(
+                DependencyView.class, ListenableFuture.class, "viewFuture");
+
+    private final AbstractProducer<T> producer;
+    private volatile ListenableFuture<T> viewFuture;
+
+    DependencyView(AbstractProducer<T> producer) {
+      this.producer = producer;
+    }
+
+    @Override
+    public ListenableFuture<T> get() {
+      ListenableFuture<T> result = viewFuture;
+      if (result == null) {
+        result = nonCancellationPropagating(producer.get());
+        if (!VIEW_FUTURE.compareAndSet(this, null, result)) {
+          result = viewFuture;
+        }
+      }
+      return result;
+    }
+  }
+
   /**
    * A view of this producer that returns a future that can be cancelled without cancelling the
    * producer itself.
@@ -94,12 +139,77 @@ public abstract class AbstractProducer<T> implements CancellableProducer<T> {
     }
   }
 
-  /** A settable future that can't be cancelled via normal future cancellation. */
-  private static final class NonExternallyCancellableFuture<T> extends AbstractFuture<T> {
+  /**
+   * A future that can't be cancelled via normal future cancellation, which also records whether its
+   * producer has been requested so that a producer needs no other state.
+   *
+   * <p>This is completed with the future from {@link #compute()} like {@link #setFuture}, except
+   * that it completes within a {@linkplain ProducerTasks producer task}, so that the dependent
+   * producers that run when it completes are part of that task.
+   */
+  private static final class ProducerFuture<T> extends AbstractFuture<T> {
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ProducerFuture> REQUESTED =
+        AtomicIntegerFieldUpdater.newUpdater(ProducerFuture.class, "requested");
+
+    private volatile int requested;
+    @NullableDecl private volatile ListenableFuture<? extends T> source;
+
+    /** Marks the producer as requested, returning {@code true} if it wasn't already. */
+    boolean markRequested() {
+      return requested == 0 && REQUESTED.compareAndSet(this, 0, 1);
+    }
+
+    /** Completes this future with the result of the given one once it is done. */
+    void completeWith(ListenableFuture<? extends T> source) {
+      checkNotNull(source);
+      if (source.isDone()) {
+        setFuture(source);
+        return;
+      }
+      this.source = source;
+      source.addListener(
+          new Runnable() {
+            @Override
+            public void run() {
+              completeWithSource();
+            }
+          },
+          directExecutor());
+      if (isCancelled()) {
+        source.cancel(wasInterrupted());
+      }
+    }
+
+    /** Called once the future from {@link #completeWith} is done. */
+    private void completeWithSource() {
+      ListenableFuture<? extends T> localSource = source;
+      if (localSource != null) {
+        ProducerTasks.enter();
+        try {
+          setFuture(localSource);
+        } finally {
+          ProducerTasks.exit();
+        }
+      }
+    }
+
+    @Override
+    protected void afterDone() {
+      ListenableFuture<? extends T> localSource = source;
+      source = null;
+      if (localSource != null && isCancelled()) {
+        localSource.cancel(wasInterrupted());
+      }
+    }
 
     @Override
-    public boolean setFuture(ListenableFuture<? extends T> future) {
-      return super.setFuture(future);
+    protected String pendingToString() {
+      ListenableFuture<? extends T> localSource = source;
+      if (localSource != null) {
+        return "source=[" + localSource + "]";
+      }
+      return null;
     }
 
     @Override
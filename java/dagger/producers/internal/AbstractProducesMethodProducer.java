@@ -16,11 +16,16 @@
 
 package dagger.producers.internal;
 
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static dagger.internal.Preconditions.checkNotNull;
 
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.AsyncCallable;
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.ProducerTimeoutException;
+import dagger.producers.ProductionDeadline;
 import dagger.producers.monitoring.ProducerMonitor;
 import dagger.producers.monitoring.ProducerToken;
 import dagger.producers.monitoring.ProductionComponentMonitor;
@@ -39,26 +44,77 @@ import org.checkerframework.checker.nullness.compatqual.NullableDecl;
  * @param <T> the produced type
  */
 public abstract class AbstractProducesMethodProducer<D, T> extends AbstractProducer<T>
-    implements AsyncFunction<D, T>, Executor {
+    implements AsyncFunction<D, T>, Executor, Runnable {
+  /**
+   * The maximum number of producer tasks that may run nested on one thread's stack before {@link
+   * dagger.producers.NonBlocking} methods fall back to the executor.
+   */
+  private static final int MAX_INLINE_DEPTH = 32;
+
   private final Provider<ProductionComponentMonitor> monitorProvider;
   @NullableDecl private final ProducerToken token;
   private final Provider<Executor> executorProvider;
+  private final boolean nonBlocking;
+  private final long timeoutNanos;
+  @NullableDecl private final HedgePolicy hedgePolicy;
   private volatile ProducerMonitor monitor = null;
+  @NullableDecl private Runnable task;
 
   protected AbstractProducesMethodProducer(
       Provider<ProductionComponentMonitor> monitorProvider,
       @NullableDecl ProducerToken token,
       Provider<Executor> executorProvider) {
+    this(monitorProvider, token, executorProvider, false, 0, null);
+  }
+
+  /**
+   * @param nonBlocking whether the {@link dagger.producers.Produces} method is annotated with
+   *     {@link dagger.producers.NonBlocking}, in which case it is run directly on the thread that
+   *     completes its dependencies instead of on the executor
+   * @param timeoutNanos the method's {@link dagger.producers.ProducerTimeout} budget, or {@code 0}
+   *     if it has none
+   * @param hedgePolicy the policy of a {@link dagger.producers.Hedged} method, or {@code null} if
+   *     it isn't hedged
+   */
+  protected AbstractProducesMethodProducer(
+      Provider<ProductionComponentMonitor> monitorProvider,
+      @NullableDecl ProducerToken token,
+      Provider<Executor> executorProvider,
+      boolean nonBlocking,
+      long timeoutNanos,
+      @NullableDecl HedgePolicy hedgePolicy) {
     this.monitorProvider = checkNotNull(monitorProvider);
     this.token = token;
     this.executorProvider = checkNotNull(executorProvider);
+    this.nonBlocking = nonBlocking;
+    if (nonBlocking) {
+      // Methods run inline until the producer tasks on the thread are nested too deeply.
+      ProducerTasks.trackTasks();
+    }
+    this.timeoutNanos = timeoutNanos;
+    this.hedgePolicy = hedgePolicy;
   }
 
   @Override
   protected final ListenableFuture<T> compute() {
     monitor = monitorProvider.get().producerMonitorFor(token);
     monitor.requested();
-    ListenableFuture<T> result = Futures.transformAsync(collectDependencies(), this, this);
+    if (monitor == ProducerMonitor.noOp()) {
+      return Futures.transformAsync(collectDependencies(), this, this);
+    }
+    ListenableFuture<D> dependencies = collectDependencies();
+    // If the dependencies are already available, this producer becomes ready right away, and
+    // shouldn't be attributed to any producer whose future may be completing on this thread.
+    ProducerToken completing = ProducerTasks.startCompleting(null);
+    ListenableFuture<T> result;
+    try {
+      result = Futures.transformAsync(dependencies, this, this);
+    } finally {
+      ProducerTasks.finishCompleting(completing);
+    }
+    if (token != null && !result.isDone()) {
+      result = CompletingFuture.create(result, token);
+    }
     monitor.addCallbackTo(result);
     return result;
   }
@@ -78,15 +134,50 @@ public abstract class AbstractProducesMethodProducer<D, T> extends AbstractProdu
     // factories.
     monitor.methodStarting();
     try {
-      return callProducesMethod(asyncDependencies);
+      long budgetNanos = timeoutNanos;
+      boolean deadline = false;
+      Executor executor = executorProvider.get();
+      if (executor instanceof ProductionDeadline) {
+        long remainingNanos = ((ProductionDeadline) executor).remainingNanos();
+        if (remainingNanos <= 0) {
+          return Futures.immediateFailedFuture(
+              new ProducerTimeoutException(
+                  "Production deadline passed before " + token + " started", true));
+        }
+        if (budgetNanos == 0 || remainingNanos < budgetNanos) {
+          budgetNanos = remainingNanos;
+          deadline = true;
+        }
+      }
+      long startNanos = hedgePolicy != null ? System.nanoTime() : 0;
+      ListenableFuture<T> result = callProducesMethod(asyncDependencies);
+      if (hedgePolicy != null) {
+        result =
+            hedgePolicy.hedge(
+                result, hedgedInvocation(asyncDependencies), executor, monitor, startNanos);
+      }
+      if (budgetNanos > 0 && !result.isDone()) {
+        result = ProducerTimeouts.withTimeout(result, budgetNanos, token, deadline);
+      }
+      return result;
     } finally {
       monitor.methodFinished();
     }
   }
 
+  /** Returns a second invocation of the {@link dagger.producers.Produces} method, for hedging. */
+  private AsyncCallable<T> hedgedInvocation(final D asyncDependencies) {
+    return new AsyncCallable<T>() {
+      @Override
+      public ListenableFuture<T> call() throws Exception {
+        return callProducesMethod(asyncDependencies);
+      }
+    };
+  }
+
   /**
    * Calls the {@link dagger.producers.Produces} method. This will always be called on the {@link
-   * Executor} provided to this producer.
+   * Executor} provided to this producer, unless the method is {@link dagger.producers.NonBlocking}.
    */
   protected abstract ListenableFuture<T> callProducesMethod(D asyncDependencies) throws Exception;
 
@@ -94,7 +185,92 @@ public abstract class AbstractProducesMethodProducer<D, T> extends AbstractProdu
   @Deprecated
   @Override
   public final void execute(Runnable runnable) {
+    if (monitor != ProducerMonitor.noOp()) {
+      ProducerToken lastInput = ProducerTasks.completing();
+      if (lastInput != null) {
+        monitor.readyAfter(lastInput);
+      }
+    }
     monitor.ready();
-    executorProvider.get().execute(runnable);
+    if (nonBlocking && ProducerTasks.depth() < MAX_INLINE_DEPTH) {
+      monitor.runningInline();
+      ProducerTasks.enter();
+      try {
+        runnable.run();
+      } finally {
+        ProducerTasks.exit();
+      }
+      return;
+    }
+    // This producer is its own task, which avoids allocating one per producer. The executor's
+    // happens-before guarantee makes the field visible to the thread that runs it.
+    task = runnable;
+    executorProvider.get().execute(this);
+  }
+
+  /** @deprecated this may only be called by the executor passed to {@link #execute(Runnable)} */
+  @Deprecated
+  @Override
+  public final void run() {
+    Runnable localTask = task;
+    task = null;
+    ProducerTasks.enter();
+    try {
+      localTask.run();
+    } finally {
+      ProducerTasks.exit();
+    }
+  }
+
+  /**
+   * A future that completes with a producer method's future, during which that method is recorded
+   * as {@linkplain ProducerTasks#completing() completing}, so that the producers that become ready
+   * as a result can report it to their monitors.
+   */
+  private static final class CompletingFuture<T> extends AbstractFuture<T> implements Runnable {
+    private final ProducerToken token;
+    @NullableDecl private volatile ListenableFuture<T> delegate;
+
+    private CompletingFuture(ListenableFuture<T> delegate, ProducerToken token) {
+      this.delegate = delegate;
+      this.token = token;
+    }
+
+    static <T> ListenableFuture<T> create(ListenableFuture<T> delegate, ProducerToken token) {
+      CompletingFuture<T> future = new CompletingFuture<T>(delegate, token);
+      delegate.addListener(future, directExecutor());
+      return future;
+    }
+
+    @Override
+    public void run() {
+      ListenableFuture<T> localDelegate = delegate;
+      if (localDelegate != null) {
+        ProducerToken previous = ProducerTasks.startCompleting(token);
+        try {
+          setFuture(localDelegate);
+        } finally {
+          ProducerTasks.finishCompleting(previous);
+        }
+      }
+    }
+
+    @Override
+    protected void afterDone() {
+      ListenableFuture<T> localDelegate = delegate;
+      delegate = null;
+      if (localDelegate != null && isCancelled()) {
+        localDelegate.cancel(wasInterrupted());
+      }
+    }
+
+    @Override
+    protected String pendingToString() {
+      ListenableFuture<T> localDelegate = delegate;
+      if (localDelegate != null) {
+        return "delegate=[" + localDelegate + "]";
+      }
+      return null;
+    }
   }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static dagger.internal.DaggerCollections.hasDuplicates;
+import static dagger.internal.DaggerCollections.presizedList;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.ContributionStream;
+import dagger.producers.Producer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link Producer} implementation used to implement {@link ContributionStream} requests for
+ * {@link java.util.Set} bindings. This producer returns an immediate future {@code
+ * ContributionStream<T>} whose contributions are the futures returned by subsequent calls to the
+ * delegate {@link Producer#get} methods.
+ */
+public final class ContributionStreamProducer<T> extends AbstractProducer<ContributionStream<T>> {
+  private static final Producer<ContributionStream<Object>> EMPTY_PRODUCER =
+      dagger.producers.Producers.<ContributionStream<Object>>immediateProducer(
+          ContributionStream.empty());
+
+  @SuppressWarnings({"unchecked", "rawtypes"}) // safe covariant cast
+  public static <T> Producer<ContributionStream<T>> empty() {
+    return (Producer) EMPTY_PRODUCER;
+  }
+
+  /**
+   * Constructs a new {@link Builder} for a {@link ContributionStreamProducer} with {@code
+   * individualProducerSize} individual {@code Producer<T>} and {@code collectionProducerSize}
+   * {@code Producer<Collection<T>>} instances.
+   */
+  public static <T> Builder<T> builder(int individualProducerSize, int collectionProducerSize) {
+    return new Builder<T>(individualProducerSize, collectionProducerSize);
+  }
+
+  /**
+   * A builder to accumulate {@code Producer<T>} and {@code Producer<Collection<T>>} instances.
+   * These are only intended to be single-use and from within generated code. Do <em>NOT</em> add
+   * producers after calling {@link #build()}.
+   */
+  public static final class Builder<T> {
+    private final List<Producer<T>> individualProducers;
+    private final List<Producer<Collection<T>>> collectionProducers;
+
+    private Builder(int individualProducerSize, int collectionProducerSize) {
+      individualProducers = presizedList(individualProducerSize);
+      collectionProducers = presizedList(collectionProducerSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Builder<T> addProducer(Producer<? extends T> individualProducer) {
+      assert individualProducer != null : "Codegen error? Null producer";
+      individualProducers.add((Producer<T>) individualProducer);
+      return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Builder<T> addCollectionProducer(
+        Producer<? extends Collection<? extends T>> multipleProducer) {
+      assert multipleProducer != null : "Codegen error? Null producer";
+      collectionProducers.add((Producer<Collection<T>>) multipleProducer);
+      return this;
+    }
+
+    public ContributionStreamProducer<T> build() {
+      assert !hasDuplicates(individualProducers)
+          : "Codegen error?  Duplicates in the producer list";
+      assert !hasDuplicates(collectionProducers)
+          : "Codegen error?  Duplicates in the producer list";
+
+      return new ContributionStreamProducer<T>(individualProducers, collectionProducers);
+    }
+  }
+
+  private final List<Producer<T>> individualProducers;
+  private final List<Producer<Collection<T>>> collectionProducers;
+
+  private ContributionStreamProducer(
+      List<Producer<T>> individualProducers, List<Producer<Collection<T>>> collectionProducers) {
+    this.individualProducers = individualProducers;
+    this.collectionProducers = collectionProducers;
+  }
+
+  /**
+   * Requests each of the contributions and returns an immediate future {@link ContributionStream}
+   * of them, without waiting for any of them to complete.
+   *
+   * <p>Canceling this future has no effect, since it is already done. Failures of the delegate
+   * futures are reported by the stream itself.
+   *
+   * @throws NullPointerException if any of the delegate producers return null
+   */
+  @Override
+  public ListenableFuture<ContributionStream<T>> compute() {
+    List<ListenableFuture<? extends Collection<T>>> contributions =
+        new ArrayList<ListenableFuture<? extends Collection<T>>>(
+            individualProducers.size() + collectionProducers.size());
+    for (Producer<T> producer : individualProducers) {
+      contributions.add(Producers.createFutureSingletonSet(checkNotNull(producer.get())));
+    }
+    for (Producer<Collection<T>> producer : collectionProducers) {
+      contributions.add(checkNotNull(producer.get()));
+    }
+    return Futures.immediateFuture(ContributionStream.<T>of(contributions));
+  }
+}
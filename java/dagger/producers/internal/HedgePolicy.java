@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.AsyncCallable;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.monitoring.LatencyHistogram;
+import dagger.producers.monitoring.ProducerMonitor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * The latencies of a {@link dagger.producers.Hedged} producer method, and the delay after which its
+ * invocations are hedged. Generated factories hold one instance per method, which is shared by all
+ * components.
+ */
+public final class HedgePolicy {
+  /** The number of latencies recorded between updates of {@link #delayNanos}. */
+  private static final int UPDATE_INTERVAL = 64;
+
+  /** Returns a policy that hedges invocations slower than {@code percentile} of the method's. */
+  public static HedgePolicy atPercentile(double percentile) {
+    checkArgument(
+        percentile > 0 && percentile < 100, "percentile must be in (0, 100): %s", percentile);
+    return new HedgePolicy(percentile);
+  }
+
+  private final double percentile;
+  private final LatencyHistogram latencies = new LatencyHistogram();
+  private final AtomicLong recorded = new AtomicLong();
+  private volatile long delayNanos; // 0 until UPDATE_INTERVAL latencies have been recorded
+
+  private HedgePolicy(double percentile) {
+    this.percentile = percentile;
+  }
+
+  /**
+   * Records the latency of one successful invocation, measured from when it started. Failures
+   * aren't recorded: a backend that fails fast would otherwise shrink the delay, and so hedge more
+   * invocations, just when it is failing.
+   */
+  void record(long latencyNanos) {
+    latencies.record(latencyNanos);
+    if (recorded.incrementAndGet() % UPDATE_INTERVAL == 0) {
+      delayNanos = Math.max(1, latencies.snapshot().valueAtPercentile(percentile));
+    }
+  }
+
+  /** Returns the delay after which an invocation is hedged, or 0 if none should be. */
+  long delayNanos() {
+    return delayNanos;
+  }
+
+  /**
+   * Returns a future with the result of {@code primary}, the future of an invocation that started
+   * at {@code startNanos}. If {@code primary} is still pending after {@link #delayNanos()}, {@code
+   * hedge} is called on {@code executor} and the returned future completes with whichever
+   * invocation succeeds first.
+   */
+  <T> ListenableFuture<T> hedge(
+      final ListenableFuture<T> primary,
+      AsyncCallable<T> hedge,
+      Executor executor,
+      ProducerMonitor monitor,
+      final long startNanos) {
+    if (primary.isDone()) {
+      if (succeeded(primary)) {
+        record(System.nanoTime() - startNanos);
+      }
+      return primary;
+    }
+    long delay = delayNanos;
+    if (delay == 0) {
+      primary.addListener(
+          new Runnable() {
+            @Override
+            public void run() {
+              if (succeeded(primary)) {
+                record(System.nanoTime() - startNanos);
+              }
+            }
+          },
+          directExecutor());
+      return primary;
+    }
+    HedgedFuture<T> result = new HedgedFuture<T>(primary, hedge, executor, monitor, startNanos);
+    primary.addListener(result.new Attempt(primary, false), directExecutor());
+    if (!result.isDone()) {
+      long remainingNanos = Math.max(0, delay - (System.nanoTime() - startNanos));
+      result.timer =
+          ProducerTimeouts.Scheduler.SCHEDULER.schedule(result, remainingNanos, NANOSECONDS);
+      if (result.isDone()) {
+        result.timer.cancel(false);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "HedgePolicy[p" + percentile + "=" + delayNanos + "ns]";
+  }
+
+  /**
+   * A future that completes with the first of its invocations to succeed, or with the last to fail
+   * if none do. This is the task of the timer that starts the hedge.
+   */
+  private final class HedgedFuture<T> extends AbstractFuture<T> implements Runnable {
+    private final ListenableFuture<T> primary;
+    private final AsyncCallable<T> hedgeCallable;
+    private final Executor executor;
+    private final ProducerMonitor monitor;
+    private final long startNanos;
+    @NullableDecl volatile Future<?> timer;
+    @NullableDecl private volatile ListenableFuture<T> hedge;
+    private int running = 1; // guarded by this
+    private boolean completed; // guarded by this
+
+    HedgedFuture(
+        ListenableFuture<T> primary,
+        AsyncCallable<T> hedgeCallable,
+        Executor executor,
+        ProducerMonitor monitor,
+        long startNanos) {
+      this.primary = primary;
+      this.hedgeCallable = hedgeCallable;
+      this.executor = executor;
+      this.monitor = monitor;
+      this.startNanos = startNanos;
+    }
+
+    @Override
+    public void run() {
+      synchronized (this) {
+        if (completed) {
+          return;
+        }
+        running++;
+      }
+      try {
+        executor.execute(
+            new Runnable() {
+              @Override
+              public void run() {
+                startHedge();
+              }
+            });
+      } catch (RejectedExecutionException e) {
+        attemptDone(Futures.<T>immediateFailedFuture(e), false);
+      }
+    }
+
+    private void startHedge() {
+      if (isDone()) {
+        return;
+      }
+      monitor.hedgeStarting();
+      ListenableFuture<T> localHedge;
+      try {
+        localHedge = hedgeCallable.call();
+        if (localHedge == null) {
+          localHedge =
+              Futures.immediateFailedFuture(
+                  new NullPointerException("Hedged invocation returned a null future"));
+        }
+      } catch (Throwable t) {
+        localHedge = Futures.immediateFailedFuture(t);
+      }
+      hedge = localHedge;
+      localHedge.addListener(new Attempt(localHedge, true), directExecutor());
+      if (isDone()) {
+        localHedge.cancel(true);
+      }
+    }
+
+    private void attemptDone(ListenableFuture<T> attempt, boolean isHedge) {
+      boolean succeeded = succeeded(attempt);
+      synchronized (this) {
+        running--;
+        if (completed || (!succeeded && running > 0)) {
+          return;
+        }
+        completed = true;
+      }
+      if (isHedge && succeeded) {
+        monitor.hedgeWon();
+      }
+      setFuture(attempt);
+    }
+
+    @Override
+    protected void afterDone() {
+      Future<?> localTimer = timer;
+      if (localTimer != null) {
+        localTimer.cancel(false);
+      }
+      boolean mayInterrupt = !isCancelled() || wasInterrupted();
+      primary.cancel(mayInterrupt);
+      ListenableFuture<T> localHedge = hedge;
+      if (localHedge != null) {
+        localHedge.cancel(mayInterrupt);
+      }
+    }
+
+    @Override
+    protected String pendingToString() {
+      ListenableFuture<T> localHedge = hedge;
+      if (localHedge != null) {
+        return "primary=[" + primary + "], hedge=[" + localHedge + "]";
+      }
+      return "primary=[" + primary + "]";
+    }
+
+    /** Returns {@code true} if this future has completed with the hedge's successful result. */
+    private boolean hedgeWon() {
+      ListenableFuture<T> localHedge = hedge;
+      return localHedge != null && isDone() && succeeded(this) && succeeded(localHedge);
+    }
+
+    /** The listener on one invocation's future. */
+    final class Attempt implements Runnable {
+      private final ListenableFuture<T> attempt;
+      private final boolean isHedge;
+
+      Attempt(ListenableFuture<T> attempt, boolean isHedge) {
+        this.attempt = attempt;
+        this.isHedge = isHedge;
+      }
+
+      @Override
+      public void run() {
+        if (!isHedge && (succeeded(attempt) || hedgeWon())) {
+          // If the hedge won, this is a lower bound on the primary invocation's latency, which
+          // keeps the delay from shrinking as hedges cut off the tail.
+          record(System.nanoTime() - startNanos);
+        }
+        attemptDone(attempt, isHedge);
+      }
+    }
+  }
+
+  private static boolean succeeded(Future<?> future) {
+    if (future.isCancelled()) {
+      return false;
+    }
+    try {
+      Futures.getDone(future);
+      return true;
+    } catch (ExecutionException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import dagger.producers.monitoring.ProducerToken;
+import java.util.ArrayDeque;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * Tracks the work the framework does for producers on each thread, so that other work can be
+ * deferred until the outermost producer task on a thread has finished. A producer task is any of
+ * starting a producer, running its method, or completing its future.
+ *
+ * <p>When a producer's future completes, the producers that depend on it are scheduled from within
+ * that task. If they run on the same thread, because the production executor is a direct executor
+ * or because the methods are {@link dagger.producers.NonBlocking}, they run nested within it. Work
+ * passed to {@link #runAfterCurrentTasks(Runnable)} runs once all of them have finished.
+ *
+ * <p>Tasks are only counted once {@link #trackTasks()} has been called, which {@link
+ * dagger.producers.Batcher} and {@link dagger.producers.NonBlocking} producers do when they are
+ * created. Until then, entering and leaving a task costs a read of a volatile field, and no
+ * thread-local state is touched.
+ *
+ * <p>When a component is monitored, this also tracks which producer method's future is completing,
+ * so that the producers that become ready as a result can be attributed to it.
+ */
+public final class ProducerTasks {
+  /** Whether tasks are counted. Once set, this is never cleared. */
+  private static volatile boolean tracking;
+
+  private static final ThreadLocal<TaskState> taskState =
+      new ThreadLocal<TaskState>() {
+        @Override
+        protected TaskState initialValue() {
+          return new TaskState();
+        }
+      };
+
+  private static final class TaskState {
+    int depth;
+    ArrayDeque<Runnable> deferred;
+    @NullableDecl ProducerToken completing;
+  }
+
+  /**
+   * Starts counting the producer tasks on every thread, so that {@link #runAfterCurrentTasks} and
+   * {@link #depth()} account for the tasks that start from now on.
+   */
+  public static void trackTasks() {
+    if (!tracking) {
+      tracking = true;
+    }
+  }
+
+  /** Called when a producer task starts on this thread. Must be paired with {@link #exit()}. */
+  static void enter() {
+    if (tracking) {
+      taskState.get().depth++;
+    }
+  }
+
+  /**
+   * Called when a producer task finishes on this thread. If it was the outermost one, runs any work
+   * that was deferred while it ran.
+   */
+  static void exit() {
+    if (!tracking) {
+      return;
+    }
+    TaskState state = taskState.get();
+    if (state.depth == 0) {
+      // The task started before tracking did, so it wasn't counted.
+      return;
+    }
+    if (--state.depth == 0 && state.deferred != null) {
+      runDeferred(state.deferred);
+    }
+  }
+
+  /**
+   * Runs every action in {@code deferred}, even if some of them throw, so that none is left for a
+   * later, unrelated task on this thread. Rethrows the first throwable once the queue is empty.
+   */
+  private static void runDeferred(ArrayDeque<Runnable> deferred) {
+    Throwable failure = null;
+    Runnable action;
+    while ((action = deferred.poll()) != null) {
+      try {
+        action.run();
+      } catch (Throwable t) {
+        if (failure == null) {
+          failure = t;
+        } else {
+          failure.addSuppressed(t);
+        }
+      }
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else if (failure != null) {
+      throw new RuntimeException(failure);
+    }
+  }
+
+  /**
+   * Returns the number of producer tasks that are running on this thread, not counting those that
+   * started before {@link #trackTasks()} was called.
+   */
+  static int depth() {
+    return tracking ? taskState.get().depth : 0;
+  }
+
+  /**
+   * Records that the future of the producer method for the given token is completing on this
+   * thread, or that none is if the token is {@code null}, and returns the previous token. Must be
+   * paired with {@link #finishCompleting(ProducerToken)}.
+   */
+  @NullableDecl
+  static ProducerToken startCompleting(@NullableDecl ProducerToken token) {
+    TaskState state = taskState.get();
+    ProducerToken previous = state.completing;
+    state.completing = token;
+    return previous;
+  }
+
+  /** Restores the token returned by the matching {@link #startCompleting(ProducerToken)}. */
+  static void finishCompleting(@NullableDecl ProducerToken previous) {
+    taskState.get().completing = previous;
+  }
+
+  /** Returns the token for the producer method whose future is completing on this thread. */
+  @NullableDecl
+  static ProducerToken completing() {
+    return taskState.get().completing;
+  }
+
+  /**
+   * Runs the given action once the outermost producer task running on this thread has finished, or
+   * immediately if no producer task is running on this thread. Actions should not throw; if one
+   * does, the other deferred actions still run and the first throwable is rethrown afterwards.
+   *
+   * <p>Call {@link #trackTasks()} before the producer tasks that should defer actions start.
+   */
+  public static void runAfterCurrentTasks(Runnable action) {
+    trackTasks();
+    TaskState state = taskState.get();
+    if (state.depth == 0) {
+      action.run();
+      return;
+    }
+    if (state.deferred == null) {
+      state.deferred = new ArrayDeque<>();
+    }
+    state.deferred.add(action);
+  }
+
+  private ProducerTasks() {}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import dagger.producers.ProducerTimeoutException;
+import dagger.producers.monitoring.ProducerToken;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/** Applies {@link dagger.producers.ProducerTimeout} budgets to the futures of producer methods. */
+final class ProducerTimeouts {
+  /**
+   * Returns a future with the result of {@code future}, or that fails with a {@link
+   * ProducerTimeoutException} if {@code future} is still pending after {@code timeoutNanos}.
+   */
+  static <T> ListenableFuture<T> withTimeout(
+      ListenableFuture<T> future,
+      long timeoutNanos,
+      @NullableDecl ProducerToken token,
+      boolean deadline) {
+    TimeoutFuture<T> result = new TimeoutFuture<T>(future, timeoutNanos, token, deadline);
+    future.addListener(result, directExecutor());
+    result.timer = Scheduler.SCHEDULER.schedule(result, timeoutNanos, NANOSECONDS);
+    if (result.isDone()) {
+      result.timer.cancel(false);
+    }
+    return result;
+  }
+
+  /** The timer thread for producer timeouts, which {@link HedgePolicy} shares. */
+  static final class Scheduler {
+    static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+      ScheduledThreadPoolExecutor scheduler =
+          new ScheduledThreadPoolExecutor(
+              1,
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("dagger-producer-timers-%d")
+                  .build());
+      // Most timers are cancelled when their producer completes in time.
+      scheduler.setRemoveOnCancelPolicy(true);
+      return scheduler;
+    }
+  }
+
+  /**
+   * A future that completes with its delegate, or fails when its timer fires first. This is both
+   * the listener on the delegate and the timer's task.
+   */
+  private static final class TimeoutFuture<T> extends AbstractFuture<T> implements Runnable {
+    @NullableDecl private volatile ListenableFuture<T> delegate;
+    @NullableDecl volatile Future<?> timer;
+    private final long timeoutNanos;
+    @NullableDecl private final ProducerToken token;
+    private final boolean deadline;
+
+    TimeoutFuture(
+        ListenableFuture<T> delegate,
+        long timeoutNanos,
+        @NullableDecl ProducerToken token,
+        boolean deadline) {
+      this.delegate = delegate;
+      this.timeoutNanos = timeoutNanos;
+      this.token = token;
+      this.deadline = deadline;
+    }
+
+    private String timeoutMessage() {
+      return deadline
+          ? "Production deadline passed while running " + token
+          : token + " timed out after " + NANOSECONDS.toMillis(timeoutNanos) + "ms";
+    }
+
+    @Override
+    public void run() {
+      ListenableFuture<T> localDelegate = delegate;
+      if (localDelegate == null) {
+        return;
+      }
+      if (localDelegate.isDone()) {
+        setFuture(localDelegate);
+      } else if (setException(new ProducerTimeoutException(timeoutMessage(), deadline))) {
+        localDelegate.cancel(true);
+      }
+    }
+
+    @Override
+    protected void afterDone() {
+      ListenableFuture<T> localDelegate = delegate;
+      delegate = null;
+      if (localDelegate != null && isCancelled()) {
+        localDelegate.cancel(wasInterrupted());
+      }
+      Future<?> localTimer = timer;
+      if (localTimer != null) {
+        localTimer.cancel(false);
+      }
+    }
+
+    @Override
+    protected String pendingToString() {
+      ListenableFuture<T> localDelegate = delegate;
+      if (localDelegate != null) {
+        return "delegate=[" + localDelegate + "], timeoutNanos=[" + timeoutNanos + "]";
+      }
+      return null;
+    }
+  }
+
+  private ProducerTimeouts() {}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import dagger.internal.VirtualThreads;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.inject.Inject;
+
+/**
+ * An {@link Executor} suited to producer methods that block, which runs each task on its own
+ * virtual thread when running on JDK 21 or later.
+ *
+ * <p>On older JDKs, or when virtual threads are unavailable, tasks run on a shared, unbounded pool
+ * of daemon threads that are reused while idle.
+ *
+ * <p>All instances share the same underlying executor, which is never shut down.
+ */
+public final class VirtualThreadExecutor implements Executor {
+  @Inject
+  public VirtualThreadExecutor() {}
+
+  @Override
+  public void execute(Runnable task) {
+    Holder.EXECUTOR.execute(task);
+  }
+
+  /** Returns {@code true} if tasks run on virtual threads rather than on platform threads. */
+  public static boolean usesVirtualThreads() {
+    return Holder.USES_VIRTUAL_THREADS;
+  }
+
+  private static final class Holder {
+    static final ExecutorService VIRTUAL_THREAD_EXECUTOR =
+        VirtualThreads.newVirtualThreadPerTaskExecutor();
+    static final boolean USES_VIRTUAL_THREADS = VIRTUAL_THREAD_EXECUTOR != null;
+    static final ExecutorService EXECUTOR =
+        USES_VIRTUAL_THREADS
+            ? VIRTUAL_THREAD_EXECUTOR
+            : Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("dagger-production-%d")
+                    .build());
+  }
+}
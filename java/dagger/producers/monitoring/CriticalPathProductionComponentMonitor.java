@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import dagger.internal.Beta;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * A monitor that finds the critical path of each execution of a production component, and records
+ * how long each producer on it held up the execution. Unlike the timings from {@link
+ * TimingProductionComponentMonitor}, this shows which producers actually bound the latency of a
+ * component, rather than which ones are slow.
+ *
+ * <p>An execution finishes when every producer that has been requested has finished. Its critical
+ * path ends at the producer that finished last, and continues from each producer to the one whose
+ * output was the last of its inputs to become available, as reported by {@link
+ * ProducerMonitor#readyAfter}. A producer's time on the critical path runs from when the next
+ * producer on the path finished, or from when it was requested if there is none, to when it
+ * finished, so the times of all producers on a path add up to the latency of the execution.
+ *
+ * <p>For example: <pre><code>
+ *   {@literal @Module}
+ *   final class CriticalPathModule {
+ *     static final CriticalPathProductionComponentMonitor.Factory FACTORY =
+ *         new CriticalPathProductionComponentMonitor.Factory();
+ *
+ *     {@literal @Provides @IntoSet} static ProductionComponentMonitor.Factory monitorFactory() {
+ *       return FACTORY;
+ *     }
+ *   }
+ *
+ *   // Later, for example on a status page:
+ *   {@literal Map<ProducerToken, LatencyHistogram.Snapshot>} latencies =
+ *       CriticalPathModule.FACTORY.criticalPathLatencies();
+ * </code></pre>
+ */
+@Beta
+public final class CriticalPathProductionComponentMonitor extends ProductionComponentMonitor {
+  private final Factory factory;
+  private final ConcurrentMap<ProducerToken, ProducerNode> nodes =
+      new ConcurrentHashMap<ProducerToken, ProducerNode>();
+  private final AtomicInteger pending = new AtomicInteger();
+
+  CriticalPathProductionComponentMonitor(Factory factory) {
+    this.factory = factory;
+  }
+
+  @Override
+  public ProducerMonitor producerMonitorFor(ProducerToken token) {
+    ProducerNode node = new ProducerNode(token);
+    nodes.put(token, node);
+    return node;
+  }
+
+  /**
+   * Records the critical path that ends at the given producer, stopping at the first producer that
+   * was already on a recorded path.
+   */
+  private void recordCriticalPath(ProducerNode last) {
+    ProducerNode node = last;
+    while (node != null && !node.recorded) {
+      node.recorded = true;
+      ProducerNode next = node.lastInput == null ? null : nodes.get(node.lastInput);
+      long startNanos =
+          next == null ? node.requestedNanos : Math.max(next.finishedNanos, node.requestedNanos);
+      factory.record(node.token, node.finishedNanos - startNanos);
+      node = next;
+    }
+  }
+
+  /**
+   * The timings of a single producer. Each field is written before the producer finishes, and only
+   * read once every requested producer has finished, after {@link #pending} reaches zero.
+   */
+  private final class ProducerNode extends ProducerMonitor {
+    private final ProducerToken token;
+    private long requestedNanos;
+    private long finishedNanos;
+    @NullableDecl private ProducerToken lastInput;
+    private boolean recorded;
+
+    ProducerNode(ProducerToken token) {
+      this.token = token;
+    }
+
+    @Override
+    public void requested() {
+      requestedNanos = factory.ticker.read();
+      pending.incrementAndGet();
+    }
+
+    @Override
+    public void readyAfter(ProducerToken token) {
+      lastInput = token;
+    }
+
+    @Override
+    public void succeeded(Object value) {
+      finished();
+    }
+
+    @Override
+    public void failed(Throwable t) {
+      finished();
+    }
+
+    private void finished() {
+      finishedNanos = factory.ticker.read();
+      if (pending.decrementAndGet() == 0) {
+        recordCriticalPath(this);
+      }
+    }
+  }
+
+  /**
+   * A factory for {@link CriticalPathProductionComponentMonitor}s, which collects the times that
+   * producers spend on the critical paths of all of the components they monitor.
+   */
+  @Beta
+  public static final class Factory extends ProductionComponentMonitor.Factory {
+    private final Ticker ticker;
+    private final ConcurrentMap<ProducerToken, LatencyHistogram> latencies =
+        new ConcurrentHashMap<ProducerToken, LatencyHistogram>();
+
+    public Factory() {
+      this(Ticker.systemTicker());
+    }
+
+    Factory(Ticker ticker) {
+      this.ticker = ticker;
+    }
+
+    @Override
+    public ProductionComponentMonitor create(Object component) {
+      return new CriticalPathProductionComponentMonitor(this);
+    }
+
+    /**
+     * Returns the times that each producer has spent on critical paths, for each producer that has
+     * been on one. The {@linkplain LatencyHistogram.Snapshot#count() count} for a producer is the
+     * number of critical paths it has been on.
+     */
+    public ImmutableMap<ProducerToken, LatencyHistogram.Snapshot> criticalPathLatencies() {
+      ImmutableMap.Builder<ProducerToken, LatencyHistogram.Snapshot> snapshots =
+          ImmutableMap.builder();
+      for (Map.Entry<ProducerToken, LatencyHistogram> entry : latencies.entrySet()) {
+        snapshots.put(entry.getKey(), entry.getValue().snapshot());
+      }
+      return snapshots.build();
+    }
+
+    private void record(ProducerToken token, long nanos) {
+      LatencyHistogram histogram = latencies.get(token);
+      if (histogram == null) {
+        LatencyHistogram newHistogram = new LatencyHistogram();
+        histogram = latencies.putIfAbsent(token, newHistogram);
+        if (histogram == null) {
+          histogram = newHistogram;
+        }
+      }
+      histogram.record(nanos);
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import com.google.common.collect.ImmutableMap;
+import dagger.internal.Beta;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A timing recorder factory that aggregates the timings of each producer, across all of the
+ * components it records, into {@linkplain LatencyHistogram latency histograms}, which can be read
+ * at any time with {@link #snapshot()}.
+ *
+ * <p>Recording takes no locks and allocates nothing once a producer has been seen, and every
+ * component shares the same recorders, so creating a component allocates nothing either.
+ *
+ * <p>For example: <pre><code>
+ *   {@literal @Module}
+ *   final class TimingModule {
+ *     static final HistogramTimingRecorderFactory TIMINGS = new HistogramTimingRecorderFactory();
+ *
+ *     {@literal @Provides @IntoSet} static ProductionComponentMonitor.Factory monitorFactory() {
+ *       return new TimingProductionComponentMonitor.Factory(TIMINGS);
+ *     }
+ *   }
+ *
+ *   // Later, for example when metrics are scraped:
+ *   for ({@literal Map.Entry<ProducerToken, ProducerTimings>} entry :
+ *       TimingModule.TIMINGS.snapshot().entrySet()) {
+ *     export(entry.getKey(), entry.getValue().successLatencies().valueAtPercentile(99));
+ *   }
+ * </code></pre>
+ */
+@Beta
+public final class HistogramTimingRecorderFactory
+    implements ProductionComponentTimingRecorder.Factory {
+  private final ConcurrentMap<ProducerToken, HistogramProducerTimingRecorder> recorders =
+      new ConcurrentHashMap<ProducerToken, HistogramProducerTimingRecorder>();
+
+  private final ProductionComponentTimingRecorder componentRecorder =
+      new ProductionComponentTimingRecorder() {
+        @Override
+        public ProducerTimingRecorder producerTimingRecorderFor(ProducerToken token) {
+          HistogramProducerTimingRecorder recorder = recorders.get(token);
+          if (recorder == null) {
+            HistogramProducerTimingRecorder newRecorder = new HistogramProducerTimingRecorder();
+            recorder = recorders.putIfAbsent(token, newRecorder);
+            if (recorder == null) {
+              recorder = newRecorder;
+            }
+          }
+          return recorder;
+        }
+      };
+
+  @Override
+  public ProductionComponentTimingRecorder create(Object component) {
+    return componentRecorder;
+  }
+
+  /** Returns the timings recorded so far for each producer that has been monitored. */
+  public ImmutableMap<ProducerToken, ProducerTimings> snapshot() {
+    ImmutableMap.Builder<ProducerToken, ProducerTimings> snapshot = ImmutableMap.builder();
+    for (Map.Entry<ProducerToken, HistogramProducerTimingRecorder> entry : recorders.entrySet()) {
+      snapshot.put(entry.getKey(), entry.getValue().snapshot());
+    }
+    return snapshot.build();
+  }
+
+  private static final class HistogramProducerTimingRecorder extends ProducerTimingRecorder {
+    private final LatencyHistogram methodDurations = new LatencyHistogram();
+    private final LatencyHistogram successLatencies = new LatencyHistogram();
+    private final LatencyHistogram failureLatencies = new LatencyHistogram();
+    private final AtomicLong skips = new AtomicLong();
+
+    @Override
+    public void recordMethod(long startedNanos, long durationNanos) {
+      methodDurations.record(durationNanos);
+    }
+
+    @Override
+    public void recordSuccess(long latencyNanos) {
+      successLatencies.record(latencyNanos);
+    }
+
+    @Override
+    public void recordFailure(Throwable exception, long latencyNanos) {
+      failureLatencies.record(latencyNanos);
+    }
+
+    @Override
+    public void recordSkip(Throwable exception) {
+      skips.incrementAndGet();
+    }
+
+    ProducerTimings snapshot() {
+      return new ProducerTimings(
+          methodDurations.snapshot(),
+          successLatencies.snapshot(),
+          failureLatencies.snapshot(),
+          skips.get());
+    }
+  }
+
+  /** The timings recorded for a producer at some point in time. */
+  @Beta
+  public static final class ProducerTimings {
+    private final LatencyHistogram.Snapshot methodDurations;
+    private final LatencyHistogram.Snapshot successLatencies;
+    private final LatencyHistogram.Snapshot failureLatencies;
+    private final long skipCount;
+
+    ProducerTimings(
+        LatencyHistogram.Snapshot methodDurations,
+        LatencyHistogram.Snapshot successLatencies,
+        LatencyHistogram.Snapshot failureLatencies,
+        long skipCount) {
+      this.methodDurations = methodDurations;
+      this.successLatencies = successLatencies;
+      this.failureLatencies = failureLatencies;
+      this.skipCount = skipCount;
+    }
+
+    /** Returns how long the producer method took to run, as passed to {@code recordMethod}. */
+    public LatencyHistogram.Snapshot methodDurations() {
+      return methodDurations;
+    }
+
+    /** Returns the latencies of the producer's future when it succeeded. */
+    public LatencyHistogram.Snapshot successLatencies() {
+      return successLatencies;
+    }
+
+    /** Returns the latencies of the producer's future when it failed. */
+    public LatencyHistogram.Snapshot failureLatencies() {
+      return failureLatencies;
+    }
+
+    /** Returns the number of times the producer was skipped because one of its inputs failed. */
+    public long skipCount() {
+      return skipCount;
+    }
+
+    @Override
+    public String toString() {
+      return "method=["
+          + methodDurations
+          + "], success=["
+          + successLatencies
+          + "], failure=["
+          + failureLatencies
+          + "], skips="
+          + skipCount;
+    }
+  }
+}
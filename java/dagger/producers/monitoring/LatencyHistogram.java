@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import dagger.internal.Beta;
+
+/**
+ * A histogram of latencies that can be recorded from many threads without locking.
+ *
+ * <p>A histogram takes about 5KB, and at most about 21KB when many threads contend to record to
+ * it. The latencies reported by a {@link Snapshot} are at most about 6% higher than the recorded
+ * ones. Latencies of 2<sup>44</sup> nanoseconds (about 4.9 hours) or more are all counted in the
+ * last bucket.
+ */
+@Beta
+public final class LatencyHistogram {
+  private final dagger.internal.LatencyHistogram histogram = new dagger.internal.LatencyHistogram();
+
+  /** Records a latency, in nanoseconds. Negative latencies are recorded as zero. */
+  public void record(long nanos) {
+    histogram.record(nanos);
+  }
+
+  /**
+   * Returns the latencies recorded so far. Latencies that are recorded while this runs may or may
+   * not be included.
+   */
+  public Snapshot snapshot() {
+    return new Snapshot(histogram.snapshot());
+  }
+
+  /** The latencies recorded in a {@link LatencyHistogram} at some point in time. */
+  @Beta
+  public static final class Snapshot {
+    private final dagger.internal.LatencyHistogram.Snapshot snapshot;
+
+    Snapshot(dagger.internal.LatencyHistogram.Snapshot snapshot) {
+      this.snapshot = snapshot;
+    }
+
+    /** Returns the number of latencies that were recorded. */
+    public long count() {
+      return snapshot.count();
+    }
+
+    /**
+     * Returns the latency, in nanoseconds, that the given percentage of the recorded latencies are
+     * at or below, or {@code 0} if none were recorded.
+     */
+    public long valueAtPercentile(double percentile) {
+      return snapshot.valueAtPercentile(percentile);
+    }
+
+    /** Returns the highest recorded latency, in nanoseconds, or {@code 0} if none were recorded. */
+    public long max() {
+      return snapshot.max();
+    }
+
+    @Override
+    public String toString() {
+      return snapshot.toString();
+    }
+  }
+}
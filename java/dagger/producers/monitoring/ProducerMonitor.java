@@ -102,6 +102,22 @@ public abstract class ProducerMonitor {
    */
   public void requested() {}
 
+  /**
+   * Called just before {@link #ready()} when the last of the producer's inputs to become available
+   * was the output of another producer method, with the token for that method. Following these
+   * calls back from a producer gives the chain of producers that determined when it could start.
+   *
+   * <p>This is not called if all of the producer's inputs were available when it was requested, or
+   * if the last one to become available wasn't the output of a producer method, such as a future
+   * from a component dependency.
+   *
+   * <p>When multiple monitors are installed, the order that each monitor will call this method is
+   * unspecified, but will remain consistent throughout the course of the execution of a component.
+   *
+   * <p>This implementation is a no-op.
+   */
+  public void readyAfter(@SuppressWarnings("unused") ProducerToken token) {}
+
   /**
    * Called when all of the producer's inputs are available. This is called regardless of whether
    * the inputs have succeeded or not; when the inputs have succeeded, this is called prior to
@@ -115,6 +131,19 @@ public abstract class ProducerMonitor {
    */
   public void ready() {}
 
+  /**
+   * Called when the producer method will run directly on the thread that called {@link #ready()}
+   * rather than being scheduled on the executor. This only happens for methods annotated with
+   * {@link dagger.producers.NonBlocking}, and is called after {@link #ready()} and before {@link
+   * #methodStarting()}, on the same thread as both.
+   *
+   * <p>When multiple monitors are installed, the order that each monitor will call this method is
+   * unspecified, but will remain consistent throughout the course of the execution of a component.
+   *
+   * <p>This implementation is a no-op.
+   */
+  public void runningInline() {}
+
   /**
    * Called when the producer method is about to start executing. This will be called from the same
    * thread as the producer method itself.
@@ -137,6 +166,31 @@ public abstract class ProducerMonitor {
    */
   public void methodFinished() {}
 
+  /**
+   * Called when a second invocation of a {@link dagger.producers.Hedged} producer method is about
+   * to start, because the first one hasn't completed within the method's hedging delay. This will
+   * be called from the same thread as the second invocation, which is not bracketed by {@link
+   * #methodStarting()} and {@link #methodFinished()}.
+   *
+   * <p>When multiple monitors are installed, calls to this method will be in the reverse order from
+   * calls to {@link #requested()}.
+   *
+   * <p>This implementation is a no-op.
+   */
+  public void hedgeStarting() {}
+
+  /**
+   * Called when the second invocation of a {@link dagger.producers.Hedged} producer method has
+   * succeeded before the first one, whose future will be cancelled. This is called before {@link
+   * #succeeded(Object)}.
+   *
+   * <p>When multiple monitors are installed, calls to this method will be in the reverse order from
+   * calls to {@link #requested()}.
+   *
+   * <p>This implementation is a no-op.
+   */
+  public void hedgeWon() {}
+
   /**
    * Called when the producer’s future has completed successfully with a value.
    *
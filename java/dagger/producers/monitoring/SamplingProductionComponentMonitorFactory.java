@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import dagger.internal.Beta;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A monitor factory that monitors only a sample of production components, by delegating to
+ * another factory for a random fraction of them and returning {@link
+ * ProductionComponentMonitor#noOp()} for the rest. The producers of a component that isn't sampled
+ * use {@link ProducerMonitor#noOp()}, so they don't call any monitor or register any callbacks,
+ * and cost no more than if no monitor were installed.
+ *
+ * <p>Each component is either monitored for its whole execution or not at all, so monitors that
+ * look at a component as a whole, such as {@link CriticalPathProductionComponentMonitor}, still see
+ * complete executions.
+ *
+ * <p>For example, to record timings for 1% of components: <pre><code>
+ *   {@literal @Module}
+ *   final class SampledMonitoringModule {
+ *     static final SamplingProductionComponentMonitorFactory FACTORY =
+ *         new SamplingProductionComponentMonitorFactory(
+ *             new TimingProductionComponentMonitor.Factory(recorderFactory), 0.01);
+ *
+ *     {@literal @Provides @IntoSet} static ProductionComponentMonitor.Factory monitorFactory() {
+ *       return FACTORY;
+ *     }
+ *   }
+ *
+ *   // Later, for example while investigating an incident:
+ *   SampledMonitoringModule.FACTORY.setSampleRate(0.5);
+ * </code></pre>
+ */
+@Beta
+public final class SamplingProductionComponentMonitorFactory
+    extends ProductionComponentMonitor.Factory {
+  private final ProductionComponentMonitor.Factory delegate;
+  private volatile double sampleRate;
+
+  /**
+   * Creates a factory that uses the given factory for the given fraction of components, from
+   * {@code 0} for none to {@code 1} for all.
+   */
+  public SamplingProductionComponentMonitorFactory(
+      ProductionComponentMonitor.Factory delegate, double sampleRate) {
+    this.delegate = checkNotNull(delegate);
+    setSampleRate(sampleRate);
+  }
+
+  /** Returns the fraction of components that are monitored. */
+  public double sampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Sets the fraction of components to monitor, from {@code 0} for none to {@code 1} for all. This
+   * only affects components created afterwards.
+   */
+  public void setSampleRate(double sampleRate) {
+    checkArgument(
+        sampleRate >= 0 && sampleRate <= 1, "sampleRate must be in [0, 1]: %s", sampleRate);
+    this.sampleRate = sampleRate;
+  }
+
+  @Override
+  public ProductionComponentMonitor create(Object component) {
+    double rate = sampleRate;
+    if (rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate)) {
+      return delegate.create(component);
+    }
+    return ProductionComponentMonitor.noOp();
+  }
+}
@@ -26,6 +26,7 @@ import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.inject.Provider;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 
 /**
  * Utility methods relating to monitoring, for use in generated producers code.
@@ -86,7 +87,7 @@ public final class Monitors {
     public ProducerMonitor producerMonitorFor(ProducerToken token) {
       try {
         ProducerMonitor monitor = delegate.producerMonitorFor(token);
-        return monitor == null ? ProducerMonitor.noOp() : new NonThrowingProducerMonitor(monitor);
+        return isNoOp(monitor) ? ProducerMonitor.noOp() : new NonThrowingProducerMonitor(monitor);
       } catch (RuntimeException e) {
         logProducerMonitorForException(e, delegate, token);
         return ProducerMonitor.noOp();
@@ -104,7 +105,7 @@ public final class Monitors {
       public ProductionComponentMonitor create(Object component) {
         try {
           ProductionComponentMonitor monitor = delegate.create(component);
-          return monitor == null
+          return isNoOp(monitor)
               ? ProductionComponentMonitor.noOp()
               : new NonThrowingProductionComponentMonitor(monitor);
         } catch (RuntimeException e) {
@@ -135,6 +136,15 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void readyAfter(ProducerToken token) {
+      try {
+        delegate.readyAfter(token);
+      } catch (RuntimeException e) {
+        logProducerMonitorMethodException(e, delegate, "readyAfter");
+      }
+    }
+
     @Override
     public void ready() {
       try {
@@ -144,6 +154,15 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void runningInline() {
+      try {
+        delegate.runningInline();
+      } catch (RuntimeException e) {
+        logProducerMonitorMethodException(e, delegate, "runningInline");
+      }
+    }
+
     @Override
     public void methodStarting() {
       try {
@@ -162,6 +181,24 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void hedgeStarting() {
+      try {
+        delegate.hedgeStarting();
+      } catch (RuntimeException e) {
+        logProducerMonitorMethodException(e, delegate, "hedgeStarting");
+      }
+    }
+
+    @Override
+    public void hedgeWon() {
+      try {
+        delegate.hedgeWon();
+      } catch (RuntimeException e) {
+        logProducerMonitorMethodException(e, delegate, "hedgeWon");
+      }
+    }
+
     @Override
     public void succeeded(Object o) {
       try {
@@ -199,7 +236,7 @@ public final class Monitors {
       for (ProductionComponentMonitor delegate : delegates) {
         try {
           ProducerMonitor monitor = delegate.producerMonitorFor(token);
-          if (monitor != null) {
+          if (!isNoOp(monitor)) {
             monitorsBuilder.add(monitor);
           }
         } catch (RuntimeException e) {
@@ -229,7 +266,7 @@ public final class Monitors {
         for (ProductionComponentMonitor.Factory delegate : delegates) {
           try {
             ProductionComponentMonitor monitor = delegate.create(component);
-            if (monitor != null) {
+            if (!isNoOp(monitor)) {
               monitorsBuilder.add(monitor);
             }
           } catch (RuntimeException e) {
@@ -270,6 +307,17 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void readyAfter(ProducerToken token) {
+      for (ProducerMonitor delegate : delegates) {
+        try {
+          delegate.readyAfter(token);
+        } catch (RuntimeException e) {
+          logProducerMonitorMethodException(e, delegate, "readyAfter");
+        }
+      }
+    }
+
     @Override
     public void ready() {
       for (ProducerMonitor delegate : delegates) {
@@ -281,6 +329,17 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void runningInline() {
+      for (ProducerMonitor delegate : delegates) {
+        try {
+          delegate.runningInline();
+        } catch (RuntimeException e) {
+          logProducerMonitorMethodException(e, delegate, "runningInline");
+        }
+      }
+    }
+
     @Override
     public void methodStarting() {
       for (ProducerMonitor delegate : delegates) {
@@ -303,6 +362,28 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void hedgeStarting() {
+      for (ProducerMonitor delegate : delegates.reverse()) {
+        try {
+          delegate.hedgeStarting();
+        } catch (RuntimeException e) {
+          logProducerMonitorMethodException(e, delegate, "hedgeStarting");
+        }
+      }
+    }
+
+    @Override
+    public void hedgeWon() {
+      for (ProducerMonitor delegate : delegates.reverse()) {
+        try {
+          delegate.hedgeWon();
+        } catch (RuntimeException e) {
+          logProducerMonitorMethodException(e, delegate, "hedgeWon");
+        }
+      }
+    }
+
     @Override
     public void succeeded(Object o) {
       for (ProducerMonitor delegate : delegates.reverse()) {
@@ -326,6 +407,18 @@ public final class Monitors {
     }
   }
 
+  /**
+   * Returns whether the given monitor does nothing, so that it can be dropped rather than wrapped.
+   * Keeping the shared no-op monitors unwrapped lets producers skip monitoring them entirely.
+   */
+  private static boolean isNoOp(@NullableDecl ProductionComponentMonitor monitor) {
+    return monitor == null || monitor == ProductionComponentMonitor.noOp();
+  }
+
+  private static boolean isNoOp(@NullableDecl ProducerMonitor monitor) {
+    return monitor == null || monitor == ProducerMonitor.noOp();
+  }
+
   /** Returns a provider of a no-op component monitor. */
   public static Provider<ProductionComponentMonitor> noOpProductionComponentMonitorProvider() {
     return NO_OP_PRODUCTION_COMPONENT_MONITOR_PROVIDER;
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.ByteStreams;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.Marshaller;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.ServerCalls.UnaryMethod;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/** A unary gRPC method with string messages, which the gRPC benchmarks call. */
+final class Echo {
+  static final String SERVICE_NAME = "dagger.benchmarks.Echo";
+
+  private static final Marshaller<String> STRING_MARSHALLER =
+      new Marshaller<String>() {
+        @Override
+        public InputStream stream(String value) {
+          return new ByteArrayInputStream(value.getBytes(UTF_8));
+        }
+
+        @Override
+        public String parse(InputStream stream) {
+          try {
+            return new String(ByteStreams.toByteArray(stream), UTF_8);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      };
+
+  static final MethodDescriptor<String, String> METHOD =
+      MethodDescriptor.create(
+          MethodType.UNARY,
+          MethodDescriptor.generateFullMethodName(SERVICE_NAME, "Echo"),
+          STRING_MARSHALLER,
+          STRING_MARSHALLER);
+
+  /** Returns a service whose only method is {@link #METHOD}, implemented by {@code method}. */
+  static ServerServiceDefinition serviceDefinition(UnaryMethod<String, String> method) {
+    return ServerServiceDefinition.builder(SERVICE_NAME)
+        .addMethod(METHOD, ServerCalls.asyncUnaryCall(method))
+        .build();
+  }
+
+  private Echo() {}
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import dagger.grpc.server.CallScopedComponentPool;
+import dagger.grpc.server.GrpcCallMetadataModule;
+import dagger.grpc.server.GrpcCallMetadataModule_ProvideHeadersFactory;
+import dagger.grpc.server.ProxyServerCallHandler;
+import dagger.internal.DoubleCheck;
+import dagger.internal.InstanceFactory;
+import dagger.internal.ResettableComponent;
+import dagger.internal.ResettableScope;
+import io.grpc.BindableService;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls.UnaryMethod;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks one unary call to a Dagger-gRPC service on the in-process transport, which is what
+ * {@code InProcessServerModule} serves. Compare {@code gc.alloc.rate.norm}, the bytes allocated per
+ * call.
+ *
+ * <p>Calls go through {@link ProxyServerCallHandler}, as they do for a {@code @GrpcService}. With
+ * {@link Component#CALL_SCOPED}, each call creates a component that mirrors a generated
+ * {@code @CallScoped} subcomponent with {@link #scopedBindings} scoped bindings.
+ * {@link Component#POOLED} reuses resettable components through a {@link
+ * CallScopedComponentPool}, as the proxy module does when {@code callScopePoolSize} is set.
+ * {@link Component#SINGLETON} reuses one such component for every call, as the unscoped service
+ * module does. The difference between it and {@link Component#CALL_SCOPED} is the most that
+ * reusing call-scoped components could save.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class GrpcCallScopeBenchmark {
+  /** The number of scoped bindings in the component, all of which the service depends on. */
+  @Param({"10", "100"})
+  public int scopedBindings;
+
+  /** How often a component is created. */
+  @Param public Component component;
+
+  /** How the proxy gets the component that serves a call. */
+  public enum Component {
+    CALL_SCOPED,
+    POOLED,
+    SINGLETON,
+  }
+
+  private Server server;
+  private ManagedChannel channel;
+
+  @Setup
+  public void setUp() throws IOException {
+    String name = "GrpcCallScopeBenchmark-" + component + "-" + scopedBindings;
+    server =
+        InProcessServerBuilder.forName(name)
+            .directExecutor()
+            .addService(
+                ServerServiceDefinition.builder(Echo.SERVICE_NAME)
+                    .addMethod(ProxyServerCallHandler.proxyMethod(Echo.METHOD, serviceFactory()))
+                    .build())
+            .build()
+            .start();
+    channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    channel.shutdownNow().awaitTermination(1, TimeUnit.SECONDS);
+    server.shutdownNow().awaitTermination(1, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String call() {
+    return ClientCalls.blockingUnaryCall(channel, Echo.METHOD, CallOptions.DEFAULT, "request");
+  }
+
+  /** Mirrors the service factory that the generated proxy module provides. */
+  private ProxyServerCallHandler.ServiceFactory serviceFactory() {
+    switch (component) {
+      case CALL_SCOPED:
+        return new ProxyServerCallHandler.ServiceFactory() {
+          @Override
+          public ServerCallHandler<?, ?> getCallHandler(Metadata headers, String fullMethodName) {
+            return new CallComponent(InstanceFactory.create(headers), scopedBindings, false)
+                .callHandler(fullMethodName);
+          }
+        };
+      case POOLED:
+        return new CallScopedComponentPool<CallComponent>(
+            1,
+            new CallScopedComponentPool.ComponentFactory<CallComponent>() {
+              @Override
+              public CallComponent create(GrpcCallMetadataModule metadataModule) {
+                return new CallComponent(
+                    GrpcCallMetadataModule_ProvideHeadersFactory.create(metadataModule),
+                    scopedBindings,
+                    true);
+              }
+
+              @Override
+              public ServerCallHandler<?, ?> getCallHandler(
+                  CallComponent component, String fullMethodName) {
+                return component.callHandler(fullMethodName);
+              }
+            });
+      case SINGLETON:
+        final CallComponent singleton =
+            new CallComponent(InstanceFactory.create(new Metadata()), scopedBindings, false);
+        return new ProxyServerCallHandler.ServiceFactory() {
+          @Override
+          public ServerCallHandler<?, ?> getCallHandler(Metadata headers, String fullMethodName) {
+            return singleton.callHandler(fullMethodName);
+          }
+        };
+    }
+    throw new AssertionError(component);
+  }
+
+  /**
+   * Mirrors a generated component whose service implementation depends on {@code scopedBindings}
+   * scoped bindings: creating it wraps a factory for each of them in a {@link DoubleCheck}, or in
+   * its {@link ResettableScope} if it is resettable.
+   */
+  private static final class CallComponent implements ResettableComponent {
+    private final ResettableScope resettableScope = new ResettableScope();
+    private final List<Provider<Object>> scopedProviders;
+    private final Provider<EchoService> serviceProvider;
+
+    CallComponent(
+        final Provider<Metadata> headersProvider, int scopedBindings, boolean resettable) {
+      scopedProviders = new ArrayList<>(scopedBindings);
+      for (int i = 0; i < scopedBindings; i++) {
+        Provider<Object> unscoped = () -> new Object[] {headersProvider.get()};
+        scopedProviders.add(
+            resettable ? resettableScope.provider(unscoped) : DoubleCheck.provider(unscoped));
+      }
+      Provider<EchoService> unscopedService =
+          () -> new EchoService(resolveAll(scopedProviders));
+      serviceProvider =
+          resettable
+              ? resettableScope.provider(unscopedService)
+              : DoubleCheck.provider(unscopedService);
+    }
+
+    @Override
+    public void resetScope() {
+      resettableScope.reset();
+    }
+
+    ServerCallHandler<?, ?> callHandler(String fullMethodName) {
+      return ProxyServerCallHandler.callHandler(
+          serviceProvider.get(), fullMethodName, ImmutableList.of());
+    }
+
+    private static List<Object> resolveAll(List<Provider<Object>> providers) {
+      List<Object> instances = new ArrayList<>(providers.size());
+      for (Provider<Object> provider : providers) {
+        instances.add(provider.get());
+      }
+      return instances;
+    }
+  }
+
+  /** A service that echoes its request. */
+  private static final class EchoService implements BindableService {
+    private final List<Object> dependencies;
+
+    EchoService(List<Object> dependencies) {
+      this.dependencies = dependencies;
+    }
+
+    @Override
+    public ServerServiceDefinition bindService() {
+      return Echo.serviceDefinition(
+          new UnaryMethod<String, String>() {
+            @Override
+            public void invoke(String request, StreamObserver<String> responseObserver) {
+              responseObserver.onNext(request + dependencies.size());
+              responseObserver.onCompleted();
+            }
+          });
+    }
+  }
+}
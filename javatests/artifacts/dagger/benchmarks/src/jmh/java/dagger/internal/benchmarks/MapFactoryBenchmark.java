@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import dagger.internal.DoubleCheck;
+import dagger.internal.MapBuilder;
+import dagger.internal.MapFactory;
+import dagger.internal.MapProviderFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link MapFactory#get()}, {@link MapProviderFactory#get()} and {@link
+ * MapBuilder}, which back {@code Map} multibindings.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class MapFactoryBenchmark {
+  /** The number of {@code @IntoMap} contributions. */
+  @Param({"1", "4", "16", "64"})
+  public int contributions;
+
+  private final List<String> keys = new ArrayList<>();
+  private final List<Provider<Object>> providers = new ArrayList<>();
+  private MapFactory<String, Object> mapFactory;
+  private MapProviderFactory<String, Object> mapProviderFactory;
+  private String lookupKey;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    MapFactory.Builder<String, Object> mapFactoryBuilder = MapFactory.builder(contributions);
+    MapProviderFactory.Builder<String, Object> mapProviderFactoryBuilder =
+        MapProviderFactory.builder(contributions);
+    for (int i = 0; i < contributions; i++) {
+      String key = "key" + i;
+      Provider<Object> provider = DoubleCheck.provider(Object::new);
+      keys.add(key);
+      providers.add(provider);
+      mapFactoryBuilder.put(key, provider);
+      mapProviderFactoryBuilder.put(key, provider);
+    }
+    mapFactory = mapFactoryBuilder.build();
+    mapProviderFactory = mapProviderFactoryBuilder.build();
+    lookupKey = keys.get(keys.size() - 1);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Map<String, Object> mapFactory_singleThread() {
+    return mapFactory.get();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public Map<String, Object> mapFactory_contended() {
+    return mapFactory.get();
+  }
+
+  /** Measures a dispatch-style lookup through a {@code Map<K, Provider<V>>}. */
+  @Benchmark
+  @Threads(1)
+  public Object mapProviderFactory_lookup_singleThread() {
+    return mapProviderFactory.get().get(lookupKey).get();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public Object mapProviderFactory_lookup_contended() {
+    return mapProviderFactory.get().get(lookupKey).get();
+  }
+
+  /** Mirrors the code generated for a {@code Map} multibinding requested directly. */
+  @Benchmark
+  @Threads(1)
+  public Map<String, Object> mapBuilder_singleThread() {
+    MapBuilder<String, Object> builder = MapBuilder.newMapBuilder(contributions);
+    for (int i = 0; i < contributions; i++) {
+      builder.put(keys.get(i), providers.get(i).get());
+    }
+    return builder.build();
+  }
+}
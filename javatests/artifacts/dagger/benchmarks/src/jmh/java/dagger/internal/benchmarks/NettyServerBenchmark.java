@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import dagger.grpc.server.NettyServerOptions;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls.UnaryMethod;
+import io.grpc.stub.StreamObserver;
+import io.netty.channel.EventLoopGroup;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A load test of a Netty server configured with {@link NettyServerOptions}, as {@code
+ * NettyServerModule} would configure it. The clients and the server run in the benchmark's process
+ * and talk over loopback, so compare the throughput of each {@link #configuration} on the same
+ * machine.
+ *
+ * <p>With {@link #blockingMicros} of 0 the service never blocks, which is where {@link
+ * Configuration#DIRECT_EXECUTOR} avoids a thread hand-off for every call. When the service blocks,
+ * the direct executor blocks the event loops instead, and an executor is needed.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class NettyServerBenchmark {
+  /** The server configurations to compare. */
+  public enum Configuration {
+    DEFAULT {
+      @Override
+      NettyServerOptions.Builder configure(
+          NettyServerOptions.Builder options, List<EventLoopGroup> eventLoopGroups) {
+        return options;
+      }
+    },
+    DIRECT_EXECUTOR {
+      @Override
+      NettyServerOptions.Builder configure(
+          NettyServerOptions.Builder options, List<EventLoopGroup> eventLoopGroups) {
+        return options.directExecutor();
+      }
+    },
+    VIRTUAL_THREAD_EXECUTOR {
+      @Override
+      NettyServerOptions.Builder configure(
+          NettyServerOptions.Builder options, List<EventLoopGroup> eventLoopGroups) {
+        return options.virtualThreadExecutor();
+      }
+    },
+    EPOLL_DIRECT_EXECUTOR {
+      @Override
+      NettyServerOptions.Builder configure(
+          NettyServerOptions.Builder options, List<EventLoopGroup> eventLoopGroups) {
+        if (NettyServerOptions.isEpollAvailable()) {
+          EventLoopGroup boss = NettyServerOptions.newEpollEventLoopGroup(1);
+          EventLoopGroup worker = NettyServerOptions.newEpollEventLoopGroup(0);
+          eventLoopGroups.add(boss);
+          eventLoopGroups.add(worker);
+          options.epoll(boss, worker);
+        }
+        return options.directExecutor();
+      }
+    },
+    ;
+
+    /** Configures {@code options}, adding any event loop groups it creates to the list. */
+    abstract NettyServerOptions.Builder configure(
+        NettyServerOptions.Builder options, List<EventLoopGroup> eventLoopGroups);
+  }
+
+  @Param public Configuration configuration;
+
+  /** How long the service blocks for each call, in microseconds. */
+  @Param({"0", "1000"})
+  public int blockingMicros;
+
+  private final List<EventLoopGroup> eventLoopGroups = new ArrayList<>();
+  private Server server;
+  private ManagedChannel channel;
+
+  @Setup
+  public void setUp() throws IOException {
+    NettyServerOptions options =
+        configuration.configure(NettyServerOptions.builder(), eventLoopGroups).build();
+    server =
+        options
+            .configure(NettyServerBuilder.forAddress(new InetSocketAddress("localhost", 0)))
+            .addService(
+                Echo.serviceDefinition(
+                    new UnaryMethod<String, String>() {
+                      @Override
+                      public void invoke(
+                          String request, StreamObserver<String> responseObserver) {
+                        if (blockingMicros > 0) {
+                          Uninterruptibles.sleepUninterruptibly(blockingMicros, MICROSECONDS);
+                        }
+                        responseObserver.onNext(request);
+                        responseObserver.onCompleted();
+                      }
+                    }))
+            .build()
+            .start();
+    channel =
+        NettyChannelBuilder.forAddress("localhost", server.getPort())
+            .usePlaintext(true)
+            .directExecutor()
+            .build();
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    channel.shutdownNow().awaitTermination(1, TimeUnit.SECONDS);
+    server.shutdownNow().awaitTermination(1, TimeUnit.SECONDS);
+    for (EventLoopGroup eventLoopGroup : eventLoopGroups) {
+      eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).await();
+    }
+    eventLoopGroups.clear();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public String call() {
+    return ClientCalls.blockingUnaryCall(channel, Echo.METHOD, CallOptions.DEFAULT, "request");
+  }
+}
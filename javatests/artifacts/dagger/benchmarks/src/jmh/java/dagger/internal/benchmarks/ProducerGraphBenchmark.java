@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.Producer;
+import dagger.producers.internal.AbstractProducesMethodProducer;
+import dagger.producers.internal.VirtualThreadExecutor;
+import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a production graph of 100 producer methods that each block, run on a fixed-size
+ * thread pool and on {@link VirtualThreadExecutor}, which backs {@code
+ * VirtualThreadProductionExecutorModule}.
+ *
+ * <p>The graph has {@value #LAYERS} layers of {@value #WIDTH} producers. Each producer depends on
+ * every producer in the layer before it and blocks for {@link #blockingMicros} when it runs, as a
+ * producer that calls a blocking client would. Each benchmark operation builds a fresh graph, as a
+ * new production component would, and waits for the last layer. Several benchmark threads request
+ * graphs at once, so the fixed pool saturates once more producers are blocked than it has threads.
+ *
+ * <p>{@link Mode#SampleTime} reports the latency percentiles, including {@code p0.99}, and {@link
+ * Mode#Throughput} reports graphs per millisecond. On JDKs before 21, {@link VirtualThreadExecutor}
+ * falls back to an unbounded pool of platform threads.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ProducerGraphBenchmark {
+  static final int LAYERS = 10;
+  static final int WIDTH = 10;
+
+  /** The executor implementations to compare. */
+  public enum ExecutorKind {
+    FIXED_POOL,
+    VIRTUAL_THREADS,
+  }
+
+  @Param
+  public ExecutorKind executor;
+
+  /** The number of threads in the {@link ExecutorKind#FIXED_POOL} executor. */
+  @Param({"16"})
+  public int poolSize;
+
+  /** How long each producer blocks for. */
+  @Param({"1000"})
+  public int blockingMicros;
+
+  private ExecutorService fixedPool;
+  private Provider<Executor> executorProvider;
+
+  private static final Provider<ProductionComponentMonitor> MONITOR_PROVIDER =
+      new Provider<ProductionComponentMonitor>() {
+        @Override
+        public ProductionComponentMonitor get() {
+          return ProductionComponentMonitor.noOp();
+        }
+      };
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    final Executor productionExecutor;
+    switch (executor) {
+      case FIXED_POOL:
+        fixedPool = Executors.newFixedThreadPool(poolSize);
+        productionExecutor = fixedPool;
+        break;
+      case VIRTUAL_THREADS:
+        productionExecutor = new VirtualThreadExecutor();
+        break;
+      default:
+        throw new AssertionError(executor);
+    }
+    executorProvider = () -> productionExecutor;
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (fixedPool != null) {
+      fixedPool.shutdownNow();
+    }
+  }
+
+  @Benchmark
+  @Threads(32)
+  public List<Object> blockingGraph() throws Exception {
+    List<Producer<Object>> layer = new ArrayList<>();
+    for (int i = 0; i < LAYERS; i++) {
+      List<Producer<Object>> nextLayer = new ArrayList<>(WIDTH);
+      for (int j = 0; j < WIDTH; j++) {
+        nextLayer.add(new BlockingProducer(executorProvider, layer, blockingMicros));
+      }
+      layer = nextLayer;
+    }
+    List<ListenableFuture<Object>> outputs = new ArrayList<>(WIDTH);
+    for (Producer<Object> producer : layer) {
+      outputs.add(producer.get());
+    }
+    return Futures.allAsList(outputs).get();
+  }
+
+  /** Mirrors a generated producer factory for a method that blocks. */
+  private static final class BlockingProducer
+      extends AbstractProducesMethodProducer<List<Object>, Object> {
+    private final List<Producer<Object>> dependencies;
+    private final int blockingMicros;
+
+    BlockingProducer(
+        Provider<Executor> executorProvider,
+        List<Producer<Object>> dependencies,
+        int blockingMicros) {
+      super(MONITOR_PROVIDER, null, executorProvider);
+      this.dependencies = dependencies;
+      this.blockingMicros = blockingMicros;
+    }
+
+    @Override
+    protected ListenableFuture<List<Object>> collectDependencies() {
+      List<ListenableFuture<Object>> futures = new ArrayList<>(dependencies.size());
+      for (Producer<Object> dependency : dependencies) {
+        futures.add(dependency.get());
+      }
+      return Futures.allAsList(futures);
+    }
+
+    @Override
+    protected ListenableFuture<Object> callProducesMethod(List<Object> inputs) throws Exception {
+      TimeUnit.MICROSECONDS.sleep(blockingMicros);
+      return Futures.<Object>immediateFuture(inputs.size());
+    }
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import dagger.producers.Producer;
+import dagger.producers.internal.AbstractProducesMethodProducer;
+import dagger.producers.internal.Producers;
+import dagger.producers.monitoring.ProducerMonitor;
+import dagger.producers.monitoring.ProducerToken;
+import dagger.producers.monitoring.ProductionComponentMonitor;
+import dagger.producers.monitoring.SamplingProductionComponentMonitorFactory;
+import dagger.producers.monitoring.internal.Monitors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the overhead of the producers runtime for one request to a production graph, which is
+ * dominated by the futures that {@code AbstractProducer} and {@code
+ * AbstractProducesMethodProducer} allocate. Compare {@code gc.alloc.rate.norm}, the bytes allocated
+ * per request.
+ *
+ * <p>Each operation builds a graph of {@link #nodes} producers on a direct executor, as a new
+ * production component would, and requests the last one. Every producer depends on the previous
+ * producer by value and holds a {@linkplain Producers#nonCancellationPropagatingViewOf dependency
+ * view} of the one before that, as a producer method that injects {@code Producer<T>} would.
+ *
+ * <p>{@link #monitoring} compares requests with no monitor installed to requests with a monitor that
+ * does nothing itself, which measures what the runtime spends on monitoring, with that monitor on
+ * every component or behind a {@link SamplingProductionComponentMonitorFactory} at 1%.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ProducerRequestBenchmark {
+  /** The number of producers in the graph. */
+  @Param({"300"})
+  public int nodes;
+
+  /** How the components are monitored. */
+  @Param({"NONE", "ALL", "SAMPLED"})
+  public Monitoring monitoring;
+
+  /** The monitor factories that may be installed in the component. */
+  public enum Monitoring {
+    NONE {
+      @Override
+      ImmutableSet<ProductionComponentMonitor.Factory> factories() {
+        return ImmutableSet.of();
+      }
+    },
+    ALL {
+      @Override
+      ImmutableSet<ProductionComponentMonitor.Factory> factories() {
+        return ImmutableSet.of(EMPTY_MONITOR_FACTORY);
+      }
+    },
+    SAMPLED {
+      @Override
+      ImmutableSet<ProductionComponentMonitor.Factory> factories() {
+        return ImmutableSet.<ProductionComponentMonitor.Factory>of(
+            new SamplingProductionComponentMonitorFactory(EMPTY_MONITOR_FACTORY, 0.01));
+      }
+    };
+
+    abstract ImmutableSet<ProductionComponentMonitor.Factory> factories();
+  }
+
+  /** A factory for monitors that are called for every producer, but do nothing. */
+  private static final ProductionComponentMonitor.Factory EMPTY_MONITOR_FACTORY =
+      new ProductionComponentMonitor.Factory() {
+        @Override
+        public ProductionComponentMonitor create(Object component) {
+          return new ProductionComponentMonitor() {
+            @Override
+            public ProducerMonitor producerMonitorFor(ProducerToken token) {
+              return new ProducerMonitor() {};
+            }
+          };
+        }
+      };
+
+  private static final Provider<Executor> EXECUTOR_PROVIDER =
+      new Provider<Executor>() {
+        @Override
+        public Executor get() {
+          return MoreExecutors.directExecutor();
+        }
+      };
+
+  private ProductionComponentMonitor.Factory monitorFactory;
+
+  @Setup
+  public void setUp() {
+    monitorFactory = Monitors.delegatingProductionComponentMonitorFactory(monitoring.factories());
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object request() throws Exception {
+    Provider<ProductionComponentMonitor> monitorProvider =
+        providerOf(monitorFactory.create(this));
+    Producer<Object> previous = null;
+    Producer<Object> current = dagger.producers.Producers.<Object>immediateProducer(0);
+    for (int i = 1; i < nodes; i++) {
+      Producer<Object> next = new NodeProducer(monitorProvider, current, previous);
+      previous = current;
+      current = next;
+    }
+    return current.get().get();
+  }
+
+  private static Provider<ProductionComponentMonitor> providerOf(
+      final ProductionComponentMonitor monitor) {
+    return new Provider<ProductionComponentMonitor>() {
+      @Override
+      public ProductionComponentMonitor get() {
+        return monitor;
+      }
+    };
+  }
+
+  /** Mirrors a generated producer factory with one value and one {@code Producer} dependency. */
+  private static final class NodeProducer extends AbstractProducesMethodProducer<Object, Object> {
+    private final Producer<Object> value;
+    private final Producer<Object> producer;
+
+    NodeProducer(
+        Provider<ProductionComponentMonitor> monitorProvider,
+        Producer<Object> value,
+        Producer<Object> producer) {
+      super(monitorProvider, null, EXECUTOR_PROVIDER);
+      this.value = value;
+      this.producer =
+          producer == null ? null : Producers.nonCancellationPropagatingViewOf(producer);
+    }
+
+    @Override
+    protected ListenableFuture<Object> collectDependencies() {
+      return value.get();
+    }
+
+    @Override
+    protected ListenableFuture<Object> callProducesMethod(Object input) throws Exception {
+      if (producer != null) {
+        producer.get();
+      }
+      return Futures.immediateFuture(input);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import dagger.Lazy;
+import dagger.internal.DelegateFactory;
+import dagger.internal.DoubleCheck;
+import dagger.internal.InstanceFactory;
+import dagger.internal.ProviderOfLazy;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the remaining {@code dagger.internal} providers: {@link InstanceFactory}, {@link
+ * ProviderOfLazy} and {@link DelegateFactory}.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ProviderBenchmark {
+  private Provider<Object> instanceFactory;
+  private Provider<Lazy<Object>> providerOfLazy;
+  private Provider<Object> delegateFactory;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    instanceFactory = InstanceFactory.create(new Object());
+    providerOfLazy = ProviderOfLazy.create(Object::new);
+    delegateFactory = new DelegateFactory<>();
+    DelegateFactory.setDelegate(delegateFactory, DoubleCheck.provider(Object::new));
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object instanceFactory_singleThread() {
+    return instanceFactory.get();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public Object instanceFactory_contended() {
+    return instanceFactory.get();
+  }
+
+  /** Creates a new {@link Lazy} and resolves it, as a {@code Provider<Lazy<T>>} request does. */
+  @Benchmark
+  @Threads(1)
+  public Object providerOfLazy_singleThread() {
+    return providerOfLazy.get().get();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public Object providerOfLazy_contended() {
+    return providerOfLazy.get().get();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object delegateFactory_singleThread() {
+    return delegateFactory.get();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public Object delegateFactory_contended() {
+    return delegateFactory.get();
+  }
+}
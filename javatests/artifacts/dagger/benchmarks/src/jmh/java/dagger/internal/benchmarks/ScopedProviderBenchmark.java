@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import dagger.internal.DoubleCheck;
+import dagger.internal.LockFreeDoubleCheck;
+import dagger.internal.SingleCheck;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the scoped providers, {@link DoubleCheck}, {@link LockFreeDoubleCheck} and {@link
+ * SingleCheck}.
+ *
+ * <p>The {@code hot} benchmarks measure {@link Provider#get()} after the instance has been
+ * resolved, which is the steady state for a scoped binding. The {@code cold} benchmarks measure the
+ * first resolution of many scoped providers with every benchmark thread racing to resolve the same
+ * providers, which is what happens when request threads hit unresolved singletons at startup.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ScopedProviderBenchmark {
+  /** The scoped provider implementations to compare. */
+  public enum Kind {
+    DOUBLE_CHECK {
+      @Override
+      Provider<Object> wrap(Provider<Object> provider) {
+        return DoubleCheck.provider(provider);
+      }
+    },
+    LOCK_FREE_DOUBLE_CHECK {
+      @Override
+      Provider<Object> wrap(Provider<Object> provider) {
+        return LockFreeDoubleCheck.provider(provider);
+      }
+    },
+    SINGLE_CHECK {
+      @Override
+      Provider<Object> wrap(Provider<Object> provider) {
+        return SingleCheck.provider(provider);
+      }
+    },
+    ;
+
+    abstract Provider<Object> wrap(Provider<Object> provider);
+  }
+
+  private static final Provider<Object> OBJECT_PROVIDER = Object::new;
+
+  /** A single provider that has already been resolved. */
+  @State(Scope.Benchmark)
+  public static class HotState {
+    @Param public Kind kind;
+
+    Provider<Object> provider;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      provider = kind.wrap(OBJECT_PROVIDER);
+      provider.get();
+    }
+  }
+
+  /** Many providers that have not been resolved yet, shared by all benchmark threads. */
+  @State(Scope.Benchmark)
+  public static class ColdState {
+    @Param public Kind kind;
+
+    @Param({"10000"})
+    public int count;
+
+    Provider<Object>[] providers;
+
+    @SuppressWarnings({"unchecked", "rawtypes"}) // generic array creation
+    @Setup(Level.Iteration)
+    public void setUp() {
+      providers = new Provider[count];
+      for (int i = 0; i < count; i++) {
+        providers[i] = kind.wrap(OBJECT_PROVIDER);
+      }
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Threads(1)
+  public Object hot_singleThread(HotState state) {
+    return state.provider.get();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Threads(Threads.MAX)
+  public Object hot_contended(HotState state) {
+    return state.provider.get();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Warmup(iterations = 10)
+  @Measurement(iterations = 50)
+  @Threads(1)
+  public void cold_singleThread(ColdState state, Blackhole blackhole) {
+    resolveAll(state.providers, blackhole);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Warmup(iterations = 10)
+  @Measurement(iterations = 50)
+  @Threads(Threads.MAX)
+  public void cold_contended(ColdState state, Blackhole blackhole) {
+    resolveAll(state.providers, blackhole);
+  }
+
+  private static void resolveAll(Provider<Object>[] providers, Blackhole blackhole) {
+    for (Provider<Object> provider : providers) {
+      blackhole.consume(provider.get());
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.benchmarks;
+
+import dagger.internal.DoubleCheck;
+import dagger.internal.Factory;
+import dagger.internal.InstanceFactory;
+import dagger.internal.SetBuilder;
+import dagger.internal.SetFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the {@link SetFactory} factories and {@link SetBuilder}, which back {@code Set}
+ * multibindings.
+ *
+ * <p>Each contribution is a scoped provider, so the benchmark measures the cost of assembling the
+ * set rather than the cost of creating its elements.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class SetFactoryBenchmark {
+  /** The number of {@code @IntoSet} contributions. */
+  @Param({"0", "1", "4", "16"})
+  public int individualContributions;
+
+  /** The number of {@code @ElementsIntoSet} contributions, each providing two elements. */
+  @Param({"0", "1", "4"})
+  public int collectionContributions;
+
+  private final List<Provider<Object>> individualProviders = new ArrayList<>();
+  private final List<Provider<Collection<Object>>> collectionProviders = new ArrayList<>();
+  private SetFactory<Object> setFactory;
+  private Factory<Set<Object>> specializedSetFactory;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SetFactory.Builder<Object> builder =
+        SetFactory.builder(individualContributions, collectionContributions);
+    for (int i = 0; i < individualContributions; i++) {
+      Provider<Object> provider = DoubleCheck.provider(Object::new);
+      individualProviders.add(provider);
+      builder.addProvider(provider);
+    }
+    for (int i = 0; i < collectionContributions; i++) {
+      List<Object> elements = new ArrayList<>();
+      elements.add(new Object());
+      elements.add(new Object());
+      Provider<Collection<Object>> provider = InstanceFactory.<Collection<Object>>create(elements);
+      collectionProviders.add(provider);
+      builder.addCollectionProvider(provider);
+    }
+    setFactory = builder.build();
+
+    // Mirrors the choice made by SetFactoryCreationExpression.
+    if (collectionContributions == 0) {
+      specializedSetFactory =
+          SetFactory.<Object>ofProviders(individualProviders.toArray(new Provider<?>[0]));
+    } else if (individualContributions == 0 && collectionContributions == 1) {
+      specializedSetFactory = SetFactory.ofCollectionProvider(collectionProviders.get(0));
+    } else {
+      specializedSetFactory = setFactory;
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Set<Object> setFactory_singleThread() {
+    return setFactory.get();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public Set<Object> setFactory_contended() {
+    return setFactory.get();
+  }
+
+  /**
+   * Uses {@link SetFactory#ofProviders} or {@link SetFactory#ofCollectionProvider} when the
+   * contributions allow it, and the general factory otherwise.
+   */
+  @Benchmark
+  @Threads(1)
+  public Set<Object> specializedSetFactory_singleThread() {
+    return specializedSetFactory.get();
+  }
+
+  /** Mirrors the code generated for a {@code Set} multibinding requested directly. */
+  @Benchmark
+  @Threads(1)
+  public Set<Object> setBuilder_singleThread() {
+    SetBuilder<Object> builder =
+        SetBuilder.newSetBuilder(individualContributions + collectionContributions);
+    for (int i = 0; i < individualProviders.size(); i++) {
+      builder.add(individualProviders.get(i).get());
+    }
+    for (int i = 0; i < collectionProviders.size(); i++) {
+      builder.addAll(collectionProviders.get(i).get());
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.lockfree;
+
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import dagger.Reusable;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/** A component whose scoped bindings are memoized with {@code LockFreeDoubleCheck}. */
+@Singleton
+@Component(modules = LockFreeScopedComponent.ScopedModule.class)
+interface LockFreeScopedComponent {
+  ScopedInjectType scopedInjectType();
+
+  Provider<ScopedInjectType> scopedInjectTypeProvider();
+
+  String scopedString();
+
+  Integer reusableInteger();
+
+  /** A scoped type with an {@link Inject} constructor that counts its instantiations. */
+  @Singleton
+  final class ScopedInjectType {
+    static final AtomicInteger instances = new AtomicInteger();
+
+    @Inject
+    ScopedInjectType() {
+      instances.incrementAndGet();
+    }
+  }
+
+  /** A module with scoped {@link Provides} methods. */
+  @Module
+  final class ScopedModule {
+    private final AtomicInteger stringCount = new AtomicInteger();
+    private final AtomicInteger integerCount = new AtomicInteger();
+
+    @Provides
+    @Singleton
+    String provideScopedString() {
+      return "scoped" + stringCount.incrementAndGet();
+    }
+
+    @Provides
+    @Reusable
+    Integer provideReusableInteger() {
+      return integerCount.incrementAndGet();
+    }
+  }
+}
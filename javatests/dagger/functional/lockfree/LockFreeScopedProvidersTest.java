@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.lockfree;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import dagger.functional.lockfree.LockFreeScopedComponent.ScopedInjectType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class LockFreeScopedProvidersTest {
+  @Test
+  public void scopedBindings_memoized() {
+    LockFreeScopedComponent component = DaggerLockFreeScopedComponent.create();
+    assertThat(component.scopedString()).isEqualTo("scoped1");
+    assertThat(component.scopedString()).isEqualTo("scoped1");
+    assertThat(component.scopedInjectType()).isSameInstanceAs(component.scopedInjectType());
+    assertThat(component.reusableInteger()).isEqualTo(1);
+    assertThat(component.reusableInteger()).isEqualTo(1);
+  }
+
+  @Test
+  public void scopedBindings_resolvedOnceAcrossThreads() throws Exception {
+    int numThreads = 16;
+    ScopedInjectType.instances.set(0);
+    LockFreeScopedComponent component = DaggerLockFreeScopedComponent.create();
+    CountDownLatch latch = new CountDownLatch(numThreads);
+    List<Callable<ScopedInjectType>> tasks = new ArrayList<>();
+    for (int i = 0; i < numThreads; i++) {
+      tasks.add(
+          () -> {
+            latch.countDown();
+            Uninterruptibles.awaitUninterruptibly(latch);
+            return component.scopedInjectTypeProvider().get();
+          });
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    Set<ScopedInjectType> results = Collections.newSetFromMap(new IdentityHashMap<>());
+    try {
+      for (Future<ScopedInjectType> future : executor.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(results).hasSize(1);
+    assertThat(ScopedInjectType.instances.get()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.multibindings.lazymaps;
+
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import dagger.multibindings.IntoMap;
+import dagger.multibindings.LongKey;
+import dagger.multibindings.StringKey;
+import java.util.Map;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/** A component with {@code Map<K, Provider<V>>} bindings whose keys are not switched on. */
+@Singleton
+@Component(modules = LazyMapsComponent.LazyMapsModule.class)
+interface LazyMapsComponent {
+  Map<Long, Provider<String>> longKeys();
+
+  Map<String, Provider<String>> stringKeys();
+
+  /** Requested as a framework instance, whose value should also be lazy. */
+  Provider<Map<Long, Provider<String>>> longKeysProvider();
+
+  @Module
+  final class LazyMapsModule {
+    private int counter;
+
+    @Provides
+    @IntoMap
+    @LongKey(0)
+    static String long0() {
+      return "0";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(1)
+    static String long1() {
+      return "1";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(2)
+    static String long2() {
+      return "2";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(3)
+    static String long3() {
+      return "3";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(4)
+    static String long4() {
+      return "4";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(5)
+    static String long5() {
+      return "5";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(6)
+    static String long6() {
+      return "6";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(7)
+    static String long7() {
+      return "7";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(8)
+    static String long8() {
+      return "8";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(9)
+    static String long9() {
+      return "9";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(10)
+    static String long10() {
+      return "10";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(11)
+    static String long11() {
+      return "11";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(12)
+    static String long12() {
+      return "12";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(13)
+    static String long13() {
+      return "13";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(14)
+    static String long14() {
+      return "14";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(15)
+    static String long15() {
+      return "15";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(16)
+    static String long16() {
+      return "16";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(17)
+    static String long17() {
+      return "17";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(18)
+    static String long18() {
+      return "18";
+    }
+
+    @Provides
+    @IntoMap
+    @LongKey(19)
+    static String long19() {
+      return "19";
+    }
+
+    @Provides
+    @IntoMap
+    @StringKey("counter")
+    String stringCounter() {
+      return "counter" + counter++;
+    }
+
+    @Provides
+    @Singleton
+    @IntoMap
+    @StringKey("singleton")
+    String stringSingleton() {
+      return "singleton" + counter++;
+    }
+  }
+}
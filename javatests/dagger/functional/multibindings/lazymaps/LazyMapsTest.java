@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.multibindings.lazymaps;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.inject.Provider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class LazyMapsTest {
+  private final LazyMapsComponent component = DaggerLazyMapsComponent.create();
+
+  @Test
+  public void longKeys() {
+    Map<Long, Provider<String>> map = component.longKeys();
+    assertThat(map).hasSize(20);
+    for (long i = 0; i < 20; i++) {
+      assertThat(map.containsKey(i)).isTrue();
+      assertThat(map.get(i).get()).isEqualTo(Long.toString(i));
+    }
+    assertThat(map.get(20L)).isNull();
+    assertThat(map.get(0)).isNull();
+    assertThat(map.get(null)).isNull();
+    assertThat(map.containsKey(-1L)).isFalse();
+  }
+
+  @Test
+  public void longKeys_iteration() {
+    Map<Long, Provider<String>> map = component.longKeys();
+    Map<Long, String> values = new LinkedHashMap<>();
+    for (Map.Entry<Long, Provider<String>> entry : map.entrySet()) {
+      values.put(entry.getKey(), entry.getValue().get());
+    }
+    assertThat(values).hasSize(20);
+    assertThat(values.keySet()).containsAtLeast(0L, 10L, 19L);
+    assertThat(values).containsEntry(7L, "7");
+    assertThat(map).isEqualTo(new LinkedHashMap<>(map));
+  }
+
+  @Test
+  public void stringKeys_providerSemantics() {
+    Map<String, Provider<String>> map = component.stringKeys();
+    assertThat(map.keySet()).containsExactly("counter", "singleton");
+
+    Provider<String> counter = map.get("counter");
+    assertThat(counter.get()).isNotEqualTo(counter.get());
+    assertThat(map.get("counter")).isSameInstanceAs(counter);
+
+    Provider<String> singleton = component.stringKeys().get("singleton");
+    assertThat(singleton.get()).isSameInstanceAs(singleton.get());
+    assertThat(component.stringKeys().get("singleton").get()).isSameInstanceAs(singleton.get());
+  }
+
+  @Test
+  public void frameworkInstance() {
+    Map<Long, Provider<String>> map = component.longKeysProvider().get();
+    assertThat(map).hasSize(20);
+    assertThat(map.get(3L).get()).isEqualTo("3");
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.multibindings.lookups;
+
+import dagger.Component;
+import dagger.MapKey;
+import dagger.Module;
+import dagger.Provides;
+import dagger.multibindings.ClassKey;
+import dagger.multibindings.IntKey;
+import dagger.multibindings.IntoMap;
+import dagger.multibindings.StringKey;
+import java.util.Map;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/** A component whose {@code Map<K, Provider<V>>} bindings have constant keys. */
+@Singleton
+@Component(modules = MapLookupsComponent.LookupsModule.class)
+interface MapLookupsComponent {
+  Map<String, Provider<String>> stringKeys();
+
+  Map<Integer, Provider<String>> intKeys();
+
+  Map<Color, Provider<String>> enumKeys();
+
+  Map<Class<?>, Provider<String>> classKeys();
+
+  /** Requested as a framework instance, whose value should also be a lookup. */
+  Provider<Map<String, Provider<String>>> stringKeysProvider();
+
+  enum Color {
+    RED,
+    GREEN,
+    BLUE,
+  }
+
+  @MapKey
+  @interface ColorKey {
+    Color value();
+  }
+
+  @Module
+  final class LookupsModule {
+    private int counter;
+
+    @Provides
+    @IntoMap
+    @StringKey("one")
+    static String stringOne() {
+      return "1";
+    }
+
+    @Provides
+    @IntoMap
+    @StringKey("two")
+    static String stringTwo() {
+      return "2";
+    }
+
+    @Provides
+    @IntoMap
+    @StringKey("counter")
+    String stringCounter() {
+      return "counter" + counter++;
+    }
+
+    @Provides
+    @Singleton
+    @IntoMap
+    @StringKey("singleton")
+    String stringSingleton() {
+      return "singleton" + counter++;
+    }
+
+    @Provides
+    @IntoMap
+    @IntKey(1)
+    static String intOne() {
+      return "1";
+    }
+
+    @Provides
+    @IntoMap
+    @IntKey(-2)
+    static String intMinusTwo() {
+      return "-2";
+    }
+
+    @Provides
+    @IntoMap
+    @ColorKey(Color.RED)
+    static String red() {
+      return "red";
+    }
+
+    @Provides
+    @IntoMap
+    @ColorKey(Color.BLUE)
+    static String blue() {
+      return "blue";
+    }
+
+    @Provides
+    @IntoMap
+    @ClassKey(String.class)
+    static String stringClass() {
+      return "String";
+    }
+
+    @Provides
+    @IntoMap
+    @ClassKey(Integer.class)
+    static String integerClass() {
+      return "Integer";
+    }
+  }
+}
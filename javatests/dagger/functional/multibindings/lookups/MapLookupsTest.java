@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.multibindings.lookups;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import dagger.functional.multibindings.lookups.MapLookupsComponent.Color;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.inject.Provider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class MapLookupsTest {
+  private final MapLookupsComponent component = DaggerMapLookupsComponent.create();
+
+  @Test
+  public void stringKeys() {
+    Map<String, Provider<String>> map = component.stringKeys();
+    assertThat(map).hasSize(4);
+    assertThat(map.get("one").get()).isEqualTo("1");
+    assertThat(map.get("two").get()).isEqualTo("2");
+    assertThat(map.get("three")).isNull();
+    assertThat(map.containsKey("one")).isTrue();
+    assertThat(map.containsKey(1)).isFalse();
+    assertThat(map.get(null)).isNull();
+    assertThat(map.keySet()).containsExactly("one", "two", "counter", "singleton");
+  }
+
+  @Test
+  public void stringKeys_providersInvokedOnEachGet() {
+    Map<String, Provider<String>> map = component.stringKeys();
+    Provider<String> counter = map.get("counter");
+    assertThat(counter.get()).isNotEqualTo(counter.get());
+    assertThat(map.get("counter")).isSameInstanceAs(counter);
+
+    Provider<String> singleton = component.stringKeys().get("singleton");
+    assertThat(singleton.get()).isSameInstanceAs(singleton.get());
+  }
+
+  @Test
+  public void intKeys() {
+    Map<Integer, Provider<String>> map = component.intKeys();
+    assertThat(map.keySet()).containsExactly(1, -2);
+    assertThat(map.get(1).get()).isEqualTo("1");
+    assertThat(map.get(-2).get()).isEqualTo("-2");
+    assertThat(map.get(2)).isNull();
+    assertThat(map.get(1L)).isNull();
+  }
+
+  @Test
+  public void enumKeys() {
+    Map<Color, Provider<String>> map = component.enumKeys();
+    assertThat(map.keySet()).containsExactly(Color.RED, Color.BLUE);
+    assertThat(map.get(Color.RED).get()).isEqualTo("red");
+    assertThat(map.get(Color.BLUE).get()).isEqualTo("blue");
+    assertThat(map.get(Color.GREEN)).isNull();
+    assertThat(map.get("RED")).isNull();
+  }
+
+  @Test
+  public void classKeys() {
+    Map<Class<?>, Provider<String>> map = component.classKeys();
+    assertThat(map.keySet()).containsExactly(String.class, Integer.class);
+    assertThat(map.get(String.class).get()).isEqualTo("String");
+    assertThat(map.get(Integer.class).get()).isEqualTo("Integer");
+    assertThat(map.get(Long.class)).isNull();
+    assertThat(map.get("java.lang.String")).isNull();
+  }
+
+  @Test
+  public void frameworkInstance() {
+    Map<String, Provider<String>> map = component.stringKeysProvider().get();
+    assertThat(map.get("one").get()).isEqualTo("1");
+    assertThat(map.keySet()).containsExactly("one", "two", "counter", "singleton");
+  }
+
+  @Test
+  public void equalsAndIteration() {
+    Map<Color, Provider<String>> map = component.enumKeys();
+    Map<Color, Provider<String>> copy = new LinkedHashMap<>(map);
+    assertThat(map).isEqualTo(copy);
+    assertThat(copy).isEqualTo(map);
+    assertThat(map.hashCode()).isEqualTo(copy.hashCode());
+    assertThat(map).isNotEqualTo(ImmutableMap.of());
+  }
+
+  @Test
+  public void immutable() {
+    Map<String, Provider<String>> map = component.stringKeys();
+    try {
+      map.put("three", () -> "3");
+      throw new AssertionError("Expected UnsupportedOperationException");
+    } catch (UnsupportedOperationException expected) {
+    }
+    try {
+      map.clear();
+      throw new AssertionError("Expected UnsupportedOperationException");
+    } catch (UnsupportedOperationException expected) {
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.multibindings.memoized;
+
+import dagger.Binds;
+import dagger.BindsInstance;
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import dagger.multibindings.IntoMap;
+import dagger.multibindings.IntoSet;
+import dagger.multibindings.StringKey;
+import java.util.Map;
+import java.util.Set;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/**
+ * A component with multibindings whose contributions are all scoped or bound instances, and with
+ * multibindings that have an unscoped contribution.
+ */
+@Singleton
+@Component(modules = MemoizedMultibindingsComponent.MultibindingModule.class)
+interface MemoizedMultibindingsComponent {
+  /** Contributions are all scoped or bound instances, so the set is memoized. */
+  Set<Object> constantSet();
+
+  Provider<Set<Object>> constantSetProvider();
+
+  /** Contributions are all scoped or bound instances, so the map is memoized. */
+  Map<String, Object> constantMap();
+
+  /** One contribution is unscoped, so the set is created for each request. */
+  @Named("unscoped")
+  Set<Object> unscopedSet();
+
+  /** One contribution is unscoped, so the map is created for each request. */
+  @Named("unscoped")
+  Map<String, Object> unscopedMap();
+
+  @Component.Factory
+  interface Factory {
+    MemoizedMultibindingsComponent create(@BindsInstance String boundInstance);
+  }
+
+  /** Contributes scoped, bound and unscoped instances. */
+  @Module
+  abstract class MultibindingModule {
+    @Provides
+    @Singleton
+    @IntoSet
+    static Object scopedSetContribution() {
+      return new Object();
+    }
+
+    @Binds
+    @IntoSet
+    abstract Object boundSetContribution(String boundInstance);
+
+    @Provides
+    @Singleton
+    @IntoMap
+    @StringKey("scoped")
+    static Object scopedMapContribution() {
+      return new Object();
+    }
+
+    @Provides
+    @Singleton
+    @IntoSet
+    @Named("unscoped")
+    static Object scopedContributionToUnscopedSet() {
+      return new Object();
+    }
+
+    @Provides
+    @IntoSet
+    @Named("unscoped")
+    static Object unscopedSetContribution() {
+      return new Object();
+    }
+
+    @Provides
+    @IntoMap
+    @StringKey("unscoped")
+    @Named("unscoped")
+    static Object unscopedMapContribution() {
+      return new Object();
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.multibindings.memoized;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class MemoizedMultibindingsTest {
+  private final MemoizedMultibindingsComponent component =
+      DaggerMemoizedMultibindingsComponent.factory().create("bound");
+
+  @Test
+  public void constantSet_memoized() {
+    assertThat(component.constantSet()).hasSize(2);
+    assertThat(component.constantSet()).contains("bound");
+    assertThat(component.constantSet()).isSameInstanceAs(component.constantSet());
+    assertThat(component.constantSetProvider().get()).isSameInstanceAs(component.constantSet());
+  }
+
+  @Test
+  public void constantMap_memoized() {
+    assertThat(component.constantMap()).containsKey("scoped");
+    assertThat(component.constantMap()).isSameInstanceAs(component.constantMap());
+  }
+
+  @Test
+  public void unscopedContribution_notMemoized() {
+    assertThat(component.unscopedSet()).hasSize(2);
+    assertThat(component.unscopedSet()).isNotSameInstanceAs(component.unscopedSet());
+    assertThat(component.unscopedSet()).isNotEqualTo(component.unscopedSet());
+    assertThat(component.unscopedMap()).isNotSameInstanceAs(component.unscopedMap());
+  }
+
+  @Test
+  public void constantSet_immutable() {
+    try {
+      component.constantSet().add(new Object());
+      throw new AssertionError("Expected UnsupportedOperationException");
+    } catch (UnsupportedOperationException expected) {
+    }
+  }
+}
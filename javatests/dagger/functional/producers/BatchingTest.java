@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.Module;
+import dagger.Provides;
+import dagger.producers.Batcher;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.Production;
+import dagger.producers.ProductionComponent;
+import dagger.producers.ProductionScope;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class BatchingTest {
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @interface First {}
+
+  @Qualifier
+  @Retention(RetentionPolicy.RUNTIME)
+  @interface Second {}
+
+  @ProductionScope
+  static final class NameBatcher extends Batcher<Integer, String> {
+    private final List<Set<Integer>> batches;
+
+    @Inject
+    NameBatcher(@Production Executor executor, List<Set<Integer>> batches) {
+      super(executor);
+      this.batches = batches;
+    }
+
+    @Override
+    protected ListenableFuture<Map<Integer, String>> loadAll(Set<Integer> ids) {
+      batches.add(ImmutableSet.copyOf(ids));
+      ImmutableMap.Builder<Integer, String> names = ImmutableMap.builder();
+      for (Integer id : ids) {
+        names.put(id, "name" + id);
+      }
+      return Futures.<Map<Integer, String>>immediateFuture(names.build());
+    }
+  }
+
+  @Module
+  static final class BatchLogModule {
+    final List<Set<Integer>> batches = new ArrayList<>();
+
+    @Provides
+    List<Set<Integer>> batches() {
+      return batches;
+    }
+  }
+
+  @ProducerModule
+  static final class NamesModule {
+    @Produces
+    @First
+    static ListenableFuture<String> first(NameBatcher names) {
+      return names.load(1);
+    }
+
+    @Produces
+    @Second
+    static ListenableFuture<String> second(NameBatcher names) {
+      return names.load(2);
+    }
+
+    @Produces
+    static List<String> names(@First String first, @Second String second) {
+      return ImmutableList.of(first, second);
+    }
+  }
+
+  @ProductionComponent(modules = {ExecutorModule.class, BatchLogModule.class, NamesModule.class})
+  interface NamesComponent {
+    ListenableFuture<List<String>> names();
+  }
+
+  @Test
+  public void siblingProducersShareOneBatch() throws Exception {
+    BatchLogModule log = new BatchLogModule();
+    NamesComponent component =
+        DaggerBatchingTest_NamesComponent.builder().batchLogModule(log).build();
+
+    assertThat(component.names().get()).containsExactly("name1", "name2").inOrder();
+    assertThat(log.batches).containsExactly(ImmutableSet.of(1, 2));
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.Module;
+import dagger.Provides;
+import dagger.multibindings.IntoSet;
+import dagger.producers.Hedged;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.ProductionComponent;
+import dagger.producers.monitoring.ProducerMonitor;
+import dagger.producers.monitoring.ProducerToken;
+import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class HedgedTest {
+  @ProducerModule
+  static final class BackendModule {
+    /** The futures for successive calls to {@link #read()}, shared by every component. */
+    static final Queue<ListenableFuture<String>> responses = new ArrayDeque<>();
+
+    @Produces
+    @Hedged
+    static synchronized ListenableFuture<String> read() {
+      ListenableFuture<String> response = responses.poll();
+      return response != null ? response : Futures.immediateFuture("fast");
+    }
+  }
+
+  @Module
+  static final class MonitorModule {
+    private final ProductionComponentMonitor monitor;
+
+    MonitorModule(ProductionComponentMonitor monitor) {
+      this.monitor = monitor;
+    }
+
+    @Provides
+    @IntoSet
+    ProductionComponentMonitor.Factory monitorFactory() {
+      return new ProductionComponentMonitor.Factory() {
+        @Override
+        public ProductionComponentMonitor create(Object component) {
+          return monitor;
+        }
+      };
+    }
+  }
+
+  @ProductionComponent(modules = {ExecutorModule.class, MonitorModule.class, BackendModule.class})
+  interface HedgedComponent {
+    ListenableFuture<String> read();
+  }
+
+  @Test
+  public void slowInvocationIsHedged() throws Exception {
+    HedgeCountingMonitor monitor = new HedgeCountingMonitor();
+    for (int i = 0; i < 64; i++) {
+      assertThat(newComponent(monitor).read().get()).isEqualTo("fast");
+    }
+    assertThat(monitor.hedgesStarting.get()).isEqualTo(0);
+
+    SettableFuture<String> slow = SettableFuture.create();
+    synchronized (BackendModule.class) {
+      BackendModule.responses.add(slow);
+    }
+    assertThat(newComponent(monitor).read().get(10, TimeUnit.SECONDS)).isEqualTo("fast");
+    assertThat(monitor.hedgesStarting.get()).isEqualTo(1);
+    assertThat(monitor.hedgesWon.get()).isEqualTo(1);
+  }
+
+  private static HedgedComponent newComponent(HedgeCountingMonitor monitor) {
+    return DaggerHedgedTest_HedgedComponent.builder()
+        .monitorModule(new MonitorModule(monitor))
+        .build();
+  }
+
+  private static final class HedgeCountingMonitor extends ProductionComponentMonitor {
+    final AtomicInteger hedgesStarting = new AtomicInteger();
+    final AtomicInteger hedgesWon = new AtomicInteger();
+
+    @Override
+    public ProducerMonitor producerMonitorFor(ProducerToken token) {
+      return new ProducerMonitor() {
+        @Override
+        public void hedgeStarting() {
+          hedgesStarting.incrementAndGet();
+        }
+
+        @Override
+        public void hedgeWon() {
+          hedgesWon.incrementAndGet();
+        }
+      };
+    }
+  }
+}
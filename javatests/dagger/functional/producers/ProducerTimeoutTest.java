@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.Module;
+import dagger.Provides;
+import dagger.producers.Produced;
+import dagger.producers.ProducerModule;
+import dagger.producers.ProducerTimeout;
+import dagger.producers.ProducerTimeoutException;
+import dagger.producers.Produces;
+import dagger.producers.Production;
+import dagger.producers.ProductionComponent;
+import dagger.producers.ProductionDeadline;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ProducerTimeoutTest {
+  @ProducerModule
+  static final class SlowModule {
+    @Produces
+    @ProducerTimeout(10)
+    static ListenableFuture<String> slow() {
+      return SettableFuture.create();
+    }
+
+    @Produces
+    static Object outcome(Produced<String> slow) {
+      try {
+        return slow.get();
+      } catch (ExecutionException e) {
+        return e.getCause();
+      }
+    }
+  }
+
+  @ProductionComponent(modules = {ExecutorModule.class, SlowModule.class})
+  interface TimeoutComponent {
+    ListenableFuture<Object> outcome();
+  }
+
+  @Test
+  public void timeoutIsVisibleToProducedDependents() throws Exception {
+    Object outcome = DaggerProducerTimeoutTest_TimeoutComponent.create().outcome().get();
+
+    assertThat(outcome).isInstanceOf(ProducerTimeoutException.class);
+    assertThat(((ProducerTimeoutException) outcome).deadlineExceeded()).isFalse();
+  }
+
+  @Module
+  static final class ExpiredDeadlineModule {
+    @Provides
+    @Production
+    static Executor executor() {
+      return ProductionDeadline.after(0, TimeUnit.MILLISECONDS, MoreExecutors.directExecutor());
+    }
+  }
+
+  @ProductionComponent(modules = {ExpiredDeadlineModule.class, SlowModule.class})
+  interface DeadlineComponent {
+    ListenableFuture<String> slow();
+  }
+
+  @Test
+  public void expiredDeadlineFailsEntryPoint() throws Exception {
+    try {
+      DaggerProducerTimeoutTest_DeadlineComponent.create().slow().get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isInstanceOf(ProducerTimeoutException.class);
+      assertThat(((ProducerTimeoutException) e.getCause()).deadlineExceeded()).isTrue();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.ProductionComponent;
+import dagger.producers.VirtualThreadProductionExecutorModule;
+import dagger.producers.internal.VirtualThreadExecutor;
+import java.lang.reflect.Method;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class VirtualThreadExecutorTest {
+  @ProducerModule
+  static final class ThreadModule {
+    @Produces
+    static Thread producerThread() {
+      return Thread.currentThread();
+    }
+  }
+
+  @ProductionComponent(modules = {VirtualThreadProductionExecutorModule.class, ThreadModule.class})
+  interface ThreadComponent {
+    ListenableFuture<Thread> producerThread();
+  }
+
+  @Test
+  public void producerRunsOnExecutorThread() throws Exception {
+    Thread thread =
+        DaggerVirtualThreadExecutorTest_ThreadComponent.create().producerThread().get();
+
+    assertThat(thread).isNotSameInstanceAs(Thread.currentThread());
+    assertThat(isVirtual(thread)).isEqualTo(VirtualThreadExecutor.usesVirtualThreads());
+    if (!VirtualThreadExecutor.usesVirtualThreads()) {
+      assertThat(thread.isDaemon()).isTrue();
+    }
+  }
+
+  private static boolean isVirtual(Thread thread) throws Exception {
+    Method isVirtual;
+    try {
+      isVirtual = Thread.class.getMethod("isVirtual");
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+    return (Boolean) isVirtual.invoke(thread);
+  }
+}
@@ -30,11 +30,13 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import dagger.functional.producers.ExecutorModule;
+import dagger.producers.monitoring.CriticalPathProductionComponentMonitor;
 import dagger.producers.monitoring.ProducerMonitor;
 import dagger.producers.monitoring.ProducerToken;
 import dagger.producers.monitoring.ProductionComponentMonitor;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import org.junit.Before;
@@ -100,6 +102,7 @@ public final class MonitoringTest {
 
     server1Future.set("server 1 response");
     inOrder.verify(callServer1Monitor).succeeded("server 1 response");
+    inOrder.verify(callServer2Monitor).readyAfter(entries.get(1).getKey());
     inOrder.verify(callServer2Monitor).ready();
     inOrder.verify(callServer2Monitor).methodStarting();
     inOrder.verify(callServer2Monitor).methodFinished();
@@ -146,6 +149,7 @@ public final class MonitoringTest {
     RuntimeException cause = new RuntimeException("monkey");
     server1Future.setException(cause);
     inOrder.verify(callServer1Monitor).failed(cause);
+    inOrder.verify(callServer2Monitor).readyAfter(entries.get(1).getKey());
     inOrder.verify(callServer2Monitor).ready();
     inOrder.verify(callServer2Monitor).failed(any(Throwable.class));
     verifyNoMoreInteractions(requestDataMonitor, callServer1Monitor, callServer2Monitor);
@@ -157,6 +161,27 @@ public final class MonitoringTest {
     }
   }
 
+  @Test
+  public void criticalPathMonitoring() throws Exception {
+    CriticalPathProductionComponentMonitor.Factory criticalPathMonitorFactory =
+        new CriticalPathProductionComponentMonitor.Factory();
+    MonitoredComponent component =
+        DaggerMonitoredComponent.builder()
+            .monitoringModule(new MonitoringModule(criticalPathMonitorFactory))
+            .stubModule(new StubModule(server1, server2))
+            .build();
+    ListenableFuture<String> output = component.output();
+    server1Future.set("server 1 response");
+    server2Future.set("server 2 response");
+    assertThat(output.get()).isEqualTo("server 2 response");
+
+    // The request data was already available when server 1 was called, so it isn't on the path.
+    Set<ProducerToken> criticalPath = criticalPathMonitorFactory.criticalPathLatencies().keySet();
+    assertThat(criticalPath).hasSize(2);
+    assertThat(criticalPath.toString()).contains("CallServer1");
+    assertThat(criticalPath.toString()).contains("CallServer2");
+  }
+
   private static final class FakeProductionComponentMonitor extends ProductionComponentMonitor {
     final Map<ProducerToken, ProducerMonitor> monitors = new LinkedHashMap<>();
 
@@ -24,6 +24,7 @@ import dagger.functional.producers.multibindings.Qualifiers.ObjCount;
 import dagger.functional.producers.multibindings.Qualifiers.OnlyProvisionMultibindings;
 import dagger.functional.producers.multibindings.Qualifiers.PossiblyThrowingMap;
 import dagger.functional.producers.multibindings.Qualifiers.PossiblyThrowingSet;
+import dagger.producers.ContributionStream;
 import dagger.producers.Produced;
 import dagger.producers.Producer;
 import dagger.producers.ProductionComponent;
@@ -43,6 +44,11 @@ interface MultibindingComponent {
   @PossiblyThrowingSet
   ListenableFuture<Set<Produced<String>>> possiblyThrowingSet();
 
+  ListenableFuture<ContributionStream<String>> strStream();
+
+  @PossiblyThrowingSet
+  ListenableFuture<ContributionStream<String>> possiblyThrowingStream();
+
   ListenableFuture<Map<Integer, String>> map();
 
   ListenableFuture<Map<Integer, Producer<String>>> mapOfProducer();
@@ -17,13 +17,17 @@
 package dagger.functional.producers.multibindings;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static org.junit.Assert.fail;
 
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.ContributionStream;
 import dagger.producers.Produced;
 import dagger.producers.Producer;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
@@ -88,6 +92,60 @@ public class MultibindingTest {
     assertThat(Iterables.getOnlyElement(failures).getCause()).hasMessageThat().isEqualTo("monkey");
   }
 
+  @Test
+  public void setBindingAsStream() throws Exception {
+    MultibindingComponent multibindingComponent = DaggerMultibindingComponent.create();
+    ContributionStream<String> stream = multibindingComponent.strStream().get();
+    final List<String> elements = new ArrayList<>();
+    stream
+        .forEach(
+            new ContributionStream.Listener<String>() {
+              @Override
+              public void onElement(String element) {
+                elements.add(element);
+              }
+            },
+            directExecutor())
+        .get();
+    assertThat(elements)
+        .containsExactly(
+            "foo",
+            "foo1",
+            "foo2",
+            "baz1",
+            "baz2",
+            "bar",
+            "bar1",
+            "bar2",
+            "providedStr",
+            "providedStr1",
+            "providedStr2");
+    assertThat(stream.toSet().get()).isEqualTo(multibindingComponent.strs().get());
+  }
+
+  @Test
+  public void setBindingAsStreamWithFailures() throws Exception {
+    MultibindingComponent multibindingComponent = DaggerMultibindingComponent.create();
+    ContributionStream<String> stream = multibindingComponent.possiblyThrowingStream().get();
+    final List<String> elements = new ArrayList<>();
+    ListenableFuture<Void> delivered =
+        stream.forEach(
+            new ContributionStream.Listener<String>() {
+              @Override
+              public void onElement(String element) {
+                elements.add(element);
+              }
+            },
+            directExecutor());
+    try {
+      delivered.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().hasMessageThat().isEqualTo("monkey");
+    }
+    assertThat(elements).containsExactly("singleton", "double", "ton");
+  }
+
   @Test
   public void mapBinding() throws Exception {
     MultibindingComponent multibindingComponent = DaggerMultibindingComponent.create();
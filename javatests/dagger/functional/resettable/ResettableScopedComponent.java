@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.resettable;
+
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import dagger.Subcomponent;
+import dagger.multibindings.IntoSet;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Set;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Scope;
+import javax.inject.Singleton;
+
+/**
+ * A component whose {@link CallScope @CallScope} subcomponent is generated as resettable, because
+ * {@code CallScope} is listed in {@code -Adagger.resettableScopes}.
+ */
+@Singleton
+@Component
+interface ResettableScopedComponent {
+  Child child();
+
+  /** The resettable scope. */
+  @Documented
+  @Retention(RetentionPolicy.RUNTIME)
+  @Scope
+  @interface CallScope {}
+
+  /** A singleton type, which resetting the child must not recreate. */
+  @Singleton
+  final class SingletonType {
+    @Inject
+    SingletonType() {}
+  }
+
+  /** A call-scoped type with an {@link Inject} constructor. */
+  @CallScope
+  final class CallScopedType {
+    final SingletonType singletonType;
+
+    @Inject
+    CallScopedType(SingletonType singletonType) {
+      this.singletonType = singletonType;
+    }
+  }
+
+  /** A call-scoped subcomponent. */
+  @CallScope
+  @Subcomponent(modules = ChildModule.class)
+  interface Child {
+    CallScopedType callScopedType();
+
+    Provider<CallScopedType> callScopedTypeProvider();
+
+    String callScopedString();
+
+    Set<Object> callScopedObjects();
+
+    SingletonType singletonType();
+  }
+
+  /** A module with call-scoped {@link Provides} methods. */
+  @Module
+  final class ChildModule {
+    private int stringCount;
+
+    @Provides
+    @CallScope
+    String provideCallScopedString() {
+      return "scoped" + ++stringCount;
+    }
+
+    @Provides
+    @IntoSet
+    static Object callScopedTypeIntoSet(CallScopedType callScopedType) {
+      return callScopedType;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.resettable;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import dagger.functional.resettable.ResettableScopedComponent.CallScopedType;
+import dagger.functional.resettable.ResettableScopedComponent.Child;
+import dagger.functional.resettable.ResettableScopedComponent.SingletonType;
+import dagger.internal.ResettableComponent;
+import javax.inject.Provider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ResettableScopesTest {
+  private final ResettableScopedComponent component = DaggerResettableScopedComponent.create();
+
+  @Test
+  public void onlyComponentsWithAResettableScopeAreResettable() {
+    assertThat(component).isNotInstanceOf(ResettableComponent.class);
+    assertThat(component.child()).isInstanceOf(ResettableComponent.class);
+  }
+
+  @Test
+  public void scopedBindings_memoizedUntilReset() {
+    Child child = component.child();
+    CallScopedType callScopedType = child.callScopedType();
+    assertThat(child.callScopedType()).isSameInstanceAs(callScopedType);
+    assertThat(child.callScopedString()).isEqualTo("scoped1");
+    assertThat(child.callScopedString()).isEqualTo("scoped1");
+
+    ((ResettableComponent) child).resetScope();
+
+    assertThat(child.callScopedType()).isNotSameInstanceAs(callScopedType);
+    assertThat(child.callScopedType()).isSameInstanceAs(child.callScopedType());
+    assertThat(child.callScopedString()).isEqualTo("scoped2");
+    assertThat(child.callScopedString()).isEqualTo("scoped2");
+  }
+
+  @Test
+  public void providersObtainedBeforeReset_provideNewInstances() {
+    Child child = component.child();
+    Provider<CallScopedType> provider = child.callScopedTypeProvider();
+    CallScopedType callScopedType = provider.get();
+
+    ((ResettableComponent) child).resetScope();
+
+    assertThat(provider.get()).isNotSameInstanceAs(callScopedType);
+    assertThat(provider.get()).isSameInstanceAs(child.callScopedType());
+  }
+
+  @Test
+  public void multibindingsSeeNewInstances() {
+    Child child = component.child();
+    assertThat(child.callScopedObjects()).containsExactly(child.callScopedType());
+
+    ((ResettableComponent) child).resetScope();
+
+    assertThat(child.callScopedObjects()).containsExactly(child.callScopedType());
+  }
+
+  @Test
+  public void ancestorScopedBindings_notReset() {
+    Child child = component.child();
+    SingletonType singletonType = child.singletonType();
+
+    ((ResettableComponent) child).resetScope();
+
+    assertThat(child.singletonType()).isSameInstanceAs(singletonType);
+    assertThat(child.callScopedType().singletonType).isSameInstanceAs(singletonType);
+    assertThat(component.child().singletonType()).isSameInstanceAs(singletonType);
+  }
+}
@@ -32,6 +32,9 @@ import com.google.protos.test.BaristaGrpc.BaristaStub;
 import com.google.protos.test.CoffeeService.CoffeeRequest;
 import com.google.protos.test.CoffeeService.CoffeeResponse;
 import com.google.protos.test.CoffeeService.CoffeeType;
+import dagger.grpc.server.ServerMetrics.MethodSnapshot;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
 import io.grpc.inprocess.InProcessChannelBuilder;
 import io.grpc.stub.StreamObserver;
 import java.util.ArrayList;
@@ -76,6 +79,11 @@ public class BaristaTest {
   public static CoffeeServerResource coffeeServerWithCallScope =
       new CoffeeServerResource("CallScope", DaggerCoffeeServerWithCallScopeService.builder());
 
+  @ClassRule
+  public static CoffeeServerResource coffeeServerWithPooledCallScope =
+      new CoffeeServerResource(
+          "PooledCallScope", DaggerCoffeeServerWithPooledCallScopeService.builder());
+
   @ClassRule
   public static CoffeeServerResource coffeeServerWithSingletonScope =
       new CoffeeServerResource("Unscoped", DaggerCoffeeServerWithUnscopedService.builder());
@@ -83,7 +91,11 @@ public class BaristaTest {
   @Parameters(name = "{0}")
   public static Iterable<Object[]> coffeeServers() {
     return ImmutableList.copyOf(
-        new Object[][] {{coffeeServerWithCallScope}, {coffeeServerWithSingletonScope}});
+        new Object[][] {
+          {coffeeServerWithCallScope},
+          {coffeeServerWithPooledCallScope},
+          {coffeeServerWithSingletonScope}
+        });
   }
 
   @Rule public final VerifyInterceptor verifyCount;
@@ -144,6 +156,21 @@ public class BaristaTest {
             response("Enjoy!", DRIP, ESPRESSO));
   }
 
+  @Test
+  public void testServerMetrics() {
+    String fullMethodName =
+        MethodDescriptor.generateFullMethodName(BaristaGrpc.SERVICE_NAME, "UnaryGetCoffee");
+    MethodSnapshot before = coffeeServer.serverMetrics().snapshot().get(fullMethodName);
+    long startedBefore = before == null ? 0 : before.started();
+    barista.unaryGetCoffee(request(DRIP), responseObserver);
+    responseObserver.responses();
+    MethodSnapshot after = coffeeServer.serverMetrics().snapshot().get(fullMethodName);
+    assertThat(after.started()).isEqualTo(startedBefore + 1);
+    assertThat(after.inFlight()).isEqualTo(0L);
+    assertThat(after.completed()).containsEntry(Status.Code.OK, startedBefore + 1);
+    assertThat(after.latency().count()).isEqualTo(startedBefore + 1);
+  }
+
   private CoffeeRequest request(CoffeeType... types) {
     return CoffeeRequest.newBuilder().addAllType(asList(types)).build();
   }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.grpc.functional.server;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import dagger.grpc.server.CallScopedComponentPool;
+import dagger.grpc.server.CallScopedComponentPool.ComponentFactory;
+import dagger.grpc.server.GrpcCallMetadataModule;
+import dagger.internal.ResettableComponent;
+import dagger.internal.ResettableScope;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Provider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CallScopedComponentPoolTest {
+
+  /** A call-scoped component like the ones Dagger generates with resettable scopes. */
+  private static final class TestComponent implements ResettableComponent {
+    private final ResettableScope scope = new ResettableScope();
+    final Provider<Object> callScopedObject = scope.provider(Object::new);
+
+    @Override
+    public void resetScope() {
+      scope.reset();
+    }
+  }
+
+  private final List<TestComponent> components = new ArrayList<>();
+  private final CallScopedComponentPool<TestComponent> pool =
+      new CallScopedComponentPool<>(
+          1,
+          new ComponentFactory<TestComponent>() {
+            @Override
+            public TestComponent create(GrpcCallMetadataModule metadataModule) {
+              TestComponent component = new TestComponent();
+              components.add(component);
+              return component;
+            }
+
+            @Override
+            public ServerCallHandler<?, ?> getCallHandler(
+                TestComponent component, String fullMethodName) {
+              return new ServerCallHandler<Object, Object>() {
+                @Override
+                public Listener<Object> startCall(
+                    ServerCall<Object, Object> call, Metadata headers) {
+                  component.callScopedObject.get();
+                  return new Listener<Object>() {};
+                }
+              };
+            }
+          });
+
+  @Test
+  public void completedCall_componentIsReset() {
+    Listener<Object> firstCall = startCall();
+    Object firstCallObject = components.get(0).callScopedObject.get();
+    firstCall.onComplete();
+
+    startCall();
+    assertThat(components).hasSize(1);
+    assertThat(components.get(0).callScopedObject.get()).isNotSameInstanceAs(firstCallObject);
+  }
+
+  @Test
+  public void cancelledCall_componentIsNotReused() {
+    Listener<Object> cancelledCall = startCall();
+    TestComponent cancelledComponent = components.get(0);
+    Object cancelledCallObject = cancelledComponent.callScopedObject.get();
+    cancelledCall.onCancel();
+
+    startCall();
+    // The cancelled call's handler may still be running, and still sees its own instances.
+    assertThat(cancelledComponent.callScopedObject.get()).isSameInstanceAs(cancelledCallObject);
+    assertThat(components).hasSize(2);
+    assertThat(components.get(1).callScopedObject.get()).isNotSameInstanceAs(cancelledCallObject);
+  }
+
+  @SuppressWarnings("unchecked") // the test handlers all take Object requests
+  private Listener<Object> startCall() {
+    ServerCallHandler<Object, Object> handler =
+        (ServerCallHandler<Object, Object>) pool.getCallHandler(new Metadata(), "test/Method");
+    return handler.startCall(null, new Metadata());
+  }
+}
@@ -17,6 +17,7 @@
 package dagger.grpc.functional.server;
 
 import dagger.grpc.server.InProcessServerModule;
+import dagger.grpc.server.ServerMetrics;
 import io.grpc.Server;
 import java.io.IOException;
 
@@ -33,6 +34,8 @@ abstract class CoffeeServer<T extends CoffeeServer<T>> {
 
   abstract CountingInterceptor countingInterceptor();
 
+  abstract ServerMetrics serverMetrics();
+
   interface Builder<T extends CoffeeServer<T>> {
     Builder<T> inProcessServerModule(InProcessServerModule serverModule);
 
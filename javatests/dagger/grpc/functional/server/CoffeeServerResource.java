@@ -17,6 +17,7 @@
 package dagger.grpc.functional.server;
 
 import dagger.grpc.server.InProcessServerModule;
+import dagger.grpc.server.ServerMetrics;
 import java.io.IOException;
 import org.junit.rules.ExternalResource;
 
@@ -38,6 +39,10 @@ final class CoffeeServerResource extends ExternalResource {
     return coffeeServer.countingInterceptor().countCalls(methodName);
   }
 
+  public ServerMetrics serverMetrics() {
+    return coffeeServer.serverMetrics();
+  }
+
   @Override
   protected void before() throws IOException, InterruptedException {
     coffeeServer.start();
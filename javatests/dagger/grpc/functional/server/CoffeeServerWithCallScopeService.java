@@ -25,10 +25,17 @@ import dagger.grpc.functional.server.CountingInterceptor.CountingInterceptorModu
 import dagger.grpc.server.CallScoped;
 import dagger.grpc.server.GrpcCallMetadataModule;
 import dagger.grpc.server.InProcessServerModule;
+import dagger.grpc.server.ServerMetricsModule;
 import javax.inject.Singleton;
 
 @Singleton
-@Component(modules = {InProcessServerModule.class, CallScopeServiceModule.class})
+@Component(
+  modules = {
+    InProcessServerModule.class,
+    CallScopeServiceModule.class,
+    ServerMetricsModule.class
+  }
+)
 abstract class CoffeeServerWithCallScopeService
     extends CoffeeServer<CoffeeServerWithCallScopeService> {
 
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.grpc.functional.server;
+
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import dagger.Subcomponent;
+import dagger.grpc.functional.server.CoffeeServerWithPooledCallScopeService.PooledCallScopeServiceModule;
+import dagger.grpc.functional.server.CountingInterceptor.CountingInterceptorModule;
+import dagger.grpc.server.CallScoped;
+import dagger.grpc.server.GrpcCallMetadataModule;
+import dagger.grpc.server.InProcessServerModule;
+import dagger.grpc.server.ServerMetricsModule;
+import javax.inject.Singleton;
+
+/**
+ * A server whose {@link CallScoped @CallScoped} components are reused. Compile it with {@code
+ * -Adagger.resettableScopes=dagger.grpc.server.CallScoped}.
+ */
+@Singleton
+@Component(
+  modules = {
+    InProcessServerModule.class,
+    PooledCallScopeServiceModule.class,
+    ServerMetricsModule.class
+  }
+)
+abstract class CoffeeServerWithPooledCallScopeService
+    extends CoffeeServer<CoffeeServerWithPooledCallScopeService> {
+
+  @Component.Builder
+  interface Builder extends CoffeeServer.Builder<CoffeeServerWithPooledCallScopeService> {}
+
+  abstract PooledBaristaCallScope baristaCallScope(GrpcCallMetadataModule callMetadataModule);
+
+  @CallScoped
+  @Subcomponent(
+    modules = {
+      GrpcCallMetadataModule.class,
+      PooledFriendlyBaristaGrpcServiceModule.class,
+      CountingInterceptorModule.class
+    }
+  )
+  interface PooledBaristaCallScope extends PooledFriendlyBaristaServiceDefinition {}
+
+  @Module(includes = PooledFriendlyBaristaGrpcProxyModule.class)
+  static class PooledCallScopeServiceModule {
+    @Provides
+    static PooledFriendlyBaristaServiceDefinition.Factory serviceDefinitionFactory(
+        final CoffeeServerWithPooledCallScopeService testServer) {
+      return new PooledFriendlyBaristaServiceDefinition.Factory() {
+        @Override
+        public PooledFriendlyBaristaServiceDefinition grpcService(
+            GrpcCallMetadataModule grpcCallMetadataModule) {
+          return testServer.baristaCallScope(grpcCallMetadataModule);
+        }
+      };
+    }
+  }
+}
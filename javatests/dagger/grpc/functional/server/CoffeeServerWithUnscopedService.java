@@ -22,6 +22,7 @@ import dagger.Module;
 import dagger.grpc.functional.server.CoffeeServerWithUnscopedService.UnscopedServiceModule;
 import dagger.grpc.functional.server.CountingInterceptor.CountingInterceptorModule;
 import dagger.grpc.server.InProcessServerModule;
+import dagger.grpc.server.ServerMetricsModule;
 import javax.inject.Singleton;
 
 @Singleton
@@ -29,7 +30,8 @@ import javax.inject.Singleton;
   modules = {
     InProcessServerModule.class,
     UnscopedServiceModule.class,
-    CountingInterceptorModule.class
+    CountingInterceptorModule.class,
+    ServerMetricsModule.class
   }
 )
 abstract class CoffeeServerWithUnscopedService extends CoffeeServer<CoffeeServerWithUnscopedService>
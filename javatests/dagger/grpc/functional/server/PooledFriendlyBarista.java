@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.grpc.functional.server;
+
+import com.google.protos.test.BaristaGrpc;
+import dagger.grpc.server.GrpcService;
+import javax.inject.Inject;
+
+/** A {@link FriendlyBarista} whose call-scoped components are pooled. */
+@GrpcService(grpcClass = BaristaGrpc.class, callScopePoolSize = 2)
+class PooledFriendlyBarista extends FriendlyBarista {
+
+  @Inject
+  PooledFriendlyBarista() {}
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.grpc.functional.server;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static com.google.protos.test.CoffeeService.CoffeeType.AMERICANO;
+import static com.google.protos.test.CoffeeService.CoffeeType.DRIP;
+import static com.google.protos.test.CoffeeService.CoffeeType.ESPRESSO;
+import static com.google.protos.test.CoffeeService.CoffeeType.LATTE;
+import static com.google.protos.test.CoffeeService.CoffeeType.POUR_OVER;
+import static java.util.Collections.nCopies;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.protos.test.BaristaGrpc;
+import com.google.protos.test.BaristaGrpc.BaristaImplBase;
+import com.google.protos.test.CoffeeService.CoffeeRequest;
+import com.google.protos.test.CoffeeService.CoffeeResponse;
+import com.google.protos.test.CoffeeService.CoffeeType;
+import dagger.grpc.server.ProxyServerCallHandler;
+import dagger.grpc.server.ProxyServerCallHandler.ServiceFactory;
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests that a {@link ProxyServerCallHandler} passes flow control between the transport and a
+ * delegate service that requests its own messages.
+ */
+@RunWith(JUnit4.class)
+public class ProxyFlowControlTest {
+
+  private static final ImmutableList<CoffeeType> ORDER =
+      ImmutableList.of(POUR_OVER, LATTE, AMERICANO, DRIP, ESPRESSO);
+
+  /** A barista that asks for one order at a time and notes when it may send more coffee. */
+  private static final class FlowControlledBarista extends BaristaImplBase {
+    private final AtomicInteger onReadyCalls;
+
+    FlowControlledBarista(AtomicInteger onReadyCalls) {
+      this.onReadyCalls = onReadyCalls;
+    }
+
+    @Override
+    public StreamObserver<CoffeeRequest> bidiStreamingGetCoffee(
+        StreamObserver<CoffeeResponse> responseObserver) {
+      final ServerCallStreamObserver<CoffeeResponse> serverCallObserver =
+          (ServerCallStreamObserver<CoffeeResponse>) responseObserver;
+      serverCallObserver.disableAutoInboundFlowControl();
+      serverCallObserver.setOnReadyHandler(
+          new Runnable() {
+            @Override
+            public void run() {
+              onReadyCalls.incrementAndGet();
+            }
+          });
+      serverCallObserver.request(1);
+      return new StreamObserver<CoffeeRequest>() {
+        @Override
+        public void onNext(CoffeeRequest value) {
+          serverCallObserver.onNext(
+              CoffeeResponse.newBuilder()
+                  .setMessage("Enjoy!")
+                  .addAllCup(value.getTypeList())
+                  .build());
+          serverCallObserver.request(1);
+        }
+
+        @Override
+        public void onError(Throwable t) {}
+
+        @Override
+        public void onCompleted() {
+          serverCallObserver.onCompleted();
+        }
+      };
+    }
+  }
+
+  /** Records the transport's {@link ServerCall#request(int)} calls and {@code onReady()}s. */
+  private static final class RecordingInterceptor implements ServerInterceptor {
+    private final List<Integer> requests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger onReadyCalls = new AtomicInteger();
+
+    @Override
+    public <RequestT, ResponseT> Listener<RequestT> interceptCall(
+        ServerCall<RequestT, ResponseT> call,
+        Metadata headers,
+        ServerCallHandler<RequestT, ResponseT> next) {
+      ServerCall<RequestT, ResponseT> recordingCall =
+          new SimpleForwardingServerCall<RequestT, ResponseT>(call) {
+            @Override
+            public void request(int numMessages) {
+              requests.add(numMessages);
+              super.request(numMessages);
+            }
+          };
+      return new SimpleForwardingServerCallListener<RequestT>(
+          next.startCall(recordingCall, headers)) {
+        @Override
+        public void onReady() {
+          onReadyCalls.incrementAndGet();
+          super.onReady();
+        }
+      };
+    }
+  }
+
+  private static final class CoffeeResponseObserver implements StreamObserver<CoffeeResponse> {
+    private final SettableFuture<Void> completion = SettableFuture.create();
+    private final List<CoffeeResponse> responses = new ArrayList<>();
+
+    List<CoffeeResponse> responses() {
+      getUnchecked(completion);
+      return responses;
+    }
+
+    @Override
+    public void onNext(CoffeeResponse value) {
+      responses.add(value);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      completion.setException(t);
+    }
+
+    @Override
+    public void onCompleted() {
+      completion.set(null);
+    }
+  }
+
+  private final AtomicInteger delegateOnReadyCalls = new AtomicInteger();
+  private final RecordingInterceptor transport = new RecordingInterceptor();
+  private final CoffeeResponseObserver responseObserver = new CoffeeResponseObserver();
+
+  private Server server;
+  private ManagedChannel channel;
+
+  @Before
+  public void setUp() throws IOException {
+    ServiceFactory serviceFactory =
+        new ServiceFactory() {
+          @Override
+          public ServerCallHandler<?, ?> getCallHandler(Metadata headers, String fullMethodName) {
+            return ProxyServerCallHandler.callHandler(
+                new FlowControlledBarista(delegateOnReadyCalls),
+                fullMethodName,
+                Collections.<ServerInterceptor>emptyList());
+          }
+        };
+    ServerServiceDefinition proxy =
+        ServerServiceDefinition.builder(BaristaGrpc.SERVICE_NAME)
+            .addMethod(
+                ProxyServerCallHandler.proxyMethod(
+                    BaristaGrpc.METHOD_BIDI_STREAMING_GET_COFFEE, serviceFactory))
+            .build();
+    server =
+        InProcessServerBuilder.forName("FlowControl")
+            .addService(ServerInterceptors.intercept(proxy, transport))
+            .build()
+            .start();
+    channel = InProcessChannelBuilder.forName("FlowControl").build();
+  }
+
+  @After
+  public void tearDown() {
+    channel.shutdownNow();
+    server.shutdownNow();
+  }
+
+  @Test
+  public void manualFlowControlReachesTheDelegate() {
+    StreamObserver<CoffeeRequest> requestObserver =
+        BaristaGrpc.newStub(channel).bidiStreamingGetCoffee(responseObserver);
+    for (CoffeeType type : ORDER) {
+      requestObserver.onNext(CoffeeRequest.newBuilder().addType(type).build());
+    }
+    requestObserver.onCompleted();
+
+    List<CoffeeType> cups = new ArrayList<>();
+    for (CoffeeResponse response : responseObserver.responses()) {
+      cups.addAll(response.getCupList());
+    }
+    assertThat(cups).containsExactlyElementsIn(ORDER).inOrder();
+    // One request before the first order and one after each order, all made by the delegate.
+    assertThat(transport.requests).containsExactlyElementsIn(nCopies(ORDER.size() + 1, 1));
+    assertThat(transport.onReadyCalls.get()).isGreaterThan(0);
+    assertThat(delegateOnReadyCalls.get()).isGreaterThan(0);
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ArrayMapTest {
+  @Test
+  public void lookups() {
+    Map<String, Integer> map = ArrayMap.create(new Object[] {"a", 1, "b", null, "c", 3}, 3);
+    assertThat(map).hasSize(3);
+    assertThat(map.get("a")).isEqualTo(1);
+    assertThat(map.get("b")).isNull();
+    assertThat(map.containsKey("b")).isTrue();
+    assertThat(map.get("d")).isNull();
+    assertThat(map.containsKey("d")).isFalse();
+    assertThat(map.containsKey(null)).isFalse();
+    assertThat(map.containsValue(3)).isTrue();
+  }
+
+  @Test
+  public void iteratesInInsertionOrder() {
+    Map<String, Integer> map = ArrayMap.create(new Object[] {"c", 3, "a", 1, "b", 2}, 3);
+    assertThat(map).containsExactly("c", 3, "a", 1, "b", 2).inOrder();
+  }
+
+  @Test
+  public void ignoresTrailingArrayEntries() {
+    Map<String, Integer> map = ArrayMap.create(new Object[] {"a", 1, "b", 2}, 1);
+    assertThat(map).containsExactly("a", 1);
+    assertThat(map.containsKey("b")).isFalse();
+  }
+
+  @Test
+  public void equalsAndHashCode() {
+    Map<String, Integer> map = ArrayMap.create(new Object[] {"a", 1, "b", 2}, 2);
+    Map<String, Integer> expected = new LinkedHashMap<>();
+    expected.put("b", 2);
+    expected.put("a", 1);
+    assertThat(map).isEqualTo(expected);
+    assertThat(expected).isEqualTo(map);
+    assertThat(map.hashCode()).isEqualTo(expected.hashCode());
+    assertThat(map).isNotEqualTo(ImmutableMap.of("a", 1));
+  }
+
+  @Test
+  public void iterationReusesEntries() {
+    Map<String, Integer> map = ArrayMap.create(new Object[] {"a", 1, "b", 2}, 2);
+    Iterator<Entry<String, Integer>> first = map.entrySet().iterator();
+    Iterator<Entry<String, Integer>> second = map.entrySet().iterator();
+    assertThat(second.next()).isSameInstanceAs(first.next());
+    assertThat(second.next()).isSameInstanceAs(first.next());
+    assertThat(first.hasNext()).isFalse();
+  }
+
+  @Test
+  public void immutable() {
+    Map<String, Integer> map = ArrayMap.create(new Object[] {"a", 1}, 1);
+    try {
+      map.put("b", 2);
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+    Iterator<Entry<String, Integer>> iterator = map.entrySet().iterator();
+    Entry<String, Integer> entry = iterator.next();
+    try {
+      entry.setValue(2);
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+    try {
+      iterator.remove();
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+    assertThat(map).containsExactly("a", 1);
+  }
+}
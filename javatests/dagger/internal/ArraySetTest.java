@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ArraySetTest {
+  @Test
+  public void addIfAbsent() {
+    Object[] elements = new Object[4];
+    int size = 0;
+    size = ArraySet.addIfAbsent(elements, size, "a");
+    size = ArraySet.addIfAbsent(elements, size, "b");
+    size = ArraySet.addIfAbsent(elements, size, "a");
+    size = ArraySet.addIfAbsent(elements, size, "c");
+    assertThat(size).isEqualTo(3);
+    assertThat(ArraySet.<String>create(elements, size)).containsExactly("a", "b", "c").inOrder();
+  }
+
+  @Test
+  public void lookups() {
+    Set<String> set = ArraySet.create(new Object[] {"a", "b", "c"}, 3);
+    assertThat(set).hasSize(3);
+    assertThat(set.contains("b")).isTrue();
+    assertThat(set.contains("d")).isFalse();
+    assertThat(set.contains(null)).isFalse();
+  }
+
+  @Test
+  public void equalsAndHashCode() {
+    Set<String> set = ArraySet.create(new Object[] {"a", "b", "c"}, 3);
+    Set<String> expected = new HashSet<>(ImmutableSet.of("c", "b", "a"));
+    assertThat(set).isEqualTo(expected);
+    assertThat(expected).isEqualTo(set);
+    assertThat(set.hashCode()).isEqualTo(expected.hashCode());
+    assertThat(set).isNotEqualTo(ImmutableSet.of("a", "b"));
+  }
+
+  @Test
+  public void immutable() {
+    Set<String> set = ArraySet.create(new Object[] {"a"}, 1);
+    try {
+      set.add("b");
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+    Iterator<String> iterator = set.iterator();
+    iterator.next();
+    try {
+      iterator.remove();
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+    assertThat(set).containsExactly("a");
+  }
+}
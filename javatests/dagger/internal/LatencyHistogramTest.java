@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class LatencyHistogramTest {
+  @Test
+  public void empty() {
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+    assertThat(snapshot.count()).isEqualTo(0);
+    assertThat(snapshot.valueAtPercentile(50)).isEqualTo(0);
+    assertThat(snapshot.max()).isEqualTo(0);
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 10; i++) {
+      histogram.record(i);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertThat(snapshot.count()).isEqualTo(10);
+    assertThat(snapshot.valueAtPercentile(0)).isEqualTo(1);
+    assertThat(snapshot.valueAtPercentile(50)).isEqualTo(5);
+    assertThat(snapshot.valueAtPercentile(90)).isEqualTo(9);
+    assertThat(snapshot.max()).isEqualTo(10);
+  }
+
+  @Test
+  public void largeValuesAreWithinBucketPrecision() {
+    long[] values = {17, 1000, 123_456, 98_765_432_100L};
+    for (long value : values) {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histogram.record(value);
+      long reported = histogram.snapshot().max();
+      assertThat(reported).isAtLeast(value);
+      assertThat(reported - value).isAtMost(value / 16);
+    }
+  }
+
+  @Test
+  public void bucketsAreContiguous() {
+    for (int bucket = 1; bucket < 600; bucket++) {
+      long lowest = LatencyHistogram.highestValueIn(bucket - 1) + 1;
+      assertThat(LatencyHistogram.bucketFor(lowest)).isEqualTo(bucket);
+      assertThat(LatencyHistogram.bucketFor(LatencyHistogram.highestValueIn(bucket)))
+          .isEqualTo(bucket);
+    }
+  }
+
+  @Test
+  public void concurrentRecording_countsEveryLatency() throws Exception {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final int threads = 8;
+    final int latenciesPerThread = 100_000;
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> recorders = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      Thread recorder =
+          new Thread() {
+            @Override
+            public void run() {
+              try {
+                start.await();
+              } catch (InterruptedException e) {
+                throw new AssertionError(e);
+              }
+              for (int j = 0; j < latenciesPerThread; j++) {
+                histogram.record(5);
+              }
+            }
+          };
+      recorder.start();
+      recorders.add(recorder);
+    }
+    start.countDown();
+    for (Thread recorder : recorders) {
+      recorder.join();
+    }
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertThat(snapshot.count()).isEqualTo(threads * latenciesPerThread);
+    assertThat(snapshot.max()).isEqualTo(5);
+    // However contended the histogram is, its memory is bounded.
+    assertThat(histogram.stripeCount()).isAtMost(4);
+  }
+
+  @Test
+  public void uncontendedRecording_usesOneStripe() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 100_000; i++) {
+      histogram.record(i);
+    }
+    assertThat(histogram.stripeCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void negativeAndHugeValuesAreClamped() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertThat(snapshot.valueAtPercentile(50)).isEqualTo(0);
+    assertThat(snapshot.max()).isEqualTo((1L << 44) - 1);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MapBuilderTest {
+  @Test
+  public void emptyMap() {
+    assertThat(MapBuilder.newMapBuilder(0).build()).isEmpty();
+  }
+
+  @Test
+  public void preservesInsertionOrder() {
+    Map<String, Integer> map =
+        MapBuilder.<String, Integer>newMapBuilder(3).put("c", 3).put("a", 1).put("b", 2).build();
+    assertThat(map).containsExactly("c", 3, "a", 1, "b", 2).inOrder();
+  }
+
+  @Test
+  public void putReplacesValue() {
+    Map<String, Integer> map =
+        MapBuilder.<String, Integer>newMapBuilder(2).put("a", 1).put("b", 2).put("a", 3).build();
+    assertThat(map).containsExactly("a", 3, "b", 2).inOrder();
+  }
+
+  @Test
+  public void moreEntriesThanExpected() {
+    MapBuilder<Integer, Integer> builder = MapBuilder.newMapBuilder(1);
+    for (int i = 0; i < 100; i++) {
+      builder.put(i, i * i);
+    }
+    Map<Integer, Integer> map = builder.build();
+    assertThat(map).hasSize(100);
+    assertThat(map.keySet()).containsAtLeast(0, 1, 99).inOrder();
+    assertThat(map.get(99)).isEqualTo(99 * 99);
+  }
+
+  @Test
+  public void nullKey() {
+    MapBuilder<String, Integer> builder = MapBuilder.newMapBuilder(1);
+    try {
+      builder.put(null, 1);
+      fail();
+    } catch (NullPointerException expected) {
+      assertThat(expected).hasMessageThat().isEqualTo("key");
+    }
+  }
+}
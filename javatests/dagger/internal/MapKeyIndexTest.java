@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MapKeyIndexTest {
+  @Test
+  public void smallIndex() {
+    MapKeyIndex<String> index = MapKeyIndex.of(new Object[] {"a", "b", "c"});
+    assertThat(index.size()).isEqualTo(3);
+    assertThat(index.indexOf("a")).isEqualTo(0);
+    assertThat(index.indexOf("c")).isEqualTo(2);
+    assertThat(index.indexOf("d")).isEqualTo(-1);
+    assertThat(index.indexOf(null)).isEqualTo(-1);
+    assertThat(index.keyAt(1)).isEqualTo("b");
+  }
+
+  @Test
+  public void largeIndex() {
+    Integer[] keys = new Integer[100];
+    for (int i = 0; i < keys.length; i++) {
+      // Multiples of 64 collide in the low bits, which exercises probing.
+      keys[i] = i * 64;
+    }
+    MapKeyIndex<Integer> index = MapKeyIndex.of(keys);
+    for (int i = 0; i < keys.length; i++) {
+      assertThat(index.indexOf(i * 64)).isEqualTo(i);
+      assertThat(index.keyAt(i)).isEqualTo(i * 64);
+    }
+    assertThat(index.indexOf(1)).isEqualTo(-1);
+    assertThat(index.indexOf(100 * 64)).isEqualTo(-1);
+    assertThat(index.indexOf("0")).isEqualTo(-1);
+    assertThat(index.indexOf(null)).isEqualTo(-1);
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.inject.Provider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ResettableScopeTest {
+  private final ResettableScope scope = new ResettableScope();
+
+  @Test
+  public void provider_nullPointerException() {
+    try {
+      scope.provider(null);
+      fail();
+    } catch (NullPointerException expected) {
+    }
+  }
+
+  @Test
+  public void doubleWrapping_provider() {
+    Provider<Object> provider = scope.provider(Object::new);
+    assertThat(scope.provider(provider)).isSameInstanceAs(provider);
+    assertThat(new ResettableScope().provider(provider)).isNotSameInstanceAs(provider);
+  }
+
+  @Test
+  public void get_memoizesUntilReset() {
+    AtomicInteger provisions = new AtomicInteger();
+    Provider<Integer> provider = scope.provider(provisions::incrementAndGet);
+    assertThat(provider.get()).isEqualTo(1);
+    assertThat(provider.get()).isEqualTo(1);
+
+    scope.reset();
+    assertThat(provider.get()).isEqualTo(2);
+    assertThat(provider.get()).isEqualTo(2);
+    assertThat(provisions.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void reset_appliesToEveryProviderInTheScope() {
+    Provider<Object> first = scope.provider(Object::new);
+    Provider<Object> second = scope.provider(Object::new);
+    Object firstInstance = first.get();
+    Object secondInstance = second.get();
+
+    scope.reset();
+    assertThat(first.get()).isNotSameInstanceAs(firstInstance);
+    assertThat(second.get()).isNotSameInstanceAs(secondInstance);
+  }
+
+  @Test
+  public void reset_beforeFirstGet() {
+    AtomicInteger provisions = new AtomicInteger();
+    Provider<Integer> provider = scope.provider(provisions::incrementAndGet);
+    scope.reset();
+    assertThat(provider.get()).isEqualTo(1);
+    assertThat(provider.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void get() throws Exception {
+    int numThreads = 10;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+
+    final CountDownLatch latch = new CountDownLatch(numThreads);
+    LatchedProvider latchedProvider = new LatchedProvider(latch);
+    final Provider<Object> provider = scope.provider(latchedProvider);
+
+    List<Callable<Object>> tasks = Lists.newArrayListWithCapacity(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      tasks.add(
+          () -> {
+            latch.countDown();
+            return provider.get();
+          });
+    }
+
+    List<Future<Object>> futures = executor.invokeAll(tasks);
+    executor.shutdown();
+
+    assertThat(latchedProvider.provisions.get()).isEqualTo(1);
+    Set<Object> results = Sets.newIdentityHashSet();
+    for (Future<Object> future : futures) {
+      results.add(future.get());
+    }
+    assertThat(results).hasSize(1);
+  }
+
+  private static class LatchedProvider implements Provider<Object> {
+    final AtomicInteger provisions;
+    final CountDownLatch latch;
+
+    LatchedProvider(CountDownLatch latch) {
+      this.latch = latch;
+      this.provisions = new AtomicInteger();
+    }
+
+    @Override
+    public Object get() {
+      Uninterruptibles.awaitUninterruptibly(latch);
+      provisions.incrementAndGet();
+      return new Object();
+    }
+  }
+
+  @Test
+  public void reentranceReturningSameInstance() {
+    final AtomicReference<Provider<Object>> providerReference = new AtomicReference<>();
+    final AtomicInteger invocationCount = new AtomicInteger();
+    final Object object = new Object();
+    Provider<Object> provider =
+        scope.provider(
+            () -> {
+              if (invocationCount.incrementAndGet() == 1) {
+                providerReference.get().get();
+              }
+              return object;
+            });
+    providerReference.set(provider);
+    assertThat(provider.get()).isSameInstanceAs(object);
+  }
+
+  @Test
+  public void reentranceReturningDifferentInstances_throwsIllegalStateException() {
+    final AtomicReference<Provider<Object>> providerReference = new AtomicReference<>();
+    final AtomicInteger invocationCount = new AtomicInteger();
+    Provider<Object> provider =
+        scope.provider(
+            () -> {
+              if (invocationCount.incrementAndGet() == 1) {
+                providerReference.get().get();
+              }
+              return new Object();
+            });
+    providerReference.set(provider);
+    try {
+      provider.get();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  @Test
+  public void providerThrows_retriesOnNextCall() {
+    final AtomicInteger invocationCount = new AtomicInteger();
+    final Object object = new Object();
+    Provider<Object> provider =
+        scope.provider(
+            () -> {
+              if (invocationCount.incrementAndGet() == 1) {
+                throw new UnsupportedOperationException();
+              }
+              return object;
+            });
+    try {
+      provider.get();
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+    assertThat(provider.get()).isSameInstanceAs(object);
+    assertThat(invocationCount.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void nullInstance() {
+    final AtomicInteger invocationCount = new AtomicInteger();
+    Provider<Object> provider =
+        scope.provider(
+            () -> {
+              invocationCount.incrementAndGet();
+              return null;
+            });
+    assertThat(provider.get()).isNull();
+    assertThat(provider.get()).isNull();
+    assertThat(invocationCount.get()).isEqualTo(1);
+  }
+}
@@ -16,8 +16,10 @@
 
 package dagger.internal;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.fail;
 
+import com.google.common.collect.ImmutableList;
 import java.util.Arrays;
 import org.junit.Before;
 import org.junit.Test;
@@ -59,4 +61,25 @@ public class SetBuilderTest {
     } catch (NullPointerException expected) {
     }
   }
+
+  @Test
+  public void removesDuplicates() {
+    assertThat(
+            setBuilder
+                .add("a")
+                .addAll(Arrays.asList("b", "a", "c"))
+                .add("b")
+                .build())
+        .containsExactly("a", "b", "c");
+  }
+
+  @Test
+  public void largeSet() {
+    ImmutableList.Builder<String> elements = ImmutableList.builder();
+    for (int i = 0; i < 100; i++) {
+      elements.add("element" + i);
+    }
+    assertThat(setBuilder.addAll(elements.build()).addAll(elements.build()).build())
+        .containsExactlyElementsIn(elements.build());
+  }
 }
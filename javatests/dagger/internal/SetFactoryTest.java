@@ -16,9 +16,12 @@
 
 package dagger.internal;
 
+import static com.google.common.collect.DiscreteDomain.integers;
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.collect.ContiguousSet;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -74,6 +77,78 @@ public class SetFactoryTest {
     assertThat(factory.get()).containsExactly(2, 12, 24, 25, 34, 35);
   }
 
+  @Test
+  public void removesDuplicates() {
+    Factory<Set<Integer>> factory =
+        SetFactory.<Integer>builder(2, 1)
+            .addProvider(() -> 1)
+            .addProvider(() -> 2)
+            .addCollectionProvider(() -> ImmutableSet.of(2, 3, 1))
+            .build();
+    assertThat(factory.get()).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void largeSet() {
+    Set<Integer> elements = ContiguousSet.create(Range.closedOpen(0, 100), integers());
+    Factory<Set<Integer>> factory =
+        SetFactory.<Integer>builder(1, 2)
+            .addProvider(() -> 0)
+            .addCollectionProvider(() -> elements)
+            .addCollectionProvider(() -> elements)
+            .build();
+    assertThat(factory.get()).containsExactlyElementsIn(elements);
+  }
+
+  @Test
+  public void ofProviders() {
+    Factory<Set<Integer>> factory =
+        SetFactory.<Integer>ofProviders(
+            incrementingIntegerProvider(0), incrementingIntegerProvider(10), () -> 10);
+    assertThat(factory.get()).containsExactly(0, 10);
+    assertThat(factory.get()).containsExactly(1, 11, 10);
+  }
+
+  @Test
+  public void ofProviders_providerReturnsNull() {
+    Factory<Set<Integer>> factory = SetFactory.<Integer>ofProviders(() -> 1, () -> null);
+    thrown.expect(NullPointerException.class);
+    factory.get();
+  }
+
+  @Test
+  public void ofProviders_largeSet() {
+    Provider<Integer>[] providers = new Provider[100];
+    for (int i = 0; i < providers.length; i++) {
+      providers[i] = incrementingIntegerProvider(i);
+    }
+    assertThat(SetFactory.ofProviders(providers).get())
+        .containsExactlyElementsIn(ContiguousSet.create(Range.closedOpen(0, 100), integers()));
+  }
+
+  @Test
+  public void ofCollectionProvider() {
+    Factory<Set<Integer>> factory =
+        SetFactory.<Integer>ofCollectionProvider(incrementingIntegerSetProvider(0));
+    assertThat(factory.get()).containsExactly(0, 1);
+    assertThat(factory.get()).containsExactly(2, 3);
+  }
+
+  @Test
+  public void ofCollectionProvider_removesDuplicates() {
+    Factory<Set<Integer>> factory =
+        SetFactory.<Integer>ofCollectionProvider(() -> Arrays.asList(1, 2, 1, 3, 2));
+    assertThat(factory.get()).containsExactly(1, 2, 3).inOrder();
+  }
+
+  @Test
+  public void ofCollectionProvider_setWithNullElement() {
+    Set<Integer> set = new LinkedHashSet<>(Arrays.asList(1, null, 3));
+    Factory<Set<Integer>> factory = SetFactory.<Integer>ofCollectionProvider(() -> set);
+    thrown.expect(NullPointerException.class);
+    factory.get();
+  }
+
   private static Provider<Integer> incrementingIntegerProvider(int seed) {
     final AtomicInteger value = new AtomicInteger(seed);
     return value::getAndIncrement;
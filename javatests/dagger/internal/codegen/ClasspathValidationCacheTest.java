@@ -0,0 +1,440 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.base.StandardSystemProperty.JAVA_CLASS_PATH;
+import static com.google.common.base.StandardSystemProperty.PATH_SEPARATOR;
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.JavaFileObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for -Adagger.validationCacheDirectory. */
+@RunWith(JUnit4.class)
+public final class ClasspathValidationCacheTest {
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static final JavaFileObject PARENT =
+      JavaFileObjects.forSourceLines(
+          "test.Parent", // force one-string-per-line format
+          "package test;",
+          "",
+          "public class Parent {}");
+
+  private static final JavaFileObject PARENT_WITH_PRIVATE_FIELD =
+      JavaFileObjects.forSourceLines(
+          "test.Parent",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "public class Parent {",
+          "  @Inject private String string;",
+          "}");
+
+  private static final JavaFileObject CHILD =
+      JavaFileObjects.forSourceLines(
+          "test.Child",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "public class Child extends Parent {",
+          "  @Inject public Child() {}",
+          "}");
+
+  private static final JavaFileObject CHILD_WITH_PRIVATE_FIELD =
+      JavaFileObjects.forSourceLines(
+          "test.Child",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "public class Child extends Parent {",
+          "  @Inject public Child() {}",
+          "",
+          "  @Inject private String string;",
+          "}");
+
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "import javax.inject.Provider;",
+          "",
+          "@Component(modules = TestModule.class)",
+          "interface TestComponent {",
+          "  Provider<Child> child();",
+          "}");
+
+  private static final JavaFileObject MODULE =
+      JavaFileObjects.forSourceLines(
+          "test.TestModule",
+          "package test;",
+          "",
+          "import dagger.Module;",
+          "import dagger.Provides;",
+          "",
+          "@Module",
+          "interface TestModule {",
+          "  @Provides",
+          "  static String string() {",
+          "    return \"\";",
+          "  }",
+          "}");
+
+  private File libraryDirectory;
+  private File cacheDirectory;
+  private Path cacheFile;
+
+  @Before
+  public void setUp() throws Exception {
+    libraryDirectory = temporaryFolder.newFolder("library");
+    cacheDirectory = temporaryFolder.newFolder("cache");
+    cacheFile = cacheDirectory.toPath().resolve("dagger-validation-cache.tsv");
+  }
+
+  @Test
+  public void unchangedClassFiles_notValidatedAgain() throws Exception {
+    compileLibrary(PARENT, CHILD);
+    assertThat(compileComponent()).succeeded();
+    assertThat(String.join("\n", readCacheFile())).contains("test.Child");
+
+    // The file is only rewritten when something is validated, so it keeps an old timestamp if
+    // every result is read from the cache.
+    FileTime oldTime = FileTime.fromMillis(0);
+    Files.setLastModifiedTime(cacheFile, oldTime);
+    assertThat(compileComponent()).succeeded();
+    assertThat(Files.getLastModifiedTime(cacheFile)).isEqualTo(oldTime);
+  }
+
+  @Test
+  public void changedClassFile_validatedAgain() throws Exception {
+    compileLibrary(PARENT, CHILD);
+    assertThat(compileComponent()).succeeded();
+
+    compileLibrary(CHILD_WITH_PRIVATE_FIELD);
+    assertThat(compileComponent())
+        .hadErrorContaining("Dagger does not support injection into private fields");
+  }
+
+  @Test
+  public void changedSuperclass_validatedAgain() throws Exception {
+    compileLibrary(PARENT, CHILD);
+    assertThat(compileComponent()).succeeded();
+
+    // Only Parent.class changes. Child.class is the same as before.
+    compileLibrary(PARENT_WITH_PRIVATE_FIELD);
+    assertThat(compileComponent())
+        .hadErrorContaining("Dagger does not support injection into private fields");
+  }
+
+  @Test
+  public void changedOptions_discardsCache() throws Exception {
+    compileLibrary(PARENT, CHILD);
+    assertThat(compileComponent()).succeeded();
+    String header = readCacheFile().get(0);
+
+    assertThat(compileComponent("-Adagger.fastInit=enabled")).succeeded();
+    List<String> lines = readCacheFile();
+    assertThat(lines.get(0)).isNotEqualTo(header);
+    assertThat(lines.get(0)).contains("dagger.fastInit=enabled");
+    assertThat(String.join("\n", lines)).contains("test.Child");
+  }
+
+  @Test
+  public void concurrentCompilations_shareDirectory() throws Exception {
+    compileLibrary(PARENT, CHILD);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Compilation>> compilations = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        compilations.add(executor.submit(() -> compileComponent()));
+      }
+      for (Future<Compilation> compilation : compilations) {
+        assertThat(compilation.get()).succeeded();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    List<String> lines = readCacheFile();
+    assertThat(lines.get(0)).startsWith("dagger\t");
+    for (String line : lines.subList(1, lines.size())) {
+      assertThat(Splitter.on('\t').splitToList(line)).hasSize(3);
+    }
+    assertThat(cacheDirectory.list()).asList().containsExactly("dagger-validation-cache.tsv");
+
+    // A later compilation can still read what was written.
+    Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(0));
+    assertThat(compileComponent()).succeeded();
+    assertThat(Files.getLastModifiedTime(cacheFile)).isEqualTo(FileTime.fromMillis(0));
+  }
+
+  @Test
+  public void wrappedProcessingEnvironment_skipsCache() throws Exception {
+    compileLibrary(PARENT, CHILD);
+    assertThat(compileComponent(javac().withProcessors(new WrappingProcessor()))).succeeded();
+    assertThat(Files.exists(cacheFile)).isFalse();
+  }
+
+  @Test
+  public void persist_keepsResultsWrittenByOtherCompilations() throws Exception {
+    compileLibrary(PARENT, CHILD);
+    assertThat(compileComponent()).succeeded();
+    forgetResults();
+
+    String otherResult = "OtherValidator\ttest.Other\t0123";
+    assertThat(compileComponentWhileAppending(ImmutableList.of(otherResult))).succeeded();
+    List<String> lines = readCacheFile();
+    assertThat(lines).contains(otherResult);
+    assertThat(String.join("\n", lines)).contains("test.Child");
+  }
+
+  @Test
+  public void persist_dropsOldestResults() throws Exception {
+    compileLibrary(PARENT, CHILD);
+    assertThat(compileComponent()).succeeded();
+    forgetResults();
+
+    // ClasspathValidationCache.MAX_RESULTS
+    int maxResults = 20_000;
+    List<String> otherResults = new ArrayList<>();
+    for (int i = 0; i < maxResults; i++) {
+      otherResults.add("OtherValidator\ttest.Other" + i + "\t0123");
+    }
+    assertThat(compileComponentWhileAppending(otherResults)).succeeded();
+    List<String> lines = readCacheFile();
+    assertThat(lines).hasSize(maxResults + 1);
+    assertThat(lines).doesNotContain(otherResults.get(0));
+    assertThat(lines).contains(otherResults.get(otherResults.size() - 1));
+    assertThat(String.join("\n", lines)).contains("test.Child");
+  }
+
+  /** Removes every result from the cache file, so that the next compilation writes them again. */
+  private void forgetResults() throws Exception {
+    Files.write(cacheFile, readCacheFile().subList(0, 1), UTF_8);
+  }
+
+  /**
+   * Compiles the component while another compilation appends {@code otherResults} to the cache
+   * file, after this one has read it but before this one writes it.
+   */
+  private Compilation compileComponentWhileAppending(List<String> otherResults) {
+    return compileComponent(
+        javac().withProcessors(new CacheFileAppender(otherResults), new ComponentProcessor()));
+  }
+
+  /** Compiles {@code sources} into the library directory, replacing any older class files. */
+  private void compileLibrary(JavaFileObject... sources) throws Exception {
+    Compilation compilation = javac().withClasspath(classPath()).compile(sources);
+    assertThat(compilation).succeeded();
+    for (JavaFileObject classFile : compilation.generatedFiles()) {
+      if (classFile.getKind().equals(JavaFileObject.Kind.CLASS)) {
+        Path path =
+            libraryDirectory
+                .toPath()
+                .resolve(classFile.toUri().getPath().replaceFirst("^/CLASS_OUTPUT/", ""));
+        Files.createDirectories(path.getParent());
+        try (InputStream inputStream = classFile.openInputStream()) {
+          Files.copy(inputStream, path, REPLACE_EXISTING);
+        }
+      }
+    }
+  }
+
+  private Compilation compileComponent(String... options) {
+    return compileComponent(Compilers.daggerCompiler(), options);
+  }
+
+  private Compilation compileComponent(Compiler compiler, String... options) {
+    return compiler
+        .withOptions(
+            ImmutableList.builder()
+                .addAll(Compilers.DEFAULT_JAVACOPTS)
+                .add("-Adagger.validationCacheDirectory=" + cacheDirectory)
+                .add((Object[]) options)
+                .build())
+        .withClasspath(classPath())
+        .compile(COMPONENT, MODULE);
+  }
+
+  private ImmutableList<File> classPath() {
+    ImmutableList.Builder<File> classPath = ImmutableList.builder();
+    for (String entry : Splitter.on(PATH_SEPARATOR.value()).split(JAVA_CLASS_PATH.value())) {
+      classPath.add(new File(entry));
+    }
+    return classPath.add(libraryDirectory).build();
+  }
+
+  private List<String> readCacheFile() throws Exception {
+    return Files.readAllLines(cacheFile, UTF_8);
+  }
+
+  /** Appends lines to the cache file in the last round, before Dagger writes it. */
+  private final class CacheFileAppender extends AbstractProcessor {
+    private final List<String> lines;
+
+    CacheFileAppender(List<String> lines) {
+      this.lines = lines;
+    }
+
+    @Override
+    public ImmutableSet<String> getSupportedAnnotationTypes() {
+      return ImmutableSet.of("*");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      if (roundEnv.processingOver()) {
+        try {
+          Files.write(cacheFile, lines, UTF_8, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Runs Dagger with a {@link ProcessingEnvironment} that forwards to javac's, as build tools do
+   * for incremental processing.
+   */
+  private static final class WrappingProcessor implements Processor {
+    private final Processor delegate = new ComponentProcessor();
+
+    @Override
+    public Set<String> getSupportedOptions() {
+      return delegate.getSupportedOptions();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+      return delegate.getSupportedAnnotationTypes();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return delegate.getSupportedSourceVersion();
+    }
+
+    @Override
+    public void init(ProcessingEnvironment processingEnv) {
+      delegate.init(
+          new ProcessingEnvironment() {
+            @Override
+            public Map<String, String> getOptions() {
+              return processingEnv.getOptions();
+            }
+
+            @Override
+            public Messager getMessager() {
+              return processingEnv.getMessager();
+            }
+
+            @Override
+            public Filer getFiler() {
+              return processingEnv.getFiler();
+            }
+
+            @Override
+            public Elements getElementUtils() {
+              return processingEnv.getElementUtils();
+            }
+
+            @Override
+            public Types getTypeUtils() {
+              return processingEnv.getTypeUtils();
+            }
+
+            @Override
+            public SourceVersion getSourceVersion() {
+              return processingEnv.getSourceVersion();
+            }
+
+            @Override
+            public Locale getLocale() {
+              return processingEnv.getLocale();
+            }
+          });
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      return delegate.process(annotations, roundEnv);
+    }
+
+    @Override
+    public Iterable<? extends Completion> getCompletions(
+        Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+      return delegate.getCompletions(element, annotation, member, userText);
+    }
+  }
+}
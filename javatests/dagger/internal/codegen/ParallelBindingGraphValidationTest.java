@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static javax.tools.Diagnostic.Kind.ERROR;
+
+import androidx.room.compiler.processing.util.Source;
+import com.google.common.collect.ImmutableMap;
+import dagger.spi.model.BindingGraph;
+import dagger.spi.model.BindingGraphPlugin;
+import dagger.spi.model.DiagnosticReporter;
+import dagger.testing.compile.CompilerTests;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/** Tests for -Adagger.parallelBindingGraphValidation. */
+@RunWith(Parameterized.class)
+public final class ParallelBindingGraphValidationTest {
+  @Parameters(name = "parallel={0}")
+  public static Object[] parameters() {
+    return new Object[] {"disabled", "enabled"};
+  }
+
+  private static final Source FOO =
+      CompilerTests.javaSource(
+          "test.Foo",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "final class Foo {",
+          "  @Inject Foo(String string) {}",
+          "}");
+
+  private static final Source COMPONENT =
+      CompilerTests.javaSource(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "",
+          "@Component",
+          "interface TestComponent {",
+          "  Foo foo();",
+          "}");
+
+  private final String parallel;
+
+  public ParallelBindingGraphValidationTest(String parallel) {
+    this.parallel = parallel;
+  }
+
+  @Test
+  public void reportsEveryPluginsDiagnostics() {
+    CompilerTests.daggerCompiler(FOO, COMPONENT)
+        .withProcessingOptions(ImmutableMap.of("dagger.parallelBindingGraphValidation", parallel))
+        .withBindingGraphPlugins(
+            () -> new ErrorPlugin("FirstPlugin"), () -> new ErrorPlugin("SecondPlugin"))
+        .compile(
+            subject -> {
+              subject.hasErrorCount(3);
+              subject.hasErrorContaining("String cannot be provided");
+              subject
+                  .hasErrorContaining("[FirstPlugin] Error!")
+                  .onSource(COMPONENT)
+                  .onLineContaining("interface TestComponent");
+              subject
+                  .hasErrorContaining("[SecondPlugin] Error!")
+                  .onSource(COMPONENT)
+                  .onLineContaining("interface TestComponent");
+            });
+  }
+
+  @Test
+  public void validationPluginsReportTheSameDiagnostics() {
+    // NullableBindingValidator is thread-safe and MissingBindingValidator is not, so with
+    // parallelBindingGraphValidation enabled they visit the graph at the same time on different
+    // threads. The diagnostics must be the same as when they run sequentially.
+    Source nullable =
+        CompilerTests.javaSource(
+            "test.Nullable", // force one-string-per-line format
+            "package test;",
+            "",
+            "public @interface Nullable {}");
+    Source bar =
+        CompilerTests.javaSource(
+            "test.Bar",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "final class Bar {",
+            "  @Inject Bar(String string, Baz baz) {}",
+            "}");
+    Source baz =
+        CompilerTests.javaSource(
+            "test.Baz", // force one-string-per-line format
+            "package test;",
+            "",
+            "interface Baz {}");
+    Source module =
+        CompilerTests.javaSource(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "",
+            "@Module",
+            "final class TestModule {",
+            "  @Nullable @Provides static String string() { return null; }",
+            "}");
+    Source component =
+        CompilerTests.javaSource(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component(modules = TestModule.class)",
+            "interface TestComponent {",
+            "  Bar bar();",
+            "}");
+
+    CompilerTests.daggerCompiler(nullable, bar, baz, module, component)
+        .withProcessingOptions(ImmutableMap.of("dagger.parallelBindingGraphValidation", parallel))
+        .compile(
+            subject -> {
+              subject.hasErrorCount(2);
+              subject
+                  .hasErrorContaining(
+                      "String is not nullable, but is being provided by "
+                          + "@Nullable @Provides String TestModule.string()")
+                  .onSource(component)
+                  .onLineContaining("interface TestComponent");
+              subject
+                  .hasErrorContaining("Baz cannot be provided without an @Provides-annotated method.")
+                  .onSource(component)
+                  .onLineContaining("interface TestComponent");
+            });
+  }
+
+  /** A test plugin that reports an error on the root component. */
+  private static final class ErrorPlugin implements BindingGraphPlugin {
+    private final String pluginName;
+
+    ErrorPlugin(String pluginName) {
+      this.pluginName = pluginName;
+    }
+
+    @Override
+    public void visitGraph(BindingGraph bindingGraph, DiagnosticReporter diagnosticReporter) {
+      diagnosticReporter.reportComponent(ERROR, bindingGraph.rootComponentNode(), "Error!");
+    }
+
+    @Override
+    public String pluginName() {
+      return pluginName;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import androidx.room.compiler.processing.util.Source;
+import com.google.common.collect.ImmutableMap;
+import dagger.testing.compile.CompilerTests;
+import java.io.File;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for -Adagger.profile. */
+@RunWith(JUnit4.class)
+public final class ProcessorProfilerTest {
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static final Source COMPONENT =
+      CompilerTests.javaSource(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "",
+          "@Component(modules = TestComponent.TestModule.class)",
+          "interface TestComponent {",
+          "  Object object();",
+          "",
+          "  @dagger.Module",
+          "  interface TestModule {",
+          "    @dagger.Provides",
+          "    static Object provideObject() {",
+          "      return new Object();",
+          "    }",
+          "  }",
+          "}");
+
+  @Test
+  public void writesTraceAndSummary() throws Exception {
+    File trace = new File(temporaryFolder.getRoot(), "profile/trace.json");
+    CompilerTests.daggerCompiler(COMPONENT)
+        .withProcessingOptions(ImmutableMap.of("dagger.profile", trace.getPath()))
+        .compile(subject -> subject.hasErrorCount(0));
+
+    String traceJson = new String(Files.readAllBytes(trace.toPath()), UTF_8);
+    assertThat(traceJson).startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+    assertThat(traceJson).contains("\"name\":\"bindingGraphResolution\"");
+    assertThat(traceJson).contains("\"name\":\"componentImplementation\"");
+    assertThat(traceJson).contains("\"component\":\"test.TestComponent\"");
+
+    String summary =
+        new String(
+            Files.readAllBytes(new File(trace.getPath() + ".summary.txt").toPath()), UTF_8);
+    assertThat(summary).contains("processRootComponent");
+    // Only whole components are listed as components, not the elements that are validated, such as
+    // the module.
+    String components = summary.substring(summary.indexOf("\nComponent "));
+    assertThat(components).contains("test.TestComponent");
+    assertThat(components).doesNotContain("TestModule");
+  }
+}
@@ -24,6 +24,8 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 import androidx.room.compiler.processing.util.Source;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.Hedged;
+import dagger.producers.ProducerTimeout;
 import dagger.testing.compile.CompilerTests;
 import dagger.testing.golden.GoldenFileRule;
 import java.lang.annotation.Retention;
@@ -103,6 +105,22 @@ public class ProducerModuleFactoryGeneratorTest {
                 + "a declared type, or a ListenableFuture of one of those types");
   }
 
+  @Test
+  public void producesMethodNonPositiveTimeout() {
+    assertThatProductionModuleMethod(
+            "@Produces @ProducerTimeout(0) String produceString() { return null; }")
+        .importing(ProducerTimeout.class)
+        .hasError("@ProducerTimeout values must be positive");
+  }
+
+  @Test
+  public void producesMethodHedgedPercentileOutOfRange() {
+    assertThatProductionModuleMethod(
+            "@Produces @Hedged(percentile = 100) String produceString() { return null; }")
+        .importing(Hedged.class)
+        .hasError("@Hedged percentiles must be greater than 0 and less than 100");
+  }
+
   @Test public void producesMethodWithTypeParameter() {
     assertThatProductionModuleMethod("@Produces <T> String produceString() { return null; }")
         .hasError("@Produces methods may not have type parameters");
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class BatcherTest {
+  private final QueueingExecutor executor = new QueueingExecutor();
+  private final TestBatcher batcher = new TestBatcher(executor);
+
+  @Test
+  public void coalescesKeysUntilExecutorRuns() throws Exception {
+    ListenableFuture<String> one = batcher.load(1);
+    ListenableFuture<String> two = batcher.load(2);
+    ListenableFuture<String> oneAgain = batcher.load(1);
+    assertThat(executor.tasks).hasSize(1);
+    assertThat(one.isDone()).isFalse();
+
+    executor.runAll();
+    assertThat(batcher.batches).hasSize(1);
+    assertThat(batcher.batches.get(0)).containsExactly(1, 2).inOrder();
+    batcher.result.set(ImmutableMap.of(1, "one", 2, "two"));
+    assertThat(one.get()).isEqualTo("one");
+    assertThat(two.get()).isEqualTo("two");
+    assertThat(oneAgain.get()).isEqualTo("one");
+  }
+
+  @Test
+  public void keysRequestedWhileLoadingAreInNextBatch() throws Exception {
+    ListenableFuture<String> one = batcher.load(1);
+    executor.runAll();
+    ListenableFuture<String> two = batcher.load(2);
+    batcher.result.set(ImmutableMap.of(1, "one"));
+    assertThat(one.get()).isEqualTo("one");
+    assertThat(two.isDone()).isFalse();
+
+    batcher.result = SettableFuture.create();
+    executor.runAll();
+    batcher.result.set(ImmutableMap.of(2, "two"));
+    assertThat(two.get()).isEqualTo("two");
+    assertThat(batcher.batches).hasSize(2);
+  }
+
+  @Test
+  public void missingValueFailsOnlyThatKey() throws Exception {
+    ListenableFuture<String> one = batcher.load(1);
+    ListenableFuture<String> two = batcher.load(2);
+    executor.runAll();
+    batcher.result.set(ImmutableMap.of(1, "one"));
+
+    assertThat(one.get()).isEqualTo("one");
+    try {
+      two.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isInstanceOf(IllegalStateException.class);
+    }
+  }
+
+  @Test
+  public void failedBatchFailsEveryKey() throws Exception {
+    ListenableFuture<String> one = batcher.load(1);
+    ListenableFuture<String> two = batcher.load(2);
+    executor.runAll();
+    Throwable cause = new RuntimeException("monkey");
+    batcher.result.setException(cause);
+
+    for (ListenableFuture<String> future : ImmutableList.of(one, two)) {
+      try {
+        future.get();
+        fail();
+      } catch (ExecutionException e) {
+        assertThat(e).hasCauseThat().isSameInstanceAs(cause);
+      }
+    }
+  }
+
+  @Test
+  public void errorFromLoadAllFailsEveryKeyAndIsRethrown() throws Exception {
+    ListenableFuture<String> one = batcher.load(1);
+    ListenableFuture<String> two = batcher.load(2);
+    Error error = new LinkageError("monkey");
+    batcher.error = error;
+    try {
+      executor.runAll();
+      fail();
+    } catch (LinkageError e) {
+      assertThat(e).isSameInstanceAs(error);
+    }
+
+    for (ListenableFuture<String> future : ImmutableList.of(one, two)) {
+      try {
+        future.get();
+        fail();
+      } catch (ExecutionException e) {
+        assertThat(e).hasCauseThat().isSameInstanceAs(error);
+      }
+    }
+  }
+
+  @Test
+  public void cancellingOneRequestDoesNotCancelOthers() throws Exception {
+    ListenableFuture<String> one = batcher.load(1);
+    ListenableFuture<String> oneAgain = batcher.load(1);
+    assertThat(one.cancel(true)).isTrue();
+    executor.runAll();
+    batcher.result.set(ImmutableMap.of(1, "one"));
+    assertThat(oneAgain.get()).isEqualTo("one");
+  }
+
+  private static final class TestBatcher extends Batcher<Integer, String> {
+    final List<Set<Integer>> batches = new ArrayList<>();
+    SettableFuture<Map<Integer, String>> result = SettableFuture.create();
+    Error error;
+
+    TestBatcher(Executor executor) {
+      super(executor);
+    }
+
+    @Override
+    protected ListenableFuture<Map<Integer, String>> loadAll(Set<Integer> keys) {
+      batches.add(new LinkedHashSet<>(keys));
+      if (error != null) {
+        throw error;
+      }
+      return Futures.nonCancellationPropagating(result);
+    }
+  }
+
+  private static final class QueueingExecutor implements Executor {
+    final List<Runnable> tasks = new ArrayList<>();
+
+    @Override
+    public void execute(Runnable task) {
+      tasks.add(task);
+    }
+
+    void runAll() {
+      List<Runnable> toRun = new ArrayList<>(tasks);
+      tasks.clear();
+      for (Runnable task : toRun) {
+        task.run();
+      }
+    }
+  }
+}
@@ -21,6 +21,7 @@ import static org.junit.Assert.fail;
 
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import dagger.producers.Producer;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -57,6 +58,55 @@ public class AbstractProducerTest {
     assertThat(producer.get().get()).isEqualTo(0);
   }
 
+  @Test
+  public void dependencyView_cancellingViewDoesNotCancelProducer() throws Exception {
+    SettableFuture<Integer> delegate = SettableFuture.create();
+    AbstractProducer<Integer> producer = new DelegateProducer<>(delegate);
+    Producer<Integer> view = producer.newDependencyView();
+
+    ListenableFuture<Integer> viewFuture = view.get();
+    assertThat(view.get()).isSameInstanceAs(viewFuture);
+    assertThat(viewFuture.cancel(true)).isTrue();
+    assertThat(producer.get().isCancelled()).isFalse();
+    assertThat(delegate.isCancelled()).isFalse();
+
+    delegate.set(42);
+    assertThat(producer.get().get()).isEqualTo(42);
+  }
+
+  @Test
+  public void dependencyView_cancellingProducerCancelsView() {
+    SettableFuture<Integer> delegate = SettableFuture.create();
+    AbstractProducer<Integer> producer = new DelegateProducer<>(delegate);
+    Producer<Integer> view = producer.newDependencyView();
+
+    ListenableFuture<Integer> viewFuture = view.get();
+    producer.cancel(false);
+    assertThat(viewFuture.isCancelled()).isTrue();
+    assertThat(producer.newDependencyView().get().isCancelled()).isTrue();
+  }
+
+  @Test
+  public void dependencyView_requestedAfterCancellation() {
+    SettableFuture<Integer> delegate = SettableFuture.create();
+    AbstractProducer<Integer> producer = new DelegateProducer<>(delegate);
+    Producer<Integer> view = producer.newDependencyView();
+
+    producer.cancel(false);
+    assertThat(view.get().isCancelled()).isTrue();
+    assertThat(delegate.isDone()).isFalse(); // never requested
+  }
+
+  @Test
+  public void dependencyView_ofDoneProducer() throws Exception {
+    AbstractProducer<Integer> producer = new DelegateProducer<>(Futures.immediateFuture(42));
+    Producer<Integer> view = producer.newDependencyView();
+
+    assertThat(view.get().get()).isEqualTo(42);
+    assertThat(view.get().cancel(true)).isFalse();
+    assertThat(producer.get().get()).isEqualTo(42);
+  }
+
   static final class DelegateProducer<T> extends AbstractProducer<T> {
     private final ListenableFuture<T> delegate;
 
@@ -20,6 +20,8 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -29,11 +31,16 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 import dagger.producers.Producer;
+import dagger.producers.ProducerTimeoutException;
+import dagger.producers.ProductionDeadline;
 import dagger.producers.monitoring.ProducerMonitor;
 import dagger.producers.monitoring.ProducerToken;
 import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Provider;
 import org.junit.Before;
 import org.junit.Test;
@@ -108,6 +115,127 @@ public class AbstractProducesMethodProducerTest {
     verifyNoMoreInteractions(monitor);
   }
 
+  @Test
+  public void nonBlocking_runsInlineWithoutExecutor() throws Exception {
+    RecordingExecutor executor = new RecordingExecutor();
+    ThreadRecordingProducer producer =
+        new ThreadRecordingProducer(componentMonitorProvider, executor, /* nonBlocking= */ true);
+
+    ListenableFuture<Thread> future = producer.get();
+    assertThat(future.isDone()).isTrue();
+    assertThat(future.get()).isSameInstanceAs(Thread.currentThread());
+    assertThat(executor.tasks).isEmpty();
+    verify(monitor).requested();
+    verify(monitor).ready();
+    verify(monitor).runningInline();
+    verify(monitor).methodStarting();
+    verify(monitor).methodFinished();
+    verify(monitor).addCallbackTo(anyListenableFuture());
+    verify(monitor).succeeded(Thread.currentThread());
+    verifyNoMoreInteractions(monitor);
+  }
+
+  @Test
+  public void blocking_runsOnExecutor() throws Exception {
+    RecordingExecutor executor = new RecordingExecutor();
+    ThreadRecordingProducer producer =
+        new ThreadRecordingProducer(componentMonitorProvider, executor, /* nonBlocking= */ false);
+
+    ListenableFuture<Thread> future = producer.get();
+    assertThat(future.isDone()).isFalse();
+    assertThat(executor.tasks).hasSize(1);
+    verify(monitor, never()).runningInline();
+    verify(monitor, never()).methodStarting();
+
+    executor.tasks.get(0).run();
+    assertThat(future.get()).isSameInstanceAs(Thread.currentThread());
+    verify(monitor).methodStarting();
+    verify(monitor).methodFinished();
+  }
+
+  @Test
+  public void timeout_failsPendingMethodFuture() throws Exception {
+    SettableFuture<Integer> methodFuture = SettableFuture.create();
+    Producer<Integer> producer =
+        new TimedProducer<>(
+            componentMonitorProvider,
+            MoreExecutors.directExecutor(),
+            methodFuture,
+            TimeUnit.MILLISECONDS.toNanos(10));
+
+    ListenableFuture<Integer> future = producer.get();
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isInstanceOf(ProducerTimeoutException.class);
+      assertThat(((ProducerTimeoutException) e.getCause()).deadlineExceeded()).isFalse();
+    }
+    assertThat(methodFuture.isCancelled()).isTrue();
+    verify(monitor, timeout(10_000)).failed(any(ProducerTimeoutException.class));
+  }
+
+  @Test
+  public void timeout_doesNotAffectMethodFutureThatCompletesInTime() throws Exception {
+    SettableFuture<Integer> methodFuture = SettableFuture.create();
+    Producer<Integer> producer =
+        new TimedProducer<>(
+            componentMonitorProvider,
+            MoreExecutors.directExecutor(),
+            methodFuture,
+            TimeUnit.SECONDS.toNanos(10));
+
+    ListenableFuture<Integer> future = producer.get();
+    methodFuture.set(42);
+    assertThat(future.get()).isEqualTo(42);
+    verify(monitor).succeeded(42);
+  }
+
+  @Test
+  public void deadline_passedBeforeMethodStarts() throws Exception {
+    SettableFuture<Integer> methodFuture = SettableFuture.create();
+    TimedProducer<Integer> producer =
+        new TimedProducer<>(
+            componentMonitorProvider,
+            ProductionDeadline.after(0, TimeUnit.NANOSECONDS, MoreExecutors.directExecutor()),
+            methodFuture,
+            0);
+
+    ListenableFuture<Integer> future = producer.get();
+    assertThat(future.isDone()).isTrue();
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isInstanceOf(ProducerTimeoutException.class);
+      assertThat(((ProducerTimeoutException) e.getCause()).deadlineExceeded()).isTrue();
+    }
+    assertThat(producer.methodCalled).isFalse();
+    verify(monitor).methodStarting();
+    verify(monitor).methodFinished();
+    verify(monitor).failed(any(ProducerTimeoutException.class));
+  }
+
+  @Test
+  public void deadline_limitsRunningMethod() throws Exception {
+    SettableFuture<Integer> methodFuture = SettableFuture.create();
+    Producer<Integer> producer =
+        new TimedProducer<>(
+            componentMonitorProvider,
+            ProductionDeadline.after(10, TimeUnit.MILLISECONDS, MoreExecutors.directExecutor()),
+            methodFuture,
+            TimeUnit.SECONDS.toNanos(10));
+
+    try {
+      producer.get().get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isInstanceOf(ProducerTimeoutException.class);
+      assertThat(((ProducerTimeoutException) e.getCause()).deadlineExceeded()).isTrue();
+    }
+    assertThat(methodFuture.isCancelled()).isTrue();
+  }
+
   private ListenableFuture<?> anyListenableFuture() {
     return any(ListenableFuture.class);
   }
@@ -117,6 +245,82 @@ public class AbstractProducesMethodProducerTest {
     new DelegateProducer<>(null, Futures.immediateFuture(42));
   }
 
+  static final class TimedProducer<T> extends AbstractProducesMethodProducer<Void, T> {
+    private final ListenableFuture<T> methodFuture;
+    boolean methodCalled;
+
+    TimedProducer(
+        Provider<ProductionComponentMonitor> componentMonitorProvider,
+        final Executor executor,
+        ListenableFuture<T> methodFuture,
+        long timeoutNanos) {
+      super(
+          componentMonitorProvider,
+          null, // token
+          new Provider<Executor>() {
+            @Override
+            public Executor get() {
+              return executor;
+            }
+          },
+          false, // nonBlocking
+          timeoutNanos,
+          null); // hedgePolicy
+      this.methodFuture = methodFuture;
+    }
+
+    @Override
+    protected ListenableFuture<Void> collectDependencies() {
+      return Futures.immediateFuture(null);
+    }
+
+    @Override
+    protected ListenableFuture<T> callProducesMethod(Void asyncDependencies) {
+      methodCalled = true;
+      return methodFuture;
+    }
+  }
+
+  static final class RecordingExecutor implements Executor {
+    final List<Runnable> tasks = new ArrayList<>();
+
+    @Override
+    public void execute(Runnable task) {
+      tasks.add(task);
+    }
+  }
+
+  static final class ThreadRecordingProducer
+      extends AbstractProducesMethodProducer<Void, Thread> {
+    ThreadRecordingProducer(
+        Provider<ProductionComponentMonitor> componentMonitorProvider,
+        final Executor executor,
+        boolean nonBlocking) {
+      super(
+          componentMonitorProvider,
+          null, // token
+          new Provider<Executor>() {
+            @Override
+            public Executor get() {
+              return executor;
+            }
+          },
+          nonBlocking,
+          0, // timeoutNanos
+          null); // hedgePolicy
+    }
+
+    @Override
+    protected ListenableFuture<Void> collectDependencies() {
+      return Futures.immediateFuture(null);
+    }
+
+    @Override
+    protected ListenableFuture<Thread> callProducesMethod(Void asyncDependencies) {
+      return Futures.immediateFuture(Thread.currentThread());
+    }
+  }
+
   static final class DelegateProducer<T> extends AbstractProducesMethodProducer<Void, T> {
     private final ListenableFuture<T> delegate;
 
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.ContributionStream;
+import dagger.producers.Producer;
+import dagger.producers.Producers;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests {@link ContributionStreamProducer}. */
+@RunWith(JUnit4.class)
+public class ContributionStreamProducerTest {
+  @Test
+  public void success() throws Exception {
+    Producer<ContributionStream<Integer>> producer =
+        ContributionStreamProducer.<Integer>builder(1, 1)
+            .addProducer(Producers.immediateProducer(1))
+            .addCollectionProducer(Producers.<Set<Integer>>immediateProducer(ImmutableSet.of(5, 7)))
+            .build();
+    ContributionStream<Integer> stream = producer.get().get();
+    assertThat(stream.contributionCount()).isEqualTo(2);
+    assertThat(stream.toSet().get()).containsExactly(1, 5, 7);
+  }
+
+  @Test
+  public void empty() throws Exception {
+    ContributionStream<Integer> stream =
+        ContributionStreamProducer.<Integer>empty().get().get();
+    assertThat(stream.toSet().get()).isEmpty();
+    assertThat(stream.forEach(new RecordingListener<Integer>(), directExecutor()).isDone())
+        .isTrue();
+  }
+
+  @Test
+  public void streamIsAvailableBeforeContributions() throws Exception {
+    SettableFuture<Integer> first = SettableFuture.create();
+    SettableFuture<Set<Integer>> second = SettableFuture.create();
+    Producer<ContributionStream<Integer>> producer =
+        ContributionStreamProducer.<Integer>builder(1, 1)
+            .addProducer(producerOf(first))
+            .addCollectionProducer(producerOf(second))
+            .build();
+    ListenableFuture<ContributionStream<Integer>> future = producer.get();
+    assertThat(future.isDone()).isTrue();
+
+    RecordingListener<Integer> listener = new RecordingListener<Integer>();
+    ListenableFuture<Void> delivered = future.get().forEach(listener, directExecutor());
+    assertThat(listener.elements).isEmpty();
+
+    second.set(ImmutableSet.of(5, 7));
+    assertThat(listener.elements).containsExactly(5, 7).inOrder();
+    assertThat(delivered.isDone()).isFalse();
+
+    first.set(1);
+    assertThat(listener.elements).containsExactly(5, 7, 1).inOrder();
+    assertThat(delivered.isDone()).isTrue();
+  }
+
+  @Test
+  public void delegateFailure_otherContributionsStillDelivered() throws Exception {
+    SettableFuture<Integer> failing = SettableFuture.create();
+    SettableFuture<Integer> succeeding = SettableFuture.create();
+    ContributionStream<Integer> stream =
+        ContributionStreamProducer.<Integer>builder(2, 0)
+            .addProducer(producerOf(failing))
+            .addProducer(producerOf(succeeding))
+            .build()
+            .get()
+            .get();
+    RecordingListener<Integer> listener = new RecordingListener<Integer>();
+    ListenableFuture<Void> delivered = stream.forEach(listener, directExecutor());
+
+    RuntimeException cause = new RuntimeException("monkey");
+    failing.setException(cause);
+    succeeding.set(2);
+    assertThat(listener.elements).containsExactly(2);
+    try {
+      delivered.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isSameInstanceAs(cause);
+    }
+  }
+
+  @Test
+  public void delegateElementNpe() throws Exception {
+    ContributionStream<Integer> stream =
+        ContributionStreamProducer.<Integer>builder(0, 1)
+            .addCollectionProducer(
+                Producers.<Set<Integer>>immediateProducer(
+                    Collections.<Integer>singleton(null)))
+            .build()
+            .get()
+            .get();
+    try {
+      stream.toSet().get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isInstanceOf(NullPointerException.class);
+    }
+  }
+
+  @Test
+  public void cancelingDeliveryDoesNotCancelContributions() throws Exception {
+    SettableFuture<Integer> contribution = SettableFuture.create();
+    ContributionStream<Integer> stream =
+        ContributionStreamProducer.<Integer>builder(1, 0)
+            .addProducer(producerOf(contribution))
+            .build()
+            .get()
+            .get();
+    RecordingListener<Integer> listener = new RecordingListener<Integer>();
+    stream.forEach(listener, directExecutor()).cancel(true);
+
+    assertThat(contribution.isCancelled()).isFalse();
+    contribution.set(1);
+    assertThat(listener.elements).isEmpty();
+    assertThat(stream.toSet().get()).containsExactly(1);
+  }
+
+  @Test
+  public void cancelingSetDoesNotCancelContributions() throws Exception {
+    SettableFuture<Integer> contribution = SettableFuture.create();
+    ContributionStream<Integer> stream =
+        ContributionStreamProducer.<Integer>builder(1, 0)
+            .addProducer(producerOf(contribution))
+            .build()
+            .get()
+            .get();
+    assertThat(stream.toSet().cancel(true)).isTrue();
+
+    assertThat(contribution.isCancelled()).isFalse();
+    contribution.set(1);
+    assertThat(stream.toSet().get()).containsExactly(1);
+  }
+
+  private static <T> Producer<T> producerOf(final ListenableFuture<T> future) {
+    return new Producer<T>() {
+      @Override
+      public ListenableFuture<T> get() {
+        return future;
+      }
+    };
+  }
+
+  private static final class RecordingListener<T> implements ContributionStream.Listener<T> {
+    final List<T> elements = new ArrayList<T>();
+
+    @Override
+    public void onElement(T element) {
+      elements.add(element);
+    }
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.AsyncCallable;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.monitoring.ProducerMonitor;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class HedgePolicyTest {
+  private final HedgePolicy policy = HedgePolicy.atPercentile(95);
+  private final RecordingMonitor monitor = new RecordingMonitor();
+
+  @Test
+  public void noHedgingUntilLatenciesAreRecorded() {
+    SettableFuture<String> primary = SettableFuture.create();
+    HedgeCallable<String> hedge = new HedgeCallable<>(Futures.immediateFuture("hedge"));
+
+    assertThat(policy.delayNanos()).isEqualTo(0);
+    assertThat(policy.hedge(primary, hedge, directExecutor(), monitor, System.nanoTime()))
+        .isSameInstanceAs(primary);
+    primary.set("primary");
+    assertThat(hedge.calls.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void delayIsPercentileOfRecordedLatencies() {
+    for (int i = 1; i <= 64; i++) {
+      assertThat(policy.delayNanos()).isEqualTo(0);
+      policy.record(MILLISECONDS.toNanos(i));
+    }
+    assertThat(policy.delayNanos()).isAtLeast(MILLISECONDS.toNanos(58));
+    assertThat(policy.delayNanos()).isAtMost(MILLISECONDS.toNanos(64));
+  }
+
+  @Test
+  public void failuresAreNotRecorded() {
+    for (int i = 0; i < 64; i++) {
+      ListenableFuture<String> primary =
+          Futures.immediateFailedFuture(new RuntimeException("primary"));
+      policy.hedge(primary, new HedgeCallable<String>(primary), directExecutor(), monitor, 0);
+    }
+    assertThat(policy.delayNanos()).isEqualTo(0);
+
+    for (int i = 0; i < 64; i++) {
+      ListenableFuture<String> primary = Futures.immediateFuture("primary");
+      policy.hedge(primary, new HedgeCallable<String>(primary), directExecutor(), monitor, 0);
+    }
+    assertThat(policy.delayNanos()).isAtLeast(1L);
+  }
+
+  @Test
+  public void hedgeWins() throws Exception {
+    warmUp();
+    SettableFuture<String> primary = SettableFuture.create();
+    HedgeCallable<String> hedge = new HedgeCallable<>(Futures.immediateFuture("hedge"));
+
+    ListenableFuture<String> result =
+        policy.hedge(primary, hedge, directExecutor(), monitor, System.nanoTime());
+    assertThat(result.get(10, SECONDS)).isEqualTo("hedge");
+    awaitCancellation(primary);
+    assertThat(monitor.hedgesStarting.get()).isEqualTo(1);
+    assertThat(monitor.hedgesWon.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void primaryWins() throws Exception {
+    warmUp();
+    SettableFuture<String> primary = SettableFuture.create();
+    SettableFuture<String> hedgeFuture = SettableFuture.create();
+    HedgeCallable<String> hedge = new HedgeCallable<>(hedgeFuture);
+
+    ListenableFuture<String> result =
+        policy.hedge(primary, hedge, directExecutor(), monitor, System.nanoTime());
+    hedge.called.await(10, SECONDS);
+    primary.set("primary");
+    assertThat(result.get()).isEqualTo("primary");
+    awaitCancellation(hedgeFuture);
+    assertThat(monitor.hedgesStarting.get()).isEqualTo(1);
+    assertThat(monitor.hedgesWon.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void primaryFailure_waitsForHedge() throws Exception {
+    warmUp();
+    SettableFuture<String> primary = SettableFuture.create();
+    SettableFuture<String> hedgeFuture = SettableFuture.create();
+    HedgeCallable<String> hedge = new HedgeCallable<>(hedgeFuture);
+
+    ListenableFuture<String> result =
+        policy.hedge(primary, hedge, directExecutor(), monitor, System.nanoTime());
+    hedge.called.await(10, SECONDS);
+    primary.setException(new RuntimeException("primary"));
+    assertThat(result.isDone()).isFalse();
+    hedgeFuture.set("hedge");
+    assertThat(result.get()).isEqualTo("hedge");
+    assertThat(monitor.hedgesWon.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void bothFail() throws Exception {
+    warmUp();
+    SettableFuture<String> primary = SettableFuture.create();
+    SettableFuture<String> hedgeFuture = SettableFuture.create();
+    HedgeCallable<String> hedge = new HedgeCallable<>(hedgeFuture);
+
+    ListenableFuture<String> result =
+        policy.hedge(primary, hedge, directExecutor(), monitor, System.nanoTime());
+    hedge.called.await(10, SECONDS);
+    primary.setException(new RuntimeException("primary"));
+    RuntimeException hedgeFailure = new RuntimeException("hedge");
+    hedgeFuture.setException(hedgeFailure);
+    try {
+      result.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isSameInstanceAs(hedgeFailure);
+    }
+    assertThat(monitor.hedgesWon.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void cancellingResultCancelsBothInvocations() throws Exception {
+    warmUp();
+    SettableFuture<String> primary = SettableFuture.create();
+    SettableFuture<String> hedgeFuture = SettableFuture.create();
+    HedgeCallable<String> hedge = new HedgeCallable<>(hedgeFuture);
+
+    ListenableFuture<String> result =
+        policy.hedge(primary, hedge, directExecutor(), monitor, System.nanoTime());
+    hedge.called.await(10, SECONDS);
+    result.cancel(false);
+    assertThat(primary.isCancelled()).isTrue();
+    awaitCancellation(hedgeFuture);
+  }
+
+  @Test
+  public void completedPrimaryIsNotHedged() throws Exception {
+    warmUp();
+    ListenableFuture<String> primary = Futures.immediateFuture("primary");
+    HedgeCallable<String> hedge = new HedgeCallable<>(Futures.immediateFuture("hedge"));
+
+    assertThat(policy.hedge(primary, hedge, directExecutor(), monitor, System.nanoTime()))
+        .isSameInstanceAs(primary);
+    assertThat(hedge.calls.get()).isEqualTo(0);
+  }
+
+  /** Records enough short latencies that invocations are hedged almost immediately. */
+  private void warmUp() {
+    for (int i = 0; i < 64; i++) {
+      policy.record(1);
+    }
+    assertThat(policy.delayNanos()).isEqualTo(1);
+  }
+
+  /**
+   * Waits for the losing invocation's future to be cancelled, which happens on the thread that
+   * completes the result, or when the hedge has finished starting on the timer thread.
+   */
+  private static void awaitCancellation(ListenableFuture<?> future) throws Exception {
+    final CountDownLatch cancelled = new CountDownLatch(1);
+    future.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            cancelled.countDown();
+          }
+        },
+        directExecutor());
+    assertThat(cancelled.await(10, SECONDS)).isTrue();
+    assertThat(future.isCancelled()).isTrue();
+  }
+
+  private static final class HedgeCallable<T> implements AsyncCallable<T> {
+    final AtomicInteger calls = new AtomicInteger();
+    final CountDownLatch called = new CountDownLatch(1);
+    private final ListenableFuture<T> future;
+
+    HedgeCallable(ListenableFuture<T> future) {
+      this.future = future;
+    }
+
+    @Override
+    public ListenableFuture<T> call() {
+      calls.incrementAndGet();
+      called.countDown();
+      return future;
+    }
+  }
+
+  private static final class RecordingMonitor extends ProducerMonitor {
+    final AtomicInteger hedgesStarting = new AtomicInteger();
+    final AtomicInteger hedgesWon = new AtomicInteger();
+
+    @Override
+    public void hedgeStarting() {
+      hedgesStarting.incrementAndGet();
+    }
+
+    @Override
+    public void hedgeWon() {
+      hedgesWon.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ProducerTasksTest {
+  private final List<String> ran = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    ProducerTasks.trackTasks();
+  }
+
+  @Test
+  public void deferredActionsRunAfterOutermostTask() {
+    ProducerTasks.enter();
+    ProducerTasks.enter();
+    ProducerTasks.runAfterCurrentTasks(record("a"));
+    ProducerTasks.exit();
+    assertThat(ran).isEmpty();
+
+    ProducerTasks.exit();
+    assertThat(ran).containsExactly("a");
+  }
+
+  @Test
+  public void deferredActionsRunEvenIfOneThrows() {
+    RuntimeException first = new RuntimeException("first");
+    RuntimeException second = new IllegalStateException("second");
+    ProducerTasks.enter();
+    ProducerTasks.runAfterCurrentTasks(recordAndThrow("a", first));
+    ProducerTasks.runAfterCurrentTasks(recordAndThrow("b", second));
+    ProducerTasks.runAfterCurrentTasks(record("c"));
+    try {
+      ProducerTasks.exit();
+      fail();
+    } catch (RuntimeException e) {
+      assertThat(e).isSameInstanceAs(first);
+      assertThat(e.getSuppressed()).asList().containsExactly(second);
+    }
+    assertThat(ran).containsExactly("a", "b", "c").inOrder();
+    assertThat(ProducerTasks.depth()).isEqualTo(0);
+
+    // None of the actions is left for a later task on this thread.
+    ProducerTasks.enter();
+    ProducerTasks.exit();
+    assertThat(ran).hasSize(3);
+  }
+
+  @Test
+  public void exitOfTaskThatStartedBeforeTracking_isIgnored() {
+    ProducerTasks.exit();
+    assertThat(ProducerTasks.depth()).isEqualTo(0);
+
+    ProducerTasks.enter();
+    ProducerTasks.runAfterCurrentTasks(record("a"));
+    ProducerTasks.exit();
+    assertThat(ran).containsExactly("a");
+  }
+
+  private Runnable record(final String name) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        ran.add(name);
+      }
+    };
+  }
+
+  private Runnable recordAndThrow(final String name, final RuntimeException exception) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        ran.add(name);
+        throw exception;
+      }
+    };
+  }
+}
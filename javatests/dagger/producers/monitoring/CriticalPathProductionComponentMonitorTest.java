@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.testing.FakeTicker;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class CriticalPathProductionComponentMonitorTest {
+  private static final ProducerToken TOKEN_A = ProducerToken.create("a");
+  private static final ProducerToken TOKEN_B = ProducerToken.create("b");
+  private static final ProducerToken TOKEN_C = ProducerToken.create("c");
+  private static final ProducerToken TOKEN_D = ProducerToken.create("d");
+
+  private FakeTicker ticker;
+  private CriticalPathProductionComponentMonitor.Factory monitorFactory;
+
+  @Before
+  public void setUp() {
+    ticker = new FakeTicker();
+    monitorFactory = new CriticalPathProductionComponentMonitor.Factory(ticker);
+  }
+
+  @Test
+  public void diamond_recordsSlowerBranch() {
+    // d depends on b and c, which both depend on a.
+    ProductionComponentMonitor monitor = monitorFactory.create(new Object());
+    ProducerMonitor d = monitor.producerMonitorFor(TOKEN_D);
+    ProducerMonitor b = monitor.producerMonitorFor(TOKEN_B);
+    ProducerMonitor c = monitor.producerMonitorFor(TOKEN_C);
+    ProducerMonitor a = monitor.producerMonitorFor(TOKEN_A);
+    d.requested();
+    b.requested();
+    c.requested();
+    a.requested();
+    a.ready();
+    ticker.advance(10);
+    a.succeeded(new Object());
+    b.readyAfter(TOKEN_A);
+    b.ready();
+    c.readyAfter(TOKEN_A);
+    c.ready();
+    ticker.advance(2);
+    b.succeeded(new Object());
+    ticker.advance(3);
+    c.succeeded(new Object());
+    d.readyAfter(TOKEN_C);
+    d.ready();
+    assertThat(monitorFactory.criticalPathLatencies()).isEmpty();
+
+    ticker.advance(4);
+    d.succeeded(new Object());
+
+    ImmutableMap<ProducerToken, LatencyHistogram.Snapshot> latencies =
+        monitorFactory.criticalPathLatencies();
+    assertThat(latencies.keySet()).containsExactly(TOKEN_A, TOKEN_C, TOKEN_D);
+    assertThat(latencies.get(TOKEN_A).max()).isEqualTo(10);
+    assertThat(latencies.get(TOKEN_C).max()).isEqualTo(5);
+    assertThat(latencies.get(TOKEN_D).max()).isEqualTo(4);
+  }
+
+  @Test
+  public void inputsAvailableWhenRequested_startsPathAtRequest() {
+    ProductionComponentMonitor monitor = monitorFactory.create(new Object());
+    ProducerMonitor b = monitor.producerMonitorFor(TOKEN_B);
+    ProducerMonitor a = monitor.producerMonitorFor(TOKEN_A);
+    b.requested();
+    ticker.advance(1);
+    a.requested();
+    a.ready();
+    a.succeeded(new Object());
+    ticker.advance(2);
+    b.ready();
+    ticker.advance(7);
+    b.failed(new RuntimeException("monkey"));
+
+    ImmutableMap<ProducerToken, LatencyHistogram.Snapshot> latencies =
+        monitorFactory.criticalPathLatencies();
+    assertThat(latencies.keySet()).containsExactly(TOKEN_B);
+    assertThat(latencies.get(TOKEN_B).max()).isEqualTo(10);
+  }
+
+  @Test
+  public void aggregatesAcrossComponents() {
+    for (int i = 1; i <= 3; i++) {
+      ProductionComponentMonitor monitor = monitorFactory.create(new Object());
+      ProducerMonitor a = monitor.producerMonitorFor(TOKEN_A);
+      a.requested();
+      ticker.advance(i);
+      a.succeeded(new Object());
+    }
+
+    LatencyHistogram.Snapshot latencies = monitorFactory.criticalPathLatencies().get(TOKEN_A);
+    assertThat(latencies.count()).isEqualTo(3);
+    assertThat(latencies.valueAtPercentile(50)).isEqualTo(2);
+    assertThat(latencies.max()).isEqualTo(3);
+  }
+}
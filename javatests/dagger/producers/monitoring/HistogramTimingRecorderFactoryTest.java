@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class HistogramTimingRecorderFactoryTest {
+  private static final ProducerToken TOKEN_A = ProducerToken.create("a");
+  private static final ProducerToken TOKEN_B = ProducerToken.create("b");
+
+  private final HistogramTimingRecorderFactory factory = new HistogramTimingRecorderFactory();
+
+  @Test
+  public void aggregatesAcrossComponents() {
+    for (int i = 1; i <= 4; i++) {
+      ProducerTimingRecorder recorder =
+          factory.create(new Object()).producerTimingRecorderFor(TOKEN_A);
+      recorder.recordMethod(0, i);
+      recorder.recordSuccess(i * 2);
+    }
+
+    HistogramTimingRecorderFactory.ProducerTimings timings = factory.snapshot().get(TOKEN_A);
+    assertThat(timings.methodDurations().count()).isEqualTo(4);
+    assertThat(timings.methodDurations().valueAtPercentile(50)).isEqualTo(2);
+    assertThat(timings.methodDurations().max()).isEqualTo(4);
+    assertThat(timings.successLatencies().count()).isEqualTo(4);
+    assertThat(timings.successLatencies().max()).isEqualTo(8);
+    assertThat(timings.failureLatencies().count()).isEqualTo(0);
+    assertThat(timings.skipCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void separatesProducersAndOutcomes() {
+    ProductionComponentTimingRecorder componentRecorder = factory.create(new Object());
+    ProducerTimingRecorder recorderA = componentRecorder.producerTimingRecorderFor(TOKEN_A);
+    ProducerTimingRecorder recorderB = componentRecorder.producerTimingRecorderFor(TOKEN_B);
+    recorderA.recordMethod(0, 1);
+    recorderA.recordFailure(new RuntimeException("monkey"), 3);
+    recorderB.recordSkip(new RuntimeException("gorilla"));
+
+    ImmutableMap<ProducerToken, HistogramTimingRecorderFactory.ProducerTimings> snapshot =
+        factory.snapshot();
+    assertThat(snapshot.keySet()).containsExactly(TOKEN_A, TOKEN_B);
+    assertThat(snapshot.get(TOKEN_A).successLatencies().count()).isEqualTo(0);
+    assertThat(snapshot.get(TOKEN_A).failureLatencies().max()).isEqualTo(3);
+    assertThat(snapshot.get(TOKEN_B).methodDurations().count()).isEqualTo(0);
+    assertThat(snapshot.get(TOKEN_B).skipCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void sharesRecordersBetweenComponents() {
+    assertThat(factory.create(new Object())).isSameInstanceAs(factory.create(new Object()));
+    assertThat(factory.create(new Object()).producerTimingRecorderFor(TOKEN_A))
+        .isSameInstanceAs(factory.create(new Object()).producerTimingRecorderFor(TOKEN_A));
+  }
+}
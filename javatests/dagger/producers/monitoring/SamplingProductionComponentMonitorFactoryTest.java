@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2022 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class SamplingProductionComponentMonitorFactoryTest {
+  private final ProductionComponentMonitor monitor =
+      new ProductionComponentMonitor() {
+        @Override
+        public ProducerMonitor producerMonitorFor(ProducerToken token) {
+          return new ProducerMonitor() {};
+        }
+      };
+
+  private final ProductionComponentMonitor.Factory delegate =
+      new ProductionComponentMonitor.Factory() {
+        @Override
+        public ProductionComponentMonitor create(Object component) {
+          return monitor;
+        }
+      };
+
+  @Test
+  public void sampleRateOne_monitorsEveryComponent() {
+    SamplingProductionComponentMonitorFactory factory =
+        new SamplingProductionComponentMonitorFactory(delegate, 1);
+    for (int i = 0; i < 100; i++) {
+      assertThat(factory.create(new Object())).isSameInstanceAs(monitor);
+    }
+  }
+
+  @Test
+  public void sampleRateZero_returnsNoOp() {
+    SamplingProductionComponentMonitorFactory factory =
+        new SamplingProductionComponentMonitorFactory(delegate, 0);
+    for (int i = 0; i < 100; i++) {
+      assertThat(factory.create(new Object())).isSameInstanceAs(ProductionComponentMonitor.noOp());
+    }
+  }
+
+  @Test
+  public void setSampleRate_affectsLaterComponents() {
+    SamplingProductionComponentMonitorFactory factory =
+        new SamplingProductionComponentMonitorFactory(delegate, 0);
+    assertThat(factory.create(new Object())).isSameInstanceAs(ProductionComponentMonitor.noOp());
+
+    factory.setSampleRate(1);
+
+    assertThat(factory.sampleRate()).isEqualTo(1.0);
+    assertThat(factory.create(new Object())).isSameInstanceAs(monitor);
+  }
+
+  @Test
+  public void partialSampleRate_monitorsSomeComponents() {
+    SamplingProductionComponentMonitorFactory factory =
+        new SamplingProductionComponentMonitorFactory(delegate, 0.5);
+    int monitored = 0;
+    for (int i = 0; i < 10000; i++) {
+      if (factory.create(new Object()) == monitor) {
+        monitored++;
+      }
+    }
+    // The chance of falling outside these bounds is far below one in a billion.
+    assertThat(monitored).isAtLeast(4000);
+    assertThat(monitored).isAtMost(6000);
+  }
+
+  @Test
+  public void invalidSampleRate() {
+    SamplingProductionComponentMonitorFactory factory =
+        new SamplingProductionComponentMonitorFactory(delegate, 0.5);
+    for (double sampleRate : new double[] {-0.1, 1.1, Double.NaN}) {
+      try {
+        factory.setSampleRate(sampleRate);
+        fail();
+      } catch (IllegalArgumentException expected) {
+      }
+    }
+    assertThat(factory.sampleRate()).isEqualTo(0.5);
+  }
+}